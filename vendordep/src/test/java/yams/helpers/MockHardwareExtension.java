@@ -4,6 +4,7 @@ import edu.wpi.first.hal.HAL;
 import edu.wpi.first.wpilibj.simulation.DriverStationSim;
 import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.simulation.SimHooks;
+import yams.motorcontrollers.simulation.SimClock;
 
 /**
  * JUnit 5 testing extension which ensures all WPILib foundational bits are
@@ -16,6 +17,7 @@ public final class MockHardwareExtension {
 	}
 
 	public static void afterAll() {
+		SimClock.disable();
 		RoboRioSim.resetData();
 		DriverStationSim.resetData();
 		DriverStationSim.notifyNewData();
@@ -30,5 +32,6 @@ public final class MockHardwareExtension {
     DriverStationSim.setEnabled(true);
     DriverStationSim.notifyNewData();
     SimHooks.stepTiming(0.0); // Wait for Notifiers
+    SimClock.enable(); // Notifiers only run when the scheduler pump steps the sim clock.
 	}
 }
\ No newline at end of file
@@ -4,10 +4,10 @@ import edu.wpi.first.units.Units;
 import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.simulation.SimHooks;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 
 import java.util.concurrent.atomic.AtomicLong;
+import yams.motorcontrollers.simulation.SimClock;
 
 /**
  * Integration test helper class that will run the command scheduler. Use of
@@ -68,8 +68,7 @@ public final class SchedulerPumpHelper {
 		for (int i = 0; i < durationInMs.in(Units.Milliseconds)/heartbeatToUseInMs; i++) {
 			time.set((long) i * 20 * 1_000); // 20,000 microseconds = 20ms time step
 			CommandScheduler.getInstance().run();
-			SimHooks.stepTimingAsync(heartbeatToUseInMs);
-      Thread.sleep(1);
+			SimClock.step(Units.Milliseconds.of(heartbeatToUseInMs));
 			if(cycleRunnable != null)
 				cycleRunnable.run();
 		}
@@ -0,0 +1,194 @@
+package yams.math;
+
+import static edu.wpi.first.units.Units.Meters;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class DoubleJointedArmKinematicsTest
+{
+
+  private static final double LOWER = 1.0;
+  private static final double UPPER = 0.6;
+
+  private static DoubleJointedArmKinematics create()
+  {
+    return new DoubleJointedArmKinematics(Meters.of(LOWER), Meters.of(UPPER));
+  }
+
+  /**
+   * Get the signed elbow bend of a solution.
+   *
+   * @param lower Lower angle in radians.
+   * @param upper Upper angle in radians.
+   * @return Upper angle relative to the lower angle, in radians from -pi to pi.
+   */
+  private static double bend(double lower, double upper)
+  {
+    return Math.IEEEremainder(upper - lower, 2 * Math.PI);
+  }
+
+  @Test
+  void forwardOfSolveReturnsThePointOnBothBranches()
+  {
+    DoubleJointedArmKinematics kinematics = create();
+    double[]                   up         = new double[2];
+    double[]                   down       = new double[2];
+    double[]                   point      = new double[2];
+    for (double r = LOWER - UPPER + 0.05; r < LOWER + UPPER - 0.05; r += 0.1)
+    {
+      for (double bearing = -Math.PI; bearing < Math.PI; bearing += 0.3)
+      {
+        double x = r * Math.cos(bearing);
+        double y = r * Math.sin(bearing);
+        assertTrue(kinematics.solve(x, y, true, up, 0));
+        assertTrue(kinematics.solve(x, y, false, down, 0));
+        // Both branches are distinct and bend the elbow opposite ways.
+        assertTrue(bend(up[0], up[1]) * bend(down[0], down[1]) < 0);
+        kinematics.forward(up[0], up[1], point, 0);
+        assertEquals(x, point[0], 1e-9);
+        assertEquals(y, point[1], 1e-9);
+        kinematics.forward(down[0], down[1], point, 0);
+        assertEquals(x, point[0], 1e-9);
+        assertEquals(y, point[1], 1e-9);
+      }
+    }
+  }
+
+  @Test
+  void fallsBackToTheOtherBranchOutsideTheLimits()
+  {
+    DoubleJointedArmKinematics kinematics = create();
+    double[]                   up         = new double[2];
+    double[]                   down       = new double[2];
+    double[]                   solved     = new double[2];
+    kinematics.solve(1.2, 0.3, true, up, 0);
+    kinematics.solve(1.2, 0.3, false, down, 0);
+
+    // Only the elbow down lower angle is within the limits, the elbow up preference falls back to it.
+    kinematics.setLowerLimits(down[0] - 0.01, down[0] + 0.01);
+    assertTrue(Math.abs(up[0] - down[0]) > 0.01);
+    assertTrue(kinematics.solve(1.2, 0.3, true, solved, 0));
+    assertEquals(down[0], solved[0], 1e-9);
+    assertEquals(down[1], solved[1], 1e-9);
+
+    // With neither branch within the limits the preferred one is returned and reported as unreachable.
+    kinematics.setLowerLimits(down[0] + 2, down[0] + 2.1);
+    assertFalse(kinematics.solve(1.2, 0.3, true, solved, 0));
+    assertEquals(bend(up[0], up[1]), bend(solved[0], solved[1]), 1e-9);
+  }
+
+  @Test
+  void pathKeepsTheElbowFromFlipping()
+  {
+    DoubleJointedArmKinematics kinematics = create();
+    int                        count      = 50;
+    double[]                   xy         = new double[2 * count];
+    double[]                   angles     = new double[2 * count];
+    double[]                   point      = new double[2];
+    // A line crossing the negative x axis, where the bearing to the point wraps from pi to -pi.
+    for (int i = 0; i < count; i++)
+    {
+      xy[2 * i] = -1.0;
+      xy[2 * i + 1] = 0.8 - 1.6 * i / (count - 1);
+    }
+    assertEquals(-1, kinematics.solvePath(xy, count, true, angles));
+
+    double firstBend = bend(angles[0], angles[1]);
+    for (int i = 0; i < count; i++)
+    {
+      kinematics.forward(angles[2 * i], angles[2 * i + 1], point, 0);
+      assertEquals(xy[2 * i], point[0], 1e-9);
+      assertEquals(xy[2 * i + 1], point[1], 1e-9);
+      assertTrue(bend(angles[2 * i], angles[2 * i + 1]) * firstBend > 0);
+      if (i > 0)
+      {
+        assertTrue(Math.abs(angles[2 * i] - angles[2 * i - 2]) < 0.5);
+        assertTrue(Math.abs(angles[2 * i + 1] - angles[2 * i - 1]) < 0.5);
+      }
+    }
+  }
+
+  @Test
+  void pathStaysWithinTheLimitWindow()
+  {
+    DoubleJointedArmKinematics kinematics = create();
+    double[]                   xy         = new double[4];
+    double[]                   angles     = new double[4];
+    double[]                   point      = new double[2];
+    // From near the bottom of the lower limits to near the top, the shortest way round leaves the limits.
+    double                     lowerMax   = 3 * Math.PI / 2;
+    kinematics.setLowerLimits(0, lowerMax);
+    kinematics.forward(0.1, 0.1 - 0.5, xy, 0);
+    kinematics.forward(lowerMax - 0.1, lowerMax - 0.6, xy, 2);
+    assertEquals(-1, kinematics.solvePath(xy, 2, true, angles));
+
+    for (int i = 0; i < 2; i++)
+    {
+      assertTrue(angles[2 * i] >= 0 && angles[2 * i] <= lowerMax, "lower angle " + angles[2 * i]);
+      kinematics.forward(angles[2 * i], angles[2 * i + 1], point, 0);
+      assertEquals(xy[2 * i], point[0], 1e-9);
+      assertEquals(xy[2 * i + 1], point[1], 1e-9);
+    }
+  }
+
+  @Test
+  void workspaceGridMatchesAnalyticReach()
+  {
+    double                     lowerMin   = -Math.PI / 2;
+    double                     lowerMax   = Math.PI / 2;
+    double                     resolution = 0.05;
+    DoubleJointedArmKinematics kinematics = create();
+    kinematics.setLowerLimits(lowerMin, lowerMax);
+    kinematics.buildWorkspaceGrid(resolution);
+
+    double reach = LOWER + UPPER;
+    for (double y = -reach + resolution / 2; y < reach; y += resolution)
+    {
+      for (double x = -reach + resolution / 2; x < reach; x += resolution)
+      {
+        double r        = Math.hypot(x, y);
+        // Angle between the lower link and the line to the point, from the law of cosines.
+        double cosAngle = (r * r + LOWER * LOWER - UPPER * UPPER) / (2 * r * LOWER);
+        if (Math.abs(r - (LOWER - UPPER)) < 1e-6 || Math.abs(r - reach) < 1e-6)
+        {
+          continue;
+        }
+        boolean expected = false;
+        if (r > LOWER - UPPER && r < reach)
+        {
+          double bearing = Math.atan2(y, x);
+          double angle   = Math.acos(cosAngle);
+          expected = Math.abs(Math.IEEEremainder(bearing + angle, 2 * Math.PI)) <= lowerMax ||
+                     Math.abs(Math.IEEEremainder(bearing - angle, 2 * Math.PI)) <= lowerMax;
+        }
+        assertEquals(expected, kinematics.isReachable(x, y), "x " + x + " y " + y);
+      }
+    }
+    assertFalse(kinematics.isReachable(reach + 1, 0));
+  }
+
+  @Test
+  void unreachablePointsAreProjectedInsteadOfNaN()
+  {
+    DoubleJointedArmKinematics kinematics = create();
+    double[]                   angles     = new double[2];
+    double[]                   point      = new double[2];
+
+    // Beyond the reach the arm stretches toward the point.
+    assertFalse(kinematics.solve(3, 4, true, angles, 0));
+    assertTrue(Double.isFinite(angles[0]) && Double.isFinite(angles[1]));
+    kinematics.forward(angles[0], angles[1], point, 0);
+    assertEquals(0.6 * (LOWER + UPPER), point[0], 1e-9);
+    assertEquals(0.8 * (LOWER + UPPER), point[1], 1e-9);
+
+    // Inside the inner hole the arm folds back toward the point.
+    assertFalse(kinematics.solve(0.1, 0, false, angles, 0));
+    assertTrue(Double.isFinite(angles[0]) && Double.isFinite(angles[1]));
+    kinematics.forward(angles[0], angles[1], point, 0);
+    assertEquals(LOWER - UPPER, point[0], 1e-9);
+    assertEquals(0, point[1], 1e-9);
+  }
+}
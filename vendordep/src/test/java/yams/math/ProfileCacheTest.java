@@ -0,0 +1,120 @@
+package yams.math;
+
+import static edu.wpi.first.units.Units.Seconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.trajectory.ExponentialProfile;
+import edu.wpi.first.math.trajectory.ExponentialProfile.Constraints;
+import edu.wpi.first.math.trajectory.ExponentialProfile.State;
+import org.junit.jupiter.api.Test;
+import yams.math.ProfileCache.Trajectory;
+
+public class ProfileCacheTest
+{
+
+  private static final double             PERIOD      = 0.02;
+  private static final Constraints        CONSTRAINTS = Constraints.fromCharacteristics(12, 1, 0.5);
+  private static final ExponentialProfile PROFILE     = new ExponentialProfile(CONSTRAINTS);
+
+  @Test
+  void hermiteInterpolationFollowsProfile()
+  {
+    State      start      = new State(0, 0);
+    State      goal       = new State(10, 0);
+    Trajectory trajectory = Trajectory.generate(PROFILE, start, goal, PERIOD);
+    State      sampled    = new State();
+    assertTrue(trajectory.isSampled());
+
+    // Exact at the samples.
+    for (int i = 0; i * PERIOD < trajectory.getDuration(); i++)
+    {
+      State expected = PROFILE.calculate(i * PERIOD, start, goal);
+      trajectory.sample(i * PERIOD, sampled);
+      assertEquals(expected.position, sampled.position, 1e-9);
+      assertEquals(expected.velocity, sampled.velocity, 1e-9);
+    }
+
+    // Between the samples within the error of the acceleration switching sign, by up to 72 units/s^2, in one period.
+    for (double t = PERIOD / 3; t < trajectory.getDuration(); t += PERIOD)
+    {
+      State expected = PROFILE.calculate(t, start, goal);
+      trajectory.sample(t, sampled);
+      assertEquals(expected.position, sampled.position, 1e-2);
+      assertEquals(expected.velocity, sampled.velocity, 0.5);
+    }
+
+    // The trajectory ends on the goal.
+    trajectory.sample(trajectory.getDuration(), sampled);
+    assertEquals(goal.position, sampled.position, 0);
+    assertEquals(goal.velocity, sampled.velocity, 0);
+    trajectory.sample(trajectory.getDuration() + 1, sampled);
+    assertEquals(goal.position, sampled.position, 0);
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedUnderMaxBytes()
+  {
+    // Equal moves from rest take the same number of samples.
+    State[] starts = {new State(0, 0), new State(0, 0), new State(10, 0)};
+    State[] goals  = {new State(10, 0), new State(-10, 0), new State(20, 0)};
+    long    size   = Trajectory.generate(PROFILE, starts[0], goals[0], PERIOD).getSizeBytes();
+
+    ProfileCache cache = new ProfileCache(size * 5 / 2, Seconds.of(PERIOD), 1e-3, 1e-3);
+    Trajectory   a     = cache.get(PROFILE, CONSTRAINTS, starts[0], goals[0]);
+    cache.get(PROFILE, CONSTRAINTS, starts[1], goals[1]);
+    assertSame(a, cache.get(PROFILE, CONSTRAINTS, starts[0], goals[0]));
+    Trajectory c = cache.get(PROFILE, CONSTRAINTS, starts[2], goals[2]);
+
+    // B was used least recently.
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictions());
+    assertEquals(2 * size, cache.getMemoryBytes());
+    assertSame(a, cache.get(PROFILE, CONSTRAINTS, starts[0], goals[0]));
+    assertSame(c, cache.get(PROFILE, CONSTRAINTS, starts[2], goals[2]));
+    cache.get(PROFILE, CONSTRAINTS, starts[1], goals[1]);
+    assertEquals(2, cache.getEvictions());
+    assertTrue(cache.getMemoryBytes() <= size * 5 / 2);
+  }
+
+  @Test
+  void countsHitsAndMisses()
+  {
+    ProfileCache cache = new ProfileCache(1 << 20, Seconds.of(PERIOD), 1e-3, 1e-3);
+    assertEquals(0, cache.getHitRate());
+    cache.get(PROFILE, CONSTRAINTS, new State(0, 0), new State(5, 0));
+    // Within the quantum of the first lookup.
+    cache.get(PROFILE, CONSTRAINTS, new State(1e-4, 0), new State(5, 0));
+    cache.get(PROFILE, CONSTRAINTS, new State(0, 0), new State(5, 0));
+    cache.get(PROFILE, CONSTRAINTS, new State(0, 0), new State(6, 0));
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(0.5, cache.getHitRate(), 1e-12);
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getMemoryBytes());
+    assertEquals(2, cache.getHits());
+  }
+
+  @Test
+  void longProfileIsSolvedInsteadOfTruncated()
+  {
+    // 1e-3 units/s takes far longer than the sample limit to move 100 units.
+    Constraints        slow        = Constraints.fromCharacteristics(12, 12 / 1e-3, 1);
+    ExponentialProfile slowProfile = new ExponentialProfile(slow);
+    ProfileCache       cache       = new ProfileCache(1 << 20, Seconds.of(PERIOD), 1e-3, 1e-3);
+    State              goal        = new State(100, 0);
+    Trajectory         trajectory  = cache.get(slowProfile, slow, new State(0, 0), goal);
+
+    assertFalse(trajectory.isSampled());
+    assertTrue(trajectory.getDuration() > Trajectory.MAX_SAMPLES * PERIOD);
+    assertEquals(0, cache.size());
+    State sampled = new State();
+    trajectory.sample(trajectory.getDuration() + 1, sampled);
+    assertEquals(goal.position, sampled.position, 1e-9);
+    assertEquals(goal.velocity, sampled.velocity, 1e-9);
+  }
+}
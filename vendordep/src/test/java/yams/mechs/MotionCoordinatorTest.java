@@ -0,0 +1,202 @@
+package yams.mechs;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Degrees;
+import static edu.wpi.first.units.Units.DegreesPerSecond;
+import static edu.wpi.first.units.Units.DegreesPerSecondPerSecond;
+import static edu.wpi.first.units.Units.Inches;
+import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.MetersPerSecond;
+import static edu.wpi.first.units.Units.MetersPerSecondPerSecond;
+import static edu.wpi.first.units.Units.Pounds;
+import static edu.wpi.first.units.Units.Rotations;
+import static edu.wpi.first.units.Units.Seconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ctre.phoenix6.configs.MotionMagicConfigs;
+import com.ctre.phoenix6.hardware.TalonFX;
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.wpilibj.Preferences;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import yams.gearing.GearBox;
+import yams.gearing.MechanismGearing;
+import yams.helpers.MockHardwareExtension;
+import yams.helpers.SmartMotorControllerTestSubsystem;
+import yams.helpers.TestWithScheduler;
+import yams.mechanisms.config.ArmConfig;
+import yams.mechanisms.config.ElevatorConfig;
+import yams.mechanisms.positional.Arm;
+import yams.mechanisms.positional.Elevator;
+import yams.mechanisms.positional.MotionCoordinator;
+import yams.motorcontrollers.SmartMotorController;
+import yams.motorcontrollers.SmartMotorControllerConfig;
+import yams.motorcontrollers.SmartMotorControllerConfig.ControlMode;
+import yams.motorcontrollers.local.SparkWrapper;
+import yams.motorcontrollers.remote.TalonFXWrapper;
+
+public class MotionCoordinatorTest
+{
+
+  @Test
+  void armAndElevatorArriveTogether()
+  {
+    SmartMotorControllerTestSubsystem armSubsystem = new SmartMotorControllerTestSubsystem();
+    SparkMax                          armSpark     = new SparkMax(61, MotorType.kBrushless);
+    SmartMotorController armSmc = new SparkWrapper(armSpark, DCMotor.getNEO(1), new SmartMotorControllerConfig(
+        armSubsystem)
+        .withClosedLoopController(4, 0, 0, DegreesPerSecond.of(180), DegreesPerSecondPerSecond.of(90))
+        .withGearing(new MechanismGearing(GearBox.fromReductionStages(3, 4)))
+        .withStatorCurrentLimit(Amps.of(40))
+        .withControlMode(ControlMode.CLOSED_LOOP));
+    Arm arm = new Arm(new ArmConfig(armSmc).withLength(Meters.of(0.135))
+                                           .withHardLimit(Degrees.of(-100), Degrees.of(200))
+                                           .withMass(Pounds.of(1))
+                                           .withStartingPosition(Degrees.of(0)));
+    armSubsystem.smc = armSmc;
+    armSubsystem.mechSimPeriodic = arm::simIterate;
+    armSubsystem.mechUpdateTelemetry = arm::updateTelemetry;
+    armSubsystem.testRunning = true;
+
+    SmartMotorControllerTestSubsystem elevatorSubsystem = new SmartMotorControllerTestSubsystem();
+    SparkMax                          elevatorSpark     = new SparkMax(62, MotorType.kBrushless);
+    SmartMotorController elevatorSmc = new SparkWrapper(elevatorSpark, DCMotor.getNEO(1),
+                                                        new SmartMotorControllerConfig(elevatorSubsystem)
+        .withMechanismCircumference(Meters.of(Inches.of(0.25).in(Meters) * 22))
+        .withClosedLoopController(4, 0, 0, MetersPerSecond.of(0.5), MetersPerSecondPerSecond.of(0.5))
+        .withGearing(new MechanismGearing(GearBox.fromReductionStages(3, 4)))
+        .withStatorCurrentLimit(Amps.of(40))
+        .withControlMode(ControlMode.CLOSED_LOOP));
+    Elevator elevator = new Elevator(new ElevatorConfig(elevatorSmc).withStartingHeight(Meters.of(0))
+                                                                    .withHardLimits(Meters.of(0), Meters.of(3))
+                                                                    .withMass(Pounds.of(16)));
+    elevatorSubsystem.smc = elevatorSmc;
+    elevatorSubsystem.mechSimPeriodic = elevator::simIterate;
+    elevatorSubsystem.mechUpdateTelemetry = elevator::updateTelemetry;
+    elevatorSubsystem.testRunning = true;
+
+    // The arm needs 2s for 90 degrees, the elevator 4s for 1.5m, so the arm is slowed down to the elevator.
+    ProfiledPIDController armController      = armSmc.getConfig().getClosedLoopController().orElseThrow();
+    ProfiledPIDController elevatorController = elevatorSmc.getConfig().getClosedLoopController().orElseThrow();
+    double                armMaxVelocity     = armController.getConstraints().maxVelocity;
+    double                armGoal            = Degrees.of(90).in(Rotations);
+    double                elevatorGoal       = 1.5;
+    Angle                 elevatorAngle      = elevatorSmc.getConfig().convertToMechanism(Meters.of(elevatorGoal));
+    MotionCoordinator     coordinator        = new MotionCoordinator(arm, elevator);
+    int[]                 loop               = {0};
+    int[]                 armArrival         = {-1};
+    int[]                 elevatorArrival    = {-1};
+    TestWithScheduler.schedule(coordinator.moveTo(Degrees.of(90), elevatorAngle));
+    TestWithScheduler.cycle(Seconds.of(6), () -> {
+      loop[0]++;
+      if (armArrival[0] < 0 && Math.abs(armController.getSetpoint().position - armGoal) < 1e-6)
+      {
+        armArrival[0] = loop[0];
+      }
+      if (elevatorArrival[0] < 0 && Math.abs(elevatorController.getSetpoint().position - elevatorGoal) < 1e-6)
+      {
+        elevatorArrival[0] = loop[0];
+      }
+    });
+
+    assertEquals(4, coordinator.getDuration(), 1e-9);
+    assertTrue(armArrival[0] > 0 && elevatorArrival[0] > 0);
+    assertTrue(Math.abs(armArrival[0] - elevatorArrival[0]) <= 1,
+               "arm arrived in loop " + armArrival[0] + ", elevator in loop " + elevatorArrival[0]);
+    // The original constraints are restored once the move has ended.
+    assertEquals(armMaxVelocity, armController.getConstraints().maxVelocity, 1e-12);
+
+    CommandScheduler.getInstance().cancelAll();
+    CommandScheduler.getInstance().unregisterSubsystem(armSubsystem);
+    CommandScheduler.getInstance().unregisterSubsystem(elevatorSubsystem);
+    armSmc.close();
+    elevatorSmc.close();
+    armSpark.close();
+    elevatorSpark.close();
+  }
+
+  @Test
+  void talonMotionMagicIsStretched()
+  {
+    SmartMotorControllerTestSubsystem armSubsystem = new SmartMotorControllerTestSubsystem();
+    TalonFX                           armTalon     = new TalonFX(63);
+    SmartMotorController armSmc = new TalonFXWrapper(armTalon, DCMotor.getKrakenX60(1), new SmartMotorControllerConfig(
+        armSubsystem)
+        .withClosedLoopController(4, 0, 0, DegreesPerSecond.of(180), DegreesPerSecondPerSecond.of(90))
+        .withGearing(new MechanismGearing(GearBox.fromReductionStages(3, 4)))
+        .withStatorCurrentLimit(Amps.of(40))
+        .withControlMode(ControlMode.CLOSED_LOOP));
+    Arm arm = new Arm(new ArmConfig(armSmc).withLength(Meters.of(0.135))
+                                           .withHardLimit(Degrees.of(-100), Degrees.of(200))
+                                           .withMass(Pounds.of(1))
+                                           .withStartingPosition(Degrees.of(0)));
+    armSubsystem.smc = armSmc;
+    armSubsystem.mechSimPeriodic = arm::simIterate;
+    armSubsystem.mechUpdateTelemetry = arm::updateTelemetry;
+    armSubsystem.testRunning = true;
+
+    SmartMotorControllerTestSubsystem elevatorSubsystem = new SmartMotorControllerTestSubsystem();
+    SparkMax                          elevatorSpark     = new SparkMax(64, MotorType.kBrushless);
+    SmartMotorController elevatorSmc = new SparkWrapper(elevatorSpark, DCMotor.getNEO(1),
+                                                        new SmartMotorControllerConfig(elevatorSubsystem)
+        .withMechanismCircumference(Meters.of(Inches.of(0.25).in(Meters) * 22))
+        .withClosedLoopController(4, 0, 0, MetersPerSecond.of(0.5), MetersPerSecondPerSecond.of(0.5))
+        .withGearing(new MechanismGearing(GearBox.fromReductionStages(3, 4)))
+        .withStatorCurrentLimit(Amps.of(40))
+        .withControlMode(ControlMode.CLOSED_LOOP));
+    Elevator elevator = new Elevator(new ElevatorConfig(elevatorSmc).withStartingHeight(Meters.of(0))
+                                                                    .withHardLimits(Meters.of(0), Meters.of(3))
+                                                                    .withMass(Pounds.of(16)));
+    elevatorSubsystem.smc = elevatorSmc;
+    elevatorSubsystem.mechSimPeriodic = elevator::simIterate;
+    elevatorSubsystem.mechUpdateTelemetry = elevator::updateTelemetry;
+    elevatorSubsystem.testRunning = true;
+
+    // The TalonFX profiles on the device with Motion Magic, its cruise velocity and acceleration must be stretched
+    // from 0.5 rot/s and 0.25 rot/s^2 by the 2s of the arm over the 4s of the elevator.
+    MotionMagicConfigs motionMagic   = new MotionMagicConfigs();
+    Angle              elevatorAngle = elevatorSmc.getConfig().convertToMechanism(Meters.of(1.5));
+    MotionCoordinator  coordinator   = new MotionCoordinator(arm, elevator);
+    TestWithScheduler.schedule(coordinator.moveTo(Degrees.of(90), elevatorAngle));
+    TestWithScheduler.cycle(Seconds.of(0.1), () -> {});
+    armTalon.getConfigurator().refresh(motionMagic);
+    assertEquals(0.25, motionMagic.MotionMagicCruiseVelocity, 1e-6);
+    assertEquals(0.0625, motionMagic.MotionMagicAcceleration, 1e-6);
+
+    TestWithScheduler.cycle(Seconds.of(6), () -> {});
+    armTalon.getConfigurator().refresh(motionMagic);
+    assertEquals(0.5, motionMagic.MotionMagicCruiseVelocity, 1e-6);
+    assertEquals(0.25, motionMagic.MotionMagicAcceleration, 1e-6);
+
+    CommandScheduler.getInstance().cancelAll();
+    CommandScheduler.getInstance().unregisterSubsystem(armSubsystem);
+    CommandScheduler.getInstance().unregisterSubsystem(elevatorSubsystem);
+    armSmc.close();
+    elevatorSmc.close();
+    armTalon.close();
+    elevatorSpark.close();
+  }
+
+  @BeforeEach
+  void startTest()
+  {
+    MockHardwareExtension.beforeAll();
+    TestWithScheduler.schedulerStart();
+    TestWithScheduler.schedulerClear();
+  }
+
+  @AfterEach
+  void endTest()
+  {
+    MockHardwareExtension.afterAll();
+    Preferences.removeAll();
+    TestWithScheduler.schedulerClear();
+  }
+}
@@ -0,0 +1,304 @@
+package yams.mechs;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Degrees;
+import static edu.wpi.first.units.Units.Hertz;
+import static edu.wpi.first.units.Units.Inches;
+import static edu.wpi.first.units.Units.Kilograms;
+import static edu.wpi.first.units.Units.Milliseconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.system.plant.DCMotor;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import yams.gearing.GearBox;
+import yams.gearing.MechanismGearing;
+import yams.helpers.MockHardwareExtension;
+import yams.helpers.SmartMotorControllerTestSubsystem;
+import yams.math.SmartMath;
+import yams.mechanisms.config.SwerveDriveConfig;
+import yams.mechanisms.config.SwerveModuleConfig;
+import yams.mechanisms.swerve.SwerveDrive;
+import yams.mechanisms.swerve.SwerveModule;
+import yams.mechanisms.swerve.SwerveSetpointGenerator;
+import yams.motorcontrollers.SmartMotorController;
+import yams.motorcontrollers.SmartMotorControllerConfig;
+import yams.motorcontrollers.SmartMotorControllerConfig.TelemetryVerbosity;
+import yams.motorcontrollers.local.SparkWrapper;
+import yams.motorcontrollers.simulation.SimClock;
+import yams.motorcontrollers.simulation.SimSnapshot;
+
+public class SwerveDriveTest
+{
+
+  private static final int                        LOOPS     = 2_000;
+  private static final List<SparkMax>             sparks    = new ArrayList<>();
+  private static final List<SmartMotorController> motors    = new ArrayList<>();
+  private static final Translation2d[]            locations = {new Translation2d(Inches.of(12), Inches.of(12)),
+                                                               new Translation2d(Inches.of(12), Inches.of(-12)),
+                                                               new Translation2d(Inches.of(-12), Inches.of(12)),
+                                                               new Translation2d(Inches.of(-12), Inches.of(-12))};
+  private static SmartMotorControllerTestSubsystem subsystem;
+  private static SwerveModule[]                    modules;
+  private static SwerveDrive                       drive;
+
+  @BeforeAll
+  static void beforeAll()
+  {
+    MockHardwareExtension.beforeAll();
+    subsystem = new SmartMotorControllerTestSubsystem();
+    modules = new SwerveModule[locations.length];
+    for (int i = 0; i < locations.length; i++)
+    {
+      modules[i] = createModule(subsystem, 1 + i * 2, "module" + i, locations[i]);
+    }
+    drive = new SwerveDrive(new SwerveDriveConfig(subsystem, modules).withGyro(() -> Degrees.of(0)));
+  }
+
+  @AfterAll
+  static void afterAll()
+  {
+    drive.close();
+    motors.forEach(SmartMotorController::close);
+    sparks.forEach(SparkMax::close);
+    MockHardwareExtension.afterAll();
+  }
+
+  private static SmartMotorController createSMC(SmartMotorControllerTestSubsystem subsystem, int id,
+                                                MechanismGearing gearing)
+  {
+    SparkMax spark = new SparkMax(id, MotorType.kBrushless);
+    SmartMotorControllerConfig config = new SmartMotorControllerConfig(subsystem)
+        .withClosedLoopController(1, 0, 0)
+        .withGearing(gearing)
+        .withStatorCurrentLimit(Amps.of(40))
+        .withTelemetry("SwerveMotor" + id, TelemetryVerbosity.HIGH);
+    SmartMotorController smc = new SparkWrapper(spark, DCMotor.getNEO(1), config);
+    sparks.add(spark);
+    motors.add(smc);
+    return smc;
+  }
+
+  private static SwerveModule createModule(SmartMotorControllerTestSubsystem subsystem, int id, String name,
+                                           Translation2d location)
+  {
+    SmartMotorController driveSMC   = createSMC(subsystem, id, new MechanismGearing(GearBox.fromStages("6.75:1")));
+    SmartMotorController azimuthSMC = createSMC(subsystem, id + 1, new MechanismGearing(GearBox.fromStages("21:1")));
+    return new SwerveModule(new SwerveModuleConfig(driveSMC, azimuthSMC)
+                                .withWheelDiameter(Inches.of(4))
+                                .withLocation(location)
+                                .withTelemetry(name, TelemetryVerbosity.HIGH));
+  }
+
+  /**
+   * Take a new snapshot of every module.
+   */
+  private static void updateSnapshots()
+  {
+    for (SwerveModule module : modules)
+    {
+      module.updateSnapshot();
+    }
+  }
+
+  /**
+   * Get the bytes allocated by the current thread so far.
+   *
+   * @return Allocated bytes.
+   */
+  private static long allocatedBytes()
+  {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+  }
+
+  @Test
+  void odometryAllocatesLessThanPerCallReads()
+  {
+    // The read path updateTelemetry used before: every getter reads every module again and allocates its own arrays.
+    // The module getters share one snapshot now, so every getter call takes a new one to read like before.
+    SwerveDriveKinematics kinematics = new SwerveDriveKinematics(locations);
+    SwerveDrivePoseEstimator estimator = new SwerveDrivePoseEstimator(kinematics,
+                                                                      new Rotation2d(drive.getGyroAngle()),
+                                                                      drive.getModulePositions(),
+                                                                      Pose2d.kZero);
+    Runnable perCallReads = () -> {
+      updateSnapshots();
+      estimator.update(new Rotation2d(drive.getGyroAngle()), drive.getModulePositions());
+      drive.getGyroAngle().in(Degrees);
+      updateSnapshots();
+      drive.getModuleStates();
+      updateSnapshots();
+      kinematics.toChassisSpeeds(drive.getModuleStates());
+      updateSnapshots();
+      ChassisSpeeds.fromRobotRelativeSpeeds(kinematics.toChassisSpeeds(drive.getModuleStates()),
+                                            new Rotation2d(drive.getGyroAngle()));
+    };
+    Runnable sharedRead = () -> {
+      drive.updateOdometry();
+      drive.getRobotRelativeSpeed();
+      drive.getFieldRelativeSpeed();
+    };
+
+    double perCallBytes = measure(perCallReads);
+    double sharedBytes  = measure(sharedRead);
+    System.out.println("SwerveDrive odometry allocation per loop: per call reads " + perCallBytes +
+                       " bytes, shared read " + sharedBytes + " bytes");
+    assertTrue(sharedBytes < perCallBytes);
+
+    // Drive the modules to distinct non-zero states and turn the simulated gyro, restored afterwards for the other
+    // tests sharing the drive.
+    SimSnapshot snapshot = SimSnapshot.capture();
+    for (int i = 0; i < 50; i++)
+    {
+      drive.setRobotRelativeChassisSpeeds(new ChassisSpeeds(1, 0.5, 1));
+      drive.simIterate();
+      SimClock.step(Milliseconds.of(20));
+    }
+    drive.updateOdometry();
+    Rotation2d          gyro   = new Rotation2d(drive.getGyroAngle());
+    SwerveModuleState[] states = drive.getModuleStates();
+    assertTrue(Math.abs(gyro.getRadians()) > 1e-3);
+    for (int i = 1; i < states.length; i++)
+    {
+      assertTrue(Math.abs(states[i].speedMetersPerSecond) > 1e-3);
+      assertNotEquals(states[0].angle.getRadians(), states[i].angle.getRadians(), 1e-3);
+    }
+
+    // The in place forward kinematics match WPILib.
+    ChassisSpeeds expected      = kinematics.toChassisSpeeds(states);
+    ChassisSpeeds actual        = drive.getRobotRelativeSpeed();
+    ChassisSpeeds expectedField = ChassisSpeeds.fromRobotRelativeSpeeds(expected, gyro);
+    ChassisSpeeds actualField   = drive.getFieldRelativeSpeed();
+    assertTrue(Math.abs(expected.vxMetersPerSecond) > 1e-3 && Math.abs(expected.omegaRadiansPerSecond) > 1e-3);
+    assertEquals(expected.vxMetersPerSecond, actual.vxMetersPerSecond, 1e-9);
+    assertEquals(expected.vyMetersPerSecond, actual.vyMetersPerSecond, 1e-9);
+    assertEquals(expected.omegaRadiansPerSecond, actual.omegaRadiansPerSecond, 1e-9);
+    assertEquals(expectedField.vxMetersPerSecond, actualField.vxMetersPerSecond, 1e-9);
+    assertEquals(expectedField.vyMetersPerSecond, actualField.vyMetersPerSecond, 1e-9);
+    assertEquals(expectedField.omegaRadiansPerSecond, actualField.omegaRadiansPerSecond, 1e-9);
+    assertEquals(gyro.getRadians(), drive.getPose().getRotation().getRadians(), 1e-9);
+
+    drive.setRobotRelativeChassisSpeeds(new ChassisSpeeds());
+    snapshot.restore();
+    drive.updateOdometry();
+  }
+
+  @Test
+  void odometryThreadUpdatesPoseWithoutUpdateOdometry()
+  {
+    SmartMotorControllerTestSubsystem threadedSubsystem = new SmartMotorControllerTestSubsystem();
+    SwerveModule[]                    threadedModules   = new SwerveModule[locations.length];
+    for (int i = 0; i < locations.length; i++)
+    {
+      threadedModules[i] = createModule(threadedSubsystem, 31 + i * 2, "threaded" + i, locations[i]);
+    }
+    SwerveDrive threaded = new SwerveDrive(new SwerveDriveConfig(threadedSubsystem, threadedModules)
+                                               .withGyro(() -> Degrees.of(0))
+                                               .withOdometryFrequency(Hertz.of(100)));
+    Pose2d start = threaded.getPose();
+    // Neither updateOdometry nor updateTelemetry is called, the odometry thread runs as the sim clock steps.
+    for (int i = 0; i < 50; i++)
+    {
+      threaded.setRobotRelativeChassisSpeeds(new ChassisSpeeds(1, 0, 0));
+      threaded.simIterate();
+      SimClock.step(Milliseconds.of(20));
+    }
+    assertTrue(threaded.getPose().getX() - start.getX() > 0.05);
+
+    // The thread reads into its own buffers, the robot loop snapshot only changes with the next updateOdometry.
+    threaded.updateOdometry();
+    SwerveModulePosition position  = threadedModules[0].getPosition();
+    double               timestamp = threadedModules[0].getSnapshotTimestamp();
+    threaded.setRobotRelativeChassisSpeeds(new ChassisSpeeds(1, 0, 0));
+    threaded.simIterate();
+    SimClock.step(Milliseconds.of(60));
+    assertEquals(position, threadedModules[0].getPosition());
+    assertEquals(timestamp, threadedModules[0].getSnapshotTimestamp());
+    threaded.updateOdometry();
+    assertTrue(threadedModules[0].getPosition().distanceMeters > position.distanceMeters);
+    threaded.close();
+  }
+
+  @Test
+  void moduleGettersShareOneSnapshot()
+  {
+    drive.updateOdometry();
+    for (SwerveModule module : modules)
+    {
+      double timestamp = module.getSnapshotTimestamp();
+      assertEquals(module.getState().angle, module.getPosition().angle);
+      assertEquals(timestamp, module.getSnapshotTimestamp());
+    }
+  }
+
+  @Test
+  void setpointGeneratorLimitsModuleAcceleration()
+  {
+    double                  cof       = 1.2;
+    SwerveSetpointGenerator generator = new SwerveSetpointGenerator(
+        new SwerveDriveConfig(subsystem, modules).withSetpointGenerator(Kilograms.of(50), cof));
+    generator.reset(drive.getModuleStates());
+
+    // Traction limits the change of every module velocity to the friction acceleration, motor limits keep it lower.
+    double   dt        = 0.02;
+    double   maxChange = cof * SmartMath.GRAVITY * dt + 1e-9;
+    double[] last      = new double[modules.length];
+    for (int loop = 0; loop < 200; loop++)
+    {
+      SwerveModuleState[] states = generator.generate(new ChassisSpeeds(3, 0, 0), 0, 0, dt);
+      for (int i = 0; i < states.length; i++)
+      {
+        assertTrue(Math.abs(states[i].speedMetersPerSecond - last[i]) <= maxChange);
+        last[i] = states[i].speedMetersPerSecond;
+      }
+    }
+    for (SwerveModuleState state : generator.generate(new ChassisSpeeds(3, 0, 0), 0, 0, dt))
+    {
+      assertEquals(3, state.speedMetersPerSecond, 1e-6);
+      assertEquals(0, state.angle.getRadians(), 1e-6);
+    }
+
+    // Turning the travel direction slews the azimuths instead of snapping them.
+    SwerveModuleState[] states = generator.generate(new ChassisSpeeds(0, 3, 0), 0, 0, dt);
+    for (SwerveModuleState state : states)
+    {
+      assertTrue(Math.abs(state.angle.getRadians()) < Math.PI / 2);
+    }
+  }
+
+  /**
+   * Measure the average bytes allocated by a loop after warming it up.
+   *
+   * @param loop Loop to measure.
+   * @return Bytes allocated per loop.
+   */
+  private static double measure(Runnable loop)
+  {
+    for (int i = 0; i < LOOPS; i++)
+    {
+      loop.run();
+    }
+    long start = allocatedBytes();
+    for (int i = 0; i < LOOPS; i++)
+    {
+      loop.run();
+    }
+    return (allocatedBytes() - start) / (double) LOOPS;
+  }
+}
@@ -0,0 +1,118 @@
+package yams.motorcontrollers;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Inches;
+import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.MetersPerSecond;
+import static edu.wpi.first.units.Units.MetersPerSecondPerSecond;
+import static edu.wpi.first.units.Units.Pounds;
+import static edu.wpi.first.units.Units.Rotations;
+import static edu.wpi.first.units.Units.RotationsPerSecond;
+import static edu.wpi.first.units.Units.Seconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.Preferences;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import yams.gearing.GearBox;
+import yams.gearing.MechanismGearing;
+import yams.helpers.MockHardwareExtension;
+import yams.helpers.SmartMotorControllerTestSubsystem;
+import yams.helpers.TestWithScheduler;
+import yams.mechanisms.config.ElevatorConfig;
+import yams.mechanisms.positional.Elevator;
+import yams.motorcontrollers.SmartMotorControllerConfig.ControlMode;
+import yams.motorcontrollers.local.SparkWrapper;
+import yams.motorcontrollers.simulation.SimSnapshot;
+
+public class SmartMotorControllerSnapshotTest
+{
+
+  /**
+   * Read the state a {@link SimSnapshot} of the motor controller has to restore.
+   *
+   * @param smc {@link SmartMotorController} to read.
+   * @return Plant position and velocity in rotations, setpoint in rotations, profile position and velocity.
+   */
+  private static double[] readState(SmartMotorController smc)
+  {
+    SimSupplier sim = smc.getSimSupplier().orElseThrow();
+    return new double[]{sim.getMechanismPosition().in(Rotations),
+                        sim.getMechanismVelocity().in(RotationsPerSecond),
+                        smc.getMechanismPositionSetpoint().orElseThrow().in(Rotations),
+                        smc.m_pidController.orElseThrow().getSetpoint().position,
+                        smc.m_pidController.orElseThrow().getSetpoint().velocity};
+  }
+
+  @Test
+  void restoresPlantSetpointAndProfile() throws InterruptedException
+  {
+    SmartMotorControllerTestSubsystem subsystem = new SmartMotorControllerTestSubsystem();
+    SparkMax                          spark     = new SparkMax(60, MotorType.kBrushless);
+    SmartMotorController smc = new SparkWrapper(spark, DCMotor.getNEO(1), new SmartMotorControllerConfig(subsystem)
+        .withMechanismCircumference(Meters.of(Inches.of(0.25).in(Meters) * 22))
+        .withClosedLoopController(4, 0, 0, MetersPerSecond.of(0.5), MetersPerSecondPerSecond.of(0.5))
+        .withGearing(new MechanismGearing(GearBox.fromReductionStages(3, 4)))
+        .withStatorCurrentLimit(Amps.of(40))
+        .withControlMode(ControlMode.CLOSED_LOOP));
+    Elevator elevator = new Elevator(new ElevatorConfig(smc).withStartingHeight(Meters.of(0))
+                                                            .withHardLimits(Meters.of(0), Meters.of(3))
+                                                            .withMass(Pounds.of(16)));
+    subsystem.smc = smc;
+    subsystem.mechSimPeriodic = elevator::simIterate;
+    subsystem.mechUpdateTelemetry = elevator::updateTelemetry;
+    subsystem.testRunning = true;
+
+    // Step into the middle of the profile, where every part of the state is non-zero.
+    TestWithScheduler.schedule(elevator.setHeight(Meters.of(2)));
+    TestWithScheduler.cycle(Seconds.of(1));
+    SimSnapshot snapshot = SimSnapshot.capture();
+    double[]    captured = readState(smc);
+
+    // Move on toward another goal so every part of the state changes.
+    CommandScheduler.getInstance().cancelAll();
+    TestWithScheduler.schedule(elevator.setHeight(Meters.of(0.5)));
+    TestWithScheduler.cycle(Seconds.of(1));
+    double[] mutated = readState(smc);
+    for (int i = 0; i < captured.length; i++)
+    {
+      assertNotEquals(captured[i], mutated[i], 1e-3);
+    }
+
+    snapshot.restore();
+    double[] restored = readState(smc);
+    // The simulated elevator adds measurement noise of a fraction of an encoder tick to the position.
+    assertEquals(captured[0], restored[0], 1e-4);
+    for (int i = 1; i < captured.length; i++)
+    {
+      assertEquals(captured[i], restored[i], 1e-9);
+    }
+
+    CommandScheduler.getInstance().cancelAll();
+    CommandScheduler.getInstance().unregisterSubsystem(subsystem);
+    smc.close();
+    spark.close();
+  }
+
+  @BeforeEach
+  void startTest()
+  {
+    MockHardwareExtension.beforeAll();
+    TestWithScheduler.schedulerStart();
+    TestWithScheduler.schedulerClear();
+  }
+
+  @AfterEach
+  void endTest()
+  {
+    MockHardwareExtension.afterAll();
+    Preferences.removeAll();
+    TestWithScheduler.schedulerClear();
+  }
+}
@@ -0,0 +1,55 @@
+package yams.motorcontrollers.simulation;
+
+import static edu.wpi.first.units.Units.Degrees;
+import static edu.wpi.first.units.Units.Inches;
+import static edu.wpi.first.units.Units.Rotations;
+import static edu.wpi.first.units.Units.Seconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import yams.gearing.GearBox;
+import yams.gearing.MechanismGearing;
+import yams.motorcontrollers.simulation.GainSweep.Gains;
+import yams.motorcontrollers.simulation.GainSweep.Plant;
+import yams.motorcontrollers.simulation.GainSweep.Result;
+
+public class GainSweepTest
+{
+
+  @Test
+  void ranksSettlingGainsFirst()
+  {
+    GainSweep sweep = new GainSweep(Plant.arm(DCMotor.getNEO(1),
+                                              new MechanismGearing(GearBox.fromReductionStages(3, 4, 5)),
+                                              0.1,
+                                              Inches.of(20),
+                                              Degrees.of(-90),
+                                              Degrees.of(200)))
+        .withStep(Degrees.of(0), Degrees.of(45))
+        .withDuration(Seconds.of(3))
+        .withTolerance(Degrees.of(2).in(Rotations));
+
+    List<Gains> candidates = new ArrayList<>();
+    for (double kP = 0; kP <= 60; kP += 2)
+    {
+      for (double kD = 0; kD <= 2; kD += 0.5)
+      {
+        candidates.add(new Gains().withFeedback(kP, 0, kD).withFeedforward(0, 0.5, 0, 0));
+      }
+    }
+
+    List<Result> results = sweep.run(candidates);
+    assertEquals(candidates.size(), results.size());
+    for (int i = 1; i < results.size(); i++)
+    {
+      assertTrue(results.get(i - 1).getScore() <= results.get(i).getScore());
+    }
+    // No feedback never reaches the goal, the best candidate must settle.
+    assertTrue(Double.isFinite(results.get(0).getSettlingTime()));
+    assertTrue(Double.isInfinite(sweep.simulate(new Gains()).getSettlingTime()));
+  }
+}
@@ -0,0 +1,59 @@
+package yams.motorcontrollers.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import org.junit.jupiter.api.Test;
+import yams.motorcontrollers.SmartMotorControllerConfig.SimulationIntegrator;
+
+public class PlantIntegratorTest
+{
+
+  /**
+   * Integrate a level elevator from rest at 6V for 100ms in 20ms control periods.
+   *
+   * @param method   {@link SimulationIntegrator} to step with.
+   * @param substeps Sub-steps per control period.
+   * @return Absolute velocity error against the analytic solution in m/s.
+   */
+  private static double velocityError(SimulationIntegrator method, int substeps)
+  {
+    DCMotor         motor = DCMotor.getNEO(1);
+    PlantIntegrator plant = PlantIntegrator.forElevator(motor, 10, 50, 0.02, 0, 100, false, method);
+    for (int i = 0; i < 5; i++)
+    {
+      plant.step(6, 0.02, substeps);
+    }
+    // Without gravity x'' = b u - k x', so x' = b u / k (1 - e^-kt).
+    double inputGain = 10 * motor.KtNMPerAmp / (motor.rOhms * 0.02 * 50);
+    double damping   = 100 * motor.KtNMPerAmp / (motor.rOhms * 0.02 * 0.02 * 50 * motor.KvRadPerSecPerVolt);
+    double expected  = inputGain * 6 / damping * (1 - Math.exp(-damping * 0.1));
+    return Math.abs(plant.getVelocity() - expected);
+  }
+
+  @Test
+  void integratorsConvergeToAnalyticSolution()
+  {
+    double euler      = velocityError(SimulationIntegrator.SEMI_IMPLICIT_EULER, 1);
+    double finerEuler = velocityError(SimulationIntegrator.SEMI_IMPLICIT_EULER, 20);
+    double rk4        = velocityError(SimulationIntegrator.RK4, 20);
+    assertTrue(finerEuler < euler);
+    assertTrue(rk4 < finerEuler);
+    assertEquals(0, rk4, 1e-6);
+  }
+
+  @Test
+  void plantStopsAtLimits()
+  {
+    PlantIntegrator plant = PlantIntegrator.forArm(DCMotor.getNEO(1), 100, 0.5, 0.5, -Math.PI / 2, Math.PI / 4, true,
+                                                   SimulationIntegrator.RK4);
+    plant.setState(0, 0);
+    for (int i = 0; i < 100; i++)
+    {
+      plant.step(12, 0.02, 4);
+    }
+    assertEquals(Math.PI / 4, plant.getPosition(), 1e-9);
+    assertEquals(0, plant.getVelocity(), 1e-9);
+  }
+}
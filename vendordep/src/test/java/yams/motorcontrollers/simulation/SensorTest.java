@@ -0,0 +1,60 @@
+package yams.motorcontrollers.simulation;
+
+import static edu.wpi.first.units.Units.Milliseconds;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.SimBoolean;
+import edu.wpi.first.wpilibj.simulation.SimDeviceSim;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import yams.helpers.MockHardwareExtension;
+
+public class SensorTest
+{
+
+  @BeforeEach
+  void startTest()
+  {
+    MockHardwareExtension.beforeAll();
+  }
+
+  @AfterEach
+  void endTest()
+  {
+    MockHardwareExtension.afterAll();
+  }
+
+  @Test
+  void edgeSurvivesOverrunningLoop()
+  {
+    Sensor             sensor  = new Sensor("OverrunBeamBreak", List.of(new SensorData("Beam", () -> false, false)));
+    BooleanSensorField beam    = sensor.getBooleanField("Beam");
+    SimBoolean         simBeam = new SimDeviceSim("Sensor[OverrunBeamBreak]").getBoolean("Beam");
+    sensor.enableCycleSampling();
+    Sensor.periodic();
+    assertFalse(beam.getAsBoolean());
+
+    // The beam breaks, the next loop sees the rising edge.
+    simBeam.set(true);
+    SimClock.step(Milliseconds.of(20));
+    Sensor.periodic();
+    assertTrue(beam.isRisingEdge());
+
+    // The loop overruns and the beam clears again, late readers in the same loop still see the edge and value.
+    simBeam.set(false);
+    SimClock.step(Milliseconds.of(60));
+    assertTrue(beam.isRisingEdge());
+    assertTrue(beam.getAsBoolean());
+    assertTrue(beam.hasChanged());
+
+    // The next loop sees the falling edge.
+    SimClock.step(Milliseconds.of(20));
+    Sensor.periodic();
+    assertTrue(beam.isFallingEdge());
+    assertFalse(beam.getAsBoolean());
+    sensor.disableCycleSampling();
+  }
+}
@@ -0,0 +1,153 @@
+package yams.telemetry;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Degrees;
+import static edu.wpi.first.units.Units.Milliseconds;
+import static edu.wpi.first.units.Units.Rotations;
+import static edu.wpi.first.units.Units.RotationsPerSecond;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import edu.wpi.first.hal.SimDouble;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.simulation.SimDeviceSim;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import yams.gearing.GearBox;
+import yams.gearing.MechanismGearing;
+import yams.helpers.MockHardwareExtension;
+import yams.helpers.SmartMotorControllerTestSubsystem;
+import yams.mechanisms.config.PivotConfig;
+import yams.mechanisms.positional.Pivot;
+import yams.motorcontrollers.SmartMotorController;
+import yams.motorcontrollers.SmartMotorControllerConfig;
+import yams.motorcontrollers.SmartMotorControllerConfig.ControlMode;
+import yams.motorcontrollers.SmartMotorControllerConfig.TelemetryVerbosity;
+import yams.motorcontrollers.local.SparkWrapper;
+import yams.motorcontrollers.simulation.DoubleSensorField;
+import yams.motorcontrollers.simulation.Sensor;
+import yams.motorcontrollers.simulation.SensorData;
+import yams.motorcontrollers.simulation.SimClock;
+
+public class InputLogTest
+{
+
+  @BeforeEach
+  void startTest()
+  {
+    MockHardwareExtension.beforeAll();
+  }
+
+  @AfterEach
+  void endTest()
+  {
+    InputLog.stop();
+    MockHardwareExtension.afterAll();
+  }
+
+  @Test
+  void replayReturnsRecordedValues(@TempDir Path dir) throws IOException
+  {
+    Path log      = dir.resolve("inputs.yamslog");
+    int  position = InputLog.channel("InputLogTest/position");
+    int  gyro     = InputLog.channel("InputLogTest/gyro");
+
+    InputLog.startRecording(log);
+    for (int i = 0; i < 100; i++)
+    {
+      InputLog.nextFrame(i * 0.02);
+      InputLog.process(position, i * 0.5);
+      // Unchanged values are only written once.
+      InputLog.process(gyro, i < 50 ? 0 : 90);
+    }
+    InputLog.stop();
+
+    List<Double> positions = new ArrayList<>();
+    List<Double> gyros     = new ArrayList<>();
+    int frames = InputLog.replay(log, timestamp -> {
+      positions.add(InputLog.process(position, -1));
+      gyros.add(InputLog.process(gyro, -1));
+    });
+
+    assertEquals(100, frames);
+    for (int i = 0; i < 100; i++)
+    {
+      assertEquals(i * 0.5, positions.get(i));
+      assertEquals(i < 50 ? 0 : 90, gyros.get(i));
+    }
+    assertEquals(InputLog.Mode.LIVE, InputLog.getMode());
+    assertEquals(3.0, InputLog.process(position, 3.0));
+  }
+
+  @Test
+  void replayedMechanismRunReadsRecordedInputs(@TempDir Path dir) throws IOException
+  {
+    SmartMotorControllerTestSubsystem subsystem = new SmartMotorControllerTestSubsystem();
+    SparkMax                          spark     = new SparkMax(70, MotorType.kBrushless);
+    SmartMotorController smc = new SparkWrapper(spark, DCMotor.getNEO(1), new SmartMotorControllerConfig(subsystem)
+        .withGearing(new MechanismGearing(GearBox.fromReductionStages(3, 4)))
+        .withStatorCurrentLimit(Amps.of(40))
+        .withControlMode(ControlMode.OPEN_LOOP)
+        .withTelemetry("InputLogReplayPivot", TelemetryVerbosity.HIGH));
+    Pivot pivot = new Pivot(new PivotConfig(smc).withHardLimit(Degrees.of(-3600), Degrees.of(3600))
+                                                .withStartingPosition(Degrees.of(0))
+                                                .withMOI(0.01));
+    subsystem.smc = smc;
+    subsystem.mechSimPeriodic = pivot::simIterate;
+    Sensor            sensor      = new Sensor("InputLogReplayRange",
+                                               List.of(new SensorData("Distance", () -> 0.0, 0.0)));
+    DoubleSensorField distance    = sensor.getDoubleField("Distance");
+    SimDouble         simDistance = new SimDeviceSim("Sensor[InputLogReplayRange]").getDouble("Distance");
+    Path              log         = dir.resolve("pivot.yamslog");
+
+    // Record a simulated run, the pivot is driven forward then back and the range sensor moves every loop.
+    List<Double> positions  = new ArrayList<>();
+    List<Double> velocities = new ArrayList<>();
+    List<Double> distances  = new ArrayList<>();
+    InputLog.startRecording(log);
+    for (int i = 0; i < 50; i++)
+    {
+      InputLog.nextFrame(i * 0.02);
+      simDistance.set(1 + i * 0.01);
+      smc.setDutyCycle(i < 25 ? 0.5 : -0.25);
+      pivot.simIterate();
+      SimClock.step(Milliseconds.of(20));
+      positions.add(smc.getMechanismPosition().in(Rotations));
+      velocities.add(smc.getMechanismVelocity().in(RotationsPerSecond));
+      distances.add(distance.getAsDouble());
+    }
+    InputLog.stop();
+    smc.setDutyCycle(0);
+
+    // Replay without stepping the plant, the live hardware is frozen at the end of the run and the sensor is moved
+    // away so every input must come from the log.
+    simDistance.set(-1);
+    List<Double> replayedPositions  = new ArrayList<>();
+    List<Double> replayedVelocities = new ArrayList<>();
+    List<Double> replayedDistances  = new ArrayList<>();
+    int frames = InputLog.replay(log, timestamp -> {
+      replayedPositions.add(smc.getMechanismPosition().in(Rotations));
+      replayedVelocities.add(smc.getMechanismVelocity().in(RotationsPerSecond));
+      replayedDistances.add(distance.getAsDouble());
+    });
+
+    assertEquals(50, frames);
+    assertNotEquals(positions.get(0), positions.get(49));
+    assertEquals(positions, replayedPositions);
+    assertEquals(velocities, replayedVelocities);
+    assertEquals(distances, replayedDistances);
+
+    CommandScheduler.getInstance().unregisterSubsystem(subsystem);
+    smc.close();
+    spark.close();
+  }
+}
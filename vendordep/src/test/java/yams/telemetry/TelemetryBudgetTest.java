@@ -0,0 +1,153 @@
+package yams.telemetry;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Seconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import yams.gearing.GearBox;
+import yams.gearing.MechanismGearing;
+import yams.helpers.MockHardwareExtension;
+import yams.helpers.SmartMotorControllerTestSubsystem;
+import yams.motorcontrollers.SmartMotorController;
+import yams.motorcontrollers.SmartMotorControllerConfig;
+import yams.motorcontrollers.SmartMotorControllerConfig.ControlMode;
+import yams.motorcontrollers.SmartMotorControllerConfig.TelemetryVerbosity;
+import yams.motorcontrollers.local.SparkWrapper;
+import yams.telemetry.TelemetryBudget.Tier;
+
+public class TelemetryBudgetTest
+{
+
+  /**
+   * Synthetic telemetry cost of one motor in seconds.
+   */
+  private static final double                     MOTOR_COST = 0.002;
+  private static final List<SparkMax>             sparks     = new ArrayList<>();
+  private static final List<SmartMotorController> motors     = new ArrayList<>();
+
+  @BeforeAll
+  static void beforeAll()
+  {
+    MockHardwareExtension.beforeAll();
+  }
+
+  @AfterAll
+  static void afterAll()
+  {
+    MockHardwareExtension.afterAll();
+  }
+
+  @AfterEach
+  void closeMotors()
+  {
+    motors.forEach(SmartMotorController::close);
+    sparks.forEach(SparkMax::close);
+    motors.clear();
+    sparks.clear();
+    TelemetryBudget.setEnabled(true);
+    TelemetryBudget.setHysteresis(5, 50);
+    TelemetryBudget.setBudget(Seconds.of(0.022), Seconds.of(0.0205));
+    TelemetryBudget.reset();
+  }
+
+  private static void addMotors(int count)
+  {
+    NetworkTable telemetry = NetworkTableInstance.getDefault().getTable("TelemetryBudgetTest");
+    NetworkTable tuning    = NetworkTableInstance.getDefault().getTable("TelemetryBudgetTestTuning");
+    for (int i = 0; i < count; i++)
+    {
+      int      id    = motors.size() + 1;
+      SparkMax spark = new SparkMax(id, MotorType.kBrushless);
+      SmartMotorControllerConfig config = new SmartMotorControllerConfig(new SmartMotorControllerTestSubsystem())
+          .withClosedLoopController(1, 0, 0)
+          .withGearing(new MechanismGearing(GearBox.fromReductionStages(3, 4)))
+          .withStatorCurrentLimit(Amps.of(40))
+          .withControlMode(ControlMode.CLOSED_LOOP)
+          .withTelemetry("Motor" + id, TelemetryVerbosity.HIGH);
+      SmartMotorController smc = new SparkWrapper(spark, DCMotor.getNEO(1), config);
+      smc.setupTelemetry(telemetry, tuning);
+      sparks.add(spark);
+      motors.add(smc);
+    }
+  }
+
+  /**
+   * Publish the telemetry of every motor once and report a synthetic loop time for it.
+   */
+  private static void loop()
+  {
+    for (SmartMotorController smc : motors)
+    {
+      smc.updateTelemetry();
+    }
+    TelemetryBudget.reportLoopTime(loopTime());
+  }
+
+  /**
+   * Synthetic loop time, every motor costs {@link #MOTOR_COST} when it publishes and reduced rate tiers publish each
+   * motor once every publish period.
+   *
+   * @return Loop time in seconds.
+   */
+  private static double loopTime()
+  {
+    return motors.size() * MOTOR_COST / TelemetryBudget.getTier().getPublishPeriod();
+  }
+
+  @Test
+  void loopTimeHeldWithinBudgetAsMotorCountGrows()
+  {
+    TelemetryBudget.setBudget(Seconds.of(0.020), Seconds.of(0.015));
+    TelemetryBudget.setHysteresis(2, 10_000);
+
+    Tier[] expected = {Tier.FULL, Tier.HALF_RATE, Tier.MID};
+    int[]  counts   = {8, 16, 32};
+    for (int i = 0; i < counts.length; i++)
+    {
+      addMotors(counts[i] - motors.size());
+      for (int j = 0; j < 50; j++)
+      {
+        loop();
+      }
+      assertEquals(expected[i], TelemetryBudget.getTier(), counts[i] + " motors");
+      assertTrue(loopTime() <= 0.020, counts[i] + " motors, loop time " + loopTime() + "s");
+    }
+  }
+
+  @Test
+  void tierRestoredAfterHeadroomReturns()
+  {
+    TelemetryBudget.setBudget(Seconds.of(0.020), Seconds.of(0.015));
+    TelemetryBudget.setHysteresis(3, 10);
+    for (int i = 0; i < 3 * Tier.values().length; i++)
+    {
+      TelemetryBudget.reportLoopTime(0.030);
+    }
+    assertEquals(Tier.LOW, TelemetryBudget.getTier());
+
+    // Loop times between the thresholds do not restore.
+    for (int i = 0; i < 100; i++)
+    {
+      TelemetryBudget.reportLoopTime(0.018);
+    }
+    assertEquals(Tier.LOW, TelemetryBudget.getTier());
+
+    for (int i = 0; i < 10 * Tier.values().length; i++)
+    {
+      TelemetryBudget.reportLoopTime(0.010);
+    }
+    assertEquals(Tier.FULL, TelemetryBudget.getTier());
+  }
+}
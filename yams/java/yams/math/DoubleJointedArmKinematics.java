@@ -0,0 +1,325 @@
+package yams.math;
+
+import static edu.wpi.first.units.Units.Meters;
+
+import edu.wpi.first.units.measure.Distance;
+
+/**
+ * Allocation free kinematics of a two link arm, solving into caller provided primitive buffers. Positions are in meters
+ * from the shoulder with X away from the root and Y up; the lower angle is measured from horizontal and the upper angle
+ * is measured from horizontal too, not relative to the lower link, matching
+ * {@link yams.mechanisms.positional.DoubleJointedArm#getPosition()}.
+ * <p>
+ * A point has an elbow up and an elbow down solution. The preferred one is used when it is within the joint limits,
+ * otherwise the other one; along a path the solution closest to the previous waypoint is kept so the elbow does not
+ * flip. Points outside the workspace are projected onto its boundary.
+ */
+public class DoubleJointedArmKinematics
+{
+
+  /**
+   * Lower link length in meters.
+   */
+  private final double    lowerLength;
+  /**
+   * Upper link length in meters.
+   */
+  private final double    upperLength;
+  /**
+   * Solution of both branches, elbow up first, reused by every solve.
+   */
+  private final double[]  branches   = new double[4];
+  /**
+   * Minimum lower angle in radians.
+   */
+  private       double    lowerMin   = Double.NEGATIVE_INFINITY;
+  /**
+   * Maximum lower angle in radians.
+   */
+  private       double    lowerMax   = Double.POSITIVE_INFINITY;
+  /**
+   * Minimum upper angle in radians.
+   */
+  private       double    upperMin   = Double.NEGATIVE_INFINITY;
+  /**
+   * Maximum upper angle in radians.
+   */
+  private       double    upperMax   = Double.POSITIVE_INFINITY;
+  /**
+   * Reachability of every workspace grid cell, null if no grid is built.
+   */
+  private       boolean[] grid       = null;
+  /**
+   * Workspace grid cell size in meters.
+   */
+  private       double    resolution = 0;
+  /**
+   * Workspace grid cells per side.
+   */
+  private       int       gridSize   = 0;
+
+  /**
+   * Create the kinematics.
+   *
+   * @param lowerLength Lower link length.
+   * @param upperLength Upper link length.
+   */
+  public DoubleJointedArmKinematics(Distance lowerLength, Distance upperLength)
+  {
+    this.lowerLength = lowerLength.in(Meters);
+    this.upperLength = upperLength.in(Meters);
+  }
+
+  /**
+   * Set the lower joint limits, clears the workspace grid.
+   *
+   * @param minRadians Minimum lower angle in radians.
+   * @param maxRadians Maximum lower angle in radians.
+   */
+  public void setLowerLimits(double minRadians, double maxRadians)
+  {
+    lowerMin = minRadians;
+    lowerMax = maxRadians;
+    grid = null;
+  }
+
+  /**
+   * Set the upper joint limits, clears the workspace grid.
+   *
+   * @param minRadians Minimum upper angle in radians.
+   * @param maxRadians Maximum upper angle in radians.
+   */
+  public void setUpperLimits(double minRadians, double maxRadians)
+  {
+    upperMin = minRadians;
+    upperMax = maxRadians;
+    grid = null;
+  }
+
+  /**
+   * Forward kinematics.
+   *
+   * @param lowerRadians Lower angle in radians.
+   * @param upperRadians Upper angle in radians.
+   * @param out          Buffer to write X and Y to.
+   * @param offset       Index of X in the buffer.
+   */
+  public void forward(double lowerRadians, double upperRadians, double[] out, int offset)
+  {
+    out[offset] = lowerLength * Math.cos(lowerRadians) + upperLength * Math.cos(upperRadians);
+    out[offset + 1] = lowerLength * Math.sin(lowerRadians) + upperLength * Math.sin(upperRadians);
+  }
+
+  /**
+   * Solve the joint angles for a point.
+   *
+   * @param x       X in meters.
+   * @param y       Y in meters.
+   * @param elbowUp Prefer the elbow up solution.
+   * @param out     Buffer to write the lower and upper angle to, in radians.
+   * @param offset  Index of the lower angle in the buffer.
+   * @return True if the point is in the workspace and the solution is within the joint limits.
+   */
+  public boolean solve(double x, double y, boolean elbowUp, double[] out, int offset)
+  {
+    boolean inWorkspace = solveBranches(x, y);
+    int     preferred   = elbowUp ? 0 : 2;
+    int     other       = elbowUp ? 2 : 0;
+    int     chosen      = withinLimits(preferred) || !withinLimits(other) ? preferred : other;
+    out[offset] = wrapInto(branches[chosen], lowerMin);
+    out[offset + 1] = wrapInto(branches[chosen + 1], upperMin);
+    return inWorkspace && withinLimits(chosen);
+  }
+
+  /**
+   * Solve the joint angles for every waypoint of a path. The first waypoint uses the preferred elbow, later waypoints
+   * keep the solution closest to the previous one.
+   *
+   * @param xy      Waypoints as X, Y pairs in meters.
+   * @param count   Number of waypoints.
+   * @param elbowUp Prefer the elbow up solution for the first waypoint.
+   * @param out     Buffer to write the lower and upper angle pairs to, in radians.
+   * @return Index of the first waypoint outside the workspace or the joint limits, -1 if every waypoint is reachable.
+   */
+  public int solvePath(double[] xy, int count, boolean elbowUp, double[] out)
+  {
+    int firstUnreachable = -1;
+    for (int i = 0; i < count; i++)
+    {
+      boolean reachable;
+      if (i == 0)
+      {
+        reachable = solve(xy[0], xy[1], elbowUp, out, 0);
+      } else
+      {
+        boolean inWorkspace = solveBranches(xy[2 * i], xy[2 * i + 1]);
+        double  lower       = out[2 * i - 2];
+        double  upper       = out[2 * i - 1];
+        int     nearest     = distance(0, lower, upper) <= distance(2, lower, upper) ? 0 : 2;
+        int     chosen      = withinLimits(nearest) || !withinLimits(2 - nearest) ? nearest : 2 - nearest;
+        out[2 * i] = nearestWithinLimit(branches[chosen], lower, lowerMin, lowerMax);
+        out[2 * i + 1] = nearestWithinLimit(branches[chosen + 1], upper, upperMin, upperMax);
+        reachable = inWorkspace && withinLimits(chosen);
+      }
+      if (!reachable && firstUnreachable < 0)
+      {
+        firstUnreachable = i;
+      }
+    }
+    return firstUnreachable;
+  }
+
+  /**
+   * Precompute which points are reachable within the joint limits, for constant time {@link #isReachable} checks.
+   *
+   * @param resolutionMeters Grid cell size in meters.
+   */
+  public void buildWorkspaceGrid(double resolutionMeters)
+  {
+    double    reach = lowerLength + upperLength;
+    int       size  = (int) Math.ceil(2 * reach / resolutionMeters);
+    boolean[] cells = new boolean[size * size];
+    double[]  out   = new double[2];
+    for (int row = 0; row < size; row++)
+    {
+      double y = -reach + (row + 0.5) * resolutionMeters;
+      for (int column = 0; column < size; column++)
+      {
+        double x = -reach + (column + 0.5) * resolutionMeters;
+        cells[row * size + column] = solve(x, y, true, out, 0) || solve(x, y, false, out, 0);
+      }
+    }
+    resolution = resolutionMeters;
+    gridSize = size;
+    grid = cells;
+  }
+
+  /**
+   * Check if a point is reachable within the joint limits, looked up in the workspace grid when built.
+   *
+   * @param x X in meters.
+   * @param y Y in meters.
+   * @return True if reachable.
+   */
+  public boolean isReachable(double x, double y)
+  {
+    boolean[] cells = grid;
+    if (cells == null)
+    {
+      boolean inWorkspace = solveBranches(x, y);
+      return inWorkspace && (withinLimits(0) || withinLimits(2));
+    }
+    double reach  = lowerLength + upperLength;
+    int    column = (int) Math.floor((x + reach) / resolution);
+    int    row    = (int) Math.floor((y + reach) / resolution);
+    if (column < 0 || row < 0 || column >= gridSize || row >= gridSize)
+    {
+      return false;
+    }
+    return cells[row * gridSize + column];
+  }
+
+  /**
+   * Solve both branches into {@link #branches}, elbow up first. Points outside the workspace are projected onto it.
+   *
+   * @param x X in meters.
+   * @param y Y in meters.
+   * @return True if the point is in the workspace.
+   */
+  private boolean solveBranches(double x, double y)
+  {
+    double  cosElbow    = (x * x + y * y - lowerLength * lowerLength - upperLength * upperLength) /
+                          (2 * lowerLength * upperLength);
+    boolean inWorkspace = cosElbow >= -1 && cosElbow <= 1;
+    double  elbow       = Math.acos(Math.max(-1, Math.min(1, cosElbow)));
+    double  bearing     = Math.atan2(y, x);
+    for (int branch = 0; branch < 2; branch++)
+    {
+      // Elbow up bends the upper link clockwise relative to the lower link.
+      double relative = branch == 0 ? -elbow : elbow;
+      double lower    = bearing - Math.atan2(upperLength * Math.sin(relative),
+                                             lowerLength + upperLength * Math.cos(relative));
+      branches[2 * branch] = lower;
+      branches[2 * branch + 1] = lower + relative;
+    }
+    return inWorkspace;
+  }
+
+  /**
+   * Check if a branch is within the joint limits, wrapping the angles into the limit ranges.
+   *
+   * @param branch Index of the lower angle of the branch in {@link #branches}.
+   * @return True if within the limits.
+   */
+  private boolean withinLimits(int branch)
+  {
+    return withinLimit(branches[branch], lowerMin, lowerMax) && withinLimit(branches[branch + 1], upperMin, upperMax);
+  }
+
+  /**
+   * Check if an angle is within a limit, in any revolution.
+   *
+   * @param angle Angle in radians.
+   * @param min   Minimum in radians.
+   * @param max   Maximum in radians.
+   * @return True if within the limit.
+   */
+  private static boolean withinLimit(double angle, double min, double max)
+  {
+    if (Double.isInfinite(min) || Double.isInfinite(max))
+    {
+      return angle >= min && angle <= max;
+    }
+    return wrapInto(angle, min) <= max;
+  }
+
+  /**
+   * Get the revolution of an angle closest to a previous angle, or the revolution within the limit if that one is not.
+   * A path then does not jump a revolution between waypoints, but never leaves the limit window it was checked in.
+   *
+   * @param angle    Angle in radians.
+   * @param previous Previous angle in radians.
+   * @param min      Minimum in radians.
+   * @param max      Maximum in radians.
+   * @return Angle in radians, the closest revolution if the angle is not within the limit in any revolution.
+   */
+  private static double nearestWithinLimit(double angle, double previous, double min, double max)
+  {
+    double nearest = previous + Math.IEEEremainder(angle - previous, 2 * Math.PI);
+    if ((nearest >= min && nearest <= max) || !withinLimit(angle, min, max))
+    {
+      return nearest;
+    }
+    return wrapInto(angle, min);
+  }
+
+  /**
+   * Wrap an angle into the revolution starting at a limit.
+   *
+   * @param angle Angle in radians.
+   * @param min   Minimum in radians, the angle is left unchanged if infinite.
+   * @return Wrapped angle in radians.
+   */
+  private static double wrapInto(double angle, double min)
+  {
+    if (Double.isInfinite(min))
+    {
+      return angle;
+    }
+    return angle - 2 * Math.PI * Math.floor((angle - min) / (2 * Math.PI));
+  }
+
+  /**
+   * Joint space distance from a branch to a previous solution.
+   *
+   * @param branch Index of the lower angle of the branch in {@link #branches}.
+   * @param lower  Previous lower angle in radians.
+   * @param upper  Previous upper angle in radians.
+   * @return Sum of the absolute angle differences.
+   */
+  private double distance(int branch, double lower, double upper)
+  {
+    return Math.abs(Math.IEEEremainder(branches[branch] - lower, 2 * Math.PI)) +
+           Math.abs(Math.IEEEremainder(branches[branch + 1] - upper, 2 * Math.PI));
+  }
+}
@@ -26,7 +26,6 @@ import edu.wpi.first.units.measure.Distance;
 import edu.wpi.first.units.measure.Mass;
 import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.units.measure.Voltage;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
 import java.util.Optional;
 import yams.gearing.MechanismGearing;
@@ -39,33 +38,61 @@ public class ExponentialProfilePIDController
 {
 
   /**
-   * Iteration timer.
+   * Number of doubles written by {@link #captureState(double[], int)}.
    */
-  private final Timer              timer   = new Timer();
+  public static final int                      STATE_SIZE    = 6;
   /**
    * The wrapped PID controller.
    */
-  private final PIDController      controller;
+  private final       PIDController            controller;
+  /**
+   * The current state from {@link ExponentialProfile}
+   */
+  private final       ExponentialProfile.State currentState  = new State();
+  /**
+   * The next state from {@link ExponentialProfile}
+   */
+  private final       ExponentialProfile.State nextState     = new State();
+  /**
+   * The goal state, reused every {@link #calculate(double, double, double)}.
+   */
+  private final       ExponentialProfile.State goalState     = new State();
   /**
    * The wrapped profile.
    */
-  private       ExponentialProfile profile = null;
+  private             ExponentialProfile       profile       = null;
   /**
-   * The current state from {@link ExponentialProfile}
+   * Whether {@link #nextState} has been calculated since the last reset.
    */
-  private       ExponentialProfile.State           currentState = new State();
+  private             boolean                  hasNextState  = false;
   /**
-   * The next state from {@link ExponentialProfile}
+   * Clock measuring the loop time, the {@link YamsClock#getDefault()} if empty.
+   */
+  private             Optional<YamsClock>      clock         = Optional.empty();
+  /**
+   * Timestamp of the last {@link #calculate(double, double, double)} in seconds, NaN before the first.
    */
-  private       Optional<ExponentialProfile.State> nextState    = Optional.empty();
+  private             double                   lastTimestamp = Double.NaN;
   /**
-   * Loop time.
+   * Loop time in seconds.
    */
-  private       Time                               loopTime     = Milliseconds.of(20);
+  private             double                   loopTime      = Milliseconds.of(20).in(Seconds);
   /**
    * {@link ExponentialProfile.Constraints} for the {@link ExponentialProfile}.
    */
-  private       Constraints                        constraints  = null;
+  private             Constraints              constraints   = null;
+  /**
+   * Cache of the profile trajectories, the profile is solved every loop if empty.
+   */
+  private             Optional<ProfileCache>   profileCache  = Optional.empty();
+  /**
+   * Cached trajectory to the current goal, null until looked up.
+   */
+  private             ProfileCache.Trajectory  trajectory    = null;
+  /**
+   * Time along the {@link #trajectory} of the next state in seconds.
+   */
+  private             double                   trajectoryAge = 0;
 
   /**
    * Constructor.
@@ -232,8 +259,10 @@ public class ExponentialProfilePIDController
   public void reset(State measurement)
   {
     controller.reset();
-    currentState = measurement;
-    nextState = Optional.empty();
+    currentState.position = measurement.position;
+    currentState.velocity = measurement.velocity;
+    hasNextState = false;
+    trajectory = null;
   }
 
   /**
@@ -244,7 +273,69 @@ public class ExponentialProfilePIDController
    */
   public void reset(double position, double velocity)
   {
-    reset(new ExponentialProfile.State(position, velocity));
+    controller.reset();
+    currentState.position = position;
+    currentState.velocity = velocity;
+    hasNextState = false;
+    trajectory = null;
+  }
+
+  /**
+   * Write the profile state and loop time into a buffer, for {@link yams.motorcontrollers.simulation.SimSnapshot}s.
+   *
+   * @param buffer Buffer to write to.
+   * @param offset Index of the first of {@link #STATE_SIZE} doubles.
+   */
+  public void captureState(double[] buffer, int offset)
+  {
+    buffer[offset] = currentState.position;
+    buffer[offset + 1] = currentState.velocity;
+    buffer[offset + 2] = nextState.position;
+    buffer[offset + 3] = nextState.velocity;
+    buffer[offset + 4] = hasNextState ? 1 : 0;
+    buffer[offset + 5] = loopTime;
+  }
+
+  /**
+   * Read the profile state and loop time from a buffer written by {@link #captureState(double[], int)}. The PID
+   * controller is reset and the next loop time is the restored one.
+   *
+   * @param buffer Buffer to read from.
+   * @param offset Index of the first of {@link #STATE_SIZE} doubles.
+   */
+  public void restoreState(double[] buffer, int offset)
+  {
+    controller.reset();
+    currentState.position = buffer[offset];
+    currentState.velocity = buffer[offset + 1];
+    nextState.position = buffer[offset + 2];
+    nextState.velocity = buffer[offset + 3];
+    hasNextState = buffer[offset + 4] != 0;
+    loopTime = buffer[offset + 5];
+    lastTimestamp = Double.NaN;
+    trajectory = null;
+  }
+
+  /**
+   * Set the clock measuring the loop time. A {@link YamsClock#fixed(Time)} clock makes the profile generation
+   * deterministic.
+   *
+   * @param clock {@link YamsClock} to use.
+   */
+  public void setClock(YamsClock clock)
+  {
+    this.clock = Optional.of(clock);
+    lastTimestamp = Double.NaN;
+  }
+
+  /**
+   * Get the clock measuring the loop time.
+   *
+   * @return {@link YamsClock} if set, otherwise the {@link YamsClock#getDefault()} is used.
+   */
+  public Optional<YamsClock> getClock()
+  {
+    return clock;
   }
 
   /**
@@ -266,6 +357,29 @@ public class ExponentialProfilePIDController
   {
     this.constraints = constraints;
     profile = new ExponentialProfile(constraints);
+    trajectory = null;
+  }
+
+  /**
+   * Follow trajectories from a {@link ProfileCache} instead of solving the profile every loop. The trajectory is looked
+   * up when the goal changes and interpolated every loop.
+   *
+   * @param cache {@link ProfileCache} to use, may be shared between controllers.
+   */
+  public void setProfileCache(ProfileCache cache)
+  {
+    profileCache = Optional.of(cache);
+    trajectory = null;
+  }
+
+  /**
+   * Get the profile cache.
+   *
+   * @return {@link ProfileCache} if set.
+   */
+  public Optional<ProfileCache> getProfileCache()
+  {
+    return profileCache;
   }
 
   /**
@@ -326,7 +440,7 @@ public class ExponentialProfilePIDController
    */
   public Angle getNextAngle()
   {
-    return Rotations.of(nextState.orElseThrow().position);
+    return Rotations.of(getNextState().orElseThrow().position);
   }
 
   /**
@@ -346,7 +460,7 @@ public class ExponentialProfilePIDController
    */
   public AngularVelocity getNextVelocitySetpoint()
   {
-    return RotationsPerSecond.of(nextState.orElseThrow().velocity);
+    return RotationsPerSecond.of(getNextState().orElseThrow().velocity);
   }
 
   /**
@@ -356,7 +470,7 @@ public class ExponentialProfilePIDController
    */
   public Optional<State> getNextState()
   {
-    return nextState;
+    return hasNextState ? Optional.of(nextState) : Optional.empty();
   }
 
   /**
@@ -369,17 +483,37 @@ public class ExponentialProfilePIDController
    */
   public double calculate(double measurementPosition, double setpointVelocity, double setpointPosition)
   {
-    if (timer.isRunning())
+    YamsClock loopClock = clock.orElse(YamsClock.getDefault());
+    if (!Double.isNaN(lastTimestamp))
     {
-      loopTime = Seconds.of(timer.get());
+      loopTime = loopClock.getElapsed(lastTimestamp);
     }
-    timer.reset();
-    timer.start();
+    lastTimestamp = loopClock.getTimestamp();
     var feedback = controller.calculate(measurementPosition, currentState.position);
-    nextState.ifPresent(state -> currentState = state);
-    nextState = Optional.of(profile.calculate(loopTime.in(Seconds),
-                                              currentState,
-                                              new State(setpointPosition, setpointVelocity)));
+    if (hasNextState)
+    {
+      currentState.position = nextState.position;
+      currentState.velocity = nextState.velocity;
+    }
+    boolean goalChanged = goalState.position != setpointPosition || goalState.velocity != setpointVelocity;
+    goalState.position = setpointPosition;
+    goalState.velocity = setpointVelocity;
+    if (profileCache.isPresent())
+    {
+      if (trajectory == null || goalChanged)
+      {
+        trajectory = profileCache.get().get(profile, constraints, currentState, goalState);
+        trajectoryAge = 0;
+      }
+      trajectoryAge += loopTime;
+      trajectory.sample(trajectoryAge, nextState);
+    } else
+    {
+      State next = profile.calculate(loopTime, currentState, goalState);
+      nextState.position = next.position;
+      nextState.velocity = next.velocity;
+    }
+    hasNextState = true;
     return feedback;
   }
 
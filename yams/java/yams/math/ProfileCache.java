@@ -0,0 +1,396 @@
+package yams.math;
+
+import static edu.wpi.first.units.Units.Seconds;
+
+import edu.wpi.first.math.trajectory.ExponentialProfile;
+import edu.wpi.first.math.trajectory.ExponentialProfile.Constraints;
+import edu.wpi.first.math.trajectory.ExponentialProfile.State;
+import edu.wpi.first.units.measure.Time;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of {@link ExponentialProfile} trajectories, for mechanisms moving between the same few
+ * setpoints many times a match. A trajectory is keyed by its quantized start state, goal state and
+ * {@link Constraints}, and stored as position and velocity samples at a fixed period. Looking up a state interpolates
+ * the samples instead of solving the profile.
+ * <p>
+ * The cached trajectory starts from the start state it was first generated from, which may differ from a later start
+ * state by up to the quantum. Profiles longer than the sample limit are not cached, their trajectory solves the profile
+ * on every lookup. A cache may be shared by several {@link ExponentialProfilePIDController}s.
+ */
+public class ProfileCache
+{
+
+  /**
+   * Approximate size of a cached trajectory besides its samples in bytes.
+   */
+  private static final int                            ENTRY_OVERHEAD_BYTES = 128;
+  /**
+   * Cached trajectories, in access order.
+   */
+  private final        LinkedHashMap<Key, Trajectory> trajectories         = new LinkedHashMap<>(16, 0.75f, true);
+  /**
+   * Memory cap in bytes.
+   */
+  private final        long                           maxBytes;
+  /**
+   * Sample period in seconds.
+   */
+  private final        double                         samplePeriod;
+  /**
+   * Position quantum of the keys.
+   */
+  private final        double                         positionQuantum;
+  /**
+   * Velocity quantum of the keys.
+   */
+  private final        double                         velocityQuantum;
+  /**
+   * Approximate memory used by the cached trajectories in bytes.
+   */
+  private              long                           bytes                = 0;
+  /**
+   * Lookups served from the cache.
+   */
+  private              long                           hits                 = 0;
+  /**
+   * Lookups that generated a trajectory.
+   */
+  private              long                           misses               = 0;
+  /**
+   * Trajectories evicted to stay under the memory cap.
+   */
+  private              long                           evictions            = 0;
+
+  /**
+   * Create a profile cache.
+   *
+   * @param maxBytes        Memory cap of the cached samples in bytes.
+   * @param samplePeriod    Period of the trajectory samples, usually the closed loop period.
+   * @param positionQuantum Start and goal positions within this are the same key, in the controller units.
+   * @param velocityQuantum Start and goal velocities within this are the same key, in the controller units.
+   */
+  public ProfileCache(long maxBytes, Time samplePeriod, double positionQuantum, double velocityQuantum)
+  {
+    this.maxBytes = maxBytes;
+    this.samplePeriod = samplePeriod.in(Seconds);
+    this.positionQuantum = positionQuantum;
+    this.velocityQuantum = velocityQuantum;
+  }
+
+  /**
+   * Get the trajectory from the start to the goal, generating and caching it on a miss.
+   *
+   * @param profile     {@link ExponentialProfile} to generate with.
+   * @param constraints {@link Constraints} of the profile.
+   * @param start       Start state.
+   * @param goal        Goal state.
+   * @return {@link Trajectory}.
+   */
+  public synchronized Trajectory get(ExponentialProfile profile, Constraints constraints, State start, State goal)
+  {
+    Key        key        = new Key(quantize(start.position, positionQuantum),
+                                    quantize(start.velocity, velocityQuantum),
+                                    quantize(goal.position, positionQuantum),
+                                    quantize(goal.velocity, velocityQuantum),
+                                    constraints.maxInput,
+                                    constraints.A,
+                                    constraints.B);
+    Trajectory trajectory = trajectories.get(key);
+    if (trajectory != null)
+    {
+      hits++;
+      return trajectory;
+    }
+    misses++;
+    trajectory = Trajectory.generate(profile, start, goal, samplePeriod);
+    if (!trajectory.isSampled())
+    {
+      return trajectory;
+    }
+    trajectories.put(key, trajectory);
+    bytes += trajectory.getSizeBytes();
+    Iterator<Map.Entry<Key, Trajectory>> eldest = trajectories.entrySet().iterator();
+    while (bytes > maxBytes && trajectories.size() > 1)
+    {
+      bytes -= eldest.next().getValue().getSizeBytes();
+      eldest.remove();
+      evictions++;
+    }
+    return trajectory;
+  }
+
+  /**
+   * Remove every cached trajectory, the metrics are kept.
+   */
+  public synchronized void clear()
+  {
+    trajectories.clear();
+    bytes = 0;
+  }
+
+  /**
+   * Get the number of cached trajectories.
+   *
+   * @return Number of trajectories.
+   */
+  public synchronized int size()
+  {
+    return trajectories.size();
+  }
+
+  /**
+   * Get the approximate memory used by the cached trajectories.
+   *
+   * @return Memory in bytes.
+   */
+  public synchronized long getMemoryBytes()
+  {
+    return bytes;
+  }
+
+  /**
+   * Get the number of lookups served from the cache.
+   *
+   * @return Hits.
+   */
+  public synchronized long getHits()
+  {
+    return hits;
+  }
+
+  /**
+   * Get the number of lookups that generated a trajectory.
+   *
+   * @return Misses.
+   */
+  public synchronized long getMisses()
+  {
+    return misses;
+  }
+
+  /**
+   * Get the number of trajectories evicted to stay under the memory cap.
+   *
+   * @return Evictions.
+   */
+  public synchronized long getEvictions()
+  {
+    return evictions;
+  }
+
+  /**
+   * Get the fraction of lookups served from the cache.
+   *
+   * @return Hit rate from 0 to 1, 0 before the first lookup.
+   */
+  public synchronized double getHitRate()
+  {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  /**
+   * Quantize a value.
+   *
+   * @param value   Value.
+   * @param quantum Quantum, values are not quantized if not positive.
+   * @return Quantized value.
+   */
+  private static long quantize(double value, double quantum)
+  {
+    return quantum > 0 ? Math.round(value / quantum) : Double.doubleToLongBits(value);
+  }
+
+  /**
+   * Cache key.
+   *
+   * @param startPosition Quantized start position.
+   * @param startVelocity Quantized start velocity.
+   * @param goalPosition  Quantized goal position.
+   * @param goalVelocity  Quantized goal velocity.
+   * @param maxInput      Maximum input of the constraints.
+   * @param a             A of the constraints.
+   * @param b             B of the constraints.
+   */
+  private record Key(long startPosition, long startVelocity, long goalPosition, long goalVelocity, double maxInput,
+                     double a, double b)
+  {
+  }
+
+  /**
+   * Time parameterized trajectory of an {@link ExponentialProfile}, sampled at a fixed period. A profile that would
+   * take more than the sample limit is not sampled, the trajectory solves it on every lookup instead.
+   */
+  public static final class Trajectory
+  {
+
+    /**
+     * Most samples in a trajectory, 5 minutes at 20ms.
+     */
+    static final  int                MAX_SAMPLES = 15000;
+    /**
+     * Sample positions, null if the profile is solved on every lookup.
+     */
+    private final double[]           positions;
+    /**
+     * Sample velocities, null if the profile is solved on every lookup.
+     */
+    private final double[]           velocities;
+    /**
+     * Sample period in seconds.
+     */
+    private final double             period;
+    /**
+     * Profile solved on every lookup, null if sampled.
+     */
+    private final ExponentialProfile profile;
+    /**
+     * Start state of the solved profile, null if sampled.
+     */
+    private final State              start;
+    /**
+     * Goal state of the solved profile, null if sampled.
+     */
+    private final State              goal;
+    /**
+     * Duration in seconds.
+     */
+    private final double             duration;
+
+    /**
+     * Create a sampled trajectory.
+     *
+     * @param positions  Sample positions.
+     * @param velocities Sample velocities.
+     * @param period     Sample period in seconds.
+     */
+    private Trajectory(double[] positions, double[] velocities, double period)
+    {
+      this.positions = positions;
+      this.velocities = velocities;
+      this.period = period;
+      this.profile = null;
+      this.start = null;
+      this.goal = null;
+      this.duration = (positions.length - 1) * period;
+    }
+
+    /**
+     * Create a trajectory that solves the profile on every lookup.
+     *
+     * @param profile  {@link ExponentialProfile} to solve.
+     * @param start    Start state, copied.
+     * @param goal     Goal state, copied.
+     * @param period   Sample period in seconds.
+     * @param duration Duration of the profile in seconds.
+     */
+    private Trajectory(ExponentialProfile profile, State start, State goal, double period, double duration)
+    {
+      this.positions = null;
+      this.velocities = null;
+      this.period = period;
+      this.profile = profile;
+      this.start = new State(start.position, start.velocity);
+      this.goal = new State(goal.position, goal.velocity);
+      this.duration = duration;
+    }
+
+    /**
+     * Sample a profile from the start to the goal. The last sample is the goal, so the trajectory always ends there.
+     *
+     * @param profile {@link ExponentialProfile} to sample.
+     * @param start   Start state.
+     * @param goal    Goal state.
+     * @param period  Sample period in seconds.
+     * @return {@link Trajectory}, solving the profile on every lookup if it takes more than {@link #MAX_SAMPLES}.
+     */
+    static Trajectory generate(ExponentialProfile profile, State start, State goal, double period)
+    {
+      double duration = profile.timeLeftUntil(start, goal);
+      double samples  = Math.max(1, Math.ceil(duration / period) + 1);
+      if (!(samples <= MAX_SAMPLES))
+      {
+        return new Trajectory(profile, start, goal, period, duration);
+      }
+      double[] positions  = new double[(int) samples];
+      double[] velocities = new double[(int) samples];
+      int      last       = positions.length - 1;
+      for (int i = 0; i < last; i++)
+      {
+        State state = profile.calculate(i * period, start, goal);
+        positions[i] = state.position;
+        velocities[i] = state.velocity;
+      }
+      // The last sample is at or after the end of the profile.
+      positions[last] = goal.position;
+      velocities[last] = goal.velocity;
+      return new Trajectory(positions, velocities, period);
+    }
+
+    /**
+     * Get the state at a time along the trajectory, the goal after it ends. The position is interpolated with a cubic
+     * Hermite spline through the sample velocities, the velocity linearly.
+     *
+     * @param time  Time since the start in seconds.
+     * @param state {@link State} to write to.
+     */
+    public void sample(double time, State state)
+    {
+      if (positions == null)
+      {
+        State solved = profile.calculate(time, start, goal);
+        state.position = solved.position;
+        state.velocity = solved.velocity;
+        return;
+      }
+      int    last  = positions.length - 1;
+      double index = time / period;
+      if (!(index < last))
+      {
+        state.position = positions[last];
+        state.velocity = velocities[last];
+        return;
+      }
+      int    i  = Math.max(0, (int) index);
+      double s  = Math.max(0, index - i);
+      double s2 = s * s;
+      double s3 = s2 * s;
+      state.position = (2 * s3 - 3 * s2 + 1) * positions[i] + (s3 - 2 * s2 + s) * period * velocities[i] +
+                       (-2 * s3 + 3 * s2) * positions[i + 1] + (s3 - s2) * period * velocities[i + 1];
+      state.velocity = velocities[i] + (velocities[i + 1] - velocities[i]) * s;
+    }
+
+    /**
+     * Get the duration of the trajectory.
+     *
+     * @return Duration in seconds.
+     */
+    public double getDuration()
+    {
+      return duration;
+    }
+
+    /**
+     * Whether the trajectory is sampled and can be cached.
+     *
+     * @return False if the profile is solved on every lookup.
+     */
+    public boolean isSampled()
+    {
+      return positions != null;
+    }
+
+    /**
+     * Get the approximate memory used by the trajectory.
+     *
+     * @return Memory in bytes.
+     */
+    long getSizeBytes()
+    {
+      return ENTRY_OVERHEAD_BYTES + (positions == null ? 0 : 16L * positions.length);
+    }
+  }
+}
@@ -8,6 +8,12 @@ import yams.exceptions.NoStagesGivenException;
 public class SmartMath
 {
 
+  /**
+   * Standard gravity in m/s^2, used by every YAMS simulation and traction limit. The WPILib simulations round it to
+   * 9.8.
+   */
+  public static final double GRAVITY = 9.80665;
+
   /**
    * Create the sensor to mechanism ratio.
    *
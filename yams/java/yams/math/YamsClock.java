@@ -0,0 +1,166 @@
+package yams.math;
+
+import static edu.wpi.first.units.Units.Seconds;
+
+import edu.wpi.first.units.measure.Time;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Time source used for YAMS timing, the loop time of the {@link ExponentialProfilePIDController}, the
+ * {@link yams.mechanisms.swerve.SwerveDrive} simulation and the {@link yams.telemetry.MechanismTelemetry} loop time.
+ * <ul>
+ *   <li>{@link #fpga()}, the FPGA timestamp. Real time on a robot, HAL simulation time in simulation (stepped by
+ *   {@link yams.motorcontrollers.simulation.SimClock}) and the logged time while replaying an
+ *   {@link yams.telemetry.InputLog}.</li>
+ *   <li>{@link #fixed(Time)}, the FPGA timestamp but every elapsed time is the fixed period, so anything integrated
+ *   over it is deterministic regardless of scheduling jitter.</li>
+ *   <li>{@link #manual()}, a simulated time advanced by the caller, for headless sims that do not run the HAL.</li>
+ * </ul>
+ */
+public abstract class YamsClock
+{
+
+  /**
+   * FPGA clock.
+   */
+  private static final YamsClock FPGA         = new YamsClock()
+  {
+    @Override
+    public double getTimestamp()
+    {
+      return Timer.getFPGATimestamp();
+    }
+  };
+  /**
+   * Clock used when none is given.
+   */
+  private static       YamsClock defaultClock = FPGA;
+
+  /**
+   * Get the current timestamp.
+   *
+   * @return Timestamp in seconds.
+   */
+  public abstract double getTimestamp();
+
+  /**
+   * Get the time elapsed since a previous timestamp of this clock.
+   *
+   * @param previousTimestamp Previous timestamp from {@link #getTimestamp()} in seconds.
+   * @return Elapsed time in seconds.
+   */
+  public double getElapsed(double previousTimestamp)
+  {
+    return getTimestamp() - previousTimestamp;
+  }
+
+  /**
+   * Get the FPGA clock.
+   *
+   * @return FPGA {@link YamsClock}.
+   */
+  public static YamsClock fpga()
+  {
+    return FPGA;
+  }
+
+  /**
+   * Create a fixed period clock.
+   *
+   * @param period Period reported as the elapsed time, usually the robot loop period.
+   * @return Fixed period {@link YamsClock}.
+   */
+  public static YamsClock fixed(Time period)
+  {
+    double periodSeconds = period.in(Seconds);
+    return new YamsClock()
+    {
+      @Override
+      public double getTimestamp()
+      {
+        return Timer.getFPGATimestamp();
+      }
+
+      @Override
+      public double getElapsed(double previousTimestamp)
+      {
+        return periodSeconds;
+      }
+    };
+  }
+
+  /**
+   * Create a manually advanced clock starting at 0.
+   *
+   * @return {@link ManualClock}.
+   */
+  public static ManualClock manual()
+  {
+    return new ManualClock();
+  }
+
+  /**
+   * Set the clock used by YAMS when none is given.
+   *
+   * @param clock Default {@link YamsClock}.
+   */
+  public static void setDefault(YamsClock clock)
+  {
+    defaultClock = clock;
+  }
+
+  /**
+   * Get the clock used by YAMS when none is given, the {@link #fpga()} clock unless set.
+   *
+   * @return Default {@link YamsClock}.
+   */
+  public static YamsClock getDefault()
+  {
+    return defaultClock;
+  }
+
+  /**
+   * Clock whose time only advances when told to.
+   */
+  public static final class ManualClock extends YamsClock
+  {
+
+    /**
+     * Current timestamp in seconds.
+     */
+    private double timestamp = 0;
+
+    /**
+     * Create the clock, use {@link YamsClock#manual()}.
+     */
+    private ManualClock()
+    {
+    }
+
+    @Override
+    public double getTimestamp()
+    {
+      return timestamp;
+    }
+
+    /**
+     * Set the current timestamp.
+     *
+     * @param timestampSeconds Timestamp in seconds.
+     */
+    public void setTimestamp(double timestampSeconds)
+    {
+      timestamp = timestampSeconds;
+    }
+
+    /**
+     * Advance the clock.
+     *
+     * @param dt Time to advance.
+     */
+    public void advance(Time dt)
+    {
+      timestamp += dt.in(Seconds);
+    }
+  }
+}
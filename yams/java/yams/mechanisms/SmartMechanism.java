@@ -13,6 +13,7 @@ import yams.gearing.GearBox;
 import yams.gearing.MechanismGearing;
 import yams.gearing.Sprocket;
 import yams.motorcontrollers.SmartMotorController;
+import yams.telemetry.MechanismProfiler.Phase;
 import yams.telemetry.MechanismTelemetry;
 
 /**
@@ -119,6 +120,22 @@ public abstract class SmartMechanism
     return new MechanismGearing(gearBox);
   }
 
+  /**
+   * Wrap a setpoint write so the time spent in it is recorded as {@link Phase#SetpointWrite} by the
+   * {@link yams.telemetry.MechanismProfiler}.
+   *
+   * @param setpointWrite Setpoint write to run.
+   * @return {@link Runnable} running and timing the setpoint write.
+   */
+  protected Runnable profiledSetpoint(Runnable setpointWrite)
+  {
+    return () -> {
+      long start = m_telemetry.startProfiling();
+      setpointWrite.run();
+      m_telemetry.stopProfiling(Phase.SetpointWrite, start);
+    };
+  }
+
   /**
    * Set the DutyCycle of the {@link yams.motorcontrollers.SmartMotorController}.
    *
@@ -127,7 +144,9 @@ public abstract class SmartMechanism
    */
   public Command set(double dutycycle)
   {
-    return Commands.startRun(m_smc::stopClosedLoopController, () -> m_smc.setDutyCycle(dutycycle), m_subsystem)
+    return Commands.startRun(m_smc::stopClosedLoopController,
+                             profiledSetpoint(() -> m_smc.setDutyCycle(dutycycle)),
+                             m_subsystem)
                    .finallyDo(m_smc::startClosedLoopController)
                    .withName(m_subsystem.getName() + " SetDutyCycle");
   }
@@ -141,7 +160,7 @@ public abstract class SmartMechanism
   public Command set(Supplier<Double> dutycycle)
   {
     return Commands.startRun(m_smc::stopClosedLoopController,
-                             () -> m_smc.setDutyCycle(dutycycle.get()), m_subsystem)
+                             profiledSetpoint(() -> m_smc.setDutyCycle(dutycycle.get())), m_subsystem)
                    .finallyDo(m_smc::startClosedLoopController)
                    .withName(m_subsystem.getName() + " SetDutyCycle Supplier");
   }
@@ -154,7 +173,8 @@ public abstract class SmartMechanism
    */
   public Command setVoltage(Voltage volts)
   {
-    return Commands.startRun(m_smc::stopClosedLoopController, () -> m_smc.setVoltage(volts), m_subsystem)
+    return Commands.startRun(m_smc::stopClosedLoopController, profiledSetpoint(() -> m_smc.setVoltage(volts)),
+                             m_subsystem)
                    .finallyDo(m_smc::startClosedLoopController)
                    .withName(m_subsystem.getName() + " SetVoltage");
   }
@@ -168,7 +188,9 @@ public abstract class SmartMechanism
    */
   public Command setVoltage(Supplier<Voltage> volts)
   {
-    return Commands.startRun(m_smc::stopClosedLoopController, () -> m_smc.setVoltage(volts.get()), m_subsystem)
+    return Commands.startRun(m_smc::stopClosedLoopController,
+                             profiledSetpoint(() -> m_smc.setVoltage(volts.get())),
+                             m_subsystem)
                    .finallyDo(m_smc::startClosedLoopController)
                    .withName(m_subsystem.getName() + " SetVoltage Supplier");
   }
@@ -281,6 +281,16 @@ public class ArmConfig
                                         "withLength(Distance).withMass(Mass) OR ArmConfig.withMOI()");
   }
 
+  /**
+   * Get the {@link Mass} of the {@link yams.mechanisms.positional.Arm} for simulation.
+   *
+   * @return {@link Mass} of the Arm.
+   */
+  public Optional<Mass> getMass()
+  {
+    return weight;
+  }
+
   /**
    * Get the Upper hard limit of the {@link yams.mechanisms.positional.Arm}.
    *
@@ -1,9 +1,6 @@
 package yams.mechanisms.config;
 
-import static edu.wpi.first.units.Units.Seconds;
-
 import edu.wpi.first.units.measure.Time;
-import edu.wpi.first.wpilibj.DriverStation;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -31,7 +28,11 @@ public class SensorConfig
   /**
    * Sensor
    */
-  private       Optional<Sensor> sensor = Optional.empty();
+  private       Optional<Sensor> sensor       = Optional.empty();
+  /**
+   * Read every field once per loop.
+   */
+  private       boolean          cycleSampled = false;
 
   /**
    * Sensor configuration.
@@ -100,7 +101,8 @@ public class SensorConfig
   }
 
   /**
-   * Add a simulated value to the sensor at a given match time.
+   * Add a simulated value to the sensor at a given match time. The match time windows of a field are compiled into one
+   * timeline, so a long script costs no more to read than a single value.
    *
    * @param fieldName Name of the field to change.
    * @param start     {@link Time} at which to start the data simulation.
@@ -114,8 +116,7 @@ public class SensorConfig
     {
       if (field.getName().equals(fieldName))
       {
-        field.addSimTrigger(SensorData.convert(value), () -> DriverStation.getMatchTime() >= start.in(Seconds) &&
-                                                             DriverStation.getMatchTime() <= end.in(Seconds));
+        field.addSimValue(start, end, value);
       }
     }
     return this;
@@ -136,8 +137,7 @@ public class SensorConfig
     {
       if (field.getName().equals(fieldName))
       {
-        field.addSimTrigger(SensorData.convert(value), () -> DriverStation.getMatchTime() >= start.in(Seconds) &&
-                                                             DriverStation.getMatchTime() <= end.in(Seconds));
+        field.addSimValue(start, end, value);
       }
     }
     return this;
@@ -158,8 +158,7 @@ public class SensorConfig
     {
       if (field.getName().equals(fieldName))
       {
-        field.addSimTrigger(SensorData.convert(value), () -> DriverStation.getMatchTime() >= start.in(Seconds) &&
-                                                             DriverStation.getMatchTime() <= end.in(Seconds));
+        field.addSimValue(start, end, value);
       }
     }
     return this;
@@ -180,8 +179,7 @@ public class SensorConfig
     {
       if (field.getName().equals(fieldName))
       {
-        field.addSimTrigger(SensorData.convert(value), () -> DriverStation.getMatchTime() >= start.in(Seconds) &&
-                                                             DriverStation.getMatchTime() <= end.in(Seconds));
+        field.addSimValue(start, end, value);
       }
     }
     return this;
@@ -267,6 +265,28 @@ public class SensorConfig
     return this;
   }
 
+  /**
+   * Read every field once per loop, see {@link Sensor#enableCycleSampling()}. Requires {@link Sensor#periodic()} to be
+   * called at the start of every robot loop.
+   *
+   * @return {@link SensorConfig}
+   */
+  public SensorConfig withCycleSampling()
+  {
+    cycleSampled = true;
+    return this;
+  }
+
+  /**
+   * Check if every field is read once per loop.
+   *
+   * @return True if cycle sampled.
+   */
+  public boolean isCycleSampled()
+  {
+    return cycleSampled;
+  }
+
   /**
    * Get the {@link Sensor} for this sensor.
    *
@@ -276,7 +296,7 @@ public class SensorConfig
   {
     if (sensor.isEmpty())
     {
-      sensor = Optional.of(new Sensor(name, data));
+      sensor = Optional.of(new Sensor(this));
     }
     return sensor.get();
   }
@@ -1,9 +1,12 @@
 package yams.mechanisms.config;
 
+import static edu.wpi.first.units.Units.Hertz;
+import static edu.wpi.first.units.Units.Kilograms;
 import static edu.wpi.first.units.Units.RadiansPerSecond;
 import static edu.wpi.first.units.Units.Rotations;
 import static edu.wpi.first.units.Units.Seconds;
 
+import com.ctre.phoenix6.StatusSignal;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -12,7 +15,10 @@ import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Distance;
+import edu.wpi.first.units.measure.Frequency;
 import edu.wpi.first.units.measure.LinearVelocity;
+import edu.wpi.first.units.measure.Mass;
+import edu.wpi.first.units.measure.MomentOfInertia;
 import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.Subsystem;
@@ -40,6 +46,10 @@ public class SwerveDriveConfig
    * Gyro supplier.
    */
   private       Optional<Supplier<Angle>>           gyroSupplier                  = Optional.empty();
+  /**
+   * Phoenix 6 gyro yaw signal the odometry thread waits on.
+   */
+  private       Optional<StatusSignal<Angle>>       gyroSignal                    = Optional.empty();
   /**
    * Gyro angular velocity supplier.
    */
@@ -76,6 +86,18 @@ public class SwerveDriveConfig
    * Angular velocity scale factor.
    */
   private       OptionalDouble                      angularVelocityScaleFactor    = OptionalDouble.empty();
+  /**
+   * Frequency of the odometry thread, empty to update the odometry in the robot loop.
+   */
+  private       Optional<Frequency>                 odometryFrequency             = Optional.empty();
+  /**
+   * Robot mass for the setpoint generator, empty to give the chassis speeds to the modules as they are.
+   */
+  private       Optional<Mass>                      robotMass                     = Optional.empty();
+  /**
+   * Wheel coefficient of friction for the setpoint generator.
+   */
+  private       double                              wheelCOF                      = 1.2;
   /**
    * Center of Rotation
    */
@@ -104,6 +126,18 @@ public class SwerveDriveConfig
    * Angular velocity scale factor.
    */
   private       OptionalDouble                      simAngularVelocityScaleFactor = OptionalDouble.empty();
+  /**
+   * Simulated robot mass.
+   */
+  private       Mass                                simRobotMass                  = Kilograms.of(50);
+  /**
+   * Simulated robot moment of inertia about the vertical axis.
+   */
+  private       Optional<MomentOfInertia>           simRobotMOI                   = Optional.empty();
+  /**
+   * Simulated wheel coefficient of friction.
+   */
+  private       double                              simWheelCOF                   = 1.2;
   /**
    * Swerve drive subsystem.
    */
@@ -209,6 +243,38 @@ public class SwerveDriveConfig
     return this;
   }
 
+  /**
+   * Update the odometry on its own thread at the given frequency instead of in the robot loop, usually 100Hz to 250Hz.
+   * Phoenix 6 modules are read when their position signals arrive, other modules are sampled at the frequency.
+   *
+   * @param frequency Odometry frequency.
+   * @return {@link SwerveDriveConfig} for chaining.
+   */
+  public SwerveDriveConfig withOdometryFrequency(Frequency frequency)
+  {
+    if (frequency.in(Hertz) <= 0)
+    {
+      throw new IllegalArgumentException("Odometry frequency must be positive!");
+    }
+    odometryFrequency = Optional.of(frequency);
+    return this;
+  }
+
+  /**
+   * Shape the chassis speeds with a {@link yams.mechanisms.swerve.SwerveSetpointGenerator} so the module accelerations,
+   * azimuth slew and wheel forces stay within what the motors and the traction allow.
+   *
+   * @param mass Robot mass.
+   * @param cof  Wheel coefficient of friction, around 1.2 for tread on carpet.
+   * @return {@link SwerveDriveConfig} for chaining.
+   */
+  public SwerveDriveConfig withSetpointGenerator(Mass mass, double cof)
+  {
+    robotMass = Optional.of(mass);
+    wheelCOF = cof;
+    return this;
+  }
+
   /**
    * Set the angular velocity scale factor to improve the accuracy of the pose estimation.
    *
@@ -221,6 +287,43 @@ public class SwerveDriveConfig
     return this;
   }
 
+  /**
+   * Set the simulated robot mass, including the bumpers and battery.
+   *
+   * @param mass Robot mass.
+   * @return {@link SwerveDriveConfig} for chaining.
+   */
+  public SwerveDriveConfig withSimRobotMass(Mass mass)
+  {
+    simRobotMass = mass;
+    return this;
+  }
+
+  /**
+   * Set the simulated robot moment of inertia about the vertical axis. Defaults to the robot mass spread evenly over
+   * the module locations.
+   *
+   * @param moi Robot moment of inertia.
+   * @return {@link SwerveDriveConfig} for chaining.
+   */
+  public SwerveDriveConfig withSimRobotMomentOfInertia(MomentOfInertia moi)
+  {
+    simRobotMOI = Optional.ofNullable(moi);
+    return this;
+  }
+
+  /**
+   * Set the simulated coefficient of friction between the wheels and the carpet, limits the traction of each module.
+   *
+   * @param cof Coefficient of friction, usually 1.0 to 1.5 for tread on carpet.
+   * @return {@link SwerveDriveConfig} for chaining.
+   */
+  public SwerveDriveConfig withSimWheelCoefficientOfFriction(double cof)
+  {
+    simWheelCOF = cof;
+    return this;
+  }
+
   /**
    * Set the discretization time for the pose estimation.
    *
@@ -266,9 +369,34 @@ public class SwerveDriveConfig
   public SwerveDriveConfig withGyro(Supplier<Angle> gyro)
   {
     gyroSupplier = Optional.ofNullable(gyro);
+    gyroSignal = Optional.empty();
     return this;
   }
 
+  /**
+   * Set the gyro to a Phoenix 6 yaw signal, e.g. {@code Pigeon2.getYaw()}. The odometry thread waits for it together
+   * with the module signals and reads the value latched by the wait, the robot loop refreshes it.
+   *
+   * @param yaw Yaw {@link StatusSignal} of the gyro.
+   * @return {@link SwerveDriveConfig} for chaining.
+   */
+  public SwerveDriveConfig withGyro(StatusSignal<Angle> yaw)
+  {
+    gyroSupplier = Optional.of(() -> yaw.refresh().getValue());
+    gyroSignal = Optional.of(yaw);
+    return this;
+  }
+
+  /**
+   * Get the Phoenix 6 yaw signal of the gyro.
+   *
+   * @return Yaw {@link StatusSignal}, empty if the gyro is a {@link Supplier}.
+   */
+  public Optional<StatusSignal<Angle>> getGyroSignal()
+  {
+    return gyroSignal;
+  }
+
   /**
    * Set the gyro offset.
    *
@@ -384,8 +512,33 @@ public class SwerveDriveConfig
     {
       throw new IllegalStateException("Gyro supplier is not set! Please use .withGyro() to set the gyro supplier!");
     }
-    return (gyroInverted ? gyroSupplier.get().get().unaryMinus() : gyroSupplier.get().get()).minus(gyroOffset.orElse(
-        Rotations.of(0)));
+    return correctGyroAngle(gyroSupplier.get().get());
+  }
+
+  /**
+   * Get the gyro angle for the odometry thread with inversions and offsets applied. A Phoenix 6 yaw signal is not
+   * refreshed, its value latched by the last wait or refresh is used.
+   *
+   * @return {@link Angle} of the gyro.
+   */
+  public Angle getLatchedGyroAngle()
+  {
+    if (gyroSignal.isPresent())
+    {
+      return correctGyroAngle(gyroSignal.get().getValue());
+    }
+    return getGyroAngle();
+  }
+
+  /**
+   * Apply the inversion and the offset to a gyro angle.
+   *
+   * @param angle Angle read from the gyro.
+   * @return Corrected {@link Angle}.
+   */
+  private Angle correctGyroAngle(Angle angle)
+  {
+    return (gyroInverted ? angle.unaryMinus() : angle).minus(gyroOffset.orElse(Rotations.of(0)));
   }
 
   /**
@@ -398,6 +551,66 @@ public class SwerveDriveConfig
     return initialPose;
   }
 
+  /**
+   * Get the simulated robot mass.
+   *
+   * @return Robot mass.
+   */
+  public Mass getSimRobotMass()
+  {
+    return simRobotMass;
+  }
+
+  /**
+   * Get the simulated robot moment of inertia.
+   *
+   * @return Robot moment of inertia if set.
+   */
+  public Optional<MomentOfInertia> getSimRobotMomentOfInertia()
+  {
+    return simRobotMOI;
+  }
+
+  /**
+   * Get the simulated wheel coefficient of friction.
+   *
+   * @return Coefficient of friction.
+   */
+  public double getSimWheelCoefficientOfFriction()
+  {
+    return simWheelCOF;
+  }
+
+  /**
+   * Get the frequency of the odometry thread.
+   *
+   * @return Odometry frequency, empty if the odometry is updated in the robot loop.
+   */
+  public Optional<Frequency> getOdometryFrequency()
+  {
+    return odometryFrequency;
+  }
+
+  /**
+   * Get the robot mass of the setpoint generator.
+   *
+   * @return Robot mass, empty if the setpoint generator is not used.
+   */
+  public Optional<Mass> getRobotMass()
+  {
+    return robotMass;
+  }
+
+  /**
+   * Get the wheel coefficient of friction of the setpoint generator.
+   *
+   * @return Coefficient of friction.
+   */
+  public double getWheelCoefficientOfFriction()
+  {
+    return wheelCOF;
+  }
+
   /**
    * Get the maximum speed of the chassis.
    *
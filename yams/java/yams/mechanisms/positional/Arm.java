@@ -14,8 +14,6 @@ import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.units.measure.Velocity;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.simulation.BatterySim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
 import edu.wpi.first.wpilibj.smartdashboard.Mechanism2d;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
@@ -36,6 +34,9 @@ import yams.mechanisms.config.MechanismPositionConfig;
 import yams.mechanisms.config.MechanismPositionConfig.Plane;
 import yams.motorcontrollers.SmartMotorController;
 import yams.motorcontrollers.simulation.ArmSimSupplier;
+import yams.motorcontrollers.simulation.PlantIntegrator;
+import yams.motorcontrollers.simulation.SimPowerBus;
+import yams.telemetry.MechanismProfiler.Phase;
 
 /**
  * Arm mechanism.
@@ -111,7 +112,15 @@ public class Arm extends SmartPositionalMechanism
                                                   config.getStartingAngle().get().in(Radians),
                                                   0.002 / 4096.0,
                                                   0.0));// Add noise with a std-dev of 1 tick
-      m_smc.setSimSupplier(new ArmSimSupplier(m_sim.get(), m_smc));
+      m_smc.setSimSupplier(new ArmSimSupplier(m_sim.get(), m_smc, Optional.of(PlantIntegrator.forArm(
+          motor.getDCMotor(),
+          motor.getConfig().getGearing().getMechanismToRotorRatio(),
+          config.getMOI(),
+          config.getLength().get().in(Meters),
+          config.getLowerHardLimit().get().in(Radians),
+          config.getUpperHardLimit().get().in(Radians),
+          true,
+          motor.getConfig().getSimulationIntegrator()))));
 
       m_mechanismWindow = new Mechanism2d(config.getMechanismPositionConfig()
                                                 .getWindowXDimension(config.getLength().get()).in(Meters),
@@ -166,7 +175,9 @@ public class Arm extends SmartPositionalMechanism
   {
 //    m_telemetry.updatePosition(getAngle());
 //    m_motor.getMechanismPositionSetpoint().ifPresent(m_setpoint -> m_telemetry.updateSetpoint(m_setpoint));
+    long start = m_telemetry.startProfiling();
     m_smc.updateTelemetry();
+    m_telemetry.stopProfiling(Phase.UpdateTelemetry, start);
     m_telemetry.updateLoopTime();
   }
 
@@ -175,8 +186,11 @@ public class Arm extends SmartPositionalMechanism
   {
     if (m_sim.isPresent() && m_smc.getSimSupplier().isPresent())
     {
+      long start = m_telemetry.startProfiling();
       m_smc.getSimSupplier().get().updateSimState();
+      long signalStart = m_telemetry.startProfiling();
       m_smc.simIterate();
+      long signalNanos = m_telemetry.stopProfiling(Phase.SignalRefresh, signalStart);
       m_smc.getSimSupplier().get().starveUpdateSim();
       if (m_config.getLowerHardLimit().isPresent() && m_sim.get().getVelocityRadPerSec() < 0 &&
           m_smc.getMechanismPosition().lt(m_config.getLowerHardLimit().get()))
@@ -188,7 +202,8 @@ public class Arm extends SmartPositionalMechanism
       {
         m_smc.setEncoderPosition(m_config.getUpperHardLimit().get());
       }
-      RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(m_sim.get().getCurrentDrawAmps()));
+      SimPowerBus.update();
+      m_telemetry.stopProfiling(Phase.SimIterate, start + signalNanos);
       visualizationUpdate();
     }
   }
@@ -201,7 +216,9 @@ public class Arm extends SmartPositionalMechanism
   @Override
   public void visualizationUpdate()
   {
+    long start = m_telemetry.startProfiling();
     m_mechanismLigament.setAngle(getAngle().in(Degrees));
+    m_telemetry.stopProfiling(Phase.VisualizationUpdate, start);
   }
 
   /**
@@ -254,7 +271,8 @@ public class Arm extends SmartPositionalMechanism
    */
   public Command setAngle(Angle angle)
   {
-    return Commands.run(() -> m_smc.setPosition(angle), m_subsystem).withName(m_subsystem.getName() + " SetAngle");
+    return Commands.run(profiledSetpoint(() -> m_smc.setPosition(angle)), m_subsystem)
+                   .withName(m_subsystem.getName() + " SetAngle");
   }
 
   /**
@@ -265,7 +283,7 @@ public class Arm extends SmartPositionalMechanism
    */
   public Command setAngle(Supplier<Angle> angle)
   {
-    return Commands.run(() -> m_smc.setPosition(angle.get()), m_subsystem).withName(
+    return Commands.run(profiledSetpoint(() -> m_smc.setPosition(angle.get())), m_subsystem).withName(
         m_subsystem.getName() + " SetAngle Supplier");
   }
 
@@ -17,9 +17,7 @@ import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.units.measure.Velocity;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.simulation.BatterySim;
 import edu.wpi.first.wpilibj.simulation.DCMotorSim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.smartdashboard.Mechanism2d;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismRoot2d;
@@ -35,7 +33,10 @@ import yams.exceptions.DifferentialMechanismConfigurationException;
 import yams.mechanisms.config.DifferentialMechanismConfig;
 import yams.mechanisms.config.MechanismPositionConfig;
 import yams.motorcontrollers.SmartMotorController;
+import yams.motorcontrollers.SmartMotorControllerGroup;
 import yams.motorcontrollers.simulation.DCMotorSimSupplier;
+import yams.motorcontrollers.simulation.SimPowerBus;
+import yams.telemetry.MechanismProfiler.Phase;
 
 /**
  * Arm mechanism.
@@ -55,6 +56,10 @@ public class DifferentialMechanism extends SmartPositionalMechanism
    * Differential Mechanism config.
    */
   private final DifferentialMechanismConfig m_config;
+  /**
+   * Group stepping both sides in lockstep.
+   */
+  private final SmartMotorControllerGroup   m_group;
   /**
    * Simulation for the left motor.
    */
@@ -182,9 +187,22 @@ public class DifferentialMechanism extends SmartPositionalMechanism
 
     // Apply configs
     m_config.applyConfig();
+
+    // Step both sides together
+    m_group = new SmartMotorControllerGroup(getName(), m_leftSMC, m_rightSMC);
   }
 
 
+  /**
+   * Get the group stepping both sides in lockstep.
+   *
+   * @return {@link SmartMotorControllerGroup} with the left then the right motor controller.
+   */
+  public SmartMotorControllerGroup getControlGroup()
+  {
+    return m_group;
+  }
+
   /**
    * Get the twist {@link Angle} of the mechanism.
    *
@@ -218,12 +236,11 @@ public class DifferentialMechanism extends SmartPositionalMechanism
    */
   public Command setPosition(Supplier<Angle> tilt, Supplier<Angle> twist)
   {
-    return Commands.run(() -> {
+    return Commands.run(profiledSetpoint(() -> {
       var left  = m_config.getLeftMechanismPosition(tilt.get(), twist.get());
       var right = m_config.getRightMechanismPosition(tilt.get(), twist.get());
-      m_leftSMC.setPosition(left);
-      m_rightSMC.setPosition(right);
-    }, m_subsystem).withName(getName() + " set position");
+      m_group.setPositions(left, right);
+    }), m_subsystem).withName(getName() + " set position");
   }
 
   /**
@@ -258,19 +275,20 @@ public class DifferentialMechanism extends SmartPositionalMechanism
    */
   public Command setPosition(Angle tilt, Angle twist)
   {
-    return Commands.run(() -> {
+    return Commands.run(profiledSetpoint(() -> {
       var left  = m_config.getLeftMechanismPosition(tilt, twist);
       var right = m_config.getRightMechanismPosition(tilt, twist);
-      m_leftSMC.setPosition(left);
-      m_rightSMC.setPosition(right);
-    }, m_subsystem).withName(getName() + " set position");
+      m_group.setPositions(left, right);
+    }), m_subsystem).withName(getName() + " set position");
   }
 
   @Override
   public void updateTelemetry()
   {
+    long start = m_telemetry.startProfiling();
     m_leftSMC.updateTelemetry();
     m_rightSMC.updateTelemetry();
+    m_telemetry.stopProfiling(Phase.UpdateTelemetry, start);
     m_telemetry.updateLoopTime();
   }
 
@@ -280,15 +298,19 @@ public class DifferentialMechanism extends SmartPositionalMechanism
     if (m_leftSim.isPresent() && m_leftSMC.getSimSupplier().isPresent() && m_rightSim.isPresent() &&
         m_rightSMC.getSimSupplier().isPresent())
     {
+      long start = m_telemetry.startProfiling();
       m_leftSMC.getSimSupplier().get().updateSimState();
+      long signalStart = m_telemetry.startProfiling();
       m_leftSMC.simIterate();
+      long signalNanos = m_telemetry.stopProfiling(Phase.SignalRefresh, signalStart);
       m_leftSMC.getSimSupplier().get().starveUpdateSim();
       m_rightSMC.getSimSupplier().get().updateSimState();
+      signalStart = m_telemetry.startProfiling();
       m_rightSMC.simIterate();
+      signalNanos += m_telemetry.stopProfiling(Phase.SignalRefresh, signalStart);
       m_rightSMC.getSimSupplier().get().starveUpdateSim();
-      RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(
-          m_leftSim.get().getCurrentDrawAmps(),
-          m_rightSim.get().getCurrentDrawAmps()));
+      SimPowerBus.update();
+      m_telemetry.stopProfiling(Phase.SimIterate, start + signalNanos);
       visualizationUpdate();
     }
   }
@@ -301,14 +323,16 @@ public class DifferentialMechanism extends SmartPositionalMechanism
   @Override
   public void visualizationUpdate()
   {
-    var twistAngle = m_config.getTwistAngle(m_leftSMC.getMechanismPosition(), m_rightSMC.getMechanismPosition());
-    var tiltAngle  = m_config.getTiltAngle(m_leftSMC.getMechanismPosition(), m_rightSMC.getMechanismPosition());
-    var twistRoot = new Translation2d(m_armLength.in(Meters), Rotation2d.fromDegrees(tiltAngle.in(Degrees))).plus(
+    long start      = m_telemetry.startProfiling();
+    var  twistAngle = m_config.getTwistAngle(m_leftSMC.getMechanismPosition(), m_rightSMC.getMechanismPosition());
+    var  tiltAngle  = m_config.getTiltAngle(m_leftSMC.getMechanismPosition(), m_rightSMC.getMechanismPosition());
+    var  twistRoot  = new Translation2d(m_armLength.in(Meters), Rotation2d.fromDegrees(tiltAngle.in(Degrees))).plus(
         m_tiltRoot);
     m_mechanismLigament.setAngle(tiltAngle.in(Degrees));
 
     m_twistRoot.setPosition(twistRoot.getX(), twistRoot.getY());
     m_twistLigament.setAngle(twistAngle.in(Degrees));
+    m_telemetry.stopProfiling(Phase.VisualizationUpdate, start);
   }
 
   /**
@@ -2,7 +2,9 @@ package yams.mechanisms.positional;
 
 import static edu.wpi.first.units.Units.Degrees;
 import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.Milliseconds;
 import static edu.wpi.first.units.Units.Radians;
+import static edu.wpi.first.units.Units.Seconds;
 
 import edu.wpi.first.math.Pair;
 import edu.wpi.first.math.geometry.Translation2d;
@@ -14,9 +16,6 @@ import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.units.measure.Velocity;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.simulation.BatterySim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
-import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
 import edu.wpi.first.wpilibj.smartdashboard.Mechanism2d;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismRoot2d;
@@ -27,10 +26,13 @@ import edu.wpi.first.wpilibj2.command.button.Trigger;
 import java.util.Optional;
 import java.util.function.Supplier;
 import yams.exceptions.DoubleJointedArmConfigurationException;
+import yams.math.DoubleJointedArmKinematics;
 import yams.mechanisms.config.ArmConfig;
 import yams.mechanisms.config.MechanismPositionConfig;
 import yams.motorcontrollers.SmartMotorController;
-import yams.motorcontrollers.simulation.ArmSimSupplier;
+import yams.motorcontrollers.SmartMotorControllerGroup;
+import yams.motorcontrollers.simulation.SimPowerBus;
+import yams.telemetry.MechanismProfiler.Phase;
 
 /**
  * Arm mechanism.
@@ -55,13 +57,9 @@ public class DoubleJointedArm extends SmartPositionalMechanism
    */
   private final ArmConfig                     m_upperArmConfig;
   /**
-   * Simulation for the arm.
+   * Coupled simulation of both joints.
    */
-  private       Optional<SingleJointedArmSim> m_lowerArmSim = Optional.empty();
-  /**
-   * Simulation for the arm.
-   */
-  private       Optional<SingleJointedArmSim> m_upperArmSim = Optional.empty();
+  private       Optional<DoubleJointedArmSim> m_sim = Optional.empty();
   /**
    * Lower ligament
    */
@@ -86,6 +84,14 @@ public class DoubleJointedArm extends SmartPositionalMechanism
    * Upper arm length used for trig calculations on current position.
    */
   private final Distance                      m_upperArmLength;
+  /**
+   * Kinematics of the arm, limited to the soft limits or else the hard limits of the joints.
+   */
+  private final DoubleJointedArmKinematics    m_kinematics;
+  /**
+   * Group stepping both joints in lockstep.
+   */
+  private final SmartMotorControllerGroup     m_group;
 
   /**
    * Constructor for the Arm mechanism.
@@ -124,6 +130,19 @@ public class DoubleJointedArm extends SmartPositionalMechanism
     }
     m_lowerArmLength = lowerConfig.getLength().get();
     m_upperArmLength = upperConfig.getLength().get();
+    m_kinematics = new DoubleJointedArmKinematics(m_lowerArmLength, m_upperArmLength);
+    var lowerMin = m_lowerSMC.getConfig().getMechanismLowerLimit().or(lowerConfig::getLowerHardLimit);
+    var lowerMax = m_lowerSMC.getConfig().getMechanismUpperLimit().or(lowerConfig::getUpperHardLimit);
+    var upperMin = m_upperSMC.getConfig().getMechanismLowerLimit().or(upperConfig::getLowerHardLimit);
+    var upperMax = m_upperSMC.getConfig().getMechanismUpperLimit().or(upperConfig::getUpperHardLimit);
+    if (lowerMin.isPresent() && lowerMax.isPresent())
+    {
+      m_kinematics.setLowerLimits(lowerMin.get().in(Radians), lowerMax.get().in(Radians));
+    }
+    if (upperMin.isPresent() && upperMax.isPresent())
+    {
+      m_kinematics.setUpperLimits(upperMin.get().in(Radians), upperMax.get().in(Radians));
+    }
 
     // Setup root mechanism position for calculations.
     var lowerMechPosCfg = lowerConfig.getMechanismPositionConfig();
@@ -163,30 +182,7 @@ public class DoubleJointedArm extends SmartPositionalMechanism
       }
 
       // Setup Sim
-      m_lowerArmSim = Optional.of(new SingleJointedArmSim(m_lowerSMC.getDCMotor(),
-                                                          m_lowerSMC.getConfig().getGearing()
-                                                                    .getMechanismToRotorRatio(),
-                                                          lowerConfig.getMOI(),
-                                                          lowerConfig.getLength().get().in(Meters),
-                                                          lowerConfig.getLowerHardLimit().get().in(Radians),
-                                                          lowerConfig.getUpperHardLimit().get().in(Radians),
-                                                          true,
-                                                          lowerConfig.getStartingAngle().get().in(Radians),
-                                                          0.002 / 4096.0,
-                                                          0.0));// Add noise with a std-dev of 1 tick
-      m_lowerSMC.setSimSupplier(new ArmSimSupplier(m_lowerArmSim.get(), m_lowerSMC));
-      m_upperArmSim = Optional.of(new SingleJointedArmSim(m_upperSMC.getDCMotor(),
-                                                          m_upperSMC.getConfig().getGearing()
-                                                                    .getMechanismToRotorRatio(),
-                                                          upperConfig.getMOI(),
-                                                          m_upperArmLength.in(Meters),
-                                                          upperConfig.getLowerHardLimit().get().in(Radians),
-                                                          upperConfig.getUpperHardLimit().get().in(Radians),
-                                                          true,
-                                                          upperConfig.getStartingAngle().get().in(Radians),
-                                                          0.002 / 4096.0,
-                                                          0.0));// Add noise with a std-dev of 1 tick
-      m_upperSMC.setSimSupplier(new ArmSimSupplier(m_upperArmSim.get(), m_upperSMC));
+      m_sim = Optional.of(new DoubleJointedArmSim(lowerConfig, upperConfig));
 
       var lowerStartingAngle = lowerConfig.getStartingAngle().get();
       var upperStartingAngle = upperConfig.getStartingAngle().get();
@@ -222,6 +218,9 @@ public class DoubleJointedArm extends SmartPositionalMechanism
     // Apply configs
     lowerConfig.applyConfig();
     upperConfig.applyConfig();
+
+    // Step both joints together
+    m_group = new SmartMotorControllerGroup(getName(), m_lowerSMC, m_upperSMC);
   }
 
   /**
@@ -251,43 +250,63 @@ public class DoubleJointedArm extends SmartPositionalMechanism
   }
 
   /**
-   * Inverse Kinematics for a DoubleJointedArm
+   * Inverse Kinematics for a DoubleJointedArm, both angles are from horizontal like {@link #getPosition()}. Points
+   * outside the workspace are projected onto it, use {@link DoubleJointedArmKinematics#isReachable(double, double)} to
+   * check them.
    *
    * @param translation Translations from root in Meters.
-   * @param invert      Invert the elbow.
+   * @param invert      Prefer the elbow up solution.
    * @return {@link Pair} with the shoulder angle then elbow angle.
    */
   public Pair<Angle, Angle> getAnglesForPosition(Translation2d translation, boolean invert)
   {
-    var x      = Meters.of(translation.getX()).in(Meters);
-    var y      = Meters.of(translation.getY()).in(Meters);
-    var l1     = m_lowerArmLength.in(Meters);
-    var l2     = m_upperArmLength.in(Meters);
-    var theta2 = Math.acos(((x * x) + (y * y) - ((l1 * l1) + (l2 * l2))) / (2 * l1 * l2));
-    theta2 = invert ? -theta2 : theta2;
-
-    var theta1 = Math.atan2(y, x) -
-                 Math.atan2(l2 * Math.sin(theta2), l1 + (l2 * Math.cos(theta2)));
-    if (invert)
-    {
-      theta2 += Math.PI / 2;
-    }
-    return Pair.of(Radians.of(theta1), Radians.of(theta2));
+    double[] angles = new double[2];
+    m_kinematics.solve(translation.getX(), translation.getY(), invert, angles, 0);
+    return Pair.of(Radians.of(angles[0]), Radians.of(angles[1]));
+  }
+
+  /**
+   * Get the kinematics of the arm, to solve whole Cartesian paths into primitive buffers.
+   *
+   * @return {@link DoubleJointedArmKinematics}.
+   */
+  public DoubleJointedArmKinematics getKinematics()
+  {
+    return m_kinematics;
+  }
+
+  /**
+   * Get the coupled simulation of both joints.
+   *
+   * @return {@link DoubleJointedArmSim} if running in simulation.
+   */
+  public Optional<DoubleJointedArmSim> getSimulation()
+  {
+    return m_sim;
+  }
+
+  /**
+   * Get the group stepping both joints in lockstep.
+   *
+   * @return {@link SmartMotorControllerGroup} with the lower then the upper motor controller.
+   */
+  public SmartMotorControllerGroup getControlGroup()
+  {
+    return m_group;
   }
 
   /**
-   * Set the position of the DoubleJointedArm to be at pose in meters.
+   * Set the position of the DoubleJointedArm to be at pose in meters. The angles are solved once when the command is
+   * created.
    *
    * @param translation {@link Translation2d} where X is away from root, and Y is up.
-   * @param invert      Invert the eblow.
+   * @param invert      Prefer the elbow up solution.
    * @return {@link Command} that will reach the specified goal.
    */
   public Command setPosition(Translation2d translation, boolean invert)
   {
-    return Commands.deferredProxy(() -> {
-      var thetas = getAnglesForPosition(translation, invert);
-      return setAngle(thetas.getFirst(), thetas.getSecond());
-    });
+    var thetas = getAnglesForPosition(translation, invert);
+    return setAngle(thetas.getFirst(), thetas.getSecond());
   }
 
   //    def inv_kinematics(self, pos, invert = False):
@@ -305,26 +324,26 @@ public class DoubleJointedArm extends SmartPositionalMechanism
   @Override
   public void updateTelemetry()
   {
+    long start = m_telemetry.startProfiling();
     m_lowerSMC.updateTelemetry();
     m_upperSMC.updateTelemetry();
+    m_telemetry.stopProfiling(Phase.UpdateTelemetry, start);
     m_telemetry.updateLoopTime();
   }
 
   @Override
   public void simIterate()
   {
-    if (m_lowerArmSim.isPresent() && m_lowerSMC.getSimSupplier().isPresent() && m_upperArmSim.isPresent() &&
-        m_upperSMC.getSimSupplier().isPresent())
+    if (m_sim.isPresent())
     {
-      m_lowerSMC.getSimSupplier().get().updateSimState();
+      long start = m_telemetry.startProfiling();
+      m_sim.get().step(m_lowerSMC.getConfig().getClosedLoopControlPeriod().orElse(Milliseconds.of(20)).in(Seconds));
+      long signalStart = m_telemetry.startProfiling();
       m_lowerSMC.simIterate();
-      m_lowerSMC.getSimSupplier().get().starveUpdateSim();
-      m_upperSMC.getSimSupplier().get().updateSimState();
       m_upperSMC.simIterate();
-      m_upperSMC.getSimSupplier().get().starveUpdateSim();
-      RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(m_lowerArmSim.get().getCurrentDrawAmps(),
-                                                                               m_upperArmSim.get()
-                                                                                            .getCurrentDrawAmps()));
+      long signalNanos = m_telemetry.stopProfiling(Phase.SignalRefresh, signalStart);
+      SimPowerBus.update();
+      m_telemetry.stopProfiling(Phase.SimIterate, start + signalNanos);
       visualizationUpdate();
     }
   }
@@ -337,12 +356,14 @@ public class DoubleJointedArm extends SmartPositionalMechanism
   @Override
   public void visualizationUpdate()
   {
-    var lowerArmAngle = getLowerAngle();
-    var upperArmAngle = getUpperAngle();
-    var jointPos      = getJoint(m_lowerArmLength, lowerArmAngle, m_lowerArmRootPos);
+    long start         = m_telemetry.startProfiling();
+    var  lowerArmAngle = getLowerAngle();
+    var  upperArmAngle = getUpperAngle();
+    var  jointPos      = getJoint(m_lowerArmLength, lowerArmAngle, m_lowerArmRootPos);
     m_lowerLigament.setAngle(lowerArmAngle.in(Degrees));
     m_upperLigament.setAngle(upperArmAngle.in(Degrees));
     m_upperRoot.setPosition(jointPos.getX(), jointPos.getY());
+    m_telemetry.stopProfiling(Phase.VisualizationUpdate, start);
   }
 
   /**
@@ -403,16 +424,9 @@ public class DoubleJointedArm extends SmartPositionalMechanism
    */
   public Command setAngle(Angle lowerAngle, Angle upperAngle)
   {
-    return Commands.run(() -> {
-      if (lowerAngle != null)
-      {
-        m_lowerSMC.setPosition(lowerAngle);
-      }
-      if (upperAngle != null)
-      {
-        m_upperSMC.setPosition(upperAngle);
-      }
-    }, m_subsystem).withName(m_subsystem.getName() + " SetAngle");
+    return Commands.run(profiledSetpoint(() -> {
+      m_group.setPositions(lowerAngle, upperAngle);
+    }), m_subsystem).withName(m_subsystem.getName() + " SetAngle");
   }
 
   /**
@@ -0,0 +1,397 @@
+package yams.mechanisms.positional;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Kilograms;
+import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.Radians;
+import static edu.wpi.first.units.Units.RadiansPerSecond;
+import static edu.wpi.first.units.Units.Volts;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
+import edu.wpi.first.units.measure.Current;
+import edu.wpi.first.units.measure.Voltage;
+import yams.math.SmartMath;
+import yams.mechanisms.config.ArmConfig;
+import yams.motorcontrollers.SimSupplier;
+import yams.motorcontrollers.SmartMotorController;
+import yams.motorcontrollers.simulation.SimClock;
+import yams.motorcontrollers.simulation.SimPowerBus;
+
+/**
+ * Coupled two link arm simulation. Holds both joint states in primitives and steps them together, replacing the two
+ * independent {@link edu.wpi.first.wpilibj.simulation.SingleJointedArmSim} suppliers so each joint feels the inertia,
+ * Coriolis and gravity torques of the other.
+ * <p>
+ * Both angles are measured from horizontal like {@link DoubleJointedArm#getPosition()}, the upper joint is driven from
+ * the frame, e.g. through a chain, so its motor controller reads the absolute upper angle. Each link is a uniform rod
+ * with its center of mass at half its length. The link mass is taken from {@link ArmConfig#getMass()}, or else
+ * estimated from the moment of inertia about the joint. The equations of motion are
+ * <pre>
+ * | a           c cos(d) | | q1'' |   | t1 + c sin(d) q2'^2 - g1 cos(q1) |
+ * | c cos(d)    b        | | q2'' | = | t2 - c sin(d) q1'^2 - g2 cos(q2) |
+ * </pre>
+ * with d = q2 - q1. The back EMF damping of the motors is integrated implicitly, so high reductions stay stable at
+ * the control period without many sub-steps.
+ */
+public class DoubleJointedArmSim
+{
+
+  /**
+   * Motor controllers, lower joint first.
+   */
+  private final SmartMotorController[] m_motors;
+  /**
+   * Motor torque constants in Nm/A, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_kt         = new double[2];
+  /**
+   * Motor velocity constants in rad/s/V, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_kv         = new double[2];
+  /**
+   * Motor winding resistances in ohms, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_resistance = new double[2];
+  /**
+   * Reductions from the mechanism to the rotor, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_reduction  = new double[2];
+  /**
+   * Minimum angles in radians, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_min        = new double[2];
+  /**
+   * Maximum angles in radians, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_max        = new double[2];
+  /**
+   * Applied voltages, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_volts      = new double[2];
+  /**
+   * Whether the voltage was set through the {@link SimSupplier} instead of the duty cycle.
+   */
+  private final boolean[]              m_inputFed   = new boolean[2];
+  /**
+   * Joint angles from horizontal in radians, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_position   = new double[2];
+  /**
+   * Joint velocities in rad/s, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_velocity   = new double[2];
+  /**
+   * Motor currents in amps, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_current    = new double[2];
+  /**
+   * Lower link inertia about the shoulder plus the upper link mass at the elbow, in kg m^2.
+   */
+  private final double                 m_a;
+  /**
+   * Upper link inertia about the elbow in kg m^2.
+   */
+  private final double                 m_b;
+  /**
+   * Coupling inertia, upper link mass times the lower length times the upper center of mass distance, in kg m^2.
+   */
+  private final double                 m_c;
+  /**
+   * Lower gravity torque at horizontal in Nm.
+   */
+  private final double                 m_gravityLower;
+  /**
+   * Upper gravity torque at horizontal in Nm.
+   */
+  private final double                 m_gravityUpper;
+
+  /**
+   * Create the arm simulation and install its {@link SimSupplier}s on both motor controllers.
+   *
+   * @param lowerConfig Lower {@link ArmConfig} with the length, hard limits and starting angle.
+   * @param upperConfig Upper {@link ArmConfig} with the length, hard limits and starting angle.
+   */
+  public DoubleJointedArmSim(ArmConfig lowerConfig, ArmConfig upperConfig)
+  {
+    ArmConfig[] configs = {lowerConfig, upperConfig};
+    double[]    length  = new double[2];
+    double[]    mass    = new double[2];
+    double[]    moi     = new double[2];
+    m_motors = new SmartMotorController[]{lowerConfig.getMotor(), upperConfig.getMotor()};
+    for (int j = 0; j < 2; j++)
+    {
+      DCMotor motor = m_motors[j].getDCMotor();
+      m_kt[j] = motor.KtNMPerAmp;
+      m_kv[j] = motor.KvRadPerSecPerVolt;
+      m_resistance[j] = motor.rOhms;
+      m_reduction[j] = m_motors[j].getConfig().getGearing().getMechanismToRotorRatio();
+      m_min[j] = configs[j].getLowerHardLimit().orElseThrow().in(Radians);
+      m_max[j] = configs[j].getUpperHardLimit().orElseThrow().in(Radians);
+      m_position[j] = configs[j].getStartingAngle().orElseThrow().in(Radians);
+      length[j] = configs[j].getLength().orElseThrow().in(Meters);
+      moi[j] = configs[j].getMOI();
+      // A uniform rod about its end has I = m l^2 / 3.
+      mass[j] = configs[j].getMass().map(m -> m.in(Kilograms)).orElse(3 * moi[j] / (length[j] * length[j]));
+      m_motors[j].setSimSupplier(new JointSimSupplier(j));
+    }
+    double upperCenter = length[1] / 2;
+    m_a = moi[0] + mass[1] * length[0] * length[0];
+    m_b = moi[1];
+    m_c = mass[1] * length[0] * upperCenter;
+    m_gravityLower = (mass[0] * length[0] / 2 + mass[1] * length[0]) * SmartMath.GRAVITY;
+    m_gravityUpper = mass[1] * upperCenter * SmartMath.GRAVITY;
+  }
+
+  /**
+   * Step the arm. Reads the applied duty cycle of both motor controllers, holds it over the step and sub-steps the
+   * plant at the lower motor's {@link yams.motorcontrollers.SmartMotorControllerConfig#getSimulationSubsteps()}.
+   *
+   * @param dtSeconds Time since the last step in seconds.
+   */
+  public void step(double dtSeconds)
+  {
+    double supply = SimPowerBus.getOutputVoltage();
+    for (int j = 0; j < 2; j++)
+    {
+      if (!m_inputFed[j])
+      {
+        m_volts[j] = m_motors[j].getDutyCycle() * supply;
+      }
+      m_inputFed[j] = false;
+    }
+    int    substeps = m_motors[0].getConfig().getSimulationSubsteps();
+    double h        = dtSeconds / substeps;
+    for (int s = 0; s < substeps; s++)
+    {
+      integrate(h);
+    }
+    if (!SimClock.isEnabled())
+    {
+      // Give the real time closed loop Notifier a chance to run, the sim clock runs it on simulated time instead.
+      try
+      {
+        Thread.sleep(1);
+      } catch (Exception e)
+      {
+
+      }
+    }
+  }
+
+  /**
+   * Integrate both joints over one sub-step with semi-implicit Euler, the back EMF damping taken at the end of the
+   * sub-step.
+   *
+   * @param h Sub-step in seconds.
+   */
+  private void integrate(double h)
+  {
+    double q1       = m_position[0];
+    double q2       = m_position[1];
+    double w1       = m_velocity[0];
+    double w2       = m_velocity[1];
+    double sin      = Math.sin(q2 - q1);
+    double coupling = m_c * Math.cos(q2 - q1);
+
+    // Stall torque and back EMF damping of each motor at the mechanism, t = u - k w.
+    double u1 = m_reduction[0] * m_kt[0] * m_volts[0] / m_resistance[0];
+    double u2 = m_reduction[1] * m_kt[1] * m_volts[1] / m_resistance[1];
+    double k1 = m_reduction[0] * m_reduction[0] * m_kt[0] / (m_kv[0] * m_resistance[0]);
+    double k2 = m_reduction[1] * m_reduction[1] * m_kt[1] / (m_kv[1] * m_resistance[1]);
+
+    // (M + h K) w' = M w + h (u + Coriolis - gravity)
+    double f1  = u1 + m_c * sin * w2 * w2 - m_gravityLower * Math.cos(q1);
+    double f2  = u2 - m_c * sin * w1 * w1 - m_gravityUpper * Math.cos(q2);
+    double r1  = m_a * w1 + coupling * w2 + h * f1;
+    double r2  = coupling * w1 + m_b * w2 + h * f2;
+    double m11 = m_a + h * k1;
+    double m22 = m_b + h * k2;
+    double det = m11 * m22 - coupling * coupling;
+    w1 = (m22 * r1 - coupling * r2) / det;
+    w2 = (m11 * r2 - coupling * r1) / det;
+
+    q1 += w1 * h;
+    q2 += w2 * h;
+    if (q1 < m_min[0] || q1 > m_max[0])
+    {
+      q1 = Math.max(m_min[0], Math.min(m_max[0], q1));
+      w1 = 0;
+    }
+    if (q2 < m_min[1] || q2 > m_max[1])
+    {
+      q2 = Math.max(m_min[1], Math.min(m_max[1], q2));
+      w2 = 0;
+    }
+    m_position[0] = q1;
+    m_position[1] = q2;
+    m_velocity[0] = w1;
+    m_velocity[1] = w2;
+    m_current[0] = (m_volts[0] - m_reduction[0] * w1 / m_kv[0]) / m_resistance[0];
+    m_current[1] = (m_volts[1] - m_reduction[1] * w2 / m_kv[1]) / m_resistance[1];
+  }
+
+  /**
+   * Get a joint angle.
+   *
+   * @param joint 0 for the lower joint, 1 for the upper joint.
+   * @return Angle from horizontal in radians.
+   */
+  public double getAngle(int joint)
+  {
+    return m_position[joint];
+  }
+
+  /**
+   * Get a joint angular velocity.
+   *
+   * @param joint 0 for the lower joint, 1 for the upper joint.
+   * @return Angular velocity in rad/s.
+   */
+  public double getVelocity(int joint)
+  {
+    return m_velocity[joint];
+  }
+
+  /**
+   * Get the gravity torque on a joint at the current angles, the feedforward needed to hold the arm still.
+   *
+   * @param joint 0 for the lower joint, 1 for the upper joint.
+   * @return Torque in Nm.
+   */
+  public double getGravityTorque(int joint)
+  {
+    return joint == 0 ? m_gravityLower * Math.cos(m_position[0]) : m_gravityUpper * Math.cos(m_position[1]);
+  }
+
+  /**
+   * {@link SimSupplier} backed by one joint of the arm. The state is stepped by
+   * {@link DoubleJointedArmSim#step(double)}, so updating the sim state from the motor controller does nothing.
+   */
+  private class JointSimSupplier implements SimSupplier
+  {
+
+    /**
+     * Joint index, 0 for the lower joint.
+     */
+    private final int index;
+
+    /**
+     * Create the supplier.
+     *
+     * @param index Joint index, 0 for the lower joint.
+     */
+    JointSimSupplier(int index)
+    {
+      this.index = index;
+    }
+
+    @Override
+    public void updateSimState()
+    {
+    }
+
+    @Override
+    public boolean getUpdatedSim()
+    {
+      return true;
+    }
+
+    @Override
+    public void feedUpdateSim()
+    {
+    }
+
+    @Override
+    public void starveUpdateSim()
+    {
+    }
+
+    @Override
+    public boolean isInputFed()
+    {
+      return m_inputFed[index];
+    }
+
+    @Override
+    public void feedInput()
+    {
+      m_inputFed[index] = true;
+    }
+
+    @Override
+    public void starveInput()
+    {
+      m_inputFed[index] = false;
+    }
+
+    @Override
+    public void setMechanismStatorDutyCycle(double dutyCycle)
+    {
+      feedInput();
+      m_volts[index] = dutyCycle * SimPowerBus.getOutputVoltage();
+    }
+
+    @Override
+    public Voltage getMechanismSupplyVoltage()
+    {
+      return Volts.of(SimPowerBus.getSupplyVoltage());
+    }
+
+    @Override
+    public Voltage getMechanismStatorVoltage()
+    {
+      return Volts.of(m_volts[index]);
+    }
+
+    @Override
+    public void setMechanismStatorVoltage(Voltage volts)
+    {
+      feedInput();
+      m_volts[index] = volts.in(Volts);
+    }
+
+    @Override
+    public Angle getMechanismPosition()
+    {
+      return Radians.of(m_position[index]);
+    }
+
+    @Override
+    public void setMechanismPosition(Angle position)
+    {
+      m_position[index] = position.in(Radians);
+    }
+
+    @Override
+    public Angle getRotorPosition()
+    {
+      return Radians.of(m_position[index] * m_reduction[index]);
+    }
+
+    @Override
+    public AngularVelocity getMechanismVelocity()
+    {
+      return RadiansPerSecond.of(m_velocity[index]);
+    }
+
+    @Override
+    public void setMechanismVelocity(AngularVelocity velocity)
+    {
+      m_velocity[index] = velocity.in(RadiansPerSecond);
+    }
+
+    @Override
+    public AngularVelocity getRotorVelocity()
+    {
+      return RadiansPerSecond.of(m_velocity[index] * m_reduction[index]);
+    }
+
+    @Override
+    public Current getCurrentDraw()
+    {
+      return Amps.of(m_current[index]);
+    }
+  }
+}
@@ -25,9 +25,7 @@ import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.units.measure.Velocity;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.simulation.BatterySim;
 import edu.wpi.first.wpilibj.simulation.ElevatorSim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.smartdashboard.Mechanism2d;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -48,6 +46,9 @@ import yams.mechanisms.config.MechanismPositionConfig.Plane;
 import yams.motorcontrollers.SimSupplier;
 import yams.motorcontrollers.SmartMotorController;
 import yams.motorcontrollers.SmartMotorControllerConfig;
+import yams.motorcontrollers.simulation.PlantIntegrator;
+import yams.motorcontrollers.simulation.SimPowerBus;
+import yams.telemetry.MechanismProfiler.Phase;
 
 /**
  * Elevator mechanism.
@@ -124,8 +125,18 @@ public class Elevator extends SmartPositionalMechanism
                                           0.01 / 4096, 0.01 / 4096));
       m_smc.setSimSupplier(new SimSupplier()
       {
-        final Supplier<Double> pos = m_sim.get()::getPositionMeters;
-        final Supplier<Double> mps = m_sim.get()::getVelocityMetersPerSecond;
+        final Supplier<Double> pos      = m_sim.get()::getPositionMeters;
+        final Supplier<Double> mps      = m_sim.get()::getVelocityMetersPerSecond;
+        final int              substeps = smcConfig.getSimulationSubsteps();
+        final PlantIntegrator  plant    = PlantIntegrator.forElevator(
+            motor.getDCMotor(),
+            motor.getConfig().getGearing().getMechanismToRotorRatio(),
+            config.getCarriageMass().get().in(Kilograms),
+            config.getDrumRadius().in(Meters),
+            config.getMinimumHeight().get().in(Meters),
+            config.getMaximumHeight().get().in(Meters),
+            true,
+            smcConfig.getSimulationIntegrator());
         boolean inputFed   = false;
         boolean updatedSim = false;
 
@@ -134,12 +145,22 @@ public class Elevator extends SmartPositionalMechanism
         {
           if (!isInputFed())
           {
-            m_sim.get().setInput(m_smc.getDutyCycle() * RoboRioSim.getVInVoltage());
+            m_sim.get().setInput(m_smc.getDutyCycle() * SimPowerBus.getOutputVoltage());
           }
           if (!updatedSim)
           {
             starveInput();
-            m_sim.get().update(smcConfig.getClosedLoopControlPeriod().orElse(Milliseconds.of(20)).in(Seconds));
+            double dt = smcConfig.getClosedLoopControlPeriod().orElse(Milliseconds.of(20)).in(Seconds);
+            if (smcConfig.getSimulationPhysicsPeriod().isPresent())
+            {
+              // Step primitives with the input voltage held across the sub-steps, the sim only takes the result.
+              plant.setState(pos.get(), mps.get());
+              plant.step(m_sim.get().getInput(0), dt, substeps);
+              m_sim.get().setState(plant.getPosition(), plant.getVelocity());
+            } else
+            {
+              m_sim.get().update(dt);
+            }
             feedUpdateSim();
           }
         }
@@ -184,13 +205,13 @@ public class Elevator extends SmartPositionalMechanism
         public void setMechanismStatorDutyCycle(double dutyCycle)
         {
           feedInput();
-          m_sim.get().setInputVoltage(dutyCycle * getMechanismSupplyVoltage().in(Volts));
+          m_sim.get().setInputVoltage(dutyCycle * SimPowerBus.getOutputVoltage());
         }
 
         @Override
         public Voltage getMechanismSupplyVoltage()
         {
-          return Volts.of(RoboRioSim.getVInVoltage());
+          return Volts.of(SimPowerBus.getSupplyVoltage());
         }
 
         @Override
@@ -335,7 +356,9 @@ public class Elevator extends SmartPositionalMechanism
   {
 //    m_telemetry.updatePosition(getHeight());
 //    m_motor.getMechanismPositionSetpoint().ifPresent(m_setpoint -> m_telemetry.updateSetpoint(m_setpoint));
+    long start = m_telemetry.startProfiling();
     m_smc.updateTelemetry();
+    m_telemetry.stopProfiling(Phase.UpdateTelemetry, start);
     m_telemetry.updateLoopTime();
   }
 
@@ -344,8 +367,11 @@ public class Elevator extends SmartPositionalMechanism
   {
     if (m_sim.isPresent() && m_smc.getSimSupplier().isPresent())
     {
+      long start = m_telemetry.startProfiling();
       m_smc.getSimSupplier().get().updateSimState();
+      long signalStart = m_telemetry.startProfiling();
       m_smc.simIterate();
+      long signalNanos = m_telemetry.stopProfiling(Phase.SignalRefresh, signalStart);
       m_smc.getSimSupplier().get().starveUpdateSim();
       // It is impossible for an elevator to go bellow the minimum height, it would break...
       if (m_config.getMinimumHeight().isPresent() && getHeight().lt(m_config.getMinimumHeight().get()))
@@ -354,8 +380,9 @@ public class Elevator extends SmartPositionalMechanism
 //        m_motor.setEncoderPosition(m_config.getMinimumHeight().get());
       } else
       {
-        RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(m_sim.get().getCurrentDrawAmps()));
+        SimPowerBus.update();
       }
+      m_telemetry.stopProfiling(Phase.SimIterate, start + signalNanos);
       visualizationUpdate();
     }
   }
@@ -366,7 +393,9 @@ public class Elevator extends SmartPositionalMechanism
   @Override
   public void visualizationUpdate()
   {
+    long start = m_telemetry.startProfiling();
     m_mechanismLigament.setLength(getHeight().in(Meters));
+    m_telemetry.stopProfiling(Phase.VisualizationUpdate, start);
   }
 
   /**
@@ -409,7 +438,8 @@ public class Elevator extends SmartPositionalMechanism
    */
   public Command setHeight(Distance height)
   {
-    return Commands.run(() -> m_smc.setPosition(height), m_subsystem).withName(m_subsystem.getName() + " SetHeight");
+    return Commands.run(profiledSetpoint(() -> m_smc.setPosition(height)), m_subsystem)
+                   .withName(m_subsystem.getName() + " SetHeight");
   }
 
   /**
@@ -420,7 +450,7 @@ public class Elevator extends SmartPositionalMechanism
    */
   public Command setHeight(Supplier<Distance> height)
   {
-    return Commands.run(() -> m_smc.setPosition(height.get()), m_subsystem).withName(
+    return Commands.run(profiledSetpoint(() -> m_smc.setPosition(height.get())), m_subsystem).withName(
         m_subsystem.getName() + " SetHeight Supplier");
   }
 
@@ -0,0 +1,303 @@
+package yams.mechanisms.positional;
+
+import static edu.wpi.first.units.Units.MetersPerSecond;
+import static edu.wpi.first.units.Units.MetersPerSecondPerSecond;
+import static edu.wpi.first.units.Units.Rotations;
+import static edu.wpi.first.units.Units.RotationsPerSecond;
+import static edu.wpi.first.units.Units.RotationsPerSecondPerSecond;
+
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.trajectory.ExponentialProfile;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import yams.math.ExponentialProfilePIDController;
+import yams.math.YamsClock;
+import yams.motorcontrollers.SmartMotorController;
+import yams.motorcontrollers.SmartMotorControllerConfig;
+import yams.motorcontrollers.UnitConversionPlan;
+
+/**
+ * Moves several {@link SmartPositionalMechanism}s so they all arrive at the same time, e.g. an
+ * {@link Elevator} and an {@link Arm} moving to a scoring position together.
+ * <p>
+ * The minimum time of every axis is found from the constraints of its closed loop controller, the slowest axis sets
+ * the duration. For the move the constraints of the other axes are scaled so their profiles stretch in time to the same
+ * duration, the velocity by the stretch and the acceleration by its square, and only the goals are given to the
+ * controllers. Streaming intermediate setpoints would have every inner profile chase a moving goal and lag behind it.
+ * The constraints are set through the {@link SmartMotorController} so a profile running on the motor controller is
+ * stretched too, and the original constraints are restored the same way when the move ends.
+ */
+public class MotionCoordinator
+{
+
+  /**
+   * Coordinated mechanisms.
+   */
+  private final SmartPositionalMechanism[]       m_mechanisms;
+  /**
+   * Requirements of the move command, the subsystems of every mechanism.
+   */
+  private final Subsystem[]                      m_requirements;
+  /**
+   * Original trapezoidal constraints of the axes, null if the axis does not have a {@link ProfiledPIDController}.
+   */
+  private final TrapezoidProfile.Constraints[]   m_trapezoidConstraints;
+  /**
+   * Original exponential constraints of the axes, null if the axis does not have an
+   * {@link ExponentialProfilePIDController}.
+   */
+  private final ExponentialProfile.Constraints[] m_exponentialConstraints;
+  /**
+   * Duration of the current move in seconds.
+   */
+  private       double                           m_duration  = 0;
+  /**
+   * Timestamp the current move started at in seconds.
+   */
+  private       double                           m_startTime = Double.NaN;
+
+  /**
+   * Create a coordinator.
+   *
+   * @param mechanisms {@link SmartPositionalMechanism}s to move together.
+   */
+  public MotionCoordinator(SmartPositionalMechanism... mechanisms)
+  {
+    m_mechanisms = mechanisms.clone();
+    m_trapezoidConstraints = new TrapezoidProfile.Constraints[m_mechanisms.length];
+    m_exponentialConstraints = new ExponentialProfile.Constraints[m_mechanisms.length];
+    Set<Subsystem> requirements = new LinkedHashSet<>();
+    for (SmartPositionalMechanism mechanism : m_mechanisms)
+    {
+      requirements.add(mechanism.getMotor().getConfig().getSubsystem());
+    }
+    m_requirements = requirements.toArray(new Subsystem[0]);
+  }
+
+  /**
+   * Move every mechanism to its goal, arriving together. An {@link Elevator} height converts to mechanism rotations
+   * with {@link SmartMotorControllerConfig#convertToMechanism(edu.wpi.first.units.measure.Distance)}.
+   *
+   * @param goals Goal mechanism positions indexed like the mechanisms.
+   * @return {@link Command} that ends once the duration of the slowest axis has passed.
+   */
+  public Command moveTo(Angle... goals)
+  {
+    if (goals.length != m_mechanisms.length)
+    {
+      throw new IllegalArgumentException("Expected " + m_mechanisms.length + " goals, got " + goals.length + "!");
+    }
+    Angle[] goalAngles = goals.clone();
+    return Commands.startRun(() -> plan(goalAngles), () -> setGoals(goalAngles), m_requirements)
+                   .until(() -> getElapsed() >= m_duration)
+                   .finallyDo(this::restoreConstraints)
+                   .withName("MotionCoordinator move");
+  }
+
+  /**
+   * Get the duration of the current or last move.
+   *
+   * @return Duration in seconds, the time the slowest axis needs.
+   */
+  public double getDuration()
+  {
+    return m_duration;
+  }
+
+  /**
+   * Plan a move from the current positions and scale the constraints of every axis to the duration of the slowest one.
+   *
+   * @param goals Goal mechanism positions.
+   */
+  private void plan(Angle[] goals)
+  {
+    double[] fastest  = new double[m_mechanisms.length];
+    double   duration = 0;
+    for (int i = 0; i < m_mechanisms.length; i++)
+    {
+      SmartMotorController       motor  = m_mechanisms[i].getMotor();
+      SmartMotorControllerConfig config = motor.getConfig();
+      double                     start  = toController(config, motor.getMechanismPosition().in(Rotations));
+      double                     goal   = toController(config, goals[i].in(Rotations));
+      saveConstraints(i, config);
+      fastest[i] = minimumTime(i, start, goal);
+      duration = Math.max(duration, fastest[i]);
+    }
+    for (int i = 0; i < m_mechanisms.length; i++)
+    {
+      if (duration > 0 && fastest[i] > 0)
+      {
+        scaleConstraints(i, fastest[i] / duration);
+      }
+    }
+    m_duration = duration;
+    m_startTime = YamsClock.getDefault().getTimestamp();
+  }
+
+  /**
+   * Give the goals to the closed loop controllers, which profile to them with the scaled constraints.
+   *
+   * @param goals Goal mechanism positions.
+   */
+  private void setGoals(Angle[] goals)
+  {
+    for (int i = 0; i < m_mechanisms.length; i++)
+    {
+      m_mechanisms[i].getMotor().setPosition(goals[i]);
+    }
+  }
+
+  /**
+   * Get the time since the current move started.
+   *
+   * @return Elapsed time in seconds.
+   */
+  private double getElapsed()
+  {
+    return YamsClock.getDefault().getElapsed(m_startTime);
+  }
+
+  /**
+   * Convert a mechanism position to the units of the closed loop controller.
+   *
+   * @param config    {@link SmartMotorControllerConfig} of the axis.
+   * @param rotations Mechanism position in rotations.
+   * @return Position in meters if the controller runs in meters, otherwise in rotations.
+   */
+  private static double toController(SmartMotorControllerConfig config, double rotations)
+  {
+    UnitConversionPlan plan = config.getConversionPlan();
+    return plan.hasCircumference() ? plan.mechanismToMeasurement(rotations) : rotations;
+  }
+
+  /**
+   * Save the original constraints of the closed loop controller of an axis.
+   *
+   * @param axis   Axis index.
+   * @param config {@link SmartMotorControllerConfig} of the axis.
+   */
+  private void saveConstraints(int axis, SmartMotorControllerConfig config)
+  {
+    Optional<ExponentialProfilePIDController> expo      = config.getExponentiallyProfiledClosedLoopController();
+    Optional<ProfiledPIDController>           trapezoid = config.getClosedLoopController();
+    m_exponentialConstraints[axis] = expo.flatMap(ExponentialProfilePIDController::getConstraints).orElse(null);
+    m_trapezoidConstraints[axis] = trapezoid.map(ProfiledPIDController::getConstraints).orElse(null);
+  }
+
+  /**
+   * Minimum time of the profile of an axis from rest to rest with its original constraints.
+   *
+   * @param axis  Axis index.
+   * @param start Start position in controller units.
+   * @param goal  Goal position in controller units.
+   * @return Time in seconds, 0 if the axis is not profiled.
+   */
+  private double minimumTime(int axis, double start, double goal)
+  {
+    if (m_exponentialConstraints[axis] != null)
+    {
+      ExponentialProfile profile = new ExponentialProfile(m_exponentialConstraints[axis]);
+      return profile.timeLeftUntil(new ExponentialProfile.State(start, 0), new ExponentialProfile.State(goal, 0));
+    }
+    if (m_trapezoidConstraints[axis] != null)
+    {
+      return minimumTime(Math.abs(goal - start), m_trapezoidConstraints[axis].maxVelocity,
+                         m_trapezoidConstraints[axis].maxAcceleration);
+    }
+    return 0;
+  }
+
+  /**
+   * Scale the constraints of an axis so its profile stretches in time by 1 / scale. A trapezoidal profile scales the
+   * maximum velocity by scale and the maximum acceleration by its square. An exponential profile x'' = A x' + B u
+   * stretches exactly with A scaled by scale and B by its square, which scales its maximum velocity by scale.
+   *
+   * @param axis  Axis index.
+   * @param scale Ratio of the minimum time of the axis to the duration of the move.
+   */
+  private void scaleConstraints(int axis, double scale)
+  {
+    ExponentialProfile.Constraints expo      = m_exponentialConstraints[axis];
+    TrapezoidProfile.Constraints   trapezoid = m_trapezoidConstraints[axis];
+    if (expo != null)
+    {
+      expo = ExponentialProfile.Constraints.fromStateSpace(expo.maxInput, expo.A * scale, expo.B * scale * scale);
+    }
+    if (trapezoid != null)
+    {
+      trapezoid = new TrapezoidProfile.Constraints(trapezoid.maxVelocity * scale,
+                                                   trapezoid.maxAcceleration * scale * scale);
+    }
+    setConstraints(m_mechanisms[axis].getMotor(), expo, trapezoid);
+  }
+
+  /**
+   * Restore the original constraints of every axis.
+   *
+   * @param interrupted Whether the move was interrupted, the constraints are restored either way.
+   */
+  private void restoreConstraints(boolean interrupted)
+  {
+    for (int i = 0; i < m_mechanisms.length; i++)
+    {
+      setConstraints(m_mechanisms[i].getMotor(), m_exponentialConstraints[i], m_trapezoidConstraints[i]);
+    }
+  }
+
+  /**
+   * Set the profile constraints of an axis through the {@link SmartMotorController}, which updates the closed loop
+   * controller as well as a profile running on the motor controller itself, like Motion Magic on a TalonFX.
+   *
+   * @param motor     {@link SmartMotorController} of the axis.
+   * @param expo      Exponential constraints, null if the axis does not have an exponential profile.
+   * @param trapezoid Trapezoidal constraints in controller units, null if the axis does not have a trapezoidal
+   *                  profile.
+   */
+  private static void setConstraints(SmartMotorController motor, ExponentialProfile.Constraints expo,
+                                     TrapezoidProfile.Constraints trapezoid)
+  {
+    if (expo != null)
+    {
+      motor.setExponentialProfileConstraints(expo);
+    } else if (trapezoid != null)
+    {
+      if (motor.getConfig().getConversionPlan().hasCircumference())
+      {
+        motor.setMotionProfileMaxVelocity(MetersPerSecond.of(trapezoid.maxVelocity));
+        motor.setMotionProfileMaxAcceleration(MetersPerSecondPerSecond.of(trapezoid.maxAcceleration));
+      } else
+      {
+        motor.setMotionProfileMaxVelocity(RotationsPerSecond.of(trapezoid.maxVelocity));
+        motor.setMotionProfileMaxAcceleration(RotationsPerSecondPerSecond.of(trapezoid.maxAcceleration));
+      }
+    }
+  }
+
+  /**
+   * Minimum time of a trapezoidal profile over a distance from rest to rest.
+   *
+   * @param distance     Distance.
+   * @param velocity     Maximum velocity.
+   * @param acceleration Maximum acceleration.
+   * @return Time in seconds, 0 if the axis is not profiled.
+   */
+  private static double minimumTime(double distance, double velocity, double acceleration)
+  {
+    if (distance <= 0 || Double.isInfinite(acceleration))
+    {
+      return 0;
+    }
+    if (distance <= velocity * velocity / acceleration)
+    {
+      // Triangular, the maximum velocity is never reached.
+      return 2 * Math.sqrt(distance / acceleration);
+    }
+    return distance / velocity + velocity / acceleration;
+  }
+}
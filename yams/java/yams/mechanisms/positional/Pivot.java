@@ -16,9 +16,7 @@ import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.units.measure.Velocity;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.simulation.BatterySim;
 import edu.wpi.first.wpilibj.simulation.DCMotorSim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.smartdashboard.Mechanism2d;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -39,6 +37,8 @@ import yams.mechanisms.config.PivotConfig;
 import yams.motorcontrollers.SmartMotorController;
 import yams.motorcontrollers.SmartMotorControllerConfig;
 import yams.motorcontrollers.simulation.DCMotorSimSupplier;
+import yams.motorcontrollers.simulation.SimPowerBus;
+import yams.telemetry.MechanismProfiler.Phase;
 
 /**
  * Pivot mechanism.
@@ -210,7 +210,8 @@ public class Pivot extends SmartPositionalMechanism
    */
   public Command setAngle(Angle angle)
   {
-    return Commands.run(() -> m_smc.setPosition(angle), m_subsystem).withName(m_subsystem.getName() + " SetAngle");
+    return Commands.run(profiledSetpoint(() -> m_smc.setPosition(angle)), m_subsystem)
+                   .withName(m_subsystem.getName() + " SetAngle");
   }
 
   /**
@@ -221,7 +222,7 @@ public class Pivot extends SmartPositionalMechanism
    */
   public Command setAngle(Supplier<Angle> angle)
   {
-    return Commands.run(() -> m_smc.setPosition(angle.get()), m_subsystem).withName(
+    return Commands.run(profiledSetpoint(() -> m_smc.setPosition(angle.get())), m_subsystem).withName(
         m_subsystem.getName() + " SetAngle Supplier");
   }
 
@@ -309,8 +310,11 @@ public class Pivot extends SmartPositionalMechanism
   {
     if (m_dcmotorSim.isPresent() && m_smc.getSimSupplier().isPresent())
     {
+      long start = m_telemetry.startProfiling();
       m_smc.getSimSupplier().get().updateSimState();
+      long signalStart = m_telemetry.startProfiling();
       m_smc.simIterate();
+      long signalNanos = m_telemetry.stopProfiling(Phase.SignalRefresh, signalStart);
       m_smc.getSimSupplier().get().starveUpdateSim();
       if (m_config.getLowerHardLimit().isPresent() && m_dcmotorSim.get().getAngularVelocityRadPerSec() < 0 &&
           m_smc.getMechanismPosition().lt(m_config.getLowerHardLimit().get()))
@@ -322,8 +326,8 @@ public class Pivot extends SmartPositionalMechanism
       {
         m_smc.setEncoderPosition(m_config.getUpperHardLimit().get());
       }
-      RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(m_dcmotorSim.get()
-                                                                                           .getCurrentDrawAmps()));
+      SimPowerBus.update();
+      m_telemetry.stopProfiling(Phase.SimIterate, start + signalNanos);
       visualizationUpdate();
     }
   }
@@ -333,7 +337,9 @@ public class Pivot extends SmartPositionalMechanism
   {
 //    m_telemetry.updatePosition(getAngle());
 //    m_motor.getMechanismPositionSetpoint().ifPresent(m_setpoint -> m_telemetry.updateSetpoint(m_setpoint));
+    long start = m_telemetry.startProfiling();
     m_smc.updateTelemetry();
+    m_telemetry.stopProfiling(Phase.UpdateTelemetry, start);
     m_telemetry.updateLoopTime();
   }
 
@@ -343,7 +349,9 @@ public class Pivot extends SmartPositionalMechanism
   @Override
   public void visualizationUpdate()
   {
+    long start = m_telemetry.startProfiling();
     m_mechanismLigament.setAngle(getAngle().in(Degrees));
+    m_telemetry.stopProfiling(Phase.VisualizationUpdate, start);
   }
 
   /**
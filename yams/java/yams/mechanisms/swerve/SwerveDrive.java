@@ -9,6 +9,7 @@ import static edu.wpi.first.units.Units.RadiansPerSecond;
 import static edu.wpi.first.units.Units.Rotations;
 import static edu.wpi.first.units.Units.Second;
 
+import com.ctre.phoenix6.BaseStatusSignal;
 import edu.wpi.first.hal.HAL;
 import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
@@ -31,14 +32,32 @@ import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.RunCommand;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 import java.util.function.Supplier;
+import org.ejml.simple.SimpleMatrix;
+import yams.math.YamsClock;
 import yams.mechanisms.config.SwerveDriveConfig;
+import yams.motorcontrollers.SmartMotorController;
+import yams.motorcontrollers.simulation.SimPowerBus;
+import yams.motorcontrollers.simulation.SimSnapshot;
+import yams.telemetry.InputLog;
 import yams.telemetry.MechanismTelemetry;
 
 public class SwerveDrive
 {
 
+  /**
+   * Time without a setpoint in seconds after which the setpoint generator starts again from the measured states.
+   */
+  private static final double SETPOINT_TIMEOUT = 0.1;
+  /**
+   * Setpoint period in seconds assumed for the first setpoint after a restart.
+   */
+  private static final double SETPOINT_PERIOD  = 0.02;
+
   /**
    * The modules of the drive.
    */
@@ -79,22 +98,79 @@ public class SwerveDrive
    * Gyro angle.
    */
   private final DoublePublisher                         m_gyroPublisher;
-  /**
-   * Timer for simulation purposes only. Not used in real robot code.
-   */
-  private final Timer              m_simTimer     = new Timer();
   /**
    * The config for the drive.
    */
-  private final SwerveDriveConfig  m_config;
+  private final SwerveDriveConfig                 m_config;
   /**
    * Mechanism telemetry.
    */
-  private final MechanismTelemetry m_telemetry    = new MechanismTelemetry();
+  private final MechanismTelemetry                m_telemetry          = new MechanismTelemetry();
+  /**
+   * {@link InputLog} channel of the gyro angle.
+   */
+  private final int                               m_gyroInputChannel;
+  /**
+   * Drivetrain simulation. Used for simulation purposes only. Not used in real robot code.
+   */
+  private final Optional<SwerveDriveSim>          m_sim;
+  /**
+   * Module positions read once per loop, reused every loop.
+   */
+  private final SwerveModulePosition[]            m_modulePositions;
+  /**
+   * Module states read once per loop, reused every loop.
+   */
+  private final SwerveModuleState[]               m_moduleStates;
+  /**
+   * Forward kinematics, the pseudo inverse of the module velocity equations as a row major 3 by 2n matrix mapping the
+   * module x and y velocities to the chassis speeds.
+   */
+  private final double[]                          m_forwardKinematics;
+  /**
+   * Robot relative chassis speeds of the last loop, reused every loop.
+   */
+  private final ChassisSpeeds                     m_robotRelativeSpeed = new ChassisSpeeds();
+  /**
+   * Field relative chassis speeds of the last loop, reused every loop.
+   */
+  private final ChassisSpeeds                     m_fieldRelativeSpeed = new ChassisSpeeds();
+  /**
+   * Lock of the pose estimator and the module buffers, which the odometry thread updates.
+   */
+  private final Object                            m_odometryLock       = new Object();
+  /**
+   * Odometry thread, empty if the odometry is updated by {@link #updateOdometry()}.
+   */
+  private final Optional<SwerveOdometryThread>    m_odometryThread;
+  /**
+   * Setpoint generator, empty if the chassis speeds are given to the modules as they are.
+   */
+  private final Optional<SwerveSetpointGenerator> m_setpointGenerator;
+  /**
+   * {@link SimSnapshot} state of the simulated gyro and the pose, registered in simulation.
+   */
+  private final SimSnapshot.Participant           m_snapshotState      = new SnapshotState();
+  /**
+   * Estimated pose of the last odometry update, read without the lock.
+   */
+  private volatile Pose2d                         m_pose;
+  /**
+   * Gyro rotation read with the module states.
+   */
+  private       Rotation2d                        m_gyroRotation       = Rotation2d.kZero;
   /**
    * Simulated Gyro Angle. Used for simulation purposes only. Not used in real robot code.
    */
-  private       Angle              m_simGyroAngle = Rotations.of(0);
+  private volatile Angle                          m_simGyroAngle       = Rotations.of(0);
+  /**
+   * {@link YamsClock} timestamp of the last simulation step, NaN before the first. Used for simulation purposes only.
+   */
+  private       double                            m_simTimestamp       = Double.NaN;
+  /**
+   * {@link YamsClock} timestamp of the last generated setpoint, NaN to start from the measured module states.
+   */
+  private       double                            m_setpointTimestamp  = Double.NaN;
 
   /**
    * Create a SwerveDrive.
@@ -105,13 +181,36 @@ public class SwerveDrive
   {
     m_config = config;
     m_modules = config.getModules();
+    m_gyroInputChannel = InputLog.channel(getName() + "/gyro");
+    m_sim = RobotBase.isSimulation() ? Optional.of(new SwerveDriveSim(config)) : Optional.empty();
     m_kinematics = new SwerveDriveKinematics(Arrays.stream(m_modules)
                                                    .map(module -> module.getConfig().getLocation().orElseThrow())
                                                    .toArray(Translation2d[]::new));
+    int count = m_modules.length;
+    m_modulePositions = new SwerveModulePosition[count];
+    m_moduleStates = new SwerveModuleState[count];
+    SimpleMatrix inverseKinematics = new SimpleMatrix(count * 2, 3);
+    for (int i = 0; i < count; i++)
+    {
+      Translation2d location = m_modules[i].getConfig().getLocation().orElseThrow();
+      m_modulePositions[i] = new SwerveModulePosition();
+      m_moduleStates[i] = new SwerveModuleState();
+      inverseKinematics.setRow(i * 2, 0, 1, 0, -location.getY());
+      inverseKinematics.setRow(i * 2 + 1, 0, 0, 1, location.getX());
+    }
+    m_forwardKinematics = inverseKinematics.pseudoInverse().getDDRM().getData().clone();
+    readModules(false);
     m_poseEstimator = new SwerveDrivePoseEstimator(m_kinematics,
-                                                   new Rotation2d(getGyroAngle()),
-                                                   getModulePositions(),
+                                                   m_gyroRotation,
+                                                   m_modulePositions,
                                                    m_config.getInitialPose());
+    m_pose = m_poseEstimator.getEstimatedPosition();
+    m_setpointGenerator = config.getRobotMass().map(mass -> new SwerveSetpointGenerator(config));
+    m_odometryThread = config.getOdometryFrequency()
+                             .map(frequency -> new SwerveOdometryThread(frequency,
+                                                                        getOdometrySignals(),
+                                                                        hasModuleSignals(),
+                                                                        timestamp -> updateOdometry(timestamp, true)));
     m_telemetry.setupTelemetry(getName());
     var desiredModuleStatesTopic = m_telemetry.getDataTable()
                                               .getStructArrayTopic("states/desired", SwerveModuleState.struct);
@@ -134,6 +233,13 @@ public class SwerveDrive
     m_desiredModuleStatesPublisher = desiredModuleStatesTopic.publish();
     m_currentModuleStatesPublisher = currentModuleStatesTopic.publish();
 
+    if (RobotBase.isSimulation())
+    {
+      SimSnapshot.register(m_snapshotState);
+    }
+
+    m_odometryThread.ifPresent(SwerveOdometryThread::start);
+
     // Report as YAGSL bc this will become apart of YAGSL in 2027...
     HAL.report(kResourceType_RobotDrive, kRobotDriveSwerve_YAGSL);
   }
@@ -152,11 +258,23 @@ public class SwerveDrive
   }
 
   /**
-   * Get the Gyro Angle.
+   * Get the Gyro Angle, recorded or replayed through the {@link InputLog}.
    */
   public Angle getGyroAngle()
   {
-    return RobotBase.isReal() ? m_config.getGyroAngle() : m_simGyroAngle;
+    Angle gyroAngle = RobotBase.isReal() ? m_config.getGyroAngle() : m_simGyroAngle;
+    return InputLog.isActive() ? Degrees.of(InputLog.process(m_gyroInputChannel, gyroAngle.in(Degrees))) : gyroAngle;
+  }
+
+  /**
+   * Read the gyro angle from the odometry thread, without going through the {@link InputLog} or refreshing a Phoenix 6
+   * yaw signal.
+   *
+   * @return Gyro angle, simulated in simulation.
+   */
+  private Angle readGyroAngle()
+  {
+    return RobotBase.isReal() ? m_config.getLatchedGyroAngle() : m_simGyroAngle;
   }
 
   /**
@@ -174,6 +292,7 @@ public class SwerveDrive
     }
 
     // Update kinematics because we are not using setModuleStates
+    m_setpointTimestamp = Double.NaN;
     m_desiredRobotRelativeChassisSpeedsPublisher.accept(new ChassisSpeeds());
     m_desiredModuleStatesPublisher.accept(m_kinematics.toSwerveModuleStates(new ChassisSpeeds()));
   }
@@ -186,9 +305,16 @@ public class SwerveDrive
   public void setRobotRelativeChassisSpeeds(ChassisSpeeds robotRelativeChassisSpeeds)
   {
     robotRelativeChassisSpeeds = m_config.optimizeRobotRelativeChassisSpeeds(robotRelativeChassisSpeeds);
-    var states = m_config.getCenterOfRotation().isPresent() ?
-                 m_kinematics.toSwerveModuleStates(robotRelativeChassisSpeeds, m_config.getCenterOfRotation().get()) :
-                 m_kinematics.toSwerveModuleStates(robotRelativeChassisSpeeds);
+    SwerveModuleState[] states;
+    if (m_setpointGenerator.isPresent())
+    {
+      states = generateSetpoint(m_setpointGenerator.get(), robotRelativeChassisSpeeds);
+    } else
+    {
+      states = m_config.getCenterOfRotation().isPresent() ?
+               m_kinematics.toSwerveModuleStates(robotRelativeChassisSpeeds, m_config.getCenterOfRotation().get()) :
+               m_kinematics.toSwerveModuleStates(robotRelativeChassisSpeeds);
+    }
     for (int i = 0; i < states.length; i++)
     {
       m_modules[i].setSwerveModuleState(states[i]);
@@ -197,6 +323,33 @@ public class SwerveDrive
     m_desiredRobotRelativeChassisSpeedsPublisher.accept(robotRelativeChassisSpeeds);
   }
 
+  /**
+   * Generate the next feasible module states toward the robot relative chassis speeds.
+   *
+   * @param generator                  {@link SwerveSetpointGenerator} of the drive.
+   * @param robotRelativeChassisSpeeds Desired robot relative chassis speeds.
+   * @return Module states, reused by the next call.
+   */
+  private SwerveModuleState[] generateSetpoint(SwerveSetpointGenerator generator,
+                                               ChassisSpeeds robotRelativeChassisSpeeds)
+  {
+    YamsClock clock = YamsClock.getDefault();
+    double    dt    = Double.isNaN(m_setpointTimestamp) ? Double.POSITIVE_INFINITY :
+                      clock.getElapsed(m_setpointTimestamp);
+    m_setpointTimestamp = clock.getTimestamp();
+    if (dt > SETPOINT_TIMEOUT)
+    {
+      // Not driven for a while, start from the module states read by the last odometry update.
+      synchronized (m_odometryLock)
+      {
+        generator.reset(m_moduleStates);
+      }
+      dt = SETPOINT_PERIOD;
+    }
+    Translation2d center = m_config.getCenterOfRotation().orElse(Translation2d.kZero);
+    return generator.generate(robotRelativeChassisSpeeds, center.getX(), center.getY(), dt);
+  }
+
   /**
    * Set field relative chassis speeds.
    *
@@ -209,13 +362,14 @@ public class SwerveDrive
   }
 
   /**
-   * Gets the measured pose (position and rotation) of the robot, as reported by odometry.
+   * Gets the measured pose (position and rotation) of the robot, as reported by odometry. Safe to call from any thread
+   * without waiting on the odometry thread.
    *
    * @return The robot's pose
    */
   public Pose2d getPose()
   {
-    return m_poseEstimator.getEstimatedPosition();
+    return m_pose;
   }
 
   /**
@@ -248,9 +402,16 @@ public class SwerveDrive
    */
   public void resetOdometry(Pose2d pose)
   {
-    m_poseEstimator.resetPosition(new Rotation2d(getGyroAngle()), getModulePositions(), pose);
+    Rotation2d gyroRotation;
+    synchronized (m_odometryLock)
+    {
+      readModules(false);
+      m_poseEstimator.resetPosition(m_gyroRotation, m_modulePositions, pose);
+      m_pose = m_poseEstimator.getEstimatedPosition();
+      gyroRotation = m_gyroRotation;
+    }
     ChassisSpeeds robotRelativeSpeeds = ChassisSpeeds.fromRobotRelativeSpeeds(new ChassisSpeeds(0, 0, 0),
-                                                                              new Rotation2d(getGyroAngle()));
+                                                                              gyroRotation);
     m_desiredModuleStatesPublisher.accept(m_kinematics.toSwerveModuleStates(robotRelativeSpeeds));
   }
 
@@ -338,7 +499,11 @@ public class SwerveDrive
   public void addVisionMeasurement(Pose2d robotPose, double timestamp,
                                    Matrix<N3, N1> visionMeasurementStdDevs)
   {
-    m_poseEstimator.addVisionMeasurement(robotPose, timestamp, visionMeasurementStdDevs);
+    synchronized (m_odometryLock)
+    {
+      m_poseEstimator.addVisionMeasurement(robotPose, timestamp, visionMeasurementStdDevs);
+      m_pose = m_poseEstimator.getEstimatedPosition();
+    }
   }
 
   /**
@@ -351,7 +516,10 @@ public class SwerveDrive
    */
   public void setVisionMeasurementStdDevs(Matrix<N3, N1> visionMeasurementStdDevs)
   {
-    m_poseEstimator.setVisionMeasurementStdDevs(visionMeasurementStdDevs);
+    synchronized (m_odometryLock)
+    {
+      m_poseEstimator.setVisionMeasurementStdDevs(visionMeasurementStdDevs);
+    }
   }
 
   /**
@@ -364,79 +532,270 @@ public class SwerveDrive
    */
   public void addVisionMeasurement(Pose2d robotPose, double timestamp)
   {
-    m_poseEstimator.addVisionMeasurement(robotPose, timestamp);
+    synchronized (m_odometryLock)
+    {
+      m_poseEstimator.addVisionMeasurement(robotPose, timestamp);
+      m_pose = m_poseEstimator.getEstimatedPosition();
+    }
   }
 
   /**
-   * Update the telemetry of the drive.
+   * Read every module and the gyro once and update the pose estimator and the chassis speeds from that one read. While
+   * the odometry thread is running, which updates the odometry itself into its own buffers, only the module snapshots
+   * of this loop are taken. Call once every loop.
+   */
+  public void updateOdometry()
+  {
+    if (m_odometryThread.isEmpty() || !m_odometryThread.get().isRunning())
+    {
+      updateOdometry(YamsClock.getDefault().getTimestamp(), false);
+    } else
+    {
+      for (SwerveModule module : m_modules)
+      {
+        module.updateSnapshot();
+      }
+    }
+  }
+
+  /**
+   * Read every module and the gyro once and update the pose estimator with the time of the read.
+   *
+   * @param timestamp      Timestamp of the module and gyro samples in seconds.
+   * @param odometryThread Whether the odometry thread reads, which must not refresh the status signals of the robot
+   *                       loop or record to the {@link InputLog}.
+   */
+  private void updateOdometry(double timestamp, boolean odometryThread)
+  {
+    synchronized (m_odometryLock)
+    {
+      readModules(odometryThread);
+      m_poseEstimator.updateWithTime(timestamp, m_gyroRotation, m_modulePositions);
+      m_pose = m_poseEstimator.getEstimatedPosition();
+    }
+  }
+
+  /**
+   * Stop the odometry thread, the odometry is updated by {@link #updateOdometry()} afterwards.
+   */
+  public void stopOdometryThread()
+  {
+    m_odometryThread.ifPresent(SwerveOdometryThread::close);
+  }
+
+  /**
+   * Close the drive for unit testing. Stops the odometry thread and removes the drive and its simulation from the
+   * {@link SimSnapshot}.
+   */
+  public void close()
+  {
+    stopOdometryThread();
+    SimSnapshot.unregister(m_snapshotState);
+    m_sim.ifPresent(SwerveDriveSim::close);
+  }
+
+  /**
+   * Get the Phoenix 6 signals the odometry reads, the mechanism position of every module motor controller, the drive
+   * velocities and the gyro yaw if it is a signal.
+   *
+   * @return Signals that are present, empty in simulation.
+   */
+  private BaseStatusSignal[] getOdometrySignals()
+  {
+    if (RobotBase.isSimulation())
+    {
+      // The simulated sensors only change in simIterate and are read from the plants.
+      return new BaseStatusSignal[0];
+    }
+    List<BaseStatusSignal> signals = new ArrayList<>();
+    for (SwerveModule module : m_modules)
+    {
+      SmartMotorController driveMotor = module.getConfig().getDriveMotor();
+      driveMotor.getMechanismPositionSignal().ifPresent(signals::add);
+      driveMotor.getMechanismVelocitySignal().ifPresent(signals::add);
+      module.getConfig().getAzimuthMotor().getMechanismPositionSignal().ifPresent(signals::add);
+    }
+    m_config.getGyroSignal().ifPresent(signals::add);
+    return signals.toArray(new BaseStatusSignal[0]);
+  }
+
+  /**
+   * Check if every module is read from Phoenix 6 signals, so the odometry thread can wait for them.
+   *
+   * @return True if the drive position, drive velocity and azimuth position of every module are signals.
+   */
+  private boolean hasModuleSignals()
+  {
+    for (SwerveModule module : m_modules)
+    {
+      SmartMotorController driveMotor = module.getConfig().getDriveMotor();
+      if (driveMotor.getMechanismPositionSignal().isEmpty() || driveMotor.getMechanismVelocitySignal().isEmpty() ||
+          module.getConfig().getAzimuthMotor().getMechanismPositionSignal().isEmpty())
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Update the odometry and the telemetry of the drive.
    */
   public void updateTelemetry()
   {
-    m_poseEstimator.update(new Rotation2d(getGyroAngle()), getModulePositions());
-    m_gyroPublisher.accept(getGyroAngle().in(Degrees));
-    m_currentModuleStatesPublisher.accept(getModuleStates());
-    m_posePublisher.accept(getPose());
-    m_currentRobotRelativeChassisSpeedsPublisher.accept(getRobotRelativeSpeed());
-    m_fieldRelativeChassisSpeedsPublisher.accept(getFieldRelativeSpeed());
-    Arrays.stream(m_modules).forEach(SwerveModule::updateTelemetry);
+    updateOdometry();
+    synchronized (m_odometryLock)
+    {
+      m_gyroPublisher.accept(m_gyroRotation.getDegrees());
+      m_currentModuleStatesPublisher.accept(m_moduleStates);
+      m_currentRobotRelativeChassisSpeedsPublisher.accept(m_robotRelativeSpeed);
+      m_fieldRelativeChassisSpeedsPublisher.accept(m_fieldRelativeSpeed);
+    }
+    m_posePublisher.accept(m_pose);
+    for (SwerveModule module : m_modules)
+    {
+      module.updateTelemetry();
+    }
     m_telemetry.updateLoopTime();
   }
 
   /**
-   * Simulate the drive, updating the gyroscope based off of module states.
+   * Simulate the drive, stepping the {@link SwerveDriveSim} and updating the gyroscope from the simulated chassis.
    */
   public void simIterate()
   {
-    if (!m_simTimer.isRunning())
-    {m_simTimer.start();}
-    Arrays.stream(m_modules).forEach(SwerveModule::simIterate);
-    m_simGyroAngle = m_simGyroAngle.plus(Radians.of(
-        m_kinematics.toChassisSpeeds(getModuleStates()).omegaRadiansPerSecond * m_simTimer.get()));
-    m_simTimer.reset();
+    YamsClock clock = YamsClock.getDefault();
+    double    dt    = Double.isNaN(m_simTimestamp) ? 0 : clock.getElapsed(m_simTimestamp);
+    m_simTimestamp = clock.getTimestamp();
+    m_sim.ifPresent(sim -> {
+      double heading = sim.getHeading();
+      sim.step(dt);
+      m_simGyroAngle = m_simGyroAngle.plus(Radians.of(sim.getHeading() - heading));
+    });
+    for (SwerveModule module : m_modules)
+    {
+      module.simIterate();
+    }
+    SimPowerBus.update();
+  }
+
+  /**
+   * Get the drivetrain simulation.
+   *
+   * @return {@link SwerveDriveSim} if running in simulation.
+   */
+  public Optional<SwerveDriveSim> getSimulation()
+  {
+    return m_sim;
   }
 
   /**
-   * Get the robot relative speed of the drive.
+   * Get the robot relative speed of the drive, from the module states read by the last {@link #updateOdometry()}.
    *
    * @return Robot relative speed of the drive.
    */
   public ChassisSpeeds getRobotRelativeSpeed()
   {
-    return m_kinematics.toChassisSpeeds(getModuleStates());
+    synchronized (m_odometryLock)
+    {
+      return new ChassisSpeeds(m_robotRelativeSpeed.vxMetersPerSecond,
+                               m_robotRelativeSpeed.vyMetersPerSecond,
+                               m_robotRelativeSpeed.omegaRadiansPerSecond);
+    }
   }
 
   /**
-   * Get the field relative speed of the drive.
+   * Get the field relative speed of the drive, from the module states and gyro read by the last
+   * {@link #updateOdometry()}.
    *
    * @return Field relative speed of the drive.
    */
   public ChassisSpeeds getFieldRelativeSpeed()
   {
-    return ChassisSpeeds.fromRobotRelativeSpeeds(getRobotRelativeSpeed(), new Rotation2d(getGyroAngle()));
+    synchronized (m_odometryLock)
+    {
+      return new ChassisSpeeds(m_fieldRelativeSpeed.vxMetersPerSecond,
+                               m_fieldRelativeSpeed.vyMetersPerSecond,
+                               m_fieldRelativeSpeed.omegaRadiansPerSecond);
+    }
   }
 
   /**
-   * Get the {@link SwerveModulePosition} of the modules.
+   * Take a snapshot of every module, read the gyro once, copy them into the reused buffers and update the chassis
+   * speeds from them. Hold the odometry lock.
+   *
+   * @param odometryThread Whether the odometry thread reads, the modules and the gyro are then read without going
+   *                       through the {@link InputLog}.
+   */
+  private void readModules(boolean odometryThread)
+  {
+    int count = m_modules.length;
+    for (int i = 0; i < count; i++)
+    {
+      if (odometryThread)
+      {
+        m_modules[i].readFromOdometryThread(m_modulePositions[i], m_moduleStates[i]);
+      } else
+      {
+        m_modules[i].read(m_modulePositions[i], m_moduleStates[i]);
+      }
+    }
+    m_gyroRotation = new Rotation2d(odometryThread ? readGyroAngle() : getGyroAngle());
+
+    // Least squares chassis speeds, the same as SwerveDriveKinematics.toChassisSpeeds without the matrix allocations.
+    double vx    = 0;
+    double vy    = 0;
+    double omega = 0;
+    for (int i = 0; i < count; i++)
+    {
+      SwerveModuleState state   = m_moduleStates[i];
+      double            moduleX = state.speedMetersPerSecond * state.angle.getCos();
+      double            moduleY = state.speedMetersPerSecond * state.angle.getSin();
+      int               vxIndex = i * 2;
+      int               vyIndex = 2 * count + i * 2;
+      int               wIndex  = 4 * count + i * 2;
+      vx += m_forwardKinematics[vxIndex] * moduleX + m_forwardKinematics[vxIndex + 1] * moduleY;
+      vy += m_forwardKinematics[vyIndex] * moduleX + m_forwardKinematics[vyIndex + 1] * moduleY;
+      omega += m_forwardKinematics[wIndex] * moduleX + m_forwardKinematics[wIndex + 1] * moduleY;
+    }
+    double cos = m_gyroRotation.getCos();
+    double sin = m_gyroRotation.getSin();
+    m_robotRelativeSpeed.vxMetersPerSecond = vx;
+    m_robotRelativeSpeed.vyMetersPerSecond = vy;
+    m_robotRelativeSpeed.omegaRadiansPerSecond = omega;
+    m_fieldRelativeSpeed.vxMetersPerSecond = vx * cos - vy * sin;
+    m_fieldRelativeSpeed.vyMetersPerSecond = vx * sin + vy * cos;
+    m_fieldRelativeSpeed.omegaRadiansPerSecond = omega;
+  }
+
+  /**
+   * Get the {@link SwerveModulePosition} of the modules from their snapshots.
    *
    * @return {@link SwerveModulePosition} of the modules.
    */
   public SwerveModulePosition[] getModulePositions()
   {
-    return Arrays.stream(m_modules)
-                 .map(SwerveModule::getPosition)
-                 .toArray(SwerveModulePosition[]::new);
+    SwerveModulePosition[] positions = new SwerveModulePosition[m_modules.length];
+    for (int i = 0; i < m_modules.length; i++)
+    {
+      positions[i] = m_modules[i].getPosition();
+    }
+    return positions;
   }
 
   /**
-   * Get the {@link SwerveModuleState} of the modules.
+   * Get the {@link SwerveModuleState} of the modules from their snapshots.
    *
    * @return {@link SwerveModuleState} of the modules.
    */
   public SwerveModuleState[] getModuleStates()
   {
-    return Arrays.stream(m_modules)
-                 .map(SwerveModule::getState)
-                 .toArray(SwerveModuleState[]::new);
+    SwerveModuleState[] states = new SwerveModuleState[m_modules.length];
+    for (int i = 0; i < m_modules.length; i++)
+    {
+      states[i] = m_modules[i].getState();
+    }
+    return states;
   }
 
   /**
@@ -448,4 +807,45 @@ public class SwerveDrive
   {
     return m_config;
   }
+
+  /**
+   * {@link SimSnapshot} state of the simulated gyro angle and the estimated pose. The module motor controllers are
+   * registered first, so the module positions are already restored when the pose is reset.
+   */
+  private class SnapshotState implements SimSnapshot.Participant
+  {
+
+    @Override
+    public int getSnapshotSize()
+    {
+      return 4;
+    }
+
+    @Override
+    public void capture(double[] buffer, int offset)
+    {
+      Pose2d pose = getPose();
+      buffer[offset] = m_simGyroAngle.in(Radians);
+      buffer[offset + 1] = pose.getX();
+      buffer[offset + 2] = pose.getY();
+      buffer[offset + 3] = pose.getRotation().getRadians();
+    }
+
+    @Override
+    public void restore(double[] buffer, int offset)
+    {
+      m_simGyroAngle = Radians.of(buffer[offset]);
+      m_simTimestamp = Double.NaN;
+      synchronized (m_odometryLock)
+      {
+        readModules(false);
+        m_poseEstimator.resetPosition(m_gyroRotation,
+                                      m_modulePositions,
+                                      new Pose2d(buffer[offset + 1],
+                                                 buffer[offset + 2],
+                                                 new Rotation2d(buffer[offset + 3])));
+        m_pose = m_poseEstimator.getEstimatedPosition();
+      }
+    }
+  }
 }
@@ -0,0 +1,525 @@
+package yams.mechanisms.swerve;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.KilogramSquareMeters;
+import static edu.wpi.first.units.Units.Kilograms;
+import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.Radians;
+import static edu.wpi.first.units.Units.RadiansPerSecond;
+import static edu.wpi.first.units.Units.Volts;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
+import edu.wpi.first.units.measure.Current;
+import edu.wpi.first.units.measure.Voltage;
+import yams.math.SmartMath;
+import yams.mechanisms.config.SwerveDriveConfig;
+import yams.mechanisms.config.SwerveModuleConfig;
+import yams.motorcontrollers.SimSupplier;
+import yams.motorcontrollers.SmartMotorController;
+import yams.motorcontrollers.simulation.SimPowerBus;
+import yams.motorcontrollers.simulation.SimSnapshot;
+
+/**
+ * Swerve drivetrain simulation. Holds the drive and azimuth states of every module in primitive arrays and steps them
+ * together with the chassis in one pass, replacing the per motor {@link edu.wpi.first.wpilibj.simulation.DCMotorSim}
+ * suppliers.
+ * <p>
+ * Each azimuth is a first order DC motor plant solved exactly under a constant input voltage. The drive motors push on
+ * the chassis through the wheels, the ground force of each wheel is limited to its share of the robot weight times the
+ * coefficient of friction. While a wheel has traction it rolls with the carpet, once the motor and the lateral friction
+ * ask for more than the traction limit the wheel slips and spins up on its own inertia.
+ */
+public class SwerveDriveSim implements SimSnapshot.Participant
+{
+
+  /**
+   * Number of modules.
+   */
+  private final int                    m_count;
+  /**
+   * Motor controllers, drive motors first then azimuth motors.
+   */
+  private final SmartMotorController[] m_motors;
+  /**
+   * Module x locations, robot relative in meters.
+   */
+  private final double[]               m_moduleX;
+  /**
+   * Module y locations, robot relative in meters.
+   */
+  private final double[]               m_moduleY;
+  /**
+   * Wheel radii in meters.
+   */
+  private final double[]               m_wheelRadius;
+  /**
+   * Motor torque constants in Nm/A, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_kt;
+  /**
+   * Motor velocity constants in rad/s/V, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_kv;
+  /**
+   * Motor winding resistances in ohms, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_resistance;
+  /**
+   * Reductions from the mechanism to the rotor, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_reduction;
+  /**
+   * Mechanism moments of inertia in kg m^2, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_moi;
+  /**
+   * Applied voltages, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_volts;
+  /**
+   * Whether the voltage was set through the {@link SimSupplier} instead of the duty cycle.
+   */
+  private final boolean[]              m_inputFed;
+  /**
+   * Mechanism positions in radians, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_position;
+  /**
+   * Mechanism velocities in rad/s, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_velocity;
+  /**
+   * Motor currents in amps, indexed like {@link #m_motors}.
+   */
+  private final double[]               m_current;
+  /**
+   * Whether each wheel is slipping.
+   */
+  private final boolean[]              m_slipping;
+  /**
+   * Longitudinal ground force of each wheel in newtons, scratch for the step.
+   */
+  private final double[]               m_forceLong;
+  /**
+   * Robot mass in kg.
+   */
+  private final double                 m_mass;
+  /**
+   * Robot moment of inertia in kg m^2.
+   */
+  private final double                 m_moiRobot;
+  /**
+   * Traction limit of each wheel in newtons.
+   */
+  private final double                 m_traction;
+  /**
+   * Robot relative chassis x velocity in m/s.
+   */
+  private       double                 m_vx;
+  /**
+   * Robot relative chassis y velocity in m/s.
+   */
+  private       double                 m_vy;
+  /**
+   * Chassis angular velocity in rad/s.
+   */
+  private       double                 m_omega;
+  /**
+   * Chassis heading in radians.
+   */
+  private       double                 m_heading;
+
+  /**
+   * Create the swerve drivetrain simulation and install its {@link SimSupplier}s on the module motor controllers.
+   *
+   * @param config {@link SwerveDriveConfig} of the drive.
+   */
+  public SwerveDriveSim(SwerveDriveConfig config)
+  {
+    SwerveModule[] modules = config.getModules();
+    m_count = modules.length;
+    m_motors = new SmartMotorController[m_count * 2];
+    m_moduleX = new double[m_count];
+    m_moduleY = new double[m_count];
+    m_wheelRadius = new double[m_count];
+    m_slipping = new boolean[m_count];
+    m_forceLong = new double[m_count];
+    m_kt = new double[m_count * 2];
+    m_kv = new double[m_count * 2];
+    m_resistance = new double[m_count * 2];
+    m_reduction = new double[m_count * 2];
+    m_moi = new double[m_count * 2];
+    m_volts = new double[m_count * 2];
+    m_inputFed = new boolean[m_count * 2];
+    m_position = new double[m_count * 2];
+    m_velocity = new double[m_count * 2];
+    m_current = new double[m_count * 2];
+
+    double radiusSquaredSum = 0;
+    for (int i = 0; i < m_count; i++)
+    {
+      SwerveModuleConfig moduleConfig = modules[i].getConfig();
+      Translation2d      location     = moduleConfig.getLocation().orElseThrow();
+      m_moduleX[i] = location.getX();
+      m_moduleY[i] = location.getY();
+      radiusSquaredSum += location.getX() * location.getX() + location.getY() * location.getY();
+      m_motors[i] = moduleConfig.getDriveMotor();
+      m_motors[m_count + i] = moduleConfig.getAzimuthMotor();
+      String name = modules[i].getName();
+      m_wheelRadius[i] = m_motors[i].getConfig().getMechanismCircumference().orElseThrow(
+          () -> new IllegalArgumentException("Swerve drive motor of " + name + " must have a wheel radius to be " +
+                                             "simulated!")).in(Meters) / (2 * Math.PI);
+    }
+    for (int m = 0; m < m_motors.length; m++)
+    {
+      DCMotor motor = m_motors[m].getDCMotor();
+      m_kt[m] = motor.KtNMPerAmp;
+      m_kv[m] = motor.KvRadPerSecPerVolt;
+      m_resistance[m] = motor.rOhms;
+      m_reduction[m] = m_motors[m].getConfig().getGearing().getMechanismToRotorRatio();
+      m_moi[m] = m_motors[m].getConfig().getMOI();
+      m_motors[m].setSimSupplier(new ModuleSimSupplier(m));
+    }
+    m_mass = config.getSimRobotMass().in(Kilograms);
+    m_moiRobot = config.getSimRobotMomentOfInertia()
+                       .map(moi -> moi.in(KilogramSquareMeters))
+                       .orElse(m_mass * radiusSquaredSum / m_count);
+    m_traction = config.getSimWheelCoefficientOfFriction() * m_mass * SmartMath.GRAVITY / m_count;
+    SimSnapshot.register(this);
+  }
+
+  /**
+   * Remove the simulation from the {@link SimSnapshot}.
+   */
+  public void close()
+  {
+    SimSnapshot.unregister(this);
+  }
+
+  /**
+   * Chassis state size, the module states are captured by their motor controllers.
+   *
+   * @return Number of doubles.
+   */
+  @Override
+  public int getSnapshotSize()
+  {
+    return 4;
+  }
+
+  @Override
+  public void capture(double[] buffer, int offset)
+  {
+    buffer[offset] = m_vx;
+    buffer[offset + 1] = m_vy;
+    buffer[offset + 2] = m_omega;
+    buffer[offset + 3] = m_heading;
+  }
+
+  @Override
+  public void restore(double[] buffer, int offset)
+  {
+    m_vx = buffer[offset];
+    m_vy = buffer[offset + 1];
+    m_omega = buffer[offset + 2];
+    m_heading = buffer[offset + 3];
+  }
+
+  /**
+   * Step the drivetrain. Reads the applied duty cycle of every motor controller, holds it over the step and sub-steps
+   * the plant at the drive motor's {@link yams.motorcontrollers.SmartMotorControllerConfig#getSimulationSubsteps()}.
+   *
+   * @param dtSeconds Time since the last step in seconds.
+   */
+  public void step(double dtSeconds)
+  {
+    double supply = SimPowerBus.getOutputVoltage();
+    for (int m = 0; m < m_motors.length; m++)
+    {
+      if (!m_inputFed[m])
+      {
+        m_volts[m] = m_motors[m].getDutyCycle() * supply;
+      }
+      m_inputFed[m] = false;
+    }
+    int    substeps = m_motors[0].getConfig().getSimulationSubsteps();
+    double h        = dtSeconds / substeps;
+    for (int s = 0; s < substeps; s++)
+    {
+      integrate(h);
+    }
+  }
+
+  /**
+   * Integrate the azimuths, wheels and chassis over one sub-step.
+   *
+   * @param h Sub-step in seconds.
+   */
+  private void integrate(double h)
+  {
+    double wheelShare = m_mass / m_count;
+    double forceX     = 0;
+    double forceY     = 0;
+    double torque     = 0;
+    for (int i = 0; i < m_count; i++)
+    {
+      // Azimuth, exact solution of J dw/dt = G kt (V - G w / kv) / R under a constant voltage.
+      int    az    = m_count + i;
+      double gain  = m_reduction[az] * m_kt[az] / (m_resistance[az] * m_moi[az]);
+      double decay = -m_reduction[az] * gain / m_kv[az];
+      double wAz   = m_velocity[az];
+      double e     = Math.exp(decay * h);
+      double wNext = e * wAz + gain / decay * (e - 1) * m_volts[az];
+      m_position[az] += (wAz + wNext) / 2 * h;
+      m_velocity[az] = wNext;
+      m_current[az] = (m_volts[az] - m_reduction[az] * wNext / m_kv[az]) / m_resistance[az];
+
+      // Chassis velocity at the module, split along and across the wheel.
+      double cos   = Math.cos(m_position[az]);
+      double sin   = Math.sin(m_position[az]);
+      double px    = m_vx - m_omega * m_moduleY[i];
+      double py    = m_vy + m_omega * m_moduleX[i];
+      double vLat  = -px * sin + py * cos;
+      double drive = (m_volts[i] - m_reduction[i] * m_velocity[i] / m_kv[i]) / m_resistance[i];
+      m_current[i] = drive;
+
+      // Ground forces wanted by the motor and by the lateral friction, clipped to the friction circle.
+      double fLong = m_reduction[i] * m_kt[i] * drive / m_wheelRadius[i];
+      double fLat  = -vLat * wheelShare / h;
+      double total = Math.hypot(fLong, fLat);
+      m_slipping[i] = total > m_traction;
+      if (m_slipping[i])
+      {
+        fLong *= m_traction / total;
+        fLat *= m_traction / total;
+        // The wheel spins on its own inertia against the kinetic friction.
+        m_velocity[i] += (m_reduction[i] * m_kt[i] * drive - fLong * m_wheelRadius[i]) / m_moi[i] * h;
+      }
+      m_forceLong[i] = fLong;
+      double fx = fLong * cos - fLat * sin;
+      double fy = fLong * sin + fLat * cos;
+      forceX += fx;
+      forceY += fy;
+      torque += m_moduleX[i] * fy - m_moduleY[i] * fx;
+    }
+
+    // Integrate the chassis in the robot frame, rotating the velocity with the frame.
+    double vx   = m_vx + forceX / m_mass * h;
+    double vy   = m_vy + forceY / m_mass * h;
+    double turn = -m_omega * h;
+    double cos  = Math.cos(turn);
+    double sin  = Math.sin(turn);
+    m_vx = vx * cos - vy * sin;
+    m_vy = vx * sin + vy * cos;
+    m_omega += torque / m_moiRobot * h;
+    m_heading += m_omega * h;
+
+    for (int i = 0; i < m_count; i++)
+    {
+      int az = m_count + i;
+      if (!m_slipping[i])
+      {
+        // Rolling wheels follow the carpet.
+        double px = m_vx - m_omega * m_moduleY[i];
+        double py = m_vy + m_omega * m_moduleX[i];
+        m_velocity[i] = (px * Math.cos(m_position[az]) + py * Math.sin(m_position[az])) / m_wheelRadius[i];
+      }
+      m_position[i] += m_velocity[i] * h;
+    }
+  }
+
+  /**
+   * Get the robot relative chassis x velocity.
+   *
+   * @return Velocity in m/s.
+   */
+  public double getVelocityX()
+  {
+    return m_vx;
+  }
+
+  /**
+   * Get the robot relative chassis y velocity.
+   *
+   * @return Velocity in m/s.
+   */
+  public double getVelocityY()
+  {
+    return m_vy;
+  }
+
+  /**
+   * Get the chassis angular velocity.
+   *
+   * @return Angular velocity in rad/s.
+   */
+  public double getAngularVelocity()
+  {
+    return m_omega;
+  }
+
+  /**
+   * Get the chassis heading, integrated from the angular velocity.
+   *
+   * @return Heading in radians.
+   */
+  public double getHeading()
+  {
+    return m_heading;
+  }
+
+  /**
+   * Check if a wheel slipped during the last sub-step.
+   *
+   * @param module Module index.
+   * @return True if the wheel is slipping.
+   */
+  public boolean isSlipping(int module)
+  {
+    return m_slipping[module];
+  }
+
+  /**
+   * Get the last longitudinal ground force of a wheel.
+   *
+   * @param module Module index.
+   * @return Force in newtons.
+   */
+  public double getWheelForce(int module)
+  {
+    return m_forceLong[module];
+  }
+
+  /**
+   * {@link SimSupplier} backed by one slot of the drivetrain arrays. The state is stepped by
+   * {@link SwerveDriveSim#step(double)}, so updating the sim state from the motor controller does nothing.
+   */
+  private class ModuleSimSupplier implements SimSupplier
+  {
+
+    /**
+     * Index into the drivetrain arrays.
+     */
+    private final int index;
+
+    /**
+     * Create the supplier.
+     *
+     * @param index Index into the drivetrain arrays.
+     */
+    ModuleSimSupplier(int index)
+    {
+      this.index = index;
+    }
+
+    @Override
+    public void updateSimState()
+    {
+    }
+
+    @Override
+    public boolean getUpdatedSim()
+    {
+      return true;
+    }
+
+    @Override
+    public void feedUpdateSim()
+    {
+    }
+
+    @Override
+    public void starveUpdateSim()
+    {
+    }
+
+    @Override
+    public boolean isInputFed()
+    {
+      return m_inputFed[index];
+    }
+
+    @Override
+    public void feedInput()
+    {
+      m_inputFed[index] = true;
+    }
+
+    @Override
+    public void starveInput()
+    {
+      m_inputFed[index] = false;
+    }
+
+    @Override
+    public void setMechanismStatorDutyCycle(double dutyCycle)
+    {
+      feedInput();
+      m_volts[index] = dutyCycle * SimPowerBus.getOutputVoltage();
+    }
+
+    @Override
+    public Voltage getMechanismSupplyVoltage()
+    {
+      return Volts.of(SimPowerBus.getSupplyVoltage());
+    }
+
+    @Override
+    public Voltage getMechanismStatorVoltage()
+    {
+      return Volts.of(m_volts[index]);
+    }
+
+    @Override
+    public void setMechanismStatorVoltage(Voltage volts)
+    {
+      feedInput();
+      m_volts[index] = volts.in(Volts);
+    }
+
+    @Override
+    public Angle getMechanismPosition()
+    {
+      return Radians.of(m_position[index]);
+    }
+
+    @Override
+    public void setMechanismPosition(Angle position)
+    {
+      m_position[index] = position.in(Radians);
+    }
+
+    @Override
+    public Angle getRotorPosition()
+    {
+      return Radians.of(m_position[index] * m_reduction[index]);
+    }
+
+    @Override
+    public AngularVelocity getMechanismVelocity()
+    {
+      return RadiansPerSecond.of(m_velocity[index]);
+    }
+
+    @Override
+    public void setMechanismVelocity(AngularVelocity velocity)
+    {
+      m_velocity[index] = velocity.in(RadiansPerSecond);
+    }
+
+    @Override
+    public AngularVelocity getRotorVelocity()
+    {
+      return RadiansPerSecond.of(m_velocity[index] * m_reduction[index]);
+    }
+
+    @Override
+    public Current getCurrentDraw()
+    {
+      return Amps.of(m_current[index]);
+    }
+  }
+}
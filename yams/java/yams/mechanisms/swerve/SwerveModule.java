@@ -1,5 +1,6 @@
 package yams.mechanisms.swerve;
 
+import static edu.wpi.first.units.Units.Meters;
 import static edu.wpi.first.units.Units.MetersPerSecond;
 
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -7,8 +8,10 @@ import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.wpilibj.RobotBase;
 import yams.exceptions.SmartMotorControllerConfigurationException;
+import yams.math.YamsClock;
 import yams.mechanisms.config.SwerveModuleConfig;
 import yams.motorcontrollers.SmartMotorController;
+import yams.motorcontrollers.UnitConversionPlan;
 import yams.telemetry.MechanismTelemetry;
 
 /**
@@ -17,6 +20,12 @@ import yams.telemetry.MechanismTelemetry;
 public class SwerveModule
 {
 
+  /**
+   * Age in seconds after which {@link #getState()} and {@link #getPosition()} take a new snapshot themselves while no
+   * {@link SwerveDrive} takes one every loop, one robot loop.
+   */
+  private static final double SNAPSHOT_MAX_AGE = 0.02;
+
   /**
    * Drive motor controller.
    */
@@ -32,7 +41,27 @@ public class SwerveModule
   /**
    * Mechanism Telemetry
    */
-  private final MechanismTelemetry   m_telemetry = new MechanismTelemetry();
+  private final MechanismTelemetry   m_telemetry         = new MechanismTelemetry();
+  /**
+   * Drive distance of the snapshot in meters.
+   */
+  private       double               m_drivePosition     = 0;
+  /**
+   * Drive velocity of the snapshot in meters per second.
+   */
+  private       double               m_driveVelocity     = 0;
+  /**
+   * Azimuth angle of the snapshot.
+   */
+  private       Rotation2d           m_azimuth           = Rotation2d.kZero;
+  /**
+   * {@link YamsClock} timestamp of the snapshot in seconds, NaN before the first.
+   */
+  private       double               m_snapshotTimestamp = Double.NaN;
+  /**
+   * A {@link SwerveDrive} takes the snapshot once every loop, the getters then never take one themselves.
+   */
+  private       boolean              m_snapshotPerLoop   = false;
 
   /**
    * Create a SwerveModule.
@@ -109,25 +138,96 @@ public class SwerveModule
   }
 
   /**
-   * Get the {@link SwerveModuleState} of the module.
+   * Get the {@link SwerveModuleState} of the snapshot of this loop.
    *
    * @return {@link SwerveModuleState} of the module.
    */
-  public SwerveModuleState getState()
+  public synchronized SwerveModuleState getState()
   {
-    return new SwerveModuleState(m_dirveMotorController.getMeasurementVelocity(),
-                                 new Rotation2d(m_azimuthMotorController.getMechanismPosition()));
+    updateSnapshotIfStale();
+    return new SwerveModuleState(m_driveVelocity, m_azimuth);
   }
 
   /**
-   * Get the {@link SwerveModulePosition} of the module.
+   * Get the {@link SwerveModulePosition} of the snapshot of this loop.
    *
    * @return {@link SwerveModulePosition} of the module.
    */
-  public SwerveModulePosition getPosition()
+  public synchronized SwerveModulePosition getPosition()
   {
-    return new SwerveModulePosition(m_dirveMotorController.getMeasurementPosition(),
-                                    new Rotation2d(m_azimuthMotorController.getMechanismPosition()));
+    updateSnapshotIfStale();
+    return new SwerveModulePosition(m_drivePosition, m_azimuth);
+  }
+
+  /**
+   * Take a snapshot of the drive position, drive velocity and azimuth angle, each read once. Every getter of the module
+   * returns the snapshot, so the odometry, the telemetry and the chassis speeds agree with each other.
+   */
+  public synchronized void updateSnapshot()
+  {
+    m_snapshotTimestamp = YamsClock.getDefault().getTimestamp();
+    m_drivePosition = m_dirveMotorController.getMeasurementPosition().in(Meters);
+    m_driveVelocity = m_dirveMotorController.getMeasurementVelocity().in(MetersPerSecond);
+    m_azimuth = new Rotation2d(m_azimuthMotorController.getMechanismPosition());
+  }
+
+  /**
+   * Get the timestamp of the snapshot.
+   *
+   * @return {@link YamsClock} timestamp in seconds, NaN before the first snapshot.
+   */
+  public synchronized double getSnapshotTimestamp()
+  {
+    return m_snapshotTimestamp;
+  }
+
+  /**
+   * Take the snapshot of this loop and copy it into reused buffers. Called by {@link SwerveDrive} on the robot loop
+   * once every loop, afterwards the getters no longer take a snapshot themselves.
+   *
+   * @param position {@link SwerveModulePosition} to write the drive distance and azimuth angle to.
+   * @param state    {@link SwerveModuleState} to write the drive velocity and azimuth angle to.
+   */
+  synchronized void read(SwerveModulePosition position, SwerveModuleState state)
+  {
+    updateSnapshot();
+    m_snapshotPerLoop = true;
+    position.distanceMeters = m_drivePosition;
+    position.angle = m_azimuth;
+    state.speedMetersPerSecond = m_driveVelocity;
+    state.angle = m_azimuth;
+  }
+
+  /**
+   * Read the module from the odometry thread into the buffers of the thread, leaving the snapshot of the robot loop
+   * untouched. The motor controllers are read with {@link SmartMotorController#readMechanismPosition()}, which neither
+   * refreshes status signals owned by the robot loop nor records to the {@link yams.telemetry.InputLog} out of order.
+   *
+   * @param position {@link SwerveModulePosition} to write the drive distance and azimuth angle to.
+   * @param state    {@link SwerveModuleState} to write the drive velocity and azimuth angle to.
+   */
+  void readFromOdometryThread(SwerveModulePosition position, SwerveModuleState state)
+  {
+    UnitConversionPlan drivePlan = m_dirveMotorController.getConfig().getConversionPlan();
+    Rotation2d         azimuth   = Rotation2d.fromRotations(m_azimuthMotorController.readMechanismPosition());
+    position.distanceMeters = drivePlan.mechanismToMeasurement(m_dirveMotorController.readMechanismPosition());
+    position.angle = azimuth;
+    state.speedMetersPerSecond = drivePlan.mechanismToMeasurement(m_dirveMotorController.readMechanismVelocity());
+    state.angle = azimuth;
+  }
+
+  /**
+   * Take a new snapshot if there is none, or if it is older than one robot loop and no {@link SwerveDrive} takes one
+   * every loop, e.g. when the module is read on its own. A module of a drive is never read again part way through a
+   * loop, so an overrunning loop still sees the snapshot its odometry and chassis speeds were computed from.
+   */
+  private void updateSnapshotIfStale()
+  {
+    if (Double.isNaN(m_snapshotTimestamp) ||
+        (!m_snapshotPerLoop && YamsClock.getDefault().getTimestamp() - m_snapshotTimestamp > SNAPSHOT_MAX_AGE))
+    {
+      updateSnapshot();
+    }
   }
 
   /**
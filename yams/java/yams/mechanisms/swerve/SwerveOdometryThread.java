@@ -0,0 +1,155 @@
+package yams.mechanisms.swerve;
+
+import static edu.wpi.first.units.Units.Hertz;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import edu.wpi.first.units.measure.Frequency;
+import edu.wpi.first.wpilibj.Notifier;
+import java.util.Optional;
+import java.util.function.DoubleConsumer;
+import yams.math.YamsClock;
+
+/**
+ * Runs the {@link SwerveDrive} odometry faster than the robot loop. When every module is read from Phoenix 6 signals
+ * the thread blocks until all of them, and the gyro yaw if it is a signal, have arrived and samples on their timestamp,
+ * less their latency. Otherwise the modules are sampled on a {@link Notifier} at the odometry frequency, refreshing the
+ * Phoenix 6 signals there are first. Either way the update reads the latched signal values and does not record to the
+ * {@link yams.telemetry.InputLog}, which belongs to the robot loop.
+ */
+final class SwerveOdometryThread implements AutoCloseable
+{
+
+  /**
+   * Module and gyro signals, waited on or refreshed before sampling.
+   */
+  private final BaseStatusSignal[] m_signals;
+  /**
+   * Odometry update, given the timestamp of the samples in seconds.
+   */
+  private final DoubleConsumer     m_update;
+  /**
+   * Odometry period in seconds.
+   */
+  private final double             m_periodSeconds;
+  /**
+   * Sampling thread, used when the modules are not all Phoenix 6 devices.
+   */
+  private final Optional<Notifier> m_notifier;
+  /**
+   * Signal thread, used when the modules are all Phoenix 6 devices.
+   */
+  private final Optional<Thread>   m_thread;
+  /**
+   * Whether the odometry thread is running.
+   */
+  private volatile boolean         m_running = false;
+
+  /**
+   * Create the odometry thread, use {@link #start()} to start it.
+   *
+   * @param frequency      Odometry frequency.
+   * @param signals        Module and gyro signals the odometry reads.
+   * @param waitForSignals Whether every module is read from the signals, to wait for them instead of sampling.
+   * @param update         Odometry update, given the timestamp of the samples in seconds.
+   */
+  SwerveOdometryThread(Frequency frequency, BaseStatusSignal[] signals, boolean waitForSignals, DoubleConsumer update)
+  {
+    m_signals = signals.clone();
+    m_update = update;
+    m_periodSeconds = 1.0 / frequency.in(Hertz);
+    if (m_signals.length > 0)
+    {
+      BaseStatusSignal.setUpdateFrequencyForAll(frequency.in(Hertz), m_signals);
+    }
+    if (waitForSignals && m_signals.length > 0)
+    {
+      Thread thread = new Thread(this::waitForSignals, "YAMS Swerve Odometry");
+      thread.setDaemon(true);
+      m_thread = Optional.of(thread);
+      m_notifier = Optional.empty();
+    } else
+    {
+      Notifier notifier = new Notifier(this::sample);
+      notifier.setName("YAMS Swerve Odometry");
+      m_notifier = Optional.of(notifier);
+      m_thread = Optional.empty();
+    }
+  }
+
+  /**
+   * Start the odometry thread.
+   */
+  void start()
+  {
+    m_running = true;
+    m_thread.ifPresent(Thread::start);
+    m_notifier.ifPresent(notifier -> notifier.startPeriodic(m_periodSeconds));
+  }
+
+  /**
+   * Whether the odometry thread is running.
+   *
+   * @return True until {@link #close()}.
+   */
+  boolean isRunning()
+  {
+    return m_running;
+  }
+
+  /**
+   * Wait for every module signal and update the odometry from the values latched by the wait, until closed. Runs on
+   * the signal thread.
+   */
+  private void waitForSignals()
+  {
+    while (m_running)
+    {
+      StatusCode status  = BaseStatusSignal.waitForAll(2 * m_periodSeconds, m_signals);
+      double     latency = 0;
+      for (BaseStatusSignal signal : m_signals)
+      {
+        latency = Math.max(latency, signal.getTimestamp().getLatency());
+      }
+      m_update.accept(YamsClock.getDefault().getTimestamp() - latency);
+      if (!status.isOK())
+      {
+        // A missing or misconfigured device returns at once, keep sampling at the odometry frequency.
+        try
+        {
+          Thread.sleep((long) Math.ceil(m_periodSeconds * 1000));
+        } catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Refresh the signals there are and update the odometry. Runs on the {@link Notifier}.
+   */
+  private void sample()
+  {
+    if (m_signals.length > 0)
+    {
+      BaseStatusSignal.refreshAll(m_signals);
+    }
+    m_update.accept(YamsClock.getDefault().getTimestamp());
+  }
+
+  /**
+   * Stop the odometry thread.
+   */
+  @Override
+  public void close()
+  {
+    m_running = false;
+    m_notifier.ifPresent(notifier -> {
+      notifier.stop();
+      notifier.close();
+    });
+    m_thread.ifPresent(Thread::interrupt);
+  }
+}
@@ -0,0 +1,269 @@
+package yams.mechanisms.swerve;
+
+import static edu.wpi.first.units.Units.Kilograms;
+import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.MetersPerSecond;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.system.plant.DCMotor;
+import yams.math.SmartMath;
+import yams.mechanisms.config.SwerveDriveConfig;
+import yams.mechanisms.config.SwerveModuleConfig;
+import yams.motorcontrollers.SmartMotorController;
+
+/**
+ * Shapes the chassis speeds given to a {@link SwerveDrive} into module states the modules can follow, so the wheels do
+ * not slip and the odometry stays accurate.
+ * <p>
+ * The module velocities of the last setpoint are moved toward the desired ones by one common fraction, keeping the
+ * modules consistent with one chassis motion, as far as the slowest module allows. The velocity change of each module
+ * is limited by the force of its drive {@link DCMotor} at the current wheel speed and stator current limit, and by the
+ * traction of its share of the robot weight. Each azimuth then turns toward its new direction no faster than its
+ * {@link DCMotor} free speed, flipping the wheel instead of turning more than 90 degrees, and the wheel speed is
+ * projected onto the direction the azimuth has reached. The limits are computed in primitive arrays, the output module
+ * states are reused and only get a new {@link Rotation2d} when their azimuth moves.
+ */
+public class SwerveSetpointGenerator
+{
+
+  /**
+   * Speed below which a module has no direction, in m/s.
+   */
+  private static final double              EPSILON = 1e-6;
+  /**
+   * Number of modules.
+   */
+  private final        int                 m_count;
+  /**
+   * Module x locations, robot relative in meters.
+   */
+  private final        double[]            m_moduleX;
+  /**
+   * Module y locations, robot relative in meters.
+   */
+  private final        double[]            m_moduleY;
+  /**
+   * Drive motor models.
+   */
+  private final        DCMotor[]           m_driveMotors;
+  /**
+   * Drive reductions from the wheel to the rotor.
+   */
+  private final        double[]            m_driveReduction;
+  /**
+   * Wheel radii in meters.
+   */
+  private final        double[]            m_wheelRadius;
+  /**
+   * Drive stator current limits in amps.
+   */
+  private final        double[]            m_currentLimit;
+  /**
+   * Azimuth slew rates in rad/s.
+   */
+  private final        double[]            m_azimuthRate;
+  /**
+   * Desired module x velocities in m/s, scratch for one call.
+   */
+  private final        double[]            m_desiredX;
+  /**
+   * Desired module y velocities in m/s, scratch for one call.
+   */
+  private final        double[]            m_desiredY;
+  /**
+   * Module speeds of the last setpoint in m/s, negative when the wheel is flipped.
+   */
+  private final        double[]            m_speed;
+  /**
+   * Module azimuths of the last setpoint in radians.
+   */
+  private final        double[]            m_angle;
+  /**
+   * Module azimuths of the last setpoint, replaced only when the azimuth moves.
+   */
+  private final        Rotation2d[]        m_rotations;
+  /**
+   * Module states of the last setpoint, reused every call.
+   */
+  private final        SwerveModuleState[] m_states;
+  /**
+   * Robot mass carried by each module in kg.
+   */
+  private final        double              m_moduleMass;
+  /**
+   * Traction limited acceleration in m/s^2.
+   */
+  private final        double              m_tractionAcceleration;
+  /**
+   * Maximum module speed in m/s.
+   */
+  private final        double              m_maxModuleSpeed;
+
+  /**
+   * Create the setpoint generator from the module motor controllers and the robot mass of the drive.
+   *
+   * @param config {@link SwerveDriveConfig} of the drive.
+   */
+  public SwerveSetpointGenerator(SwerveDriveConfig config)
+  {
+    SwerveModule[] modules = config.getModules();
+    m_count = modules.length;
+    m_moduleX = new double[m_count];
+    m_moduleY = new double[m_count];
+    m_driveMotors = new DCMotor[m_count];
+    m_driveReduction = new double[m_count];
+    m_wheelRadius = new double[m_count];
+    m_currentLimit = new double[m_count];
+    m_azimuthRate = new double[m_count];
+    m_desiredX = new double[m_count];
+    m_desiredY = new double[m_count];
+    m_speed = new double[m_count];
+    m_angle = new double[m_count];
+    m_rotations = new Rotation2d[m_count];
+    m_states = new SwerveModuleState[m_count];
+
+    double freeSpeed = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < m_count; i++)
+    {
+      SwerveModuleConfig   moduleConfig = modules[i].getConfig();
+      Translation2d        location     = moduleConfig.getLocation().orElseThrow();
+      SmartMotorController drive        = moduleConfig.getDriveMotor();
+      SmartMotorController azimuth      = moduleConfig.getAzimuthMotor();
+      String               name         = modules[i].getName();
+      m_moduleX[i] = location.getX();
+      m_moduleY[i] = location.getY();
+      m_driveMotors[i] = drive.getDCMotor();
+      m_driveReduction[i] = drive.getConfig().getGearing().getMechanismToRotorRatio();
+      m_wheelRadius[i] = drive.getConfig().getMechanismCircumference().orElseThrow(
+          () -> new IllegalArgumentException("Swerve drive motor of " + name + " must have a wheel radius to " +
+                                             "generate setpoints!")).in(Meters) / (2 * Math.PI);
+      m_currentLimit[i] = drive.getConfig().getStatorStallCurrentLimit().orElse(Integer.MAX_VALUE);
+      m_azimuthRate[i] = azimuth.getDCMotor().freeSpeedRadPerSec /
+                         azimuth.getConfig().getGearing().getMechanismToRotorRatio();
+      m_rotations[i] = Rotation2d.kZero;
+      m_states[i] = new SwerveModuleState();
+      freeSpeed = Math.min(freeSpeed,
+                           m_driveMotors[i].freeSpeedRadPerSec / m_driveReduction[i] * m_wheelRadius[i]);
+    }
+    double mass = config.getRobotMass().orElse(config.getSimRobotMass()).in(Kilograms);
+    m_moduleMass = mass / m_count;
+    m_tractionAcceleration = config.getWheelCoefficientOfFriction() * SmartMath.GRAVITY;
+    m_maxModuleSpeed = config.getMaximumModuleLinearVelocity().map(speed -> speed.in(MetersPerSecond))
+                             .orElse(freeSpeed);
+  }
+
+  /**
+   * Start generating from the given module states, e.g. the measured states after the drive was disabled.
+   *
+   * @param states Module states to start from, indexed like the modules.
+   */
+  public void reset(SwerveModuleState[] states)
+  {
+    for (int i = 0; i < m_count; i++)
+    {
+      m_speed[i] = states[i].speedMetersPerSecond;
+      m_angle[i] = states[i].angle.getRadians();
+      m_rotations[i] = states[i].angle;
+      m_states[i].speedMetersPerSecond = m_speed[i];
+      m_states[i].angle = m_rotations[i];
+    }
+  }
+
+  /**
+   * Generate the next feasible module states toward the desired robot relative chassis speeds.
+   *
+   * @param desired   Desired robot relative {@link ChassisSpeeds}.
+   * @param centerX   Center of rotation x, robot relative in meters.
+   * @param centerY   Center of rotation y, robot relative in meters.
+   * @param dtSeconds Time since the last setpoint in seconds.
+   * @return Module states indexed like the modules, reused by the next call.
+   */
+  public SwerveModuleState[] generate(ChassisSpeeds desired, double centerX, double centerY, double dtSeconds)
+  {
+    // Desired module velocities, desaturated to the maximum module speed.
+    double fastest = 0;
+    for (int i = 0; i < m_count; i++)
+    {
+      m_desiredX[i] = desired.vxMetersPerSecond - desired.omegaRadiansPerSecond * (m_moduleY[i] - centerY);
+      m_desiredY[i] = desired.vyMetersPerSecond + desired.omegaRadiansPerSecond * (m_moduleX[i] - centerX);
+      fastest = Math.max(fastest, Math.hypot(m_desiredX[i], m_desiredY[i]));
+    }
+    if (fastest > m_maxModuleSpeed)
+    {
+      double desaturate = m_maxModuleSpeed / fastest;
+      for (int i = 0; i < m_count; i++)
+      {
+        m_desiredX[i] *= desaturate;
+        m_desiredY[i] *= desaturate;
+      }
+    }
+
+    // The common fraction of the way to the desired velocities every module can reach this step.
+    double fraction = 1;
+    for (int i = 0; i < m_count; i++)
+    {
+      double lastX  = m_speed[i] * Math.cos(m_angle[i]);
+      double lastY  = m_speed[i] * Math.sin(m_angle[i]);
+      double change = Math.hypot(m_desiredX[i] - lastX, m_desiredY[i] - lastY);
+      if (change > EPSILON)
+      {
+        double reachable = getMaxAcceleration(i, Math.hypot(m_desiredX[i], m_desiredY[i])) * dtSeconds;
+        fraction = Math.min(fraction, reachable / change);
+      }
+    }
+
+    for (int i = 0; i < m_count; i++)
+    {
+      double lastX   = m_speed[i] * Math.cos(m_angle[i]);
+      double lastY   = m_speed[i] * Math.sin(m_angle[i]);
+      double targetX = lastX + fraction * (m_desiredX[i] - lastX);
+      double targetY = lastY + fraction * (m_desiredY[i] - lastY);
+      double speed   = Math.hypot(targetX, targetY);
+      double error   = speed > EPSILON ? MathUtil.angleModulus(Math.atan2(targetY, targetX) - m_angle[i]) : 0;
+      if (Math.abs(error) > Math.PI / 2)
+      {
+        // Flip the wheel instead of turning the azimuth more than 90 degrees.
+        error = MathUtil.angleModulus(error - Math.PI);
+        speed = -speed;
+      }
+      double maxTurn = m_azimuthRate[i] * dtSeconds;
+      double turn    = MathUtil.clamp(error, -maxTurn, maxTurn);
+      // Only drive along the direction the azimuth has reached.
+      m_speed[i] = speed * Math.cos(error - turn);
+      if (turn != 0)
+      {
+        m_angle[i] = MathUtil.angleModulus(m_angle[i] + turn);
+        m_rotations[i] = new Rotation2d(m_angle[i]);
+      }
+      // The modules optimize the states in place, so both fields are written every call.
+      m_states[i].speedMetersPerSecond = m_speed[i];
+      m_states[i].angle = m_rotations[i];
+    }
+    return m_states;
+  }
+
+  /**
+   * Get the maximum velocity change rate of a module, the lower of the drive motor and the traction limit.
+   *
+   * @param module       Module index.
+   * @param desiredSpeed Desired module speed in m/s.
+   * @return Maximum acceleration in m/s^2.
+   */
+  private double getMaxAcceleration(int module, double desiredSpeed)
+  {
+    DCMotor motor      = m_driveMotors[module];
+    double  lastSpeed  = Math.abs(m_speed[module]);
+    double  rotorSpeed = lastSpeed / m_wheelRadius[module] * m_driveReduction[module];
+    double  backEmf    = rotorSpeed / motor.KvRadPerSecPerVolt;
+    // Speeding up the back EMF opposes the supply, slowing down it adds to it.
+    double  voltage    = desiredSpeed >= lastSpeed ? motor.nominalVoltageVolts - backEmf :
+                         motor.nominalVoltageVolts + backEmf;
+    double  current    = MathUtil.clamp(voltage / motor.rOhms, 0, m_currentLimit[module]);
+    double  force      = motor.getTorque(current) * m_driveReduction[module] / m_wheelRadius[module];
+    return Math.min(force / m_moduleMass, m_tractionAcceleration);
+  }
+}
@@ -17,9 +17,7 @@ import edu.wpi.first.units.measure.Velocity;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.simulation.BatterySim;
 import edu.wpi.first.wpilibj.simulation.DCMotorSim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.smartdashboard.Mechanism2d;
 import edu.wpi.first.wpilibj.smartdashboard.MechanismLigament2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -39,6 +37,8 @@ import yams.mechanisms.config.MechanismPositionConfig;
 import yams.motorcontrollers.SmartMotorController;
 import yams.motorcontrollers.SmartMotorControllerConfig;
 import yams.motorcontrollers.simulation.DCMotorSimSupplier;
+import yams.motorcontrollers.simulation.SimPowerBus;
+import yams.telemetry.MechanismProfiler.Phase;
 
 /**
  * FlyWheel mechanism.
@@ -197,7 +197,7 @@ public class FlyWheel extends SmartVelocityMechanism
       }
     });
     m_smc.startClosedLoopController();
-    return Commands.run(() -> m_smc.setVelocity(speed), m_subsystem).withName(
+    return Commands.run(profiledSetpoint(() -> m_smc.setVelocity(speed)), m_subsystem).withName(
         m_subsystem.getName() + " " + getName() + " SetSpeed");
   }
 
@@ -210,7 +210,7 @@ public class FlyWheel extends SmartVelocityMechanism
   public Command setSpeed(Supplier<AngularVelocity> speed)
   {
     m_smc.startClosedLoopController();
-    return Commands.run(() -> m_smc.setVelocity(speed.get()), m_subsystem).withName(
+    return Commands.run(profiledSetpoint(() -> m_smc.setVelocity(speed.get())), m_subsystem).withName(
         m_subsystem.getName() + " SetSpeed Supplier");
   }
 
@@ -289,12 +289,15 @@ public class FlyWheel extends SmartVelocityMechanism
   {
     if (m_dcmotorSim.isPresent() && m_smc.getSimSupplier().isPresent())
     {
+      long start = m_telemetry.startProfiling();
       m_smc.getSimSupplier().get().updateSimState();
+      long signalStart = m_telemetry.startProfiling();
       m_smc.simIterate();
+      long signalNanos = m_telemetry.stopProfiling(Phase.SignalRefresh, signalStart);
       m_smc.getSimSupplier().get().starveUpdateSim();
 
-      RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(m_dcmotorSim.get()
-                                                                                           .getCurrentDrawAmps()));
+      SimPowerBus.update();
+      m_telemetry.stopProfiling(Phase.SimIterate, start + signalNanos);
       visualizationUpdate();
     }
   }
@@ -304,7 +307,9 @@ public class FlyWheel extends SmartVelocityMechanism
   {
 //    m_telemetry.updatePosition(getAngle());
 //    m_motor.getMechanismPositionSetpoint().ifPresent(m_setpoint -> m_telemetry.updateSetpoint(m_setpoint));
+    long start = m_telemetry.startProfiling();
     m_smc.updateTelemetry();
+    m_telemetry.stopProfiling(Phase.UpdateTelemetry, start);
     m_telemetry.updateLoopTime();
   }
 
@@ -314,6 +319,7 @@ public class FlyWheel extends SmartVelocityMechanism
   @Override
   public void visualizationUpdate()
   {
+    long start = m_telemetry.startProfiling();
     if (m_config.isUsingSpeedometerSimulation() && m_config.getSpeedometerMaxVelocity().isPresent())
     {
       mechanismLigament.setAngle(
@@ -322,6 +328,7 @@ public class FlyWheel extends SmartVelocityMechanism
     {
       mechanismLigament.setAngle(m_smc.getMechanismPosition().in(Degrees));
     }
+    m_telemetry.stopProfiling(Phase.VisualizationUpdate, start);
   }
 
   /**
@@ -1,5 +1,7 @@
 package yams.motorcontrollers;
 
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Celsius;
 import static edu.wpi.first.units.Units.Meters;
 import static edu.wpi.first.units.Units.MetersPerSecond;
 import static edu.wpi.first.units.Units.Milliseconds;
@@ -8,6 +10,7 @@ import static edu.wpi.first.units.Units.RotationsPerSecond;
 import static edu.wpi.first.units.Units.Seconds;
 import static edu.wpi.first.units.Units.Volts;
 
+import com.ctre.phoenix6.BaseStatusSignal;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.Pair;
 import edu.wpi.first.math.controller.ArmFeedforward;
@@ -16,6 +19,7 @@ import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.trajectory.ExponentialProfile;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.units.VoltageUnit;
 import edu.wpi.first.units.measure.Angle;
@@ -45,6 +49,9 @@ import yams.math.ExponentialProfilePIDController;
 import yams.motorcontrollers.SmartMotorControllerConfig.ControlMode;
 import yams.motorcontrollers.SmartMotorControllerConfig.MotorMode;
 import yams.motorcontrollers.SmartMotorControllerConfig.TelemetryVerbosity;
+import yams.motorcontrollers.simulation.SimPowerBus;
+import yams.motorcontrollers.simulation.SimSnapshot;
+import yams.telemetry.InputLog;
 import yams.telemetry.SmartMotorControllerTelemetry;
 import yams.telemetry.SmartMotorControllerTelemetry.BooleanTelemetryField;
 import yams.telemetry.SmartMotorControllerTelemetry.DoubleTelemetryField;
@@ -111,7 +118,19 @@ public abstract class SmartMotorController
   /**
    * Running status of the closed loop controller.
    */
-  private boolean m_closedLoopControllerRunning = false;
+  private       boolean                 m_closedLoopControllerRunning = false;
+  /**
+   * Whether a {@link SmartMotorControllerGroup} iterates the closed loop controller instead of the own Notifier.
+   */
+  private       boolean                 m_closedLoopGrouped           = false;
+  /**
+   * {@link InputLog} channel plus one indexed by {@link InputSignal}, 0 until the signal is first logged.
+   */
+  private final int[]                   m_inputChannels               = new int[InputSignal.values().length];
+  /**
+   * {@link SimSnapshot} state of the motor controller, registered with the {@link SimSupplier}.
+   */
+  private final SimSnapshot.Participant m_snapshotState               = new SnapshotState();
 
   /**
    * Create a {@link SmartMotorController} wrapper from the provided motor controller object.
@@ -194,13 +213,16 @@ public abstract class SmartMotorController
   }
 
   /**
-   * Set the {@link SimSupplier} Mechanism.
+   * Set the {@link SimSupplier} Mechanism, replacing the previous one on the {@link SimPowerBus}.
    *
    * @param mechanismSupplier Mechanism sim supplier.
    */
   public void setSimSupplier(SimSupplier mechanismSupplier)
   {
+    m_simSupplier.ifPresent(SimPowerBus::unregister);
     m_simSupplier = Optional.of(mechanismSupplier);
+    SimPowerBus.register(mechanismSupplier);
+    SimSnapshot.register(m_snapshotState);
   }
 
   /**
@@ -234,8 +256,11 @@ public abstract class SmartMotorController
                                                        getMeasurementVelocity().in(MetersPerSecond)));
       });
       m_closedLoopControllerThread.stop();
-      m_closedLoopControllerThread.startPeriodic(m_config.getClosedLoopControlPeriod().orElse(Milliseconds.of(20))
-                                                         .in(Seconds));
+      if (!m_closedLoopGrouped)
+      {
+        m_closedLoopControllerThread.startPeriodic(m_config.getClosedLoopControlPeriod().orElse(Milliseconds.of(20))
+                                                           .in(Seconds));
+      }
       m_closedLoopControllerRunning = true;
     }/* else if (config.getMotorControllerMode() == ControlMode.CLOSED_LOOP)
     {
@@ -244,6 +269,26 @@ public abstract class SmartMotorController
     }*/
   }
 
+  /**
+   * Hand the closed loop controller over to a {@link SmartMotorControllerGroup}, or take it back. While grouped the
+   * own Notifier is stopped and the group calls {@link #iterateClosedLoopController()}.
+   *
+   * @param grouped True if a {@link SmartMotorControllerGroup} iterates the closed loop controller.
+   */
+  void setClosedLoopGrouped(boolean grouped)
+  {
+    m_closedLoopGrouped = grouped;
+    if (m_closedLoopControllerThread != null && m_closedLoopControllerRunning)
+    {
+      m_closedLoopControllerThread.stop();
+      if (!grouped)
+      {
+        m_closedLoopControllerThread.startPeriodic(m_config.getClosedLoopControlPeriod().orElse(Milliseconds.of(20))
+                                                           .in(Seconds));
+      }
+    }
+  }
+
   /**
    * Iterate the closed loop controller. Feedforward are only applied with profiled pid controllers.
    */
@@ -304,16 +349,13 @@ public abstract class SmartMotorController
                                                                                       .in(RotationsPerSecond));
       } else if (elevatorFeedforward.isPresent())
       {
+        UnitConversionPlan plan = m_config.getConversionPlan();
         pidOutputVoltage.set(m_expoPidController.get().calculate(getMeasurementPosition().in(Meters),
-                                                                 m_config.convertFromMechanism(setpointPosition.get())
-                                                                         .in(Meters)));
-        feedforward = elevatorFeedforward.get().calculateWithVelocities(m_config.convertFromMechanism(
-                                                                            m_expoPidController.get()
-                                                                                               .getCurrentVelocitySetpoint()).in(MetersPerSecond),
-                                                                        m_config.convertFromMechanism(
-                                                                                    m_expoPidController.get()
-                                                                                                       .getNextVelocitySetpoint())
-                                                                                .in(MetersPerSecond));
+                                                                 plan.mechanismToMeasurement(
+                                                                     setpointPosition.get().in(Rotations))));
+        feedforward = elevatorFeedforward.get().calculateWithVelocities(
+            plan.mechanismToMeasurement(m_expoPidController.get().getCurrentState().velocity),
+            plan.mechanismToMeasurement(m_expoPidController.get().getNextState().orElseThrow().velocity));
 
       } else if (simpleMotorFeedforward.isPresent())
       {
@@ -341,8 +383,8 @@ public abstract class SmartMotorController
       } else if (elevatorFeedforward.isPresent())
       {
         pidOutputVoltage.set(m_pidController.get().calculate(getMeasurementPosition().in(Meters),
-                                                             m_config.convertFromMechanism(setpointPosition.get())
-                                                                     .in(Meters)));
+                                                             m_config.getConversionPlan().mechanismToMeasurement(
+                                                                 setpointPosition.get().in(Rotations))));
         feedforward = elevatorFeedforward.get().calculateWithVelocities(getMeasurementVelocity().in(
             MetersPerSecond), m_pidController.get().getSetpoint().velocity);
 
@@ -657,6 +699,45 @@ public abstract class SmartMotorController
    */
   public abstract Angle getMechanismPosition();
 
+  /**
+   * Get the Phoenix 6 status signal behind {@link #getMechanismPosition()}, to wait for fresh samples of several
+   * devices at once with {@link BaseStatusSignal#waitForAll(double, BaseStatusSignal...)}.
+   *
+   * @return Mechanism position {@link BaseStatusSignal}, empty if the position is not read from a Phoenix 6 signal.
+   */
+  public Optional<BaseStatusSignal> getMechanismPositionSignal()
+  {
+    return Optional.empty();
+  }
+
+  /**
+   * Get the Phoenix 6 status signal behind {@link #getMechanismVelocity()}, to wait for it together with
+   * {@link #getMechanismPositionSignal()}.
+   *
+   * @return Mechanism velocity {@link BaseStatusSignal}, empty if the velocity is not read from a Phoenix 6 signal.
+   */
+  public Optional<BaseStatusSignal> getMechanismVelocitySignal()
+  {
+    return Optional.empty();
+  }
+
+  /**
+   * Read the mechanism position from a thread other than the robot loop, e.g. the swerve odometry thread. The read does
+   * not go through the {@link InputLog} and does not refresh Phoenix 6 status signals, it returns the value latched by
+   * the last refresh, e.g. by {@link BaseStatusSignal#waitForAll(double, BaseStatusSignal...)} on
+   * {@link #getMechanismPositionSignal()}.
+   *
+   * @return Mechanism position in rotations.
+   */
+  public abstract double readMechanismPosition();
+
+  /**
+   * Read the mechanism velocity from a thread other than the robot loop, like {@link #readMechanismPosition()}.
+   *
+   * @return Mechanism velocity in rotations per second.
+   */
+  public abstract double readMechanismVelocity();
+
   /**
    * Gets the angular velocity of the motor.
    *
@@ -775,6 +856,14 @@ public abstract class SmartMotorController
    */
   public abstract void setMotionProfileMaxAcceleration(AngularAcceleration maxAcceleration);
 
+  /**
+   * Set the constraints of the exponential profile for the feedback controller.
+   *
+   * @param constraints {@link ExponentialProfile.Constraints} in the units of the
+   *                    {@link ExponentialProfilePIDController}.
+   */
+  public abstract void setExponentialProfileConstraints(ExponentialProfile.Constraints constraints);
+
   /**
    * Set kP for the feedback controller PID.
    *
@@ -966,6 +1055,88 @@ public abstract class SmartMotorController
     return m_config.getTelemetryName().orElse("SmartMotorController");
   }
 
+  /**
+   * Pass a hardware input through the {@link InputLog}, recording it or replacing it with the logged value.
+   *
+   * @param signal {@link InputSignal} being read.
+   * @param value  Value read from the motor controller.
+   * @return Value to use.
+   */
+  protected double logInput(InputSignal signal, double value)
+  {
+    if (!InputLog.isActive())
+    {
+      return value;
+    }
+    int channel = m_inputChannels[signal.ordinal()] - 1;
+    if (channel < 0)
+    {
+      channel = InputLog.channel(getName() + "/" + signal.key);
+      m_inputChannels[signal.ordinal()] = channel + 1;
+    }
+    return InputLog.process(channel, value);
+  }
+
+  /**
+   * Pass an {@link Angle} input through the {@link InputLog}.
+   *
+   * @param signal {@link InputSignal} being read.
+   * @param value  {@link Angle} read from the motor controller.
+   * @return {@link Angle} to use.
+   */
+  protected Angle logInput(InputSignal signal, Angle value)
+  {
+    return InputLog.isActive() ? Rotations.of(logInput(signal, value.in(Rotations))) : value;
+  }
+
+  /**
+   * Pass an {@link AngularVelocity} input through the {@link InputLog}.
+   *
+   * @param signal {@link InputSignal} being read.
+   * @param value  {@link AngularVelocity} read from the motor controller.
+   * @return {@link AngularVelocity} to use.
+   */
+  protected AngularVelocity logInput(InputSignal signal, AngularVelocity value)
+  {
+    return InputLog.isActive() ? RotationsPerSecond.of(logInput(signal, value.in(RotationsPerSecond))) : value;
+  }
+
+  /**
+   * Pass a {@link Current} input through the {@link InputLog}.
+   *
+   * @param signal {@link InputSignal} being read.
+   * @param value  {@link Current} read from the motor controller.
+   * @return {@link Current} to use.
+   */
+  protected Current logInput(InputSignal signal, Current value)
+  {
+    return InputLog.isActive() ? Amps.of(logInput(signal, value.in(Amps))) : value;
+  }
+
+  /**
+   * Pass a {@link Voltage} input through the {@link InputLog}.
+   *
+   * @param signal {@link InputSignal} being read.
+   * @param value  {@link Voltage} read from the motor controller.
+   * @return {@link Voltage} to use.
+   */
+  protected Voltage logInput(InputSignal signal, Voltage value)
+  {
+    return InputLog.isActive() ? Volts.of(logInput(signal, value.in(Volts))) : value;
+  }
+
+  /**
+   * Pass a {@link Temperature} input through the {@link InputLog}.
+   *
+   * @param signal {@link InputSignal} being read.
+   * @param value  {@link Temperature} read from the motor controller.
+   * @return {@link Temperature} to use.
+   */
+  protected Temperature logInput(InputSignal signal, Temperature value)
+  {
+    return InputLog.isActive() ? Celsius.of(logInput(signal, value.in(Celsius))) : value;
+  }
+
   /**
    * Close the SMC for unit testing.
    */
@@ -977,6 +1148,117 @@ public abstract class SmartMotorController
       m_closedLoopControllerThread.close();
       m_closedLoopControllerThread = null;
     }
+    m_simSupplier.ifPresent(SimPowerBus::unregister);
+    SimSnapshot.unregister(m_snapshotState);
     telemetry.close();
   }
+
+  /**
+   * Seed the vendor simulation state from the {@link SimSupplier} after a {@link SimSnapshot} restore. Vendor sims that
+   * are given the {@link SimSupplier} state every {@link #simIterate()} do not need to override this.
+   */
+  protected void seedVendorSimState()
+  {
+  }
+
+  /**
+   * {@link SimSnapshot} state of the {@link SimSupplier} plant, the setpoints and the closed loop controllers. The plant
+   * and the setpoints are stored in rotations, the controller states in their own units.
+   */
+  private class SnapshotState implements SimSnapshot.Participant
+  {
+
+    @Override
+    public int getSnapshotSize()
+    {
+      return 6 + ExponentialProfilePIDController.STATE_SIZE;
+    }
+
+    @Override
+    public void capture(double[] buffer, int offset)
+    {
+      SimSupplier sim = m_simSupplier.orElseThrow();
+      buffer[offset] = sim.getMechanismPosition().in(Rotations);
+      buffer[offset + 1] = sim.getMechanismVelocity().in(RotationsPerSecond);
+      buffer[offset + 2] = setpointPosition.map(position -> position.in(Rotations)).orElse(Double.NaN);
+      buffer[offset + 3] = setpointVelocity.map(velocity -> velocity.in(RotationsPerSecond)).orElse(Double.NaN);
+      buffer[offset + 4] = m_pidController.map(pid -> pid.getSetpoint().position).orElse(Double.NaN);
+      buffer[offset + 5] = m_pidController.map(pid -> pid.getSetpoint().velocity).orElse(Double.NaN);
+      m_expoPidController.ifPresent(pid -> pid.captureState(buffer, offset + 6));
+    }
+
+    @Override
+    public void restore(double[] buffer, int offset)
+    {
+      SimSupplier sim = m_simSupplier.orElseThrow();
+      sim.setMechanismPosition(Rotations.of(buffer[offset]));
+      sim.setMechanismVelocity(RotationsPerSecond.of(buffer[offset + 1]));
+      setpointPosition = Double.isNaN(buffer[offset + 2]) ? Optional.empty()
+                                                          : Optional.of(Rotations.of(buffer[offset + 2]));
+      setpointVelocity = Double.isNaN(buffer[offset + 3]) ? Optional.empty()
+                                                          : Optional.of(RotationsPerSecond.of(buffer[offset + 3]));
+      m_pidController.ifPresent(pid -> pid.reset(buffer[offset + 4], buffer[offset + 5]));
+      m_simplePidController.ifPresent(PIDController::reset);
+      m_expoPidController.ifPresent(pid -> pid.restoreState(buffer, offset + 6));
+      seedVendorSimState();
+    }
+  }
+
+  /**
+   * Hardware inputs of a {@link SmartMotorController} that go through the {@link InputLog}.
+   */
+  public enum InputSignal
+  {
+    /**
+     * Duty cycle.
+     */
+    DutyCycle("dutyCycle"),
+    /**
+     * Supply current in amps.
+     */
+    SupplyCurrent("supplyCurrent"),
+    /**
+     * Stator current in amps.
+     */
+    StatorCurrent("statorCurrent"),
+    /**
+     * Output voltage in volts.
+     */
+    OutputVoltage("outputVoltage"),
+    /**
+     * Mechanism position in rotations.
+     */
+    MechanismPosition("mechanismPosition"),
+    /**
+     * Mechanism velocity in rotations per second.
+     */
+    MechanismVelocity("mechanismVelocity"),
+    /**
+     * Rotor position in rotations.
+     */
+    RotorPosition("rotorPosition"),
+    /**
+     * Rotor velocity in rotations per second.
+     */
+    RotorVelocity("rotorVelocity"),
+    /**
+     * Temperature in celsius.
+     */
+    MotorTemperature("motorTemperature");
+
+    /**
+     * Name of the {@link InputLog} channel under the motor controller name.
+     */
+    private final String key;
+
+    /**
+     * Create the input signal.
+     *
+     * @param key Name of the {@link InputLog} channel.
+     */
+    InputSignal(String key)
+    {
+      this.key = key;
+    }
+  }
 }
@@ -6,6 +6,7 @@ import static edu.wpi.first.units.Units.Kilograms;
 import static edu.wpi.first.units.Units.Meters;
 import static edu.wpi.first.units.Units.MetersPerSecond;
 import static edu.wpi.first.units.Units.MetersPerSecondPerSecond;
+import static edu.wpi.first.units.Units.Milliseconds;
 import static edu.wpi.first.units.Units.Pounds;
 import static edu.wpi.first.units.Units.Rotations;
 import static edu.wpi.first.units.Units.RotationsPerSecond;
@@ -144,10 +145,24 @@ public class SmartMotorControllerConfig
    * Mechanism Circumference for distance calculations.
    */
   private       Optional<Distance>                            mechanismCircumference             = Optional.empty();
+  /**
+   * Conversion plan frozen from the gearing and circumference, null until built or after either changes.
+   */
+  private       UnitConversionPlan                            conversionPlan                     = null;
   /**
    * PID Controller period for robot controller based PIDs
    */
   private       Optional<Time>                                controlPeriod                      = Optional.empty();
+  /**
+   * Physics period of the YAMS {@link SimSupplier}s, the plant is sub-stepped at this period within each closed loop
+   * period.
+   */
+  private       Optional<Time>                                simulationPhysicsPeriod            = Optional.empty();
+  /**
+   * Integrator stepping the simulated plant at the physics period.
+   */
+  private       SimulationIntegrator                          simulationIntegrator               =
+      SimulationIntegrator.SEMI_IMPLICIT_EULER;
   /**
    * Open loop ramp rate, amount of time to go from 0 to 100 speed..
    */
@@ -854,6 +869,7 @@ public class SmartMotorControllerConfig
   public SmartMotorControllerConfig withGearing(MechanismGearing gear)
   {
     gearing = gear;
+    conversionPlan = null;
     return this;
   }
 
@@ -866,6 +882,7 @@ public class SmartMotorControllerConfig
   public SmartMotorControllerConfig withMechanismCircumference(Distance circumference)
   {
     mechanismCircumference = Optional.ofNullable(circumference);
+    conversionPlan = null;
     return this;
   }
 
@@ -878,6 +895,7 @@ public class SmartMotorControllerConfig
   public SmartMotorControllerConfig withWheelRadius(Distance radius)
   {
     mechanismCircumference = Optional.ofNullable(radius.times(2).times(Math.PI));
+    conversionPlan = null;
     return this;
   }
 
@@ -890,6 +908,7 @@ public class SmartMotorControllerConfig
   public SmartMotorControllerConfig withWheelDiameter(Distance diameter)
   {
     mechanismCircumference = Optional.ofNullable(diameter.times(Math.PI));
+    conversionPlan = null;
     return this;
   }
 
@@ -903,6 +922,24 @@ public class SmartMotorControllerConfig
     return mechanismCircumference;
   }
 
+  /**
+   * Get the {@link UnitConversionPlan} of the gearing and circumference, frozen by
+   * {@link SmartMotorController#applyConfig(SmartMotorControllerConfig)} and rebuilt only when either is set again.
+   * Mutating the {@link MechanismGearing} in place requires the config to be applied again.
+   *
+   * @return {@link UnitConversionPlan}.
+   */
+  public UnitConversionPlan getConversionPlan()
+  {
+    UnitConversionPlan plan = conversionPlan;
+    if (plan == null)
+    {
+      plan = new UnitConversionPlan(gearing, mechanismCircumference);
+      conversionPlan = plan;
+    }
+    return plan;
+  }
+
   /**
    * Modify the period of the PID controller for the motor controller.
    *
@@ -915,6 +952,35 @@ public class SmartMotorControllerConfig
     return this;
   }
 
+  /**
+   * Step the simulated arm and elevator plants with semi-implicit Euler at a finer period inside each closed loop
+   * control period. The controller voltage is held constant across the sub-steps, improving fidelity for stiff,
+   * low-inertia mechanisms without running the robot loop faster. Linear plants like
+   * {@link edu.wpi.first.wpilibj.simulation.DCMotorSim} are discretized exactly and do not sub-step.
+   *
+   * @param period Physics period, rounded so it evenly divides the closed loop control period.
+   * @return {@link SmartMotorControllerConfig} for chaining.
+   */
+  public SmartMotorControllerConfig withSimulationPhysicsPeriod(Time period)
+  {
+    return withSimulationPhysicsPeriod(period, SimulationIntegrator.SEMI_IMPLICIT_EULER);
+  }
+
+  /**
+   * Step the simulated arm and elevator plants with the given integrator at a finer period inside each closed loop
+   * control period. The controller voltage is held constant across the sub-steps.
+   *
+   * @param period     Physics period, rounded so it evenly divides the closed loop control period.
+   * @param integrator {@link SimulationIntegrator} stepping the plant.
+   * @return {@link SmartMotorControllerConfig} for chaining.
+   */
+  public SmartMotorControllerConfig withSimulationPhysicsPeriod(Time period, SimulationIntegrator integrator)
+  {
+    simulationPhysicsPeriod = Optional.of(period);
+    simulationIntegrator = integrator;
+    return this;
+  }
+
   /**
    * Get the {@link ArmFeedforward} if it is set.
    *
@@ -1380,6 +1446,38 @@ public class SmartMotorControllerConfig
     return controlPeriod;
   }
 
+  /**
+   * Get the physics period of the simulated plant.
+   *
+   * @return Physics period if set.
+   */
+  public Optional<Time> getSimulationPhysicsPeriod()
+  {
+    return simulationPhysicsPeriod;
+  }
+
+  /**
+   * Get the integrator stepping the simulated plant at the physics period.
+   *
+   * @return {@link SimulationIntegrator}, semi-implicit Euler by default.
+   */
+  public SimulationIntegrator getSimulationIntegrator()
+  {
+    return simulationIntegrator;
+  }
+
+  /**
+   * Get the number of physics sub-steps the simulated plant takes per closed loop control period.
+   *
+   * @return Number of sub-steps, 1 if no physics period is set.
+   */
+  public int getSimulationSubsteps()
+  {
+    double controlSeconds = controlPeriod.orElse(Milliseconds.of(20)).in(Seconds);
+    return simulationPhysicsPeriod.map(physics -> Math.max(1, (int) Math.ceil(
+        controlSeconds / physics.in(Seconds) - 1e-9))).orElse(1);
+  }
+
   /**
    * Get the gearing to convert rotor rotations to mechanisms rotations connected to the {@link SmartMotorController}
    *
@@ -1472,7 +1570,7 @@ public class SmartMotorControllerConfig
 
     }
 
-    return RotationsPerSecond.of(velocity.in(MetersPerSecond) / mechanismCircumference.get().in(Meters));
+    return RotationsPerSecond.of(getConversionPlan().measurementToMechanism(velocity.in(MetersPerSecond)));
   }
 
   /**
@@ -1492,7 +1590,7 @@ public class SmartMotorControllerConfig
     }
 
     return RotationsPerSecondPerSecond.of(
-        acceleration.in(MetersPerSecondPerSecond) / mechanismCircumference.get().in(Meters));
+        getConversionPlan().measurementToMechanism(acceleration.in(MetersPerSecondPerSecond)));
   }
 
   /**
@@ -1510,7 +1608,7 @@ public class SmartMotorControllerConfig
                                                            "withMechanismCircumference(Distance)");
 
     }
-    return Rotations.of(distance.in(Meters) / (mechanismCircumference.get().in(Meters)));
+    return Rotations.of(getConversionPlan().measurementToMechanism(distance.in(Meters)));
   }
 
   /**
@@ -1527,7 +1625,7 @@ public class SmartMotorControllerConfig
                                                            "Cannot convert Angle to Distance.",
                                                            "withMechanismCircumference(Distance)");
     }
-    return Meters.of(rotations.in(Rotations) * mechanismCircumference.get().in(Meters));
+    return Meters.of(getConversionPlan().mechanismToMeasurement(rotations.in(Rotations)));
   }
 
   /**
@@ -1544,7 +1642,7 @@ public class SmartMotorControllerConfig
                                                            "Cannot convert AngularVelocity to LinearVelocity.",
                                                            "withMechanismCircumference(Distance)");
     }
-    return MetersPerSecond.of(velocity.in(RotationsPerSecond) * mechanismCircumference.get().in(Meters));
+    return MetersPerSecond.of(getConversionPlan().mechanismToMeasurement(velocity.in(RotationsPerSecond)));
   }
 
   /**
@@ -1563,7 +1661,7 @@ public class SmartMotorControllerConfig
                                                            "withMechanismCircumference(Distance)");
     }
     return MetersPerSecondPerSecond.of(
-        acceleration.in(RotationsPerSecondPerSecond) * mechanismCircumference.get().in(Meters));
+        getConversionPlan().mechanismToMeasurement(acceleration.in(RotationsPerSecondPerSecond)));
   }
 
   /**
@@ -1734,10 +1832,11 @@ public class SmartMotorControllerConfig
 
   /**
    * Reset the validation checks for all required options to be applied to {@link SmartMotorController} from
-   * {@link SmartMotorController#applyConfig(SmartMotorControllerConfig)}.
+   * {@link SmartMotorController#applyConfig(SmartMotorControllerConfig)}, and freeze the {@link UnitConversionPlan}.
    */
   public void resetValidationCheck()
   {
+    conversionPlan = new UnitConversionPlan(gearing, mechanismCircumference);
     basicOptions = EnumSet.allOf(BasicOptions.class);
     externalEncoderOptions = EnumSet.allOf(ExternalEncoderOptions.class);
   }
@@ -1967,6 +2066,21 @@ public class SmartMotorControllerConfig
     HIGH
   }
 
+  /**
+   * Fixed-step integrator of the simulated plants.
+   */
+  public enum SimulationIntegrator
+  {
+    /**
+     * Semi-implicit Euler, the back EMF damping taken at the end of the sub-step. Cheap and stable for high reductions.
+     */
+    SEMI_IMPLICIT_EULER,
+    /**
+     * Classic fourth order Runge-Kutta. More accurate per sub-step, four evaluations per sub-step.
+     */
+    RK4
+  }
+
   /**
    * Idle mode for the {@link SmartMotorController}
    */
@@ -0,0 +1,205 @@
+package yams.motorcontrollers;
+
+import static edu.wpi.first.units.Units.Milliseconds;
+import static edu.wpi.first.units.Units.Seconds;
+
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
+import edu.wpi.first.units.measure.Distance;
+import edu.wpi.first.wpilibj.Notifier;
+import yams.math.YamsClock;
+
+/**
+ * Runs the closed loop controllers of coupled {@link SmartMotorController}s in lockstep, e.g. both sides of a
+ * {@link yams.mechanisms.positional.DifferentialMechanism} or both joints of a
+ * {@link yams.mechanisms.positional.DoubleJointedArm}.
+ * <p>
+ * The members hand their own closed loop Notifiers over to one group Notifier, which reads the sensors of every member
+ * back to back and steps their controllers on the same timestamp. Setpoints are given to all members at once under the
+ * same lock as the step, so no step sees a new setpoint on one member and the old setpoint on another. Members closing
+ * the loop on the device, like TalonFX, get their control frames sent back to back from that one update.
+ */
+public class SmartMotorControllerGroup implements AutoCloseable
+{
+
+  /**
+   * Members of the group.
+   */
+  private final SmartMotorController[] m_members;
+  /**
+   * Notifier stepping every member's closed loop controller.
+   */
+  private final Notifier               m_notifier;
+  /**
+   * Clock of the members' profiles, frozen at the timestamp of the current step.
+   */
+  private final YamsClock              m_stepClock     = new YamsClock()
+  {
+    @Override
+    public double getTimestamp()
+    {
+      return m_stepTimestamp;
+    }
+  };
+  /**
+   * Timestamp of the current or last step in seconds, NaN before the first.
+   */
+  private       double                 m_stepTimestamp = Double.NaN;
+
+  /**
+   * Create a group and start stepping it at the first member's closed loop control period.
+   *
+   * @param name    Name of the group Notifier.
+   * @param members {@link SmartMotorController}s to step together.
+   */
+  public SmartMotorControllerGroup(String name, SmartMotorController... members)
+  {
+    if (members.length == 0)
+    {
+      throw new IllegalArgumentException("SmartMotorControllerGroup needs at least one member!");
+    }
+    m_members = members.clone();
+    for (SmartMotorController member : m_members)
+    {
+      member.setClosedLoopGrouped(true);
+    }
+    m_notifier = new Notifier(this::step);
+    m_notifier.setName(name);
+    m_notifier.startPeriodic(m_members[0].getConfig().getClosedLoopControlPeriod().orElse(Milliseconds.of(20))
+                                         .in(Seconds));
+  }
+
+  /**
+   * Step every member's closed loop controller on one timestamp.
+   */
+  public synchronized void step()
+  {
+    m_stepTimestamp = YamsClock.getDefault().getTimestamp();
+    for (SmartMotorController member : m_members)
+    {
+      // Re-applying a config replaces the profile controller, so check the clock every step.
+      member.m_expoPidController.ifPresent(pid -> {
+        if (pid.getClock().orElse(null) != m_stepClock)
+        {
+          pid.setClock(m_stepClock);
+        }
+      });
+      member.iterateClosedLoopController();
+    }
+  }
+
+  /**
+   * Set the mechanism position setpoint of every member at once.
+   *
+   * @param positions Setpoints indexed like the members, null keeps the setpoint of that member.
+   */
+  public synchronized void setPositions(Angle... positions)
+  {
+    requireSize(positions.length);
+    for (int i = 0; i < m_members.length; i++)
+    {
+      if (positions[i] != null)
+      {
+        m_members[i].setPosition(positions[i]);
+      }
+    }
+  }
+
+  /**
+   * Set the measurement position setpoint of every member at once.
+   *
+   * @param positions Setpoints indexed like the members, null keeps the setpoint of that member.
+   */
+  public synchronized void setPositions(Distance... positions)
+  {
+    requireSize(positions.length);
+    for (int i = 0; i < m_members.length; i++)
+    {
+      if (positions[i] != null)
+      {
+        m_members[i].setPosition(positions[i]);
+      }
+    }
+  }
+
+  /**
+   * Set the mechanism velocity setpoint of every member at once.
+   *
+   * @param velocities Setpoints indexed like the members, null keeps the setpoint of that member.
+   */
+  public synchronized void setVelocities(AngularVelocity... velocities)
+  {
+    requireSize(velocities.length);
+    for (int i = 0; i < m_members.length; i++)
+    {
+      if (velocities[i] != null)
+      {
+        m_members[i].setVelocity(velocities[i]);
+      }
+    }
+  }
+
+  /**
+   * Get a member of the group.
+   *
+   * @param index Member index.
+   * @return {@link SmartMotorController}.
+   */
+  public SmartMotorController getMember(int index)
+  {
+    return m_members[index];
+  }
+
+  /**
+   * Get the number of members.
+   *
+   * @return Number of members.
+   */
+  public int size()
+  {
+    return m_members.length;
+  }
+
+  /**
+   * Get the timestamp every member was last stepped on.
+   *
+   * @return Timestamp in seconds, NaN before the first step.
+   */
+  public synchronized double getStepTimestamp()
+  {
+    return m_stepTimestamp;
+  }
+
+  /**
+   * Stop the group Notifier and hand the closed loop controllers back to the members.
+   */
+  @Override
+  public void close()
+  {
+    m_notifier.stop();
+    m_notifier.close();
+    for (SmartMotorController member : m_members)
+    {
+      member.m_expoPidController.ifPresent(pid -> {
+        if (pid.getClock().orElse(null) == m_stepClock)
+        {
+          pid.setClock(YamsClock.getDefault());
+        }
+      });
+      member.setClosedLoopGrouped(false);
+    }
+  }
+
+  /**
+   * Check a setpoint array has one setpoint per member.
+   *
+   * @param length Length of the setpoint array.
+   */
+  private void requireSize(int length)
+  {
+    if (length != m_members.length)
+    {
+      throw new IllegalArgumentException("Expected " + m_members.length + " setpoints, got " + length + "!");
+    }
+  }
+}
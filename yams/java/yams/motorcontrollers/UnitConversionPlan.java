@@ -0,0 +1,184 @@
+package yams.motorcontrollers;
+
+import static edu.wpi.first.units.Units.Meters;
+
+import edu.wpi.first.units.measure.Distance;
+import java.util.Optional;
+import yams.exceptions.SmartMotorControllerConfigurationException;
+import yams.gearing.MechanismGearing;
+
+/**
+ * Immutable rotor, mechanism and measurement conversion factors of a {@link SmartMotorControllerConfig}, frozen when
+ * the config is applied so the closed loop and telemetry convert with a single multiplication. The conversions are
+ * linear, so the same factor converts positions, velocities and accelerations, e.g. rotations to meters, rotations per
+ * second to meters per second and rotations per second squared to meters per second squared.
+ */
+public final class UnitConversionPlan
+{
+
+  /**
+   * Rotor rotations per mechanism rotation, the reduction.
+   */
+  private final double rotorPerMechanism;
+  /**
+   * Mechanism rotations per rotor rotation.
+   */
+  private final double mechanismPerRotor;
+  /**
+   * Meters per mechanism rotation, the circumference, NaN if undefined.
+   */
+  private final double metersPerMechanism;
+  /**
+   * Mechanism rotations per meter, NaN if the circumference is undefined.
+   */
+  private final double mechanismPerMeter;
+
+  /**
+   * Create a conversion plan.
+   *
+   * @param gearing       {@link MechanismGearing} from the rotor to the mechanism, 1:1 if null.
+   * @param circumference Mechanism circumference.
+   */
+  public UnitConversionPlan(MechanismGearing gearing, Optional<Distance> circumference)
+  {
+    rotorPerMechanism = gearing == null ? 1 : gearing.getMechanismToRotorRatio();
+    mechanismPerRotor = gearing == null ? 1 : gearing.getRotorToMechanismRatio();
+    metersPerMechanism = circumference.map(distance -> distance.in(Meters)).orElse(Double.NaN);
+    mechanismPerMeter = 1.0 / metersPerMechanism;
+  }
+
+  /**
+   * Check if the mechanism circumference is defined, required for the measurement conversions.
+   *
+   * @return True if the circumference is defined.
+   */
+  public boolean hasCircumference()
+  {
+    return !Double.isNaN(metersPerMechanism);
+  }
+
+  /**
+   * Get the rotor rotations per mechanism rotation, the reduction.
+   *
+   * @return Mechanism to rotor factor.
+   */
+  public double getMechanismToRotorFactor()
+  {
+    return rotorPerMechanism;
+  }
+
+  /**
+   * Get the mechanism rotations per rotor rotation.
+   *
+   * @return Rotor to mechanism factor.
+   */
+  public double getRotorToMechanismFactor()
+  {
+    return mechanismPerRotor;
+  }
+
+  /**
+   * Get the meters per mechanism rotation, the circumference.
+   *
+   * @return Mechanism to measurement factor.
+   */
+  public double getMechanismToMeasurementFactor()
+  {
+    requireCircumference();
+    return metersPerMechanism;
+  }
+
+  /**
+   * Get the mechanism rotations per meter.
+   *
+   * @return Measurement to mechanism factor.
+   */
+  public double getMeasurementToMechanismFactor()
+  {
+    requireCircumference();
+    return mechanismPerMeter;
+  }
+
+  /**
+   * Convert rotor rotations to mechanism rotations.
+   *
+   * @param rotor Rotor rotations, rotations per second or rotations per second squared.
+   * @return Mechanism rotations, rotations per second or rotations per second squared.
+   */
+  public double rotorToMechanism(double rotor)
+  {
+    return rotor * mechanismPerRotor;
+  }
+
+  /**
+   * Convert mechanism rotations to rotor rotations.
+   *
+   * @param mechanism Mechanism rotations, rotations per second or rotations per second squared.
+   * @return Rotor rotations, rotations per second or rotations per second squared.
+   */
+  public double mechanismToRotor(double mechanism)
+  {
+    return mechanism * rotorPerMechanism;
+  }
+
+  /**
+   * Convert mechanism rotations to meters.
+   *
+   * @param mechanism Mechanism rotations, rotations per second or rotations per second squared.
+   * @return Meters, meters per second or meters per second squared.
+   */
+  public double mechanismToMeasurement(double mechanism)
+  {
+    requireCircumference();
+    return mechanism * metersPerMechanism;
+  }
+
+  /**
+   * Convert meters to mechanism rotations.
+   *
+   * @param meters Meters, meters per second or meters per second squared.
+   * @return Mechanism rotations, rotations per second or rotations per second squared.
+   */
+  public double measurementToMechanism(double meters)
+  {
+    requireCircumference();
+    return meters * mechanismPerMeter;
+  }
+
+  /**
+   * Convert rotor rotations to meters.
+   *
+   * @param rotor Rotor rotations, rotations per second or rotations per second squared.
+   * @return Meters, meters per second or meters per second squared.
+   */
+  public double rotorToMeasurement(double rotor)
+  {
+    return mechanismToMeasurement(rotorToMechanism(rotor));
+  }
+
+  /**
+   * Convert meters to rotor rotations.
+   *
+   * @param meters Meters, meters per second or meters per second squared.
+   * @return Rotor rotations, rotations per second or rotations per second squared.
+   */
+  public double measurementToRotor(double meters)
+  {
+    return mechanismToRotor(measurementToMechanism(meters));
+  }
+
+  /**
+   * Check the mechanism circumference is defined.
+   *
+   * @throws SmartMotorControllerConfigurationException if the circumference is undefined.
+   */
+  private void requireCircumference()
+  {
+    if (Double.isNaN(metersPerMechanism))
+    {
+      throw new SmartMotorControllerConfigurationException("Mechanism circumference is undefined",
+                                                           "Cannot convert between mechanism rotations and distance.",
+                                                           "withMechanismCircumference(Distance)");
+    }
+  }
+}
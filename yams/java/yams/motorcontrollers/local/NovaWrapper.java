@@ -20,6 +20,7 @@ import edu.wpi.first.math.Pair;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.math.trajectory.ExponentialProfile;
 import edu.wpi.first.math.trajectory.TrapezoidProfile.Constraints;
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.AngularAcceleration;
@@ -432,8 +433,10 @@ public class NovaWrapper extends SmartMotorController
   @Override
   public double getDutyCycle()
   {
-    return m_simSupplier.isPresent() ? m_simSupplier.get().getMechanismStatorVoltage().in(Volts) /
-                                       m_simSupplier.get().getMechanismSupplyVoltage().in(Volts) : m_nova.get();
+    return logInput(InputSignal.DutyCycle,
+                    m_simSupplier.isPresent() ? m_simSupplier.get().getMechanismStatorVoltage().in(Volts) /
+                                                m_simSupplier.get().getMechanismSupplyVoltage().in(Volts)
+                                              : m_nova.get());
   }
 
   @Override
@@ -448,21 +451,25 @@ public class NovaWrapper extends SmartMotorController
   {
     if (m_simSupplier.isPresent())
     {
-      return Optional.of(Amps.of(RoboRioSim.getVInCurrent()));
+      return Optional.of(logInput(InputSignal.SupplyCurrent, Amps.of(RoboRioSim.getVInCurrent())));
     }
-    return Optional.of(Amps.of(m_nova.getSupplyCurrent()));
+    return Optional.of(logInput(InputSignal.SupplyCurrent, Amps.of(m_nova.getSupplyCurrent())));
   }
 
   @Override
   public Current getStatorCurrent()
   {
-    return m_simSupplier.isPresent() ? m_simSupplier.get().getCurrentDraw() : Amps.of(m_nova.getStatorCurrent());
+    return logInput(InputSignal.StatorCurrent,
+                    m_simSupplier.isPresent() ? m_simSupplier.get().getCurrentDraw()
+                                              : Amps.of(m_nova.getStatorCurrent()));
   }
 
   @Override
   public Voltage getVoltage()
   {
-    return m_simSupplier.isPresent() ? m_simSupplier.get().getMechanismStatorVoltage() : Volts.of(m_nova.getVoltage());
+    return logInput(InputSignal.OutputVoltage,
+                    m_simSupplier.isPresent() ? m_simSupplier.get().getMechanismStatorVoltage()
+                                              : Volts.of(m_nova.getVoltage()));
   }
 
   @Override
@@ -495,7 +502,7 @@ public class NovaWrapper extends SmartMotorController
   {
     if (m_simSupplier.isPresent())
     {
-      return m_simSupplier.get().getMechanismVelocity();
+      return logInput(InputSignal.MechanismVelocity, m_simSupplier.get().getMechanismVelocity());
     }
     if (m_config.getUseExternalFeedback() && m_config.getExternalEncoder().isPresent())
     {
@@ -507,11 +514,11 @@ public class NovaWrapper extends SmartMotorController
       } else if (externalEncoder == EncoderType.QUAD)
       {
         // There should be an alert thrown here; but Alerts are not thread-safe.
-        return RotationsPerSecond.of(
-            m_nova.getVelocityQuad() * m_config.getExternalEncoderGearing().getRotorToMechanismRatio());
+        return logInput(InputSignal.MechanismVelocity, RotationsPerSecond.of(
+            m_nova.getVelocityQuad() * m_config.getExternalEncoderGearing().getRotorToMechanismRatio()));
       }
     }
-    return getRotorVelocity().times(m_gearing.getRotorToMechanismRatio());
+    return logInput(InputSignal.MechanismVelocity, getRotorVelocity().times(m_gearing.getRotorToMechanismRatio()));
   }
 
   @Override
@@ -519,20 +526,60 @@ public class NovaWrapper extends SmartMotorController
   {
     if (m_simSupplier.isPresent())
     {
-      return m_simSupplier.get().getMechanismPosition();
+      return logInput(InputSignal.MechanismPosition, m_simSupplier.get().getMechanismPosition());
     }
     if (m_config.getUseExternalFeedback() && m_config.getExternalEncoder().isPresent())
     {
       Object externalEncoder = m_config.getExternalEncoder().get();
       if (externalEncoder == EncoderType.ABS)
       {
-        return Rotations.of(m_nova.getPositionAbs() * m_config.getExternalEncoderGearing().getRotorToMechanismRatio());
+        return logInput(InputSignal.MechanismPosition,
+                        Rotations.of(m_nova.getPositionAbs() *
+                                     m_config.getExternalEncoderGearing().getRotorToMechanismRatio()));
       } else if (externalEncoder == EncoderType.QUAD)
       {
-        return Rotations.of(m_nova.getPositionQuad() * m_config.getExternalEncoderGearing().getRotorToMechanismRatio());
+        return logInput(InputSignal.MechanismPosition,
+                        Rotations.of(m_nova.getPositionQuad() *
+                                     m_config.getExternalEncoderGearing().getRotorToMechanismRatio()));
       }
     }
-    return getRotorPosition().times(m_gearing.getRotorToMechanismRatio());
+    return logInput(InputSignal.MechanismPosition, getRotorPosition().times(m_gearing.getRotorToMechanismRatio()));
+  }
+
+  @Override
+  public double readMechanismPosition()
+  {
+    if (m_simSupplier.isPresent())
+    {
+      return m_simSupplier.get().getMechanismPosition().in(Rotations);
+    }
+    if (m_config.getUseExternalFeedback() && m_config.getExternalEncoder().isPresent())
+    {
+      Object externalEncoder = m_config.getExternalEncoder().get();
+      if (externalEncoder == EncoderType.ABS)
+      {
+        return m_nova.getPositionAbs() * m_config.getExternalEncoderGearing().getRotorToMechanismRatio();
+      } else if (externalEncoder == EncoderType.QUAD)
+      {
+        return m_nova.getPositionQuad() * m_config.getExternalEncoderGearing().getRotorToMechanismRatio();
+      }
+    }
+    return m_nova.getPosition() * m_gearing.getRotorToMechanismRatio();
+  }
+
+  @Override
+  public double readMechanismVelocity()
+  {
+    if (m_simSupplier.isPresent())
+    {
+      return m_simSupplier.get().getMechanismVelocity().in(RotationsPerSecond);
+    }
+    if (m_config.getUseExternalFeedback() && m_config.getExternalEncoder().isPresent() &&
+        m_config.getExternalEncoder().get() == EncoderType.QUAD)
+    {
+      return m_nova.getVelocityQuad() * m_config.getExternalEncoderGearing().getRotorToMechanismRatio();
+    }
+    return m_nova.getVelocity() * m_gearing.getRotorToMechanismRatio();
   }
 
   @Override
@@ -540,9 +587,9 @@ public class NovaWrapper extends SmartMotorController
   {
     if (RobotBase.isSimulation() && m_simSupplier.isPresent())
     {
-      return m_simSupplier.get().getRotorVelocity();
+      return logInput(InputSignal.RotorVelocity, m_simSupplier.get().getRotorVelocity());
     }
-    return RotationsPerSecond.of(m_nova.getVelocity());
+    return logInput(InputSignal.RotorVelocity, RotationsPerSecond.of(m_nova.getVelocity()));
   }
 
   @Override
@@ -550,9 +597,9 @@ public class NovaWrapper extends SmartMotorController
   {
     if (RobotBase.isSimulation() && m_simSupplier.isPresent())
     {
-      return m_simSupplier.get().getRotorPosition();
+      return logInput(InputSignal.RotorPosition, m_simSupplier.get().getRotorPosition());
     }
-    return Rotations.of(m_nova.getPosition());
+    return logInput(InputSignal.RotorPosition, Rotations.of(m_nova.getPosition()));
   }
 
   @Override
@@ -619,6 +666,12 @@ public class NovaWrapper extends SmartMotorController
     }
   }
 
+  @Override
+  public void setExponentialProfileConstraints(ExponentialProfile.Constraints constraints)
+  {
+    m_expoPidController.ifPresent(ctr -> ctr.setConstraints(constraints));
+  }
+
   @Override
   public void setKp(double kP)
   {
@@ -797,7 +850,7 @@ public class NovaWrapper extends SmartMotorController
   @Override
   public Temperature getTemperature()
   {
-    return Celsius.of(m_nova.getTemperature());
+    return logInput(InputSignal.MotorTemperature, Celsius.of(m_nova.getTemperature()));
   }
 
   @Override
@@ -33,6 +33,7 @@ import edu.wpi.first.math.Pair;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.math.trajectory.ExponentialProfile;
 import edu.wpi.first.math.trajectory.TrapezoidProfile.Constraints;
 import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.AngularAcceleration;
@@ -244,6 +245,23 @@ public class SparkWrapper extends SmartMotorController
     }
   }
 
+  @Override
+  protected void seedVendorSimState()
+  {
+    m_simSupplier.ifPresent(mSimSupplier -> {
+      double position = mSimSupplier.getMechanismPosition().in(Rotations);
+      double velocity = mSimSupplier.getMechanismVelocity().in(RotationsPerSecond);
+      sparkRelativeEncoderSim.ifPresent(sim -> {
+        sim.setPosition(position);
+        sim.setVelocity(velocity);
+      });
+      m_sparkAbsoluteEncoderSim.ifPresent(sim -> {
+        sim.setPosition(position);
+        sim.setVelocity(velocity);
+      });
+    });
+  }
+
   @Override
   public void setIdleMode(MotorMode mode)
   {
@@ -550,7 +568,7 @@ public class SparkWrapper extends SmartMotorController
   @Override
   public double getDutyCycle()
   {
-    return m_spark.getAppliedOutput();/* m_simSupplier.map(simSupplier -> simSupplier.getMechanismStatorVoltage().in(Volts) /
+    return logInput(InputSignal.DutyCycle, m_spark.getAppliedOutput());/* m_simSupplier.map(simSupplier -> simSupplier.getMechanismStatorVoltage().in(Volts) /
                                             simSupplier.getMechanismSupplyVoltage().in(Volts))
                         .orElseGet(spark::getAppliedOutput);*/
   }
@@ -574,14 +592,17 @@ public class SparkWrapper extends SmartMotorController
   @Override
   public Current getStatorCurrent()
   {
-    return m_simSupplier.isPresent() ? m_simSupplier.get().getCurrentDraw() : Amps.of(m_spark.getOutputCurrent());
+    return logInput(InputSignal.StatorCurrent,
+                    m_simSupplier.isPresent() ? m_simSupplier.get().getCurrentDraw()
+                                              : Amps.of(m_spark.getOutputCurrent()));
   }
 
   @Override
   public Voltage getVoltage()
   {
-    return m_simSupplier.isPresent() ? m_simSupplier.get().getMechanismStatorVoltage() : Volts.of(
-        m_spark.getAppliedOutput() * m_spark.getBusVoltage());
+    return logInput(InputSignal.OutputVoltage,
+                    m_simSupplier.isPresent() ? m_simSupplier.get().getMechanismStatorVoltage() : Volts.of(
+                        m_spark.getAppliedOutput() * m_spark.getBusVoltage()));
   }
 
   @Override
@@ -614,10 +635,12 @@ public class SparkWrapper extends SmartMotorController
   {
     if (m_sparkAbsoluteEncoder.isPresent() && m_config.getUseExternalFeedback())
     {
-      return RotationsPerSecond.of(m_sparkAbsoluteEncoder.get().getVelocity());
+      return logInput(InputSignal.MechanismVelocity,
+                      RotationsPerSecond.of(m_sparkAbsoluteEncoder.get().getVelocity()));
     }
-    return RotationsPerSecond.of(sparkSim.map(SparkSim::getVelocity)
-                                         .orElseGet(m_sparkRelativeEncoder::getVelocity));
+    return logInput(InputSignal.MechanismVelocity,
+                    RotationsPerSecond.of(sparkSim.map(SparkSim::getVelocity)
+                                                  .orElseGet(m_sparkRelativeEncoder::getVelocity)));
   }
 
   @Override
@@ -628,20 +651,40 @@ public class SparkWrapper extends SmartMotorController
     {
       pos = Rotations.of(m_sparkAbsoluteEncoder.get().getPosition());
     }
-    return pos;
+    return logInput(InputSignal.MechanismPosition, pos);
+  }
+
+  @Override
+  public double readMechanismPosition()
+  {
+    if (m_sparkAbsoluteEncoder.isPresent() && m_config.getUseExternalFeedback())
+    {
+      return m_sparkAbsoluteEncoder.get().getPosition();
+    }
+    return m_sparkRelativeEncoder.getPosition();
+  }
+
+  @Override
+  public double readMechanismVelocity()
+  {
+    if (m_sparkAbsoluteEncoder.isPresent() && m_config.getUseExternalFeedback())
+    {
+      return m_sparkAbsoluteEncoder.get().getVelocity();
+    }
+    return sparkSim.map(SparkSim::getVelocity).orElseGet(m_sparkRelativeEncoder::getVelocity);
   }
 
   @Override
   public AngularVelocity getRotorVelocity()
   {
     return RotationsPerSecond.of(
-        getMechanismPosition().in(Rotations) * m_config.getGearing().getMechanismToRotorRatio());
+        m_config.getConversionPlan().mechanismToRotor(getMechanismVelocity().in(RotationsPerSecond)));
   }
 
   @Override
   public Angle getRotorPosition()
   {
-    return Rotations.of(getMechanismPosition().in(Rotations) * m_config.getGearing().getMechanismToRotorRatio());
+    return Rotations.of(m_config.getConversionPlan().mechanismToRotor(getMechanismPosition().in(Rotations)));
   }
 
   @Override
@@ -715,6 +758,12 @@ public class SparkWrapper extends SmartMotorController
     }
   }
 
+  @Override
+  public void setExponentialProfileConstraints(ExponentialProfile.Constraints constraints)
+  {
+    m_expoPidController.ifPresent(ctr -> ctr.setConstraints(constraints));
+  }
+
   @Override
   public void setKp(double kP)
   {
@@ -891,7 +940,7 @@ public class SparkWrapper extends SmartMotorController
   @Override
   public Temperature getTemperature()
   {
-    return Celsius.of(m_spark.getMotorTemperature());
+    return logInput(InputSignal.MotorTemperature, Celsius.of(m_spark.getMotorTemperature()));
   }
 
   @Override
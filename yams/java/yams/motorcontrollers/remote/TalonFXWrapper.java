@@ -9,6 +9,7 @@ import static edu.wpi.first.units.Units.RotationsPerSecondPerSecond;
 import static edu.wpi.first.units.Units.Seconds;
 import static edu.wpi.first.units.Units.Volts;
 
+import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.SignalLogger;
 import com.ctre.phoenix6.StatusCode;
 import com.ctre.phoenix6.StatusSignal;
@@ -38,6 +39,7 @@ import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.math.trajectory.ExponentialProfile;
 import edu.wpi.first.math.trajectory.TrapezoidProfile.Constraints;
 import edu.wpi.first.units.VoltageUnit;
 import edu.wpi.first.units.measure.Angle;
@@ -457,7 +459,7 @@ public class TalonFXWrapper extends SmartMotorController
   @Override
   public double getDutyCycle()
   {
-    return m_dutyCycle.refresh().getValue();
+    return logInput(InputSignal.DutyCycle, m_dutyCycle.refresh().getValue());
   }
 
   @Override
@@ -537,7 +539,7 @@ public class TalonFXWrapper extends SmartMotorController
                 config.convertToMechanism(MetersPerSecondPerSecond.of(controller.getConstraints().maxAcceleration)));
       } else
       {
-        m_talonConfig.MotionMagic.withMotionMagicCruiseVelocity(RotationsPerSecond.of(controller.getConstraints().maxAcceleration));
+        m_talonConfig.MotionMagic.withMotionMagicCruiseVelocity(RotationsPerSecond.of(controller.getConstraints().maxVelocity));
         m_talonConfig.MotionMagic
             .withMotionMagicAcceleration(RotationsPerSecondPerSecond.of(controller.getConstraints().maxAcceleration));
       }
@@ -890,19 +892,19 @@ public class TalonFXWrapper extends SmartMotorController
   @Override
   public Optional<Current> getSupplyCurrent()
   {
-    return Optional.of(m_supplyCurrent.refresh().getValue());
+    return Optional.of(logInput(InputSignal.SupplyCurrent, m_supplyCurrent.refresh().getValue()));
   }
 
   @Override
   public Current getStatorCurrent()
   {
-    return m_statorCurrent.refresh().getValue();
+    return logInput(InputSignal.StatorCurrent, m_statorCurrent.refresh().getValue());
   }
 
   @Override
   public Voltage getVoltage()
   {
-    return m_outputVoltage.refresh().getValue();
+    return logInput(InputSignal.OutputVoltage, m_outputVoltage.refresh().getValue());
   }
 
   @Override
@@ -934,20 +936,20 @@ public class TalonFXWrapper extends SmartMotorController
   {
     if (m_cancoder.isPresent())
     {
-      return m_cancoder.get().getVelocity().getValue();
+      return logInput(InputSignal.MechanismVelocity, m_cancoder.get().getVelocity().getValue());
     }
     if (m_candi.isPresent())
     {
       if (useCANdiPWM1())
       {
-        return m_candi.get().getPWM1Velocity().getValue();
+        return logInput(InputSignal.MechanismVelocity, m_candi.get().getPWM1Velocity().getValue());
       }
       if (useCANdiPWM2())
       {
-        return m_candi.get().getPWM2Velocity().getValue();
+        return logInput(InputSignal.MechanismVelocity, m_candi.get().getPWM2Velocity().getValue());
       }
     }
-    return m_mechanismVelocity.refresh().getValue();
+    return logInput(InputSignal.MechanismVelocity, m_mechanismVelocity.refresh().getValue());
   }
 
   @Override
@@ -955,32 +957,118 @@ public class TalonFXWrapper extends SmartMotorController
   {
     if (m_cancoder.isPresent())
     {
-      return m_cancoder.get().getPosition().getValue();
+      return logInput(InputSignal.MechanismPosition, m_cancoder.get().getPosition().getValue());
     }
     if (m_candi.isPresent())
     {
       if (useCANdiPWM1())
       {
-        return m_candi.get().getPWM1Position().getValue();
+        return logInput(InputSignal.MechanismPosition, m_candi.get().getPWM1Position().getValue());
       }
       if (useCANdiPWM2())
       {
-        return m_candi.get().getPWM2Position().getValue();
+        return logInput(InputSignal.MechanismPosition, m_candi.get().getPWM2Position().getValue());
       }
     }
-    return m_mechanismPosition.refresh().getValue();
+    return logInput(InputSignal.MechanismPosition, m_mechanismPosition.refresh().getValue());
+  }
+
+  @Override
+  public Optional<BaseStatusSignal> getMechanismPositionSignal()
+  {
+    return Optional.of(getMechanismPositionFeedback());
+  }
+
+  @Override
+  public Optional<BaseStatusSignal> getMechanismVelocitySignal()
+  {
+    return Optional.of(getMechanismVelocityFeedback());
+  }
+
+  @Override
+  public double readMechanismPosition()
+  {
+    if (m_simSupplier.isPresent())
+    {
+      // The simulated signals are only refreshed by the robot loop, the plant is current.
+      return m_simSupplier.get().getMechanismPosition().in(Rotations);
+    }
+    return getMechanismPositionFeedback().getValueAsDouble();
+  }
+
+  @Override
+  public double readMechanismVelocity()
+  {
+    if (m_simSupplier.isPresent())
+    {
+      return m_simSupplier.get().getMechanismVelocity().in(RotationsPerSecond);
+    }
+    return getMechanismVelocityFeedback().getValueAsDouble();
+  }
+
+  /**
+   * Get the status signal the mechanism position is fed back from without refreshing it, the external
+   * {@link CANcoder} or {@link CANdi} if there is one. A CANcoder or CANdi configured as remote or fused sensor is
+   * already reported by the motor controller position.
+   *
+   * @return Mechanism position {@link StatusSignal}.
+   */
+  private StatusSignal<Angle> getMechanismPositionFeedback()
+  {
+    if (m_cancoder.isPresent())
+    {
+      return m_cancoder.get().getPosition(false);
+    }
+    if (m_candi.isPresent())
+    {
+      if (useCANdiPWM1())
+      {
+        return m_candi.get().getPWM1Position(false);
+      }
+      if (useCANdiPWM2())
+      {
+        return m_candi.get().getPWM2Position(false);
+      }
+    }
+    return m_mechanismPosition;
+  }
+
+  /**
+   * Get the status signal the mechanism velocity is fed back from without refreshing it, like
+   * {@link #getMechanismPositionFeedback()}.
+   *
+   * @return Mechanism velocity {@link StatusSignal}.
+   */
+  private StatusSignal<AngularVelocity> getMechanismVelocityFeedback()
+  {
+    if (m_cancoder.isPresent())
+    {
+      return m_cancoder.get().getVelocity(false);
+    }
+    if (m_candi.isPresent())
+    {
+      if (useCANdiPWM1())
+      {
+        return m_candi.get().getPWM1Velocity(false);
+      }
+      if (useCANdiPWM2())
+      {
+        return m_candi.get().getPWM2Velocity(false);
+      }
+    }
+    return m_mechanismVelocity;
   }
 
   @Override
   public AngularVelocity getRotorVelocity()
   {
-    return m_rotorVelocity.refresh().getValue();
+    return logInput(InputSignal.RotorVelocity, m_rotorVelocity.refresh().getValue());
   }
 
   @Override
   public Angle getRotorPosition()
   {
-    return m_rotorPosition.refresh().getValue();
+    return logInput(InputSignal.RotorPosition, m_rotorPosition.refresh().getValue());
   }
 
   @Override
@@ -1055,6 +1143,22 @@ public class TalonFXWrapper extends SmartMotorController
     forceConfigApply();
   }
 
+  @Override
+  public void setExponentialProfileConstraints(ExponentialProfile.Constraints constraints)
+  {
+    if (m_config.getExponentiallyProfiledClosedLoopController().isPresent())
+    {
+      ExponentialProfilePIDController ctr = m_config.getExponentiallyProfiledClosedLoopController().get();
+      double                          kV  = ctr.getKv().in(RotationsPerSecond);
+      double                          kA  = ctr.getKa().in(RotationsPerSecondPerSecond);
+      ctr.setConstraints(constraints);
+      // Scale the device gains like the controller gains, they may have been taken from the feedforward instead.
+      m_talonConfig.MotionMagic.MotionMagicExpo_kV *= ctr.getKv().in(RotationsPerSecond) / kV;
+      m_talonConfig.MotionMagic.MotionMagicExpo_kA *= ctr.getKa().in(RotationsPerSecondPerSecond) / kA;
+      forceConfigApply();
+    }
+  }
+
   /**
    * Ensure setting is applied.
    */
@@ -1313,7 +1417,7 @@ public class TalonFXWrapper extends SmartMotorController
   @Override
   public Temperature getTemperature()
   {
-    return m_deviceTemperature.refresh().getValue();
+    return logInput(InputSignal.MotorTemperature, m_deviceTemperature.refresh().getValue());
   }
 
   @Override
@@ -13,8 +13,8 @@ import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Current;
 import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.units.measure.Voltage;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
+import java.util.Optional;
 import java.util.function.Supplier;
 import yams.gearing.MechanismGearing;
 import yams.motorcontrollers.SimSupplier;
@@ -26,13 +26,15 @@ import yams.motorcontrollers.SmartMotorController;
 public class ArmSimSupplier implements SimSupplier
 {
 
-  private       boolean             inputFed   = false;
-  private       boolean             simUpdated = false;
-  private final Supplier<Double>    motorDutyCycleSupplier;
-  private final SingleJointedArmSim sim;
-  private final MechanismGearing    mechGearing;
-  private final Time                period;
-  private final DCMotor             motor;
+  private       boolean                   inputFed   = false;
+  private       boolean                   simUpdated = false;
+  private final Supplier<Double>          motorDutyCycleSupplier;
+  private final SingleJointedArmSim       sim;
+  private final MechanismGearing          mechGearing;
+  private final Time                      period;
+  private final int                       substeps;
+  private final Optional<PlantIntegrator> integrator;
+  private final DCMotor                   motor;
 
 
   /**
@@ -42,12 +44,30 @@ public class ArmSimSupplier implements SimSupplier
    * @param smartMotorController SMC for the ArmSim..
    */
   public ArmSimSupplier(SingleJointedArmSim simulation, SmartMotorController smartMotorController)
+  {
+    this(simulation, smartMotorController, Optional.empty());
+  }
+
+  /**
+   * Construct the ArmSim supplier stepping the arm with a {@link PlantIntegrator} when
+   * {@link yams.motorcontrollers.SmartMotorControllerConfig#withSimulationPhysicsPeriod(Time)} is set.
+   *
+   * @param simulation           Simulation instance
+   * @param smartMotorController SMC for the ArmSim.
+   * @param plantIntegrator      {@link PlantIntegrator} of the same arm, see
+   *                             {@link PlantIntegrator#forArm(DCMotor, double, double, double, double, double, boolean,
+   *                             yams.motorcontrollers.SmartMotorControllerConfig.SimulationIntegrator)}.
+   */
+  public ArmSimSupplier(SingleJointedArmSim simulation, SmartMotorController smartMotorController,
+                        Optional<PlantIntegrator> plantIntegrator)
   {
     var config = smartMotorController.getConfig();
     sim = simulation;
     motorDutyCycleSupplier = smartMotorController::getDutyCycle;
     mechGearing = config.getGearing();
     period = config.getClosedLoopControlPeriod().orElse(Milliseconds.of(20));
+    substeps = config.getSimulationSubsteps();
+    integrator = config.getSimulationPhysicsPeriod().isPresent() ? plantIntegrator : Optional.empty();
     motor = smartMotorController.getDCMotor();
   }
 
@@ -56,18 +76,32 @@ public class ArmSimSupplier implements SimSupplier
   {
     if (!isInputFed())
     {
-      sim.setInputVoltage(motorDutyCycleSupplier.get() * RoboRioSim.getVInVoltage());
+      sim.setInputVoltage(motorDutyCycleSupplier.get() * SimPowerBus.getOutputVoltage());
     }
     if (!simUpdated)
     {
       starveInput();
-      sim.update(period.in(Seconds));
-      try
+      if (integrator.isPresent())
       {
-        Thread.sleep(1);
-      } catch (Exception e)
+        // Step primitives with the input voltage held across the sub-steps, the sim only takes the result.
+        PlantIntegrator plant = integrator.get();
+        plant.setState(sim.getAngleRads(), sim.getVelocityRadPerSec());
+        plant.step(sim.getInput(0), period.in(Seconds), substeps);
+        sim.setState(plant.getPosition(), plant.getVelocity());
+      } else
       {
-
+        sim.update(period.in(Seconds));
+      }
+      if (!SimClock.isEnabled())
+      {
+        // Give the real time closed loop Notifier a chance to run, the sim clock runs it on simulated time instead.
+        try
+        {
+          Thread.sleep(1);
+        } catch (Exception e)
+        {
+
+        }
       }
       feedUpdateSim();
     }
@@ -114,13 +148,13 @@ public class ArmSimSupplier implements SimSupplier
   public void setMechanismStatorDutyCycle(double dutyCycle)
   {
     feedInput();
-    sim.setInputVoltage(dutyCycle * getMechanismSupplyVoltage().in(Volts));
+    sim.setInputVoltage(dutyCycle * SimPowerBus.getOutputVoltage());
   }
 
   @Override
   public Voltage getMechanismSupplyVoltage()
   {
-    return Volts.of(RoboRioSim.getVInVoltage());
+    return Volts.of(SimPowerBus.getSupplyVoltage());
   }
 
   @Override
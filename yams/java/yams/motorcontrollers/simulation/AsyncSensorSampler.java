@@ -0,0 +1,341 @@
+package yams.motorcontrollers.simulation;
+
+import static edu.wpi.first.units.Units.Seconds;
+
+import edu.wpi.first.units.measure.Time;
+import edu.wpi.first.wpilibj.Notifier;
+import yams.math.YamsClock;
+import yams.motorcontrollers.simulation.SensorData.HALValueType;
+
+/**
+ * Samples {@link SensorData} fields on a {@link Notifier} faster than the robot loop, so fast transitions like a beam
+ * break are not missed and their time is known. Every change is written with its timestamp into a lock-free single
+ * producer, single consumer ring buffer per field; {@link #poll()} drains them once per robot loop and keeps the last
+ * rising and falling edge of that loop.
+ * <p>
+ * The fields are polled since a {@link SensorData} only has a supplier, not the DIO channel needed for interrupts. The
+ * sampler thread reads the sensor directly, the values are not passed through the {@link yams.telemetry.InputLog}.
+ */
+public final class AsyncSensorSampler implements AutoCloseable
+{
+
+  /**
+   * Sampled fields.
+   */
+  private final SensorData[] m_fields;
+  /**
+   * Ring buffer of each field.
+   */
+  private final Ring[]       m_rings;
+  /**
+   * Sampling thread.
+   */
+  private final Notifier     m_notifier;
+  /**
+   * Sampling period in seconds.
+   */
+  private final double       m_periodSeconds;
+
+  /**
+   * Create a sampler, use {@link #start()} to start sampling.
+   *
+   * @param period   Sampling period, e.g. 1ms.
+   * @param capacity Number of changes buffered per field between two {@link #poll()}s, rounded up to a power of two.
+   * @param fields   {@link SensorData} fields to sample.
+   */
+  public AsyncSensorSampler(Time period, int capacity, SensorData... fields)
+  {
+    int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+    m_fields = fields.clone();
+    m_rings = new Ring[fields.length];
+    for (int i = 0; i < fields.length; i++)
+    {
+      m_rings[i] = new Ring(size, fields[i].getType() == HALValueType.kDouble);
+    }
+    m_periodSeconds = period.in(Seconds);
+    m_notifier = new Notifier(this::sample);
+    m_notifier.setName("YAMS Sensor Sampler");
+  }
+
+  /**
+   * Start sampling.
+   */
+  public void start()
+  {
+    m_notifier.startPeriodic(m_periodSeconds);
+  }
+
+  /**
+   * Stop sampling.
+   */
+  public void stop()
+  {
+    m_notifier.stop();
+  }
+
+  /**
+   * Sample every field once and write the changed ones into their ring buffer. Runs on the sampler thread.
+   */
+  private void sample()
+  {
+    double timestamp = YamsClock.getDefault().getTimestamp();
+    for (int i = 0; i < m_fields.length; i++)
+    {
+      m_rings[i].offer(timestamp, m_fields[i].readRawBits());
+    }
+  }
+
+  /**
+   * Drain the changes sampled since the last poll. Call once per robot loop, from the robot loop thread only.
+   */
+  public void poll()
+  {
+    for (Ring ring : m_rings)
+    {
+      ring.drain();
+    }
+  }
+
+  /**
+   * Get the index of a field, resolve it once during setup.
+   *
+   * @param name Name of the field.
+   * @return Index of the field.
+   * @throws IllegalArgumentException if the field is not sampled.
+   */
+  public int indexOf(String name)
+  {
+    for (int i = 0; i < m_fields.length; i++)
+    {
+      if (m_fields[i].getName().equals(name))
+      {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Sensor field " + name + " is not sampled!");
+  }
+
+  /**
+   * Get the timestamp of the last rising edge, false to true or an increase, drained by the last {@link #poll()}.
+   *
+   * @param field Index of the field.
+   * @return Timestamp in seconds, NaN if there was none.
+   */
+  public double getRisingEdgeTimestamp(int field)
+  {
+    return m_rings[field].risingTimestamp;
+  }
+
+  /**
+   * Get the timestamp of the last falling edge, true to false or a decrease, drained by the last {@link #poll()}.
+   *
+   * @param field Index of the field.
+   * @return Timestamp in seconds, NaN if there was none.
+   */
+  public double getFallingEdgeTimestamp(int field)
+  {
+    return m_rings[field].fallingTimestamp;
+  }
+
+  /**
+   * Get the number of changes drained by the last {@link #poll()}.
+   *
+   * @param field Index of the field.
+   * @return Number of changes.
+   */
+  public int getChangeCount(int field)
+  {
+    return m_rings[field].changes;
+  }
+
+  /**
+   * Get the number of changes overwritten before they were drained since the sampler was created.
+   *
+   * @param field Index of the field.
+   * @return Number of lost changes.
+   */
+  public long getOverrunCount(int field)
+  {
+    return m_rings[field].overruns;
+  }
+
+  /**
+   * Get the latest sampled value as a boolean.
+   *
+   * @param field Index of the field.
+   * @return Latest value.
+   */
+  public boolean getLatestBoolean(int field)
+  {
+    return m_rings[field].latestBits != 0;
+  }
+
+  /**
+   * Get the latest sampled value as a double.
+   *
+   * @param field Index of the field.
+   * @return Latest value.
+   */
+  public double getLatestDouble(int field)
+  {
+    Ring ring = m_rings[field];
+    return ring.isDouble ? Double.longBitsToDouble(ring.latestBits) : ring.latestBits;
+  }
+
+  /**
+   * Get the timestamp of the latest change.
+   *
+   * @param field Index of the field.
+   * @return Timestamp in seconds, NaN if the field has not been sampled yet.
+   */
+  public double getLatestTimestamp(int field)
+  {
+    return m_rings[field].latestTimestamp;
+  }
+
+  @Override
+  public void close()
+  {
+    m_notifier.close();
+  }
+
+  /**
+   * Single producer, single consumer ring buffer of the timestamped changes of one field.
+   */
+  private static final class Ring
+  {
+
+    /**
+     * Timestamp of each change in seconds.
+     */
+    private final    double[] timestamps;
+    /**
+     * Value bits of each change.
+     */
+    private final    long[]   values;
+    /**
+     * Index mask, the capacity is a power of two.
+     */
+    private final    int      mask;
+    /**
+     * Values are doubles stored as raw long bits.
+     */
+    private final    boolean  isDouble;
+    /**
+     * Number of changes written, published after the entry so the consumer never reads a partial entry.
+     */
+    private volatile long     written          = 0;
+    /**
+     * Last sampled bits, producer only.
+     */
+    private          long     sampledBits;
+    /**
+     * A value has been sampled, producer only.
+     */
+    private          boolean  primed           = false;
+    /**
+     * Number of changes read, consumer only.
+     */
+    private          long     read             = 0;
+    /**
+     * Latest drained value bits, consumer only.
+     */
+    private          long     latestBits;
+    /**
+     * Timestamp of the latest drained change in seconds, consumer only.
+     */
+    private          double   latestTimestamp  = Double.NaN;
+    /**
+     * Last rising edge of the last drain in seconds, consumer only.
+     */
+    private          double   risingTimestamp  = Double.NaN;
+    /**
+     * Last falling edge of the last drain in seconds, consumer only.
+     */
+    private          double   fallingTimestamp = Double.NaN;
+    /**
+     * Changes of the last drain, consumer only.
+     */
+    private          int      changes          = 0;
+    /**
+     * Changes overwritten before they were drained, consumer only.
+     */
+    private          long     overruns         = 0;
+
+    /**
+     * Create a ring buffer.
+     *
+     * @param capacity Capacity, a power of two.
+     * @param isDouble Values are doubles stored as raw long bits.
+     */
+    Ring(int capacity, boolean isDouble)
+    {
+      timestamps = new double[capacity];
+      values = new long[capacity];
+      mask = capacity - 1;
+      this.isDouble = isDouble;
+    }
+
+    /**
+     * Write the value if it changed since the last sample. The first sample is always written.
+     *
+     * @param timestamp Sample timestamp in seconds.
+     * @param bits      Sampled value bits.
+     */
+    void offer(double timestamp, long bits)
+    {
+      if (primed && bits == sampledBits)
+      {
+        return;
+      }
+      primed = true;
+      sampledBits = bits;
+      long index = written;
+      timestamps[(int) index & mask] = timestamp;
+      values[(int) index & mask] = bits;
+      written = index + 1;
+    }
+
+    /**
+     * Read every change written since the last drain.
+     */
+    void drain()
+    {
+      risingTimestamp = Double.NaN;
+      fallingTimestamp = Double.NaN;
+      changes = 0;
+      long available = written;
+      if (available - read > timestamps.length)
+      {
+        overruns += available - read - timestamps.length;
+        read = available - timestamps.length;
+      }
+      for (; read < available; read++)
+      {
+        double timestamp = timestamps[(int) read & mask];
+        long   bits      = values[(int) read & mask];
+        if (written - read >= timestamps.length)
+        {
+          // The producer may have lapped this entry while it was read.
+          overruns++;
+          continue;
+        }
+        if (!Double.isNaN(latestTimestamp))
+        {
+          int direction = isDouble ? Double.compare(Double.longBitsToDouble(bits), Double.longBitsToDouble(latestBits))
+                                   : Long.compare(bits, latestBits);
+          if (direction > 0)
+          {
+            risingTimestamp = timestamp;
+          } else if (direction < 0)
+          {
+            fallingTimestamp = timestamp;
+          }
+          changes++;
+        }
+        latestBits = bits;
+        latestTimestamp = timestamp;
+      }
+    }
+  }
+}
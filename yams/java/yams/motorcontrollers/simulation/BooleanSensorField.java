@@ -0,0 +1,82 @@
+package yams.motorcontrollers.simulation;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Typed handle to a boolean {@link SensorData} field, resolved once so every read is a direct primitive supplier call
+ * on the real robot without a name lookup or {@link edu.wpi.first.hal.HALValue} boxing.
+ */
+public final class BooleanSensorField implements BooleanSupplier
+{
+
+  /**
+   * Sensor field.
+   */
+  private final SensorData m_data;
+
+  /**
+   * Create the handle, use {@link SensorData#asBooleanField()} or {@link Sensor#getBooleanField(String)}.
+   *
+   * @param data {@link SensorData} of type boolean.
+   */
+  BooleanSensorField(SensorData data)
+  {
+    m_data = data;
+  }
+
+  /**
+   * Read the sensor value.
+   *
+   * @return Sensor value.
+   */
+  public boolean get()
+  {
+    return m_data.sampleBoolean();
+  }
+
+  @Override
+  public boolean getAsBoolean()
+  {
+    return get();
+  }
+
+  /**
+   * Check if the value changed in the last sample, requires {@link Sensor#enableCycleSampling()}.
+   *
+   * @return True if the value changed.
+   */
+  public boolean hasChanged()
+  {
+    return m_data.hasChanged();
+  }
+
+  /**
+   * Check if the value went from false to true in the last sample, requires {@link Sensor#enableCycleSampling()}.
+   *
+   * @return True on a rising edge.
+   */
+  public boolean isRisingEdge()
+  {
+    return m_data.isRisingEdge();
+  }
+
+  /**
+   * Check if the value went from true to false in the last sample, requires {@link Sensor#enableCycleSampling()}.
+   *
+   * @return True on a falling edge.
+   */
+  public boolean isFallingEdge()
+  {
+    return m_data.isFallingEdge();
+  }
+
+  /**
+   * Get the sensor field.
+   *
+   * @return {@link SensorData}.
+   */
+  public SensorData getData()
+  {
+    return m_data;
+  }
+}
@@ -14,7 +14,6 @@ import edu.wpi.first.units.measure.Current;
 import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.simulation.DCMotorSim;
-import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import java.util.function.Supplier;
 import yams.gearing.MechanismGearing;
 import yams.motorcontrollers.SimSupplier;
@@ -56,18 +55,23 @@ public class DCMotorSimSupplier implements SimSupplier
   {
     if (!isInputFed())
     {
-      sim.setInputVoltage(motorDutyCycleSupplier.get() * RoboRioSim.getVInVoltage());
+      sim.setInputVoltage(motorDutyCycleSupplier.get() * SimPowerBus.getOutputVoltage());
     }
     if (!simUpdated)
     {
       starveInput();
+      // The DCMotorSim is discretized exactly for the held input, sub-stepping it would not change the result.
       sim.update(period.in(Seconds));
-      try
+      if (!SimClock.isEnabled())
       {
-        Thread.sleep(1);
-      } catch (Exception e)
-      {
-
+        // Give the real time closed loop Notifier a chance to run, the sim clock runs it on simulated time instead.
+        try
+        {
+          Thread.sleep(1);
+        } catch (Exception e)
+        {
+
+        }
       }
       feedUpdateSim();
     }
@@ -114,13 +118,13 @@ public class DCMotorSimSupplier implements SimSupplier
   public void setMechanismStatorDutyCycle(double dutyCycle)
   {
     feedInput();
-    sim.setInputVoltage(dutyCycle * getMechanismSupplyVoltage().in(Volts));
+    sim.setInputVoltage(dutyCycle * SimPowerBus.getOutputVoltage());
   }
 
   @Override
   public Voltage getMechanismSupplyVoltage()
   {
-    return Volts.of(RoboRioSim.getVInVoltage());
+    return Volts.of(SimPowerBus.getSupplyVoltage());
   }
 
   @Override
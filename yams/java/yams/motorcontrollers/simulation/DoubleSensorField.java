@@ -0,0 +1,62 @@
+package yams.motorcontrollers.simulation;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Typed handle to a double {@link SensorData} field, resolved once so every read is a direct primitive supplier call on
+ * the real robot without a name lookup or {@link edu.wpi.first.hal.HALValue} boxing.
+ */
+public final class DoubleSensorField implements DoubleSupplier
+{
+
+  /**
+   * Sensor field.
+   */
+  private final SensorData m_data;
+
+  /**
+   * Create the handle, use {@link SensorData#asDoubleField()} or {@link Sensor#getDoubleField(String)}.
+   *
+   * @param data {@link SensorData} of type double.
+   */
+  DoubleSensorField(SensorData data)
+  {
+    m_data = data;
+  }
+
+  /**
+   * Read the sensor value.
+   *
+   * @return Sensor value.
+   */
+  public double get()
+  {
+    return m_data.sampleDouble();
+  }
+
+  @Override
+  public double getAsDouble()
+  {
+    return get();
+  }
+
+  /**
+   * Check if the value changed in the last sample, requires {@link Sensor#enableCycleSampling()}.
+   *
+   * @return True if the value changed.
+   */
+  public boolean hasChanged()
+  {
+    return m_data.hasChanged();
+  }
+
+  /**
+   * Get the sensor field.
+   *
+   * @return {@link SensorData}.
+   */
+  public SensorData getData()
+  {
+    return m_data;
+  }
+}
@@ -0,0 +1,817 @@
+package yams.motorcontrollers.simulation;
+
+import static edu.wpi.first.units.Units.Kilograms;
+import static edu.wpi.first.units.Units.Meters;
+import static edu.wpi.first.units.Units.Radians;
+import static edu.wpi.first.units.Units.Rotations;
+import static edu.wpi.first.units.Units.RotationsPerSecond;
+import static edu.wpi.first.units.Units.Seconds;
+import static edu.wpi.first.units.Units.Volts;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
+import edu.wpi.first.units.measure.Distance;
+import edu.wpi.first.units.measure.Mass;
+import edu.wpi.first.units.measure.Time;
+import edu.wpi.first.units.measure.Voltage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import yams.gearing.MechanismGearing;
+import yams.motorcontrollers.SmartMotorControllerConfig.SimulationIntegrator;
+
+/**
+ * Headless gain sweep. Simulates independent copies of an Arm, Elevator, Pivot or FlyWheel plant with a YAMS style
+ * closed loop controller (PID, feedforward and an optional trapezoidal profile) for every candidate {@link Gains}, in
+ * parallel across all cores with fork-join, and ranks the candidates on settling time, overshoot and current.
+ * <p>
+ * The plants are stepped by a {@link PlantIntegrator} like the YAMS simulations and the controllers are plain primitive
+ * math, no HAL, NetworkTables or {@link yams.motorcontrollers.SmartMotorController} is created, so thousands of
+ * candidates can be evaluated off-robot.
+ * Positions are in rotations (meters for elevators) and velocities in rotations per second (meters per second for
+ * elevators), matching the units the {@link yams.motorcontrollers.SmartMotorController} closed loop uses.
+ */
+public class GainSweep
+{
+
+  /**
+   * Candidates per fork-join leaf task.
+   */
+  private static final int                  TASK_THRESHOLD    = 8;
+  /**
+   * Plant to simulate.
+   */
+  private final        Plant                m_plant;
+  /**
+   * Start of the step, in controller units.
+   */
+  private              double               m_start           = 0;
+  /**
+   * Goal of the step, in controller units.
+   */
+  private              double               m_goal            = 0;
+  /**
+   * Simulated duration of each run in seconds.
+   */
+  private              double               m_durationSeconds = 3;
+  /**
+   * Controller period in seconds.
+   */
+  private              double               m_periodSeconds   = 0.02;
+  /**
+   * Physics steps per controller period.
+   */
+  private              int                  m_substeps        = 20;
+  /**
+   * {@link SimulationIntegrator} stepping the plant.
+   */
+  private              SimulationIntegrator m_integrator      = SimulationIntegrator.SEMI_IMPLICIT_EULER;
+  /**
+   * Supply voltage.
+   */
+  private              double               m_supplyVolts     = 12;
+  /**
+   * Settling tolerance in controller units.
+   */
+  private              double               m_tolerance       = 0.01;
+  /**
+   * Score weight of the settling time, per second.
+   */
+  private              double               m_settlingWeight  = 1;
+  /**
+   * Score weight of the overshoot, per fraction of the step.
+   */
+  private              double               m_overshootWeight = 1;
+  /**
+   * Score weight of the RMS current, per amp.
+   */
+  private              double               m_currentWeight   = 0.01;
+
+  /**
+   * Create a gain sweep for a plant.
+   *
+   * @param plant {@link Plant} to simulate.
+   */
+  public GainSweep(Plant plant)
+  {
+    m_plant = plant;
+  }
+
+  /**
+   * Set the position step for Arm and Pivot plants.
+   *
+   * @param from Starting {@link Angle}.
+   * @param to   Goal {@link Angle}.
+   * @return {@link GainSweep} for chaining.
+   */
+  public GainSweep withStep(Angle from, Angle to)
+  {
+    m_start = from.in(Rotations);
+    m_goal = to.in(Rotations);
+    return this;
+  }
+
+  /**
+   * Set the height step for Elevator plants.
+   *
+   * @param from Starting height.
+   * @param to   Goal height.
+   * @return {@link GainSweep} for chaining.
+   */
+  public GainSweep withStep(Distance from, Distance to)
+  {
+    m_start = from.in(Meters);
+    m_goal = to.in(Meters);
+    return this;
+  }
+
+  /**
+   * Set the velocity step for FlyWheel plants.
+   *
+   * @param from Starting {@link AngularVelocity}.
+   * @param to   Goal {@link AngularVelocity}.
+   * @return {@link GainSweep} for chaining.
+   */
+  public GainSweep withStep(AngularVelocity from, AngularVelocity to)
+  {
+    m_start = from.in(RotationsPerSecond);
+    m_goal = to.in(RotationsPerSecond);
+    return this;
+  }
+
+  /**
+   * Set the simulated duration of every run.
+   *
+   * @param duration Simulated duration.
+   * @return {@link GainSweep} for chaining.
+   */
+  public GainSweep withDuration(Time duration)
+  {
+    m_durationSeconds = duration.in(Seconds);
+    return this;
+  }
+
+  /**
+   * Set the controller period and the number of physics steps per period, the controller output is held across the
+   * physics steps.
+   *
+   * @param period   Controller period.
+   * @param substeps Physics steps per controller period.
+   * @return {@link GainSweep} for chaining.
+   */
+  public GainSweep withPeriod(Time period, int substeps)
+  {
+    m_periodSeconds = period.in(Seconds);
+    m_substeps = Math.max(1, substeps);
+    return this;
+  }
+
+  /**
+   * Set the {@link SimulationIntegrator} stepping the plant, semi-implicit Euler by default like the YAMS simulations.
+   *
+   * @param integrator {@link SimulationIntegrator} to step the plant with.
+   * @return {@link GainSweep} for chaining.
+   */
+  public GainSweep withIntegrator(SimulationIntegrator integrator)
+  {
+    m_integrator = integrator;
+    return this;
+  }
+
+  /**
+   * Set the supply voltage, the controller output is clamped to it.
+   *
+   * @param supply Supply {@link Voltage}.
+   * @return {@link GainSweep} for chaining.
+   */
+  public GainSweep withSupplyVoltage(Voltage supply)
+  {
+    m_supplyVolts = supply.in(Volts);
+    return this;
+  }
+
+  /**
+   * Set the settling tolerance, in rotations, meters or rotations per second depending on the plant.
+   *
+   * @param tolerance Settling tolerance.
+   * @return {@link GainSweep} for chaining.
+   */
+  public GainSweep withTolerance(double tolerance)
+  {
+    m_tolerance = tolerance;
+    return this;
+  }
+
+  /**
+   * Set the score weights, lower scores rank first.
+   *
+   * @param settling  Weight of the settling time in seconds.
+   * @param overshoot Weight of the overshoot as a fraction of the step.
+   * @param current   Weight of the RMS current in amps.
+   * @return {@link GainSweep} for chaining.
+   */
+  public GainSweep withScoreWeights(double settling, double overshoot, double current)
+  {
+    m_settlingWeight = settling;
+    m_overshootWeight = overshoot;
+    m_currentWeight = current;
+    return this;
+  }
+
+  /**
+   * Simulate every candidate in parallel and rank them.
+   *
+   * @param candidates Candidate {@link Gains}.
+   * @return {@link Result}s sorted from the best to the worst score.
+   */
+  public List<Result> run(List<Gains> candidates)
+  {
+    Gains[]  gains   = candidates.toArray(new Gains[0]);
+    Result[] results = new Result[gains.length];
+    ForkJoinPool.commonPool().invoke(new SweepTask(gains, results, 0, gains.length));
+    List<Result> ranked = new ArrayList<>(Arrays.asList(results));
+    ranked.sort(Comparator.comparingDouble(Result::getScore));
+    return ranked;
+  }
+
+  /**
+   * Simulate a single candidate.
+   *
+   * @param gains Candidate {@link Gains}.
+   * @return {@link Result} of the run.
+   */
+  public Result simulate(Gains gains)
+  {
+    Plant           plant      = m_plant;
+    boolean         velocity   = plant.m_type == PlantType.FLYWHEEL;
+    double          dt         = m_periodSeconds / m_substeps;
+    int             periods    = (int) Math.round(m_durationSeconds / m_periodSeconds);
+    PlantIntegrator integrator = plant.createIntegrator(m_integrator);
+
+    // Plant state in SI units, radians or meters.
+    integrator.setState(velocity ? 0 : plant.toSI(m_start), velocity ? plant.toSI(m_start) : 0);
+    // Profile setpoint in controller units.
+    double setpoint         = m_start;
+    double setpointVelocity = 0;
+    double integral         = 0;
+    double previousError    = Double.NaN;
+
+    double step         = m_goal - m_start;
+    double direction    = Math.signum(step);
+    double lastOutside  = 0;
+    double overshoot    = 0;
+    double peakCurrent  = 0;
+    double currentSumSq = 0;
+
+    for (int period = 0; period < periods; period++)
+    {
+      double measurement = plant.fromSI(velocity ? integrator.getVelocity() : integrator.getPosition());
+
+      // Trapezoidal profile toward the goal.
+      double acceleration = 0;
+      if (!velocity && gains.maxVelocity > 0 && gains.maxAcceleration > 0)
+      {
+        double remaining      = m_goal - setpoint;
+        double stopping       = Math.sqrt(2 * gains.maxAcceleration * Math.abs(remaining));
+        double targetVelocity = Math.signum(remaining) * Math.min(gains.maxVelocity, stopping);
+        double maxChange      = gains.maxAcceleration * m_periodSeconds;
+        double nextVelocity   = setpointVelocity + Math.max(-maxChange,
+                                                            Math.min(maxChange, targetVelocity - setpointVelocity));
+        acceleration = (nextVelocity - setpointVelocity) / m_periodSeconds;
+        setpoint += (setpointVelocity + nextVelocity) / 2 * m_periodSeconds;
+        setpointVelocity = nextVelocity;
+        if (Math.signum(m_goal - setpoint) != Math.signum(remaining))
+        {
+          setpoint = m_goal;
+          setpointVelocity = 0;
+        }
+      } else
+      {
+        setpoint = m_goal;
+        setpointVelocity = 0;
+      }
+
+      // PID on the measurement.
+      double error = setpoint - measurement;
+      integral += error * m_periodSeconds;
+      double derivative = Double.isNaN(previousError) ? 0 : (error - previousError) / m_periodSeconds;
+      previousError = error;
+      double output = gains.kP * error + gains.kI * integral + gains.kD * derivative;
+
+      // Feedforward.
+      double ffVelocity = velocity ? m_goal : setpointVelocity;
+      output += gains.kS * Math.signum(ffVelocity) + gains.kV * ffVelocity + gains.kA * acceleration;
+      if (plant.m_type == PlantType.ARM)
+      {
+        output += gains.kG * Math.cos(Rotations.of(setpoint).in(Radians));
+      } else if (plant.m_type == PlantType.ELEVATOR)
+      {
+        output += gains.kG;
+      }
+      double volts = Math.max(-m_supplyVolts, Math.min(m_supplyVolts, output));
+
+      // Zero-order hold the voltage across the physics steps, one at a time to sample the current of each.
+      double periodCurrentSumSq = 0;
+      for (int i = 0; i < m_substeps; i++)
+      {
+        double current = plant.current(integrator.getVelocity(), volts);
+        integrator.step(volts, dt, 1);
+        peakCurrent = Math.max(peakCurrent, Math.abs(current));
+        periodCurrentSumSq += current * current;
+      }
+      currentSumSq += periodCurrentSumSq / m_substeps;
+
+      double measured = plant.fromSI(velocity ? integrator.getVelocity() : integrator.getPosition());
+      double time     = (period + 1) * m_periodSeconds;
+      if (Math.abs(m_goal - measured) > m_tolerance)
+      {
+        lastOutside = time;
+      }
+      overshoot = Math.max(overshoot, (measured - m_goal) * direction);
+    }
+    double settlingTime      = lastOutside >= periods * m_periodSeconds ? Double.POSITIVE_INFINITY : lastOutside;
+    double rmsCurrent        = Math.sqrt(currentSumSq / Math.max(1, periods));
+    double overshootFraction = step == 0 ? overshoot : overshoot / Math.abs(step);
+    // Runs that never settle are penalized as if they settled long after the end of the run.
+    double score = (Double.isInfinite(settlingTime) ? m_durationSeconds * 10 : settlingTime) * m_settlingWeight +
+                   overshootFraction * m_overshootWeight + rmsCurrent * m_currentWeight;
+    return new Result(gains, settlingTime, overshoot, peakCurrent, rmsCurrent, score);
+  }
+
+  /**
+   * Fork-join task simulating a range of candidates.
+   */
+  private class SweepTask extends RecursiveAction
+  {
+
+    /**
+     * Candidates.
+     */
+    private final Gains[]  m_gains;
+    /**
+     * Results, indexed like the candidates.
+     */
+    private final Result[] m_results;
+    /**
+     * First candidate of the range.
+     */
+    private final int      m_from;
+    /**
+     * End of the range, exclusive.
+     */
+    private final int      m_to;
+
+    /**
+     * Create the task.
+     *
+     * @param gains   Candidates.
+     * @param results Results array to fill.
+     * @param from    First candidate of the range.
+     * @param to      End of the range, exclusive.
+     */
+    SweepTask(Gains[] gains, Result[] results, int from, int to)
+    {
+      m_gains = gains;
+      m_results = results;
+      m_from = from;
+      m_to = to;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (m_to - m_from <= TASK_THRESHOLD)
+      {
+        for (int i = m_from; i < m_to; i++)
+        {
+          m_results[i] = simulate(m_gains[i]);
+        }
+        return;
+      }
+      int middle = (m_from + m_to) >>> 1;
+      invokeAll(new SweepTask(m_gains, m_results, m_from, middle), new SweepTask(m_gains, m_results, middle, m_to));
+    }
+  }
+
+  /**
+   * Plant types.
+   */
+  public enum PlantType
+  {
+    /**
+     * Single jointed arm with gravity, position controlled.
+     */
+    ARM,
+    /**
+     * Elevator carriage with gravity, position controlled.
+     */
+    ELEVATOR,
+    /**
+     * Pivot without gravity, position controlled.
+     */
+    PIVOT,
+    /**
+     * FlyWheel, velocity controlled.
+     */
+    FLYWHEEL
+  }
+
+  /**
+   * Immutable plant description.
+   */
+  public static class Plant
+  {
+
+    /**
+     * Plant type.
+     */
+    private final PlantType m_type;
+    /**
+     * Motor.
+     */
+    private final DCMotor   m_motor;
+    /**
+     * Mechanism to rotor ratio.
+     */
+    private final double    m_gearing;
+    /**
+     * Moment of inertia in kg m^2, or carriage mass in kg for elevators.
+     */
+    private final double    m_inertia;
+    /**
+     * Arm length or drum radius in meters.
+     */
+    private final double    m_length;
+    /**
+     * Lower hard limit in radians or meters.
+     */
+    private final double    m_min;
+    /**
+     * Upper hard limit in radians or meters.
+     */
+    private final double    m_max;
+
+    /**
+     * Create the plant.
+     *
+     * @param type    Plant type.
+     * @param motor   Motor.
+     * @param gearing Mechanism to rotor ratio.
+     * @param inertia Moment of inertia in kg m^2, or carriage mass in kg for elevators.
+     * @param length  Arm length or drum radius in meters.
+     * @param min     Lower hard limit in radians or meters.
+     * @param max     Upper hard limit in radians or meters.
+     */
+    private Plant(PlantType type, DCMotor motor, double gearing, double inertia, double length, double min,
+                  double max)
+    {
+      m_type = type;
+      m_motor = motor;
+      m_gearing = gearing;
+      m_inertia = inertia;
+      m_length = length;
+      m_min = min;
+      m_max = max;
+    }
+
+    /**
+     * Arm plant, modeled like {@link edu.wpi.first.wpilibj.simulation.SingleJointedArmSim}.
+     *
+     * @param motor  Motor.
+     * @param gears  {@link MechanismGearing}.
+     * @param moi    Moment of inertia in kg m^2.
+     * @param length Arm length.
+     * @param lower  Lower hard limit.
+     * @param upper  Upper hard limit.
+     * @return Arm {@link Plant}.
+     */
+    public static Plant arm(DCMotor motor, MechanismGearing gears, double moi, Distance length, Angle lower,
+                            Angle upper)
+    {
+      return new Plant(PlantType.ARM, motor, gears.getMechanismToRotorRatio(), moi, length.in(Meters),
+                       lower.in(Radians), upper.in(Radians));
+    }
+
+    /**
+     * Elevator plant, modeled like {@link edu.wpi.first.wpilibj.simulation.ElevatorSim}.
+     *
+     * @param motor      Motor.
+     * @param gears      {@link MechanismGearing}.
+     * @param carriage   Carriage mass.
+     * @param drumRadius Drum radius.
+     * @param minHeight  Minimum height.
+     * @param maxHeight  Maximum height.
+     * @return Elevator {@link Plant}.
+     */
+    public static Plant elevator(DCMotor motor, MechanismGearing gears, Mass carriage, Distance drumRadius,
+                                 Distance minHeight, Distance maxHeight)
+    {
+      return new Plant(PlantType.ELEVATOR, motor, gears.getMechanismToRotorRatio(), carriage.in(Kilograms),
+                       drumRadius.in(Meters), minHeight.in(Meters), maxHeight.in(Meters));
+    }
+
+    /**
+     * Pivot plant, modeled like {@link edu.wpi.first.wpilibj.simulation.DCMotorSim}.
+     *
+     * @param motor Motor.
+     * @param gears {@link MechanismGearing}.
+     * @param moi   Moment of inertia in kg m^2.
+     * @return Pivot {@link Plant}.
+     */
+    public static Plant pivot(DCMotor motor, MechanismGearing gears, double moi)
+    {
+      return new Plant(PlantType.PIVOT, motor, gears.getMechanismToRotorRatio(), moi, 0,
+                       Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * FlyWheel plant, modeled like {@link edu.wpi.first.wpilibj.simulation.DCMotorSim}.
+     *
+     * @param motor Motor.
+     * @param gears {@link MechanismGearing}.
+     * @param moi   Moment of inertia in kg m^2.
+     * @return FlyWheel {@link Plant}.
+     */
+    public static Plant flywheel(DCMotor motor, MechanismGearing gears, double moi)
+    {
+      return new Plant(PlantType.FLYWHEEL, motor, gears.getMechanismToRotorRatio(), moi, 0,
+                       Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Convert controller units (rotations or meters) to plant units (radians or meters).
+     *
+     * @param value Value in controller units.
+     * @return Value in plant units.
+     */
+    private double toSI(double value)
+    {
+      return m_type == PlantType.ELEVATOR ? value : value * 2 * Math.PI;
+    }
+
+    /**
+     * Convert plant units (radians or meters) to controller units (rotations or meters).
+     *
+     * @param value Value in plant units.
+     * @return Value in controller units.
+     */
+    private double fromSI(double value)
+    {
+      return m_type == PlantType.ELEVATOR ? value : value / (2 * Math.PI);
+    }
+
+    /**
+     * Motor current for the mechanism velocity and applied voltage.
+     *
+     * @param velocity Mechanism velocity in rad/s or m/s.
+     * @param volts    Applied voltage.
+     * @return Current in amps.
+     */
+    private double current(double velocity, double volts)
+    {
+      double rotorVelocity = (m_type == PlantType.ELEVATOR ? velocity / m_length : velocity) * m_gearing;
+      return m_motor.getCurrent(rotorVelocity, volts);
+    }
+
+    /**
+     * Create a {@link PlantIntegrator} stepping an independent copy of the plant.
+     *
+     * @param method {@link SimulationIntegrator} to step the plant with.
+     * @return {@link PlantIntegrator}, position in radians or meters.
+     */
+    private PlantIntegrator createIntegrator(SimulationIntegrator method)
+    {
+      return switch (m_type)
+      {
+        case ARM -> PlantIntegrator.forArm(m_motor, m_gearing, m_inertia, m_length, m_min, m_max, true, method);
+        case ELEVATOR -> PlantIntegrator.forElevator(m_motor, m_gearing, m_inertia, m_length, m_min, m_max, true,
+                                                     method);
+        case PIVOT, FLYWHEEL -> PlantIntegrator.forDCMotor(m_motor, m_gearing, m_inertia, method);
+      };
+    }
+  }
+
+  /**
+   * Candidate closed loop gains, in volts per rotation (meter for elevators) like the
+   * {@link yams.motorcontrollers.SmartMotorController} closed loop.
+   */
+  public static class Gains
+  {
+
+    /**
+     * Proportional gain.
+     */
+    private double kP;
+    /**
+     * Integral gain.
+     */
+    private double kI;
+    /**
+     * Derivative gain.
+     */
+    private double kD;
+    /**
+     * Static gain.
+     */
+    private double kS;
+    /**
+     * Gravity gain, only used by Arm and Elevator plants.
+     */
+    private double kG;
+    /**
+     * Velocity gain.
+     */
+    private double kV;
+    /**
+     * Acceleration gain.
+     */
+    private double kA;
+    /**
+     * Profile maximum velocity, 0 for no profile.
+     */
+    private double maxVelocity;
+    /**
+     * Profile maximum acceleration, 0 for no profile.
+     */
+    private double maxAcceleration;
+
+    /**
+     * Set the feedback gains.
+     *
+     * @param kP Proportional gain.
+     * @param kI Integral gain.
+     * @param kD Derivative gain.
+     * @return {@link Gains} for chaining.
+     */
+    public Gains withFeedback(double kP, double kI, double kD)
+    {
+      this.kP = kP;
+      this.kI = kI;
+      this.kD = kD;
+      return this;
+    }
+
+    /**
+     * Set the feedforward gains.
+     *
+     * @param kS Static gain.
+     * @param kG Gravity gain.
+     * @param kV Velocity gain.
+     * @param kA Acceleration gain.
+     * @return {@link Gains} for chaining.
+     */
+    public Gains withFeedforward(double kS, double kG, double kV, double kA)
+    {
+      this.kS = kS;
+      this.kG = kG;
+      this.kV = kV;
+      this.kA = kA;
+      return this;
+    }
+
+    /**
+     * Set the trapezoidal profile constraints, in rotations (meters for elevators) per second.
+     *
+     * @param maxVelocity     Maximum velocity.
+     * @param maxAcceleration Maximum acceleration.
+     * @return {@link Gains} for chaining.
+     */
+    public Gains withProfile(double maxVelocity, double maxAcceleration)
+    {
+      this.maxVelocity = maxVelocity;
+      this.maxAcceleration = maxAcceleration;
+      return this;
+    }
+
+    @Override
+    public String toString()
+    {
+      return "Gains[kP=" + kP + ", kI=" + kI + ", kD=" + kD + ", kS=" + kS + ", kG=" + kG + ", kV=" + kV +
+             ", kA=" + kA + ", maxVelocity=" + maxVelocity + ", maxAcceleration=" + maxAcceleration + "]";
+    }
+  }
+
+  /**
+   * Result of a simulated candidate.
+   */
+  public static class Result
+  {
+
+    /**
+     * Candidate gains.
+     */
+    private final Gains  m_gains;
+    /**
+     * Settling time in seconds, infinite if the run never settled.
+     */
+    private final double m_settlingTime;
+    /**
+     * Overshoot past the goal, in controller units.
+     */
+    private final double m_overshoot;
+    /**
+     * Peak current in amps.
+     */
+    private final double m_peakCurrent;
+    /**
+     * RMS current in amps.
+     */
+    private final double m_rmsCurrent;
+    /**
+     * Weighted score, lower is better.
+     */
+    private final double m_score;
+
+    /**
+     * Create the result.
+     *
+     * @param gains        Candidate gains.
+     * @param settlingTime Settling time in seconds.
+     * @param overshoot    Overshoot in controller units.
+     * @param peakCurrent  Peak current in amps.
+     * @param rmsCurrent   RMS current in amps.
+     * @param score        Weighted score.
+     */
+    private Result(Gains gains, double settlingTime, double overshoot, double peakCurrent, double rmsCurrent,
+                   double score)
+    {
+      m_gains = gains;
+      m_settlingTime = settlingTime;
+      m_overshoot = overshoot;
+      m_peakCurrent = peakCurrent;
+      m_rmsCurrent = rmsCurrent;
+      m_score = score;
+    }
+
+    /**
+     * Get the candidate gains.
+     *
+     * @return {@link Gains}.
+     */
+    public Gains getGains()
+    {
+      return m_gains;
+    }
+
+    /**
+     * Get the settling time.
+     *
+     * @return Settling time in seconds, infinite if the run never settled.
+     */
+    public double getSettlingTime()
+    {
+      return m_settlingTime;
+    }
+
+    /**
+     * Get the overshoot past the goal.
+     *
+     * @return Overshoot in rotations, meters or rotations per second.
+     */
+    public double getOvershoot()
+    {
+      return m_overshoot;
+    }
+
+    /**
+     * Get the peak current.
+     *
+     * @return Peak current in amps.
+     */
+    public double getPeakCurrent()
+    {
+      return m_peakCurrent;
+    }
+
+    /**
+     * Get the RMS current.
+     *
+     * @return RMS current in amps.
+     */
+    public double getRmsCurrent()
+    {
+      return m_rmsCurrent;
+    }
+
+    /**
+     * Get the weighted score.
+     *
+     * @return Score, lower is better.
+     */
+    public double getScore()
+    {
+      return m_score;
+    }
+
+    @Override
+    public String toString()
+    {
+      return m_gains + " score=" + m_score + ", settling=" + m_settlingTime + "s, overshoot=" + m_overshoot +
+             ", peakCurrent=" + m_peakCurrent + "A, rmsCurrent=" + m_rmsCurrent + "A";
+    }
+  }
+}
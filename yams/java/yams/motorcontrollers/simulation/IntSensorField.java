@@ -0,0 +1,62 @@
+package yams.motorcontrollers.simulation;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Typed handle to an int {@link SensorData} field, resolved once so every read is a direct primitive supplier call on
+ * the real robot without a name lookup or {@link edu.wpi.first.hal.HALValue} boxing.
+ */
+public final class IntSensorField implements IntSupplier
+{
+
+  /**
+   * Sensor field.
+   */
+  private final SensorData m_data;
+
+  /**
+   * Create the handle, use {@link SensorData#asIntField()} or {@link Sensor#getIntField(String)}.
+   *
+   * @param data {@link SensorData} of type int.
+   */
+  IntSensorField(SensorData data)
+  {
+    m_data = data;
+  }
+
+  /**
+   * Read the sensor value.
+   *
+   * @return Sensor value.
+   */
+  public int get()
+  {
+    return (int) m_data.sampleLong();
+  }
+
+  @Override
+  public int getAsInt()
+  {
+    return get();
+  }
+
+  /**
+   * Check if the value changed in the last sample, requires {@link Sensor#enableCycleSampling()}.
+   *
+   * @return True if the value changed.
+   */
+  public boolean hasChanged()
+  {
+    return m_data.hasChanged();
+  }
+
+  /**
+   * Get the sensor field.
+   *
+   * @return {@link SensorData}.
+   */
+  public SensorData getData()
+  {
+    return m_data;
+  }
+}
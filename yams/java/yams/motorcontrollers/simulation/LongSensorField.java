@@ -0,0 +1,62 @@
+package yams.motorcontrollers.simulation;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Typed handle to a long {@link SensorData} field, resolved once so every read is a direct primitive supplier call on
+ * the real robot without a name lookup or {@link edu.wpi.first.hal.HALValue} boxing.
+ */
+public final class LongSensorField implements LongSupplier
+{
+
+  /**
+   * Sensor field.
+   */
+  private final SensorData m_data;
+
+  /**
+   * Create the handle, use {@link SensorData#asLongField()} or {@link Sensor#getLongField(String)}.
+   *
+   * @param data {@link SensorData} of type long.
+   */
+  LongSensorField(SensorData data)
+  {
+    m_data = data;
+  }
+
+  /**
+   * Read the sensor value.
+   *
+   * @return Sensor value.
+   */
+  public long get()
+  {
+    return m_data.sampleLong();
+  }
+
+  @Override
+  public long getAsLong()
+  {
+    return get();
+  }
+
+  /**
+   * Check if the value changed in the last sample, requires {@link Sensor#enableCycleSampling()}.
+   *
+   * @return True if the value changed.
+   */
+  public boolean hasChanged()
+  {
+    return m_data.hasChanged();
+  }
+
+  /**
+   * Get the sensor field.
+   *
+   * @return {@link SensorData}.
+   */
+  public SensorData getData()
+  {
+    return m_data;
+  }
+}
@@ -0,0 +1,266 @@
+package yams.motorcontrollers.simulation;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import yams.math.SmartMath;
+import yams.motorcontrollers.SmartMotorControllerConfig.SimulationIntegrator;
+
+/**
+ * Fixed-step integrator for a motor driven plant with one degree of freedom, e.g. an arm or an elevator, stepped on
+ * primitive position and velocity. The plant is
+ * <pre>
+ * x'' = b u - k x' + g(x)
+ * </pre>
+ * with the input voltage u held over the whole control period (zero-order hold), the motor gain b, the back EMF
+ * damping k and the position dependent acceleration g, e.g. gravity. The YAMS arm and elevator simulations step it
+ * when a physics period is set, the WPILib plant is then only written once per control period with the result.
+ */
+public final class PlantIntegrator
+{
+
+  /**
+   * Acceleration per volt of input.
+   */
+  private final double               m_inputGain;
+  /**
+   * Back EMF damping in 1/s.
+   */
+  private final double               m_damping;
+  /**
+   * Position dependent acceleration.
+   */
+  private final PositionAcceleration m_external;
+  /**
+   * Minimum position.
+   */
+  private final double               m_min;
+  /**
+   * Maximum position.
+   */
+  private final double               m_max;
+  /**
+   * Integration method.
+   */
+  private final SimulationIntegrator m_method;
+  /**
+   * Plant position.
+   */
+  private       double               m_position;
+  /**
+   * Plant velocity.
+   */
+  private       double               m_velocity;
+
+  /**
+   * Position dependent acceleration of the plant, e.g. gravity.
+   */
+  @FunctionalInterface
+  public interface PositionAcceleration
+  {
+
+    /**
+     * Get the acceleration at the given position.
+     *
+     * @param position Plant position.
+     * @return Acceleration.
+     */
+    double get(double position);
+  }
+
+  /**
+   * Create the plant integrator.
+   *
+   * @param inputGain Acceleration per volt of input.
+   * @param damping   Back EMF damping in 1/s.
+   * @param external  Position dependent acceleration, e.g. gravity.
+   * @param min       Minimum position, the plant stops there.
+   * @param max       Maximum position, the plant stops there.
+   * @param method    {@link SimulationIntegrator} to step the plant with.
+   */
+  public PlantIntegrator(double inputGain, double damping, PositionAcceleration external, double min, double max,
+                         SimulationIntegrator method)
+  {
+    m_inputGain = inputGain;
+    m_damping = damping;
+    m_external = external;
+    m_min = min;
+    m_max = max;
+    m_method = method;
+  }
+
+  /**
+   * Create the plant integrator of a single jointed arm, a uniform rod pivoting at one end like
+   * {@link edu.wpi.first.wpilibj.simulation.SingleJointedArmSim}.
+   *
+   * @param motor           {@link DCMotor} of the arm.
+   * @param reduction       Reduction from the arm to the rotor.
+   * @param moiKgMetersSq   Moment of inertia of the arm about its pivot in kg m^2.
+   * @param lengthMeters    Arm length in meters.
+   * @param minAngleRadians Lower hard limit from horizontal in radians.
+   * @param maxAngleRadians Upper hard limit from horizontal in radians.
+   * @param simulateGravity Whether gravity acts on the arm.
+   * @param method          {@link SimulationIntegrator} to step the arm with.
+   * @return Arm {@link PlantIntegrator}, position in radians.
+   */
+  public static PlantIntegrator forArm(DCMotor motor, double reduction, double moiKgMetersSq, double lengthMeters,
+                                       double minAngleRadians, double maxAngleRadians, boolean simulateGravity,
+                                       SimulationIntegrator method)
+  {
+    double inputGain = reduction * motor.KtNMPerAmp / (motor.rOhms * moiKgMetersSq);
+    double damping   = reduction * reduction * motor.KtNMPerAmp /
+                       (motor.KvRadPerSecPerVolt * motor.rOhms * moiKgMetersSq);
+    double gravity   = simulateGravity ? -SmartMath.GRAVITY * 3.0 / (2 * lengthMeters) : 0;
+    return new PlantIntegrator(inputGain, damping, angle -> gravity * Math.cos(angle), minAngleRadians,
+                               maxAngleRadians, method);
+  }
+
+  /**
+   * Create the plant integrator of an elevator carriage on a drum like
+   * {@link edu.wpi.first.wpilibj.simulation.ElevatorSim}.
+   *
+   * @param motor           {@link DCMotor} of the elevator.
+   * @param reduction       Reduction from the drum to the rotor.
+   * @param massKg          Carriage mass in kg.
+   * @param drumRadius      Drum radius in meters.
+   * @param minHeightMeters Minimum height in meters.
+   * @param maxHeightMeters Maximum height in meters.
+   * @param simulateGravity Whether gravity acts on the carriage.
+   * @param method          {@link SimulationIntegrator} to step the elevator with.
+   * @return Elevator {@link PlantIntegrator}, position in meters.
+   */
+  public static PlantIntegrator forElevator(DCMotor motor, double reduction, double massKg, double drumRadius,
+                                            double minHeightMeters, double maxHeightMeters, boolean simulateGravity,
+                                            SimulationIntegrator method)
+  {
+    double inputGain = reduction * motor.KtNMPerAmp / (motor.rOhms * drumRadius * massKg);
+    double damping   = reduction * reduction * motor.KtNMPerAmp /
+                       (motor.rOhms * drumRadius * drumRadius * massKg * motor.KvRadPerSecPerVolt);
+    double gravity   = simulateGravity ? -SmartMath.GRAVITY : 0;
+    return new PlantIntegrator(inputGain, damping, height -> gravity, minHeightMeters, maxHeightMeters, method);
+  }
+
+  /**
+   * Create the plant integrator of a motor turning an inertia without gravity or limits like
+   * {@link edu.wpi.first.wpilibj.simulation.DCMotorSim}, e.g. a pivot or a flywheel.
+   *
+   * @param motor         {@link DCMotor} turning the inertia.
+   * @param reduction     Reduction from the mechanism to the rotor.
+   * @param moiKgMetersSq Moment of inertia of the mechanism in kg m^2.
+   * @param method        {@link SimulationIntegrator} to step the mechanism with.
+   * @return {@link PlantIntegrator}, position in radians.
+   */
+  public static PlantIntegrator forDCMotor(DCMotor motor, double reduction, double moiKgMetersSq,
+                                           SimulationIntegrator method)
+  {
+    double inputGain = reduction * motor.KtNMPerAmp / (motor.rOhms * moiKgMetersSq);
+    double damping   = reduction * reduction * motor.KtNMPerAmp /
+                       (motor.KvRadPerSecPerVolt * motor.rOhms * moiKgMetersSq);
+    return new PlantIntegrator(inputGain, damping, position -> 0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                               method);
+  }
+
+  /**
+   * Set the plant state, e.g. from the WPILib plant before stepping so its resets are kept.
+   *
+   * @param position Plant position.
+   * @param velocity Plant velocity.
+   */
+  public void setState(double position, double velocity)
+  {
+    m_position = position;
+    m_velocity = velocity;
+  }
+
+  /**
+   * Step the plant over one control period with the input voltage held.
+   *
+   * @param volts     Input voltage held over the period.
+   * @param dtSeconds Control period in seconds.
+   * @param substeps  Number of fixed sub-steps in the period.
+   */
+  public void step(double volts, double dtSeconds, int substeps)
+  {
+    double h = dtSeconds / substeps;
+    for (int s = 0; s < substeps; s++)
+    {
+      if (m_method == SimulationIntegrator.RK4)
+      {
+        integrateRK4(volts, h);
+      } else
+      {
+        integrateSemiImplicitEuler(volts, h);
+      }
+      if (m_position < m_min || m_position > m_max)
+      {
+        m_position = Math.max(m_min, Math.min(m_max, m_position));
+        m_velocity = 0;
+      }
+    }
+  }
+
+  /**
+   * Integrate one sub-step with semi-implicit Euler, the back EMF damping taken at the end of the sub-step so high
+   * reductions stay stable.
+   *
+   * @param volts Input voltage.
+   * @param h     Sub-step in seconds.
+   */
+  private void integrateSemiImplicitEuler(double volts, double h)
+  {
+    m_velocity = (m_velocity + h * (m_inputGain * volts + m_external.get(m_position))) / (1 + h * m_damping);
+    m_position += h * m_velocity;
+  }
+
+  /**
+   * Integrate one sub-step with the classic fourth order Runge-Kutta method.
+   *
+   * @param volts Input voltage.
+   * @param h     Sub-step in seconds.
+   */
+  private void integrateRK4(double volts, double h)
+  {
+    double x  = m_position;
+    double v  = m_velocity;
+    double a1 = acceleration(volts, x, v);
+    double v2 = v + h / 2 * a1;
+    double a2 = acceleration(volts, x + h / 2 * v, v2);
+    double v3 = v + h / 2 * a2;
+    double a3 = acceleration(volts, x + h / 2 * v2, v3);
+    double v4 = v + h * a3;
+    double a4 = acceleration(volts, x + h * v3, v4);
+    m_position = x + h / 6 * (v + 2 * v2 + 2 * v3 + v4);
+    m_velocity = v + h / 6 * (a1 + 2 * a2 + 2 * a3 + a4);
+  }
+
+  /**
+   * Get the plant acceleration.
+   *
+   * @param volts    Input voltage.
+   * @param position Plant position.
+   * @param velocity Plant velocity.
+   * @return Acceleration.
+   */
+  private double acceleration(double volts, double position, double velocity)
+  {
+    return m_inputGain * volts - m_damping * velocity + m_external.get(position);
+  }
+
+  /**
+   * Get the plant position.
+   *
+   * @return Position.
+   */
+  public double getPosition()
+  {
+    return m_position;
+  }
+
+  /**
+   * Get the plant velocity.
+   *
+   * @return Velocity.
+   */
+  public double getVelocity()
+  {
+    return m_velocity;
+  }
+}
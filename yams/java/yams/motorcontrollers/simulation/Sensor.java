@@ -3,7 +3,9 @@ package yams.motorcontrollers.simulation;
 import edu.wpi.first.hal.HALValue;
 import edu.wpi.first.hal.SimDevice;
 import edu.wpi.first.hal.SimDevice.Direction;
+import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.wpilibj.RobotBase;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,18 +20,30 @@ import yams.mechanisms.config.SensorConfig;
 public class Sensor
 {
 
+  /**
+   * Sensors sampled once per loop by {@link #periodic()}.
+   */
+  private static Sensor[]                sampledSensors = new Sensor[0];
+  /**
+   * {@link #periodic()} has been called, from then on only it samples the fields.
+   */
+  private static volatile boolean        periodicCalled = false;
   /**
    * Simulated device.
    */
-  private final Optional<SimDevice>     m_simDevice;
+  private final  Optional<SimDevice>     m_simDevice;
   /**
    * Sensor name.
    */
-  private final String                  m_sensorName;
+  private final  String                  m_sensorName;
   /**
    * Simulated data.
    */
-  private final Map<String, SensorData> m_simData;
+  private final  Map<String, SensorData> m_simData;
+  /**
+   * Fields in the order they were given.
+   */
+  private final  SensorData[]            m_fields;
 
   /**
    * Sensor constructor, for a sensor that will report the real data when connected to the robot or Simulation GUI data
@@ -42,6 +56,11 @@ public class Sensor
   {
     m_sensorName = sensorName;
     m_simData = sensorFields.stream().collect(Collectors.toMap(SensorData::getName, entry -> entry));
+    m_fields = sensorFields.toArray(new SensorData[0]);
+    for (var field : sensorFields)
+    {
+      field.setInputLogName("Sensor/" + sensorName + "/" + field.getName());
+    }
     if (RobotBase.isSimulation())
     {
       m_simDevice = Optional.of(SimDevice.create("Sensor[" + sensorName + "]"));
@@ -63,6 +82,93 @@ public class Sensor
   public Sensor(SensorConfig cfg)
   {
     this(cfg.getName(), cfg.getFields());
+    if (cfg.isCycleSampled())
+    {
+      enableCycleSampling();
+    }
+  }
+
+  /**
+   * Read every field once per loop, so every read within a loop returns the same value without reading the sensor
+   * again and {@link SensorData#hasChanged()} and the edges are available. The fields are sampled now and by
+   * {@link #periodic()}, which should be called at the start of every robot loop. Until it is first called a field is
+   * sampled again on the first read after its sample is one loop old, afterwards only {@link #periodic()} samples so
+   * reads late in an overrunning loop still see the value and edges of that loop.
+   */
+  public void enableCycleSampling()
+  {
+    synchronized (Sensor.class)
+    {
+      for (Sensor sampled : sampledSensors)
+      {
+        if (sampled == this)
+        {
+          return;
+        }
+      }
+      sampledSensors = Arrays.copyOf(sampledSensors, sampledSensors.length + 1);
+      sampledSensors[sampledSensors.length - 1] = this;
+    }
+    sample();
+  }
+
+  /**
+   * Stop sampling the sensor once per loop, reads go to the sensor again and {@link #periodic()} no longer reads it.
+   */
+  public void disableCycleSampling()
+  {
+    synchronized (Sensor.class)
+    {
+      for (int i = 0; i < sampledSensors.length; i++)
+      {
+        if (sampledSensors[i] == this)
+        {
+          Sensor[] remaining = new Sensor[sampledSensors.length - 1];
+          System.arraycopy(sampledSensors, 0, remaining, 0, i);
+          System.arraycopy(sampledSensors, i + 1, remaining, i, remaining.length - i);
+          sampledSensors = remaining;
+          break;
+        }
+      }
+    }
+    for (SensorData field : m_fields)
+    {
+      field.stopSampling();
+    }
+  }
+
+  /**
+   * Read every field of this sensor once.
+   */
+  public void sample()
+  {
+    for (SensorData field : m_fields)
+    {
+      field.sample();
+    }
+  }
+
+  /**
+   * Sample every sensor with cycle sampling enabled. Call at the start of every robot loop, before the command
+   * scheduler runs.
+   */
+  public static void periodic()
+  {
+    periodicCalled = true;
+    for (Sensor sensor : sampledSensors)
+    {
+      sensor.sample();
+    }
+  }
+
+  /**
+   * Check if {@link #periodic()} has been called, otherwise reads sample stale fields again themselves.
+   *
+   * @return True once {@link #periodic()} has been called.
+   */
+  static boolean isPeriodicCalled()
+  {
+    return periodicCalled;
   }
 
   /**
@@ -80,11 +186,59 @@ public class Sensor
     return m_simData.get(name);
   }
 
+  /**
+   * Get a typed handle to a field, resolve it once during setup and read the handle in the loop.
+   *
+   * @param name Name of the field
+   * @return {@link DoubleSensorField} of the field.
+   * @throws IllegalStateException if the field is not a double.
+   */
+  public DoubleSensorField getDoubleField(String name)
+  {
+    return getField(name).asDoubleField();
+  }
+
+  /**
+   * Get a typed handle to a field, resolve it once during setup and read the handle in the loop.
+   *
+   * @param name Name of the field
+   * @return {@link IntSensorField} of the field.
+   * @throws IllegalStateException if the field is not an int.
+   */
+  public IntSensorField getIntField(String name)
+  {
+    return getField(name).asIntField();
+  }
+
+  /**
+   * Get a typed handle to a field, resolve it once during setup and read the handle in the loop.
+   *
+   * @param name Name of the field
+   * @return {@link LongSensorField} of the field.
+   * @throws IllegalStateException if the field is not a long.
+   */
+  public LongSensorField getLongField(String name)
+  {
+    return getField(name).asLongField();
+  }
+
+  /**
+   * Get a typed handle to a field, resolve it once during setup and read the handle in the loop.
+   *
+   * @param name Name of the field
+   * @return {@link BooleanSensorField} of the field.
+   * @throws IllegalStateException if the field is not a boolean.
+   */
+  public BooleanSensorField getBooleanField(String name)
+  {
+    return getField(name).asBooleanField();
+  }
+
   /**
    * Get a field from the simulated or real sensor.
    *
    * @param name Name of the field
-   * @return Value of the field as a double.
+   * @return Value of the field as a double. Use {@link #getDoubleField(String)} for fields read every loop.
    */
   public double getAsDouble(String name)
   {
@@ -124,6 +278,24 @@ public class Sensor
     return getField(name).getAsLong();
   }
 
+  /**
+   * Create an {@link AsyncSensorSampler} for fields of this sensor, to catch transitions faster than the robot loop.
+   *
+   * @param period   Sampling period, e.g. 1ms.
+   * @param capacity Number of changes buffered per field between two {@link AsyncSensorSampler#poll()}s.
+   * @param fields   Names of the fields to sample.
+   * @return {@link AsyncSensorSampler}, not started.
+   */
+  public AsyncSensorSampler createAsyncSampler(Time period, int capacity, String... fields)
+  {
+    SensorData[] data = new SensorData[fields.length];
+    for (int i = 0; i < fields.length; i++)
+    {
+      data[i] = getField(fields[i]);
+    }
+    return new AsyncSensorSampler(period, capacity, data);
+  }
+
   /**
    * Get the simulated device.
    *
@@ -146,4 +318,43 @@ public class Sensor
     getField(field).addSimTrigger(value, trigger);
   }
 
+  /**
+   * Set a simulated value during a match time window.
+   *
+   * @param field Field name to set.
+   * @param start {@link Time} at which to start the data simulation, inclusive.
+   * @param end   {@link Time} at which to end the data simulation, inclusive.
+   * @param value Value to simulate.
+   */
+  public void addSimValue(String field, Time start, Time end, double value)
+  {
+    getField(field).addSimValue(start, end, value);
+  }
+
+  /**
+   * Set a simulated value during a match time window.
+   *
+   * @param field Field name to set.
+   * @param start {@link Time} at which to start the data simulation, inclusive.
+   * @param end   {@link Time} at which to end the data simulation, inclusive.
+   * @param value Value to simulate.
+   */
+  public void addSimValue(String field, Time start, Time end, long value)
+  {
+    getField(field).addSimValue(start, end, value);
+  }
+
+  /**
+   * Set a simulated value during a match time window.
+   *
+   * @param field Field name to set.
+   * @param start {@link Time} at which to start the data simulation, inclusive.
+   * @param end   {@link Time} at which to end the data simulation, inclusive.
+   * @param value Value to simulate.
+   */
+  public void addSimValue(String field, Time start, Time end, boolean value)
+  {
+    getField(field).addSimValue(start, end, value);
+  }
+
 }
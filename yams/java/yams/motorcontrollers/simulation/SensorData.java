@@ -1,11 +1,16 @@
 package yams.motorcontrollers.simulation;
 
+import static edu.wpi.first.units.Units.Seconds;
+
 import edu.wpi.first.hal.HALValue;
 import edu.wpi.first.hal.SimDevice;
 import edu.wpi.first.hal.SimDevice.Direction;
 import edu.wpi.first.hal.SimValue;
 import edu.wpi.first.math.Pair;
+import edu.wpi.first.units.measure.Time;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.BooleanSupplier;
@@ -13,6 +18,8 @@ import java.util.function.DoubleSupplier;
 import java.util.function.IntSupplier;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
+import yams.math.YamsClock;
+import yams.telemetry.InputLog;
 
 /**
  * Sensor data class to encapsulate sensor data.
@@ -20,6 +27,12 @@ import java.util.function.Supplier;
 public class SensorData
 {
 
+  /**
+   * Age in seconds after which a sample is taken again on read while {@link Sensor#periodic()} is not called, one robot
+   * loop.
+   */
+  private static final double SAMPLE_MAX_AGE = 0.02;
+
   /**
    * Sensor name.
    */
@@ -36,18 +49,70 @@ public class SensorData
    * {@link HALValue} default value.
    */
   private final HALValue                                        m_defaultValue;
+  /**
+   * Robot is real, read once since it can not change.
+   */
+  private final boolean                                         m_real           = RobotBase.isReal();
+  /**
+   * Primitive supplier of double sensor values.
+   */
+  private final DoubleSupplier                                  m_doubleSupplier;
+  /**
+   * Primitive supplier of int, long and enum sensor values.
+   */
+  private final LongSupplier                                    m_longSupplier;
+  /**
+   * Primitive supplier of boolean sensor values.
+   */
+  private final BooleanSupplier                                 m_booleanSupplier;
   /**
    * Values, based off triggers.
    */
-  private       Optional<List<Pair<BooleanSupplier, HALValue>>> m_triggerValues = Optional.empty();
+  private       Optional<List<Pair<BooleanSupplier, HALValue>>> m_triggerValues  = Optional.empty();
+  /**
+   * Values, based off match time windows.
+   */
+  private final SensorSchedule                                  m_schedule       = new SensorSchedule();
+  /**
+   * Index of the scheduled event the {@link #m_scheduledValue} was created for, -1 if none is active.
+   */
+  private       int                                             m_scheduledEvent = -1;
+  /**
+   * Value of the active scheduled event.
+   */
+  private       HALValue                                        m_scheduledValue;
   /**
    * Sim value from Glass.
    */
-  private       Optional<SimValue>                              m_glassValue    = Optional.empty();
+  private       Optional<SimValue>                              m_glassValue     = Optional.empty();
   /**
    * Previous sensor value when override takes place.
    */
-  private       Optional<HALValue>                              m_prev          = Optional.empty();
+  private       Optional<HALValue>                              m_prev           = Optional.empty();
+  /**
+   * Name of the {@link InputLog} channel.
+   */
+  private       String                                          m_inputLogName;
+  /**
+   * {@link InputLog} channel, -1 until the value is first logged.
+   */
+  private       int                                             m_inputChannel   = -1;
+  /**
+   * Value is read once per loop by {@link #sample()}, reads return the sampled value.
+   */
+  private       boolean                                         m_sampled        = false;
+  /**
+   * Bits of the last sampled value, doubles as raw long bits and booleans as 0 or 1.
+   */
+  private       long                                            m_sampleBits;
+  /**
+   * Bits of the sampled value before the last.
+   */
+  private       long                                            m_previousBits;
+  /**
+   * {@link YamsClock} timestamp of the last sample in seconds.
+   */
+  private       double                                          m_sampleTimestamp;
 
   /**
    * Sensor data constructor.
@@ -59,10 +124,37 @@ public class SensorData
    */
   public SensorData(String name, Supplier<HALValue> supplier, HALValue defaultValue, HALValueType type)
   {
+    this(name,
+         supplier,
+         defaultValue,
+         type,
+         () -> supplier.get().getDouble(),
+         () -> supplier.get().getLong(),
+         () -> supplier.get().getBoolean());
+  }
+
+  /**
+   * Sensor data constructor, the primitive supplier matching the type is read on the real robot.
+   *
+   * @param name            Name of sensor.
+   * @param supplier        {@link Supplier<HALValue>} of sensor.
+   * @param defaultValue    Default value of sensor.
+   * @param type            {@link HALValueType} of sensor.
+   * @param doubleSupplier  Double supplier, null unless the type is double.
+   * @param longSupplier    Long supplier, null unless the type is int, long or enum.
+   * @param booleanSupplier Boolean supplier, null unless the type is boolean.
+   */
+  private SensorData(String name, Supplier<HALValue> supplier, HALValue defaultValue, HALValueType type,
+                     DoubleSupplier doubleSupplier, LongSupplier longSupplier, BooleanSupplier booleanSupplier)
+  {
+    m_doubleSupplier = doubleSupplier;
+    m_longSupplier = longSupplier;
+    m_booleanSupplier = booleanSupplier;
     m_supplier = supplier;
     m_name = name;
     m_defaultValue = defaultValue;
     m_type = type;
+    m_inputLogName = "Sensor/" + name;
   }
 
   /**
@@ -74,7 +166,7 @@ public class SensorData
    */
   public SensorData(String name, DoubleSupplier supplier, double defaultVal)
   {
-    this(name, convert(supplier), convert(defaultVal), HALValueType.kDouble);
+    this(name, convert(supplier), convert(defaultVal), HALValueType.kDouble, supplier, null, null);
   }
 
   /**
@@ -86,7 +178,7 @@ public class SensorData
    */
   public SensorData(String name, IntSupplier supplier, int defaultVal)
   {
-    this(name, convert(supplier), convert(defaultVal), HALValueType.kInt);
+    this(name, convert(supplier), convert(defaultVal), HALValueType.kInt, null, supplier::getAsInt, null);
   }
   /**
    * Sensor data constructor.
@@ -97,7 +189,7 @@ public class SensorData
    */
   public SensorData(String name, BooleanSupplier supplier, boolean defaultVal)
   {
-    this(name, convert(supplier), convert(defaultVal), HALValueType.kBoolean);
+    this(name, convert(supplier), convert(defaultVal), HALValueType.kBoolean, null, null, supplier);
   }
   /**
    * Sensor data constructor.
@@ -108,7 +200,7 @@ public class SensorData
    */
   public SensorData(String name, LongSupplier supplier, long defaultVal)
   {
-    this(name, convert(supplier), convert(defaultVal), HALValueType.kLong);
+    this(name, convert(supplier), convert(defaultVal), HALValueType.kLong, null, supplier, null);
   }
 
   /**
@@ -210,7 +302,7 @@ public class SensorData
     {
       throw new IllegalStateException(m_name + " HALValue is not a double!");
     }
-    return getValue().getDouble();
+    return sampleDouble();
   }
 
   /**
@@ -224,7 +316,7 @@ public class SensorData
     {
       throw new IllegalStateException(m_name + " HALValue is not an int!");
     }
-    return (int) getValue().getDouble();
+    return (int) sampleLong();
   }
 
   /**
@@ -238,7 +330,7 @@ public class SensorData
     {
       throw new IllegalStateException(m_name + " HALValue is not a long!");
     }
-    return getValue().getLong();
+    return sampleLong();
   }
 
   /**
@@ -252,7 +344,249 @@ public class SensorData
     {
       throw new IllegalStateException(m_name + " HALValue is not a boolean!");
     }
-    return getValue().getBoolean();
+    return sampleBoolean();
+  }
+
+  /**
+   * Get a typed handle to read the sensor value as a double.
+   *
+   * @return {@link DoubleSensorField}.
+   */
+  public DoubleSensorField asDoubleField()
+  {
+    if (m_type != HALValueType.kDouble)
+    {
+      throw new IllegalStateException(m_name + " HALValue is not a double!");
+    }
+    return new DoubleSensorField(this);
+  }
+
+  /**
+   * Get a typed handle to read the sensor value as an int.
+   *
+   * @return {@link IntSensorField}.
+   */
+  public IntSensorField asIntField()
+  {
+    if (m_type != HALValueType.kInt)
+    {
+      throw new IllegalStateException(m_name + " HALValue is not an int!");
+    }
+    return new IntSensorField(this);
+  }
+
+  /**
+   * Get a typed handle to read the sensor value as a long.
+   *
+   * @return {@link LongSensorField}.
+   */
+  public LongSensorField asLongField()
+  {
+    if (m_type != HALValueType.kLong)
+    {
+      throw new IllegalStateException(m_name + " HALValue is not a long!");
+    }
+    return new LongSensorField(this);
+  }
+
+  /**
+   * Get a typed handle to read the sensor value as a boolean.
+   *
+   * @return {@link BooleanSensorField}.
+   */
+  public BooleanSensorField asBooleanField()
+  {
+    if (m_type != HALValueType.kBoolean)
+    {
+      throw new IllegalStateException(m_name + " HALValue is not a boolean!");
+    }
+    return new BooleanSensorField(this);
+  }
+
+  /**
+   * Get a double sensor value without checking the type, the sampled value when sampled once per loop.
+   *
+   * @return Sensor value.
+   */
+  double sampleDouble()
+  {
+    sampleIfStale();
+    return m_sampled ? Double.longBitsToDouble(m_sampleBits) : readDouble();
+  }
+
+  /**
+   * Get an int, long or enum sensor value without checking the type, the sampled value when sampled once per loop.
+   *
+   * @return Sensor value.
+   */
+  long sampleLong()
+  {
+    sampleIfStale();
+    return m_sampled ? m_sampleBits : readLong();
+  }
+
+  /**
+   * Get a boolean sensor value without checking the type, the sampled value when sampled once per loop.
+   *
+   * @return Sensor value.
+   */
+  boolean sampleBoolean()
+  {
+    sampleIfStale();
+    return m_sampled ? m_sampleBits != 0 : readBoolean();
+  }
+
+  /**
+   * Read the sensor once for this loop. After the first sample the typed getters and field handles return the sampled
+   * value until the next sample, the {@link HALValue} {@link #getValue()} still reads the sensor. Called by
+   * {@link Sensor#sample()}.
+   */
+  public void sample()
+  {
+    long bits = switch (m_type)
+    {
+      case kDouble -> Double.doubleToRawLongBits(readDouble());
+      case kBoolean -> readBoolean() ? 1 : 0;
+      default -> readLong();
+    };
+    m_previousBits = m_sampled ? m_sampleBits : bits;
+    m_sampleBits = bits;
+    m_sampleTimestamp = YamsClock.getDefault().getTimestamp();
+    m_sampled = true;
+  }
+
+  /**
+   * Stop sampling the sensor, reads go to the sensor again. Called by {@link Sensor#disableCycleSampling()}.
+   */
+  public void stopSampling()
+  {
+    m_sampled = false;
+  }
+
+  /**
+   * Sample again if the sensor is sampled and the last sample is older than one robot loop, so reads do not freeze
+   * when {@link Sensor#periodic()} is not called. Once it is called the loop is never sampled again on read, a read
+   * late in an overrunning loop would otherwise return another value than earlier reads of the same loop and shift the
+   * previous value, losing the edge for later readers.
+   */
+  private void sampleIfStale()
+  {
+    if (m_sampled && !Sensor.isPeriodicCalled() &&
+        YamsClock.getDefault().getTimestamp() - m_sampleTimestamp > SAMPLE_MAX_AGE)
+    {
+      sample();
+    }
+  }
+
+  /**
+   * Check if the sampled value changed in the last {@link #sample()}.
+   *
+   * @return True if the value changed.
+   */
+  public boolean hasChanged()
+  {
+    requireSampled();
+    return m_sampleBits != m_previousBits;
+  }
+
+  /**
+   * Check if the sampled value went from false to true, or increased, in the last {@link #sample()}.
+   *
+   * @return True on a rising edge.
+   */
+  public boolean isRisingEdge()
+  {
+    requireSampled();
+    return m_type == HALValueType.kDouble ? Double.longBitsToDouble(m_sampleBits) >
+                                            Double.longBitsToDouble(m_previousBits)
+                                          : m_sampleBits > m_previousBits;
+  }
+
+  /**
+   * Check if the sampled value went from true to false, or decreased, in the last {@link #sample()}.
+   *
+   * @return True on a falling edge.
+   */
+  public boolean isFallingEdge()
+  {
+    requireSampled();
+    return m_type == HALValueType.kDouble ? Double.longBitsToDouble(m_sampleBits) <
+                                            Double.longBitsToDouble(m_previousBits)
+                                          : m_sampleBits < m_previousBits;
+  }
+
+  /**
+   * Check the sensor is sampled once per loop, and sample it again if it is stale, see {@link #sampleIfStale()}.
+   *
+   * @throws IllegalStateException if {@link #sample()} was never called.
+   */
+  private void requireSampled()
+  {
+    if (!m_sampled)
+    {
+      throw new IllegalStateException(m_name + " is not sampled, use Sensor.enableCycleSampling()!");
+    }
+    sampleIfStale();
+  }
+
+  /**
+   * Read the sensor value as bits, doubles as raw long bits and booleans as 0 or 1, without passing it through the
+   * {@link InputLog}. Used by the {@link AsyncSensorSampler} thread.
+   *
+   * @return Sensor value bits.
+   */
+  long readRawBits()
+  {
+    if (m_real)
+    {
+      return switch (m_type)
+      {
+        case kDouble -> Double.doubleToRawLongBits(m_doubleSupplier.getAsDouble());
+        case kBoolean -> m_booleanSupplier.getAsBoolean() ? 1 : 0;
+        default -> m_longSupplier.getAsLong();
+      };
+    }
+    HALValue value = readSimValue();
+    return switch (m_type)
+    {
+      case kDouble -> Double.doubleToRawLongBits(value.getDouble());
+      case kBoolean -> value.getBoolean() ? 1 : 0;
+      default -> value.getLong();
+    };
+  }
+
+  /**
+   * Read a double sensor value from the sensor. Reads the primitive supplier directly on the real robot.
+   *
+   * @return Sensor value.
+   */
+  private double readDouble()
+  {
+    double value = m_real ? m_doubleSupplier.getAsDouble() : readValue().getDouble();
+    return InputLog.isActive() ? InputLog.process(getInputChannel(), value) : value;
+  }
+
+  /**
+   * Read an int, long or enum sensor value from the sensor. Reads the primitive supplier directly on the real
+   * robot.
+   *
+   * @return Sensor value.
+   */
+  private long readLong()
+  {
+    long value = m_real ? m_longSupplier.getAsLong() : readValue().getLong();
+    return InputLog.isActive() ? (long) InputLog.process(getInputChannel(), value) : value;
+  }
+
+  /**
+   * Read a boolean sensor value from the sensor. Reads the primitive supplier directly on the real robot.
+   *
+   * @return Sensor value.
+   */
+  private boolean readBoolean()
+  {
+    boolean value = m_real ? m_booleanSupplier.getAsBoolean() : readValue().getBoolean();
+    return InputLog.isActive() ? InputLog.process(getInputChannel(), value ? 1 : 0) != 0 : value;
   }
 
   /**
@@ -270,17 +604,98 @@ public class SensorData
   }
 
   /**
-   * Get the sensor value, real sensor value if the robot is real.
+   * Get the sensor value, real sensor value if the robot is real. The value is recorded or replayed through the
+   * {@link InputLog}.
    *
    * @return Sensor value.
    */
   public HALValue getValue()
+  {
+    HALValue value = readValue();
+    return InputLog.isActive() ? logValue(value) : value;
+  }
+
+  /**
+   * Pass a sensor value through the {@link InputLog}, long values beyond 2^53 lose precision.
+   *
+   * @param value Sensor value.
+   * @return Sensor value to use.
+   */
+  private HALValue logValue(HALValue value)
+  {
+    int channel = getInputChannel();
+    return switch (m_type)
+    {
+      case kBoolean -> HALValue.makeBoolean(InputLog.process(channel, value.getBoolean() ? 1 : 0) != 0);
+      case kDouble -> HALValue.makeDouble(InputLog.process(channel, value.getDouble()));
+      case kEnum -> HALValue.makeEnum((int) InputLog.process(channel, value.getLong()));
+      case kInt -> HALValue.makeInt((int) InputLog.process(channel, value.getLong()));
+      case kLong -> HALValue.makeLong((long) InputLog.process(channel, value.getLong()));
+    };
+  }
+
+  /**
+   * Get the {@link InputLog} channel, created when first used.
+   *
+   * @return {@link InputLog} channel.
+   */
+  private int getInputChannel()
+  {
+    if (m_inputChannel < 0)
+    {
+      m_inputChannel = InputLog.channel(m_inputLogName);
+    }
+    return m_inputChannel;
+  }
+
+  /**
+   * Set the name of the {@link InputLog} channel, used by {@link Sensor} to prefix the sensor name.
+   *
+   * @param name Channel name.
+   */
+  void setInputLogName(String name)
+  {
+    m_inputLogName = name;
+  }
+
+  /**
+   * Read the sensor value, real sensor value if the robot is real.
+   *
+   * @return Sensor value.
+   */
+  private HALValue readValue()
   {
     // If the robot is real return the real value ASAP.
-    if (RobotBase.isReal())
+    if (m_real)
     {
       return m_supplier.get();
     }
+    return readSimValue();
+  }
+
+  /**
+   * Read the simulated sensor value, synchronized since an {@link AsyncSensorSampler} may read it from its thread.
+   *
+   * @return Simulated sensor value.
+   */
+  private synchronized HALValue readSimValue()
+  {
+    // Override sensor values with the scripted match values, the HALValue is only created when the event changes.
+    if (!m_schedule.isEmpty())
+    {
+      int event = m_schedule.lookup(DriverStation.getMatchTime());
+      if (event >= 0)
+      {
+        if (event != m_scheduledEvent)
+        {
+          m_scheduledEvent = event;
+          m_scheduledValue = fromBits(m_schedule.getBits(event));
+          set(m_scheduledValue);
+        }
+        return m_scheduledValue;
+      }
+      m_scheduledEvent = -1;
+    }
 
     // Override sensor values with trigger values during a simulated match
     if (m_triggerValues.isPresent())
@@ -318,13 +733,77 @@ public class SensorData
     var item = new Pair<>(trigger, value);
     if (m_triggerValues.isEmpty())
     {
-      m_triggerValues = Optional.of(List.of(item));
+      m_triggerValues  = Optional.of(new ArrayList<>(List.of(item)));
     } else
     {
       m_triggerValues.get().add(item);
     }
   }
 
+  /**
+   * Add a value set during a match time window. Scheduled values are checked before the triggers.
+   *
+   * @param start {@link Time} at which to start the data simulation, inclusive.
+   * @param end   {@link Time} at which to end the data simulation, inclusive.
+   * @param value Value to simulate, converted to the sensor data type.
+   */
+  public void addSimValue(Time start, Time end, double value)
+  {
+    m_schedule.add(start.in(Seconds), end.in(Seconds), switch (m_type)
+    {
+      case kDouble -> Double.doubleToRawLongBits(value);
+      case kBoolean -> value != 0 ? 1 : 0;
+      default -> (long) value;
+    });
+  }
+
+  /**
+   * Add a value set during a match time window. Scheduled values are checked before the triggers.
+   *
+   * @param start {@link Time} at which to start the data simulation, inclusive.
+   * @param end   {@link Time} at which to end the data simulation, inclusive.
+   * @param value Value to simulate, converted to the sensor data type.
+   */
+  public void addSimValue(Time start, Time end, long value)
+  {
+    m_schedule.add(start.in(Seconds), end.in(Seconds), switch (m_type)
+    {
+      case kDouble -> Double.doubleToRawLongBits(value);
+      case kBoolean -> value != 0 ? 1 : 0;
+      default -> value;
+    });
+  }
+
+  /**
+   * Add a value set during a match time window. Scheduled values are checked before the triggers.
+   *
+   * @param start {@link Time} at which to start the data simulation, inclusive.
+   * @param end   {@link Time} at which to end the data simulation, inclusive.
+   * @param value Value to simulate, converted to the sensor data type.
+   */
+  public void addSimValue(Time start, Time end, boolean value)
+  {
+    addSimValue(start, end, value ? 1L : 0L);
+  }
+
+  /**
+   * Convert scheduled value bits into a {@link HALValue} of the sensor data type.
+   *
+   * @param bits Value bits.
+   * @return {@link HALValue}.
+   */
+  private HALValue fromBits(long bits)
+  {
+    return switch (m_type)
+    {
+      case kBoolean -> HALValue.makeBoolean(bits != 0);
+      case kDouble -> HALValue.makeDouble(Double.longBitsToDouble(bits));
+      case kEnum -> HALValue.makeEnum((int) bits);
+      case kInt -> HALValue.makeInt((int) bits);
+      case kLong -> HALValue.makeLong(bits);
+    };
+  }
+
   /**
    * Get the sensor name.
    *
@@ -0,0 +1,155 @@
+package yams.motorcontrollers.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Scripted simulated values of a {@link SensorData} field, compiled into a sorted timeline of the interval boundaries.
+ * Each event is a closed time window with a value stored as raw bits; where windows overlap the event added first
+ * wins, matching the order triggers are checked in. Lookups walk a cursor from the previous lookup, so reading a
+ * monotonic clock costs O(1) amortized regardless of the number of events.
+ */
+final class SensorSchedule
+{
+
+  /**
+   * Start of each event in seconds, in the order they were added.
+   */
+  private double[] starts = new double[0];
+  /**
+   * End of each event in seconds, in the order they were added.
+   */
+  private double[] ends   = new double[0];
+  /**
+   * Value bits of each event, in the order they were added.
+   */
+  private long[]   bits   = new long[0];
+  /**
+   * Number of events.
+   */
+  private int      count  = 0;
+  /**
+   * Sorted unique event boundaries in seconds.
+   */
+  private double[] points = new double[0];
+  /**
+   * Active event of every slot, -1 if none. Slot {@code 2i} is the boundary {@code points[i]}, slot {@code 2i + 1} is
+   * the open interval between {@code points[i]} and {@code points[i + 1]}.
+   */
+  private int[]    slots  = new int[0];
+  /**
+   * Index of the boundary at or before the last lookup.
+   */
+  private int      cursor = 0;
+  /**
+   * Events were added since the timeline was compiled.
+   */
+  private boolean  dirty  = false;
+
+  /**
+   * Add an event.
+   *
+   * @param startSeconds Start of the window in seconds, inclusive.
+   * @param endSeconds   End of the window in seconds, inclusive.
+   * @param valueBits    Value bits of the event.
+   */
+  void add(double startSeconds, double endSeconds, long valueBits)
+  {
+    if (count == starts.length)
+    {
+      int capacity = Math.max(4, count * 2);
+      starts = Arrays.copyOf(starts, capacity);
+      ends = Arrays.copyOf(ends, capacity);
+      bits = Arrays.copyOf(bits, capacity);
+    }
+    starts[count] = startSeconds;
+    ends[count] = endSeconds;
+    bits[count] = valueBits;
+    count++;
+    dirty = true;
+  }
+
+  /**
+   * Check if there are no events.
+   *
+   * @return True if empty.
+   */
+  boolean isEmpty()
+  {
+    return count == 0;
+  }
+
+  /**
+   * Get the event active at the given time.
+   *
+   * @param timeSeconds Time in seconds.
+   * @return Index of the active event, -1 if none.
+   */
+  int lookup(double timeSeconds)
+  {
+    if (dirty)
+    {
+      compile();
+    }
+    int last = points.length - 1;
+    if (last < 0 || !(timeSeconds >= points[0] && timeSeconds <= points[last]))
+    {
+      return -1;
+    }
+    while (cursor < last && timeSeconds >= points[cursor + 1])
+    {
+      cursor++;
+    }
+    while (timeSeconds < points[cursor])
+    {
+      cursor--;
+    }
+    return slots[timeSeconds == points[cursor] ? 2 * cursor : 2 * cursor + 1];
+  }
+
+  /**
+   * Get the value bits of an event.
+   *
+   * @param event Index of the event from {@link #lookup(double)}.
+   * @return Value bits.
+   */
+  long getBits(int event)
+  {
+    return bits[event];
+  }
+
+  /**
+   * Compile the events into the boundary timeline.
+   */
+  private void compile()
+  {
+    double[] boundaries = new double[count * 2];
+    System.arraycopy(starts, 0, boundaries, 0, count);
+    System.arraycopy(ends, 0, boundaries, count, count);
+    Arrays.sort(boundaries);
+    int unique = 0;
+    for (double boundary : boundaries)
+    {
+      if (unique == 0 || boundary != boundaries[unique - 1])
+      {
+        boundaries[unique++] = boundary;
+      }
+    }
+    points = Arrays.copyOf(boundaries, unique);
+    slots = new int[Math.max(0, unique * 2 - 1)];
+    Arrays.fill(slots, -1);
+
+    // Paint the events last to first so the event added first wins where they overlap.
+    for (int event = count - 1; event >= 0; event--)
+    {
+      if (starts[event] > ends[event])
+      {
+        continue;
+      }
+      int first = Arrays.binarySearch(points, starts[event]);
+      int last  = Arrays.binarySearch(points, ends[event]);
+      Arrays.fill(slots, 2 * first, 2 * last + 1, event);
+    }
+    cursor = 0;
+    dirty = false;
+  }
+}
@@ -0,0 +1,91 @@
+package yams.motorcontrollers.simulation;
+
+import static edu.wpi.first.units.Units.Seconds;
+
+import edu.wpi.first.units.measure.Time;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+
+/**
+ * Simulation clock. When enabled the HAL simulation time is paused and only advances through {@link #step(Time)}, so
+ * the {@link yams.motorcontrollers.SimSupplier}s, the {@link yams.motorcontrollers.SmartMotorController#simIterate()}s
+ * and the {@link edu.wpi.first.wpilibj.Notifier} closed loops all run on simulated time without wall-clock sleeps. A
+ * sim or unit test can then run as fast as the CPU allows.
+ */
+public final class SimClock
+{
+
+  /**
+   * Sim clock mode enabled.
+   */
+  private static boolean enabled = false;
+
+  /**
+   * Static utility class.
+   */
+  private SimClock()
+  {
+  }
+
+  /**
+   * Enable the sim clock mode, pausing the HAL simulation time. Does nothing on a real robot.
+   */
+  public static void enable()
+  {
+    if (!enabled && RobotBase.isSimulation())
+    {
+      SimHooks.pauseTiming();
+      enabled = true;
+    }
+  }
+
+  /**
+   * Disable the sim clock mode, resuming the HAL simulation time in real time.
+   */
+  public static void disable()
+  {
+    if (enabled)
+    {
+      SimHooks.resumeTiming();
+      enabled = false;
+    }
+  }
+
+  /**
+   * Check if the sim clock mode is enabled.
+   *
+   * @return True if simulated time only advances through {@link #step(Time)}.
+   */
+  public static boolean isEnabled()
+  {
+    return enabled;
+  }
+
+  /**
+   * Advance the simulation time and wait for every {@link edu.wpi.first.wpilibj.Notifier} that became due to run.
+   *
+   * @param dt Time to advance.
+   */
+  public static void step(Time dt)
+  {
+    SimHooks.stepTiming(dt.in(Seconds));
+  }
+
+  /**
+   * Run a loop on simulated time, advancing the clock by the period after every iteration.
+   *
+   * @param duration Simulated time to run for.
+   * @param period   Loop period, e.g. the robot loop period.
+   * @param loop     Loop to run, e.g. {@link edu.wpi.first.wpilibj2.command.CommandScheduler#run()} followed by the
+   *                 mechanism sim updates.
+   */
+  public static void run(Time duration, Time period, Runnable loop)
+  {
+    long iterations = Math.round(duration.in(Seconds) / period.in(Seconds));
+    for (long i = 0; i < iterations; i++)
+    {
+      loop.run();
+      step(period);
+    }
+  }
+}
@@ -0,0 +1,317 @@
+package yams.motorcontrollers.simulation;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Ohms;
+import static edu.wpi.first.units.Units.Seconds;
+import static edu.wpi.first.units.Units.Volts;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.units.measure.Current;
+import edu.wpi.first.units.measure.Resistance;
+import edu.wpi.first.units.measure.Time;
+import edu.wpi.first.units.measure.Voltage;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+import java.util.Arrays;
+import yams.math.YamsClock;
+import yams.motorcontrollers.SimSupplier;
+
+/**
+ * Shared simulated power bus. Every {@link SimSupplier} set on a {@link yams.motorcontrollers.SmartMotorController} is
+ * registered here, once per tick the bus sums their {@link SimSupplier#getCurrentDraw()}, solves the loaded battery
+ * voltage and sets it on the {@link RoboRioSim}, so every simulated mechanism sees the same supply voltage regardless
+ * of the order they are iterated in.
+ * <p>
+ * When the battery voltage drops below the roboRIO brownout voltage the motor outputs are disabled, the
+ * {@link SimSupplier}s apply {@link #getOutputVoltage()} to their plants, until the voltage recovers above the brownout
+ * voltage plus the hysteresis.
+ */
+public final class SimPowerBus
+{
+
+  /**
+   * Registered suppliers.
+   */
+  private static SimSupplier[]    suppliers               = new SimSupplier[0];
+  /**
+   * Nominal (unloaded) battery voltage in volts.
+   */
+  private static double           nominalVolts            = 12.0;
+  /**
+   * Battery internal resistance in ohms.
+   */
+  private static double           resistanceOhms          = 0.02;
+  /**
+   * Constant load not modelled by a {@link SimSupplier}, e.g. the roboRIO, radio and compressor, in amps.
+   */
+  private static double           baseLoadAmps            = 0;
+  /**
+   * Voltage above the brownout voltage the battery needs to recover to before the outputs are enabled again.
+   */
+  private static double           brownoutHysteresisVolts = 0.5;
+  /**
+   * Solve period in seconds, calls to {@link #update()} within half a period of the last solve are from the same tick.
+   */
+  private static double           periodSeconds           = 0.02;
+  /**
+   * Timestamp of the last solve in seconds, NaN if the bus has not been solved yet.
+   */
+  private static double           lastSolveTimestamp      = Double.NaN;
+  /**
+   * Solved battery voltage in volts.
+   */
+  private static double           batteryVolts            = nominalVolts;
+  /**
+   * Total current draw of the last solve in amps.
+   */
+  private static double           totalAmps               = 0;
+  /**
+   * Motor outputs disabled by a brownout.
+   */
+  private static boolean          brownedOut              = false;
+  /**
+   * Battery voltage publisher.
+   */
+  private static DoublePublisher  voltagePublisher;
+  /**
+   * Total current publisher.
+   */
+  private static DoublePublisher  currentPublisher;
+  /**
+   * Brownout publisher.
+   */
+  private static BooleanPublisher brownoutPublisher;
+
+  static
+  {
+    SimSnapshot.register(new SimSnapshot.Participant()
+    {
+      @Override
+      public int getSnapshotSize()
+      {
+        return 3;
+      }
+
+      @Override
+      public void capture(double[] buffer, int offset)
+      {
+        buffer[offset] = batteryVolts;
+        buffer[offset + 1] = totalAmps;
+        buffer[offset + 2] = brownedOut ? 1 : 0;
+      }
+
+      @Override
+      public void restore(double[] buffer, int offset)
+      {
+        batteryVolts = buffer[offset];
+        totalAmps = buffer[offset + 1];
+        brownedOut = buffer[offset + 2] != 0;
+        lastSolveTimestamp = Double.NaN;
+        RoboRioSim.setVInVoltage(batteryVolts);
+        RoboRioSim.setVInCurrent(totalAmps);
+      }
+    });
+  }
+
+  /**
+   * Static utility class.
+   */
+  private SimPowerBus()
+  {
+  }
+
+  /**
+   * Register a {@link SimSupplier} with the bus, does nothing if it is already registered.
+   *
+   * @param supplier {@link SimSupplier} drawing current from the battery.
+   */
+  public static synchronized void register(SimSupplier supplier)
+  {
+    for (SimSupplier registered : suppliers)
+    {
+      if (registered == supplier)
+      {
+        return;
+      }
+    }
+    suppliers = Arrays.copyOf(suppliers, suppliers.length + 1);
+    suppliers[suppliers.length - 1] = supplier;
+  }
+
+  /**
+   * Remove a {@link SimSupplier} from the bus.
+   *
+   * @param supplier {@link SimSupplier} to remove.
+   */
+  public static synchronized void unregister(SimSupplier supplier)
+  {
+    for (int i = 0; i < suppliers.length; i++)
+    {
+      if (suppliers[i] == supplier)
+      {
+        SimSupplier[] remaining = new SimSupplier[suppliers.length - 1];
+        System.arraycopy(suppliers, 0, remaining, 0, i);
+        System.arraycopy(suppliers, i + 1, remaining, i, remaining.length - i);
+        suppliers = remaining;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Set the battery model.
+   *
+   * @param nominalVoltage Unloaded battery voltage.
+   * @param resistance     Battery internal resistance, including the wiring.
+   */
+  public static void setBattery(Voltage nominalVoltage, Resistance resistance)
+  {
+    nominalVolts = nominalVoltage.in(Volts);
+    resistanceOhms = resistance.in(Ohms);
+  }
+
+  /**
+   * Set a constant load not modelled by a {@link SimSupplier}, e.g. the roboRIO, radio and compressor.
+   *
+   * @param current Constant current draw.
+   */
+  public static void setBaseLoad(Current current)
+  {
+    baseLoadAmps = current.in(Amps);
+  }
+
+  /**
+   * Set the voltage above the {@link RoboRioSim#getBrownoutVoltage()} the battery needs to recover to before the motor
+   * outputs are enabled again.
+   *
+   * @param hysteresis Brownout hysteresis.
+   */
+  public static void setBrownoutHysteresis(Voltage hysteresis)
+  {
+    brownoutHysteresisVolts = hysteresis.in(Volts);
+  }
+
+  /**
+   * Set the solve period, should match the robot loop period.
+   *
+   * @param period Solve period.
+   */
+  public static void setPeriod(Time period)
+  {
+    periodSeconds = period.in(Seconds);
+  }
+
+  /**
+   * Solve the bus if it has not been solved this tick. Called by every mechanism at the end of its sim iteration.
+   */
+  public static void update()
+  {
+    double now = YamsClock.getDefault().getTimestamp();
+    if (!Double.isNaN(lastSolveTimestamp) && now - lastSolveTimestamp < periodSeconds / 2)
+    {
+      return;
+    }
+    lastSolveTimestamp = now;
+    solve();
+  }
+
+  /**
+   * Sum the current draw of every registered {@link SimSupplier}, solve the battery voltage and the brownout state and
+   * set them on the {@link RoboRioSim}.
+   */
+  public static synchronized void solve()
+  {
+    double current = baseLoadAmps;
+    for (SimSupplier supplier : suppliers)
+    {
+      // Current flows back into the battery when a motor is back-driven, only the draw loads it.
+      current += Math.abs(supplier.getCurrentDraw().in(Amps));
+    }
+    totalAmps = current;
+    batteryVolts = Math.max(0, nominalVolts - current * resistanceOhms);
+
+    double brownoutVolts = RoboRioSim.getBrownoutVoltage();
+    if (brownedOut)
+    {
+      brownedOut = batteryVolts < brownoutVolts + brownoutHysteresisVolts;
+    } else
+    {
+      brownedOut = batteryVolts < brownoutVolts;
+    }
+    RoboRioSim.setVInVoltage(batteryVolts);
+    RoboRioSim.setVInCurrent(totalAmps);
+    publish();
+  }
+
+  /**
+   * Reset the bus to an unloaded battery. Registered suppliers are kept.
+   */
+  public static synchronized void reset()
+  {
+    lastSolveTimestamp = Double.NaN;
+    batteryVolts = nominalVolts;
+    totalAmps = 0;
+    brownedOut = false;
+  }
+
+  /**
+   * Get the supply voltage of the last solve, the voltage at the battery terminals.
+   *
+   * @return Supply voltage in volts.
+   */
+  public static double getSupplyVoltage()
+  {
+    return batteryVolts;
+  }
+
+  /**
+   * Get the voltage available to the motor outputs, 0 while browned out.
+   *
+   * @return Output voltage in volts.
+   */
+  public static double getOutputVoltage()
+  {
+    return brownedOut ? 0 : batteryVolts;
+  }
+
+  /**
+   * Get the total current draw of the last solve.
+   *
+   * @return Total current draw in amps.
+   */
+  public static double getTotalCurrent()
+  {
+    return totalAmps;
+  }
+
+  /**
+   * Check if the motor outputs are disabled by a brownout.
+   *
+   * @return True if browned out.
+   */
+  public static boolean isBrownedOut()
+  {
+    return brownedOut;
+  }
+
+  /**
+   * Publish the bus state to "Mechanisms/Power Bus".
+   */
+  private static void publish()
+  {
+    if (voltagePublisher == null)
+    {
+      NetworkTable table = NetworkTableInstance.getDefault().getTable("Mechanisms").getSubTable("Power Bus");
+      voltagePublisher = table.getDoubleTopic("Battery Voltage").publish();
+      currentPublisher = table.getDoubleTopic("Total Current").publish();
+      brownoutPublisher = table.getBooleanTopic("Browned Out").publish();
+      table.getDoubleTopic("Battery Voltage").setProperties("{\"unit\":\"volt\"}");
+      table.getDoubleTopic("Total Current").setProperties("{\"unit\":\"amp\"}");
+    }
+    voltagePublisher.set(batteryVolts);
+    currentPublisher.set(totalAmps);
+    brownoutPublisher.set(brownedOut);
+  }
+}
@@ -0,0 +1,166 @@
+package yams.motorcontrollers.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of the whole YAMS simulation state. Every {@link Participant} (the simulated
+ * {@link yams.motorcontrollers.SmartMotorController}s with their {@link yams.motorcontrollers.SimSupplier} plant and
+ * closed loop controller state, the {@link SimPowerBus} and the swerve drive simulation) writes its state into one
+ * primitive buffer, so a warm started state can be restored many times to branch rollouts from it.
+ * <p>
+ * The HAL simulation time is not part of the snapshot, timestamps are cleared on restore so the next loop measures its
+ * period from the restored state. WPILib {@link edu.wpi.first.math.controller.PIDController} integrators can not be
+ * set and are reset instead.
+ */
+public final class SimSnapshot
+{
+
+  /**
+   * Registered participants, replaced on every change so a snapshot can keep the array it was captured with.
+   */
+  private static Participant[] participants = new Participant[0];
+  /**
+   * Participants this snapshot was captured from.
+   */
+  private        Participant[] layout       = new Participant[0];
+  /**
+   * Captured state.
+   */
+  private        double[]      buffer       = new double[0];
+
+  /**
+   * Simulation state that can be captured into a {@link SimSnapshot}.
+   */
+  public interface Participant
+  {
+
+    /**
+     * Get the number of doubles the state takes up.
+     *
+     * @return Size of the state.
+     */
+    int getSnapshotSize();
+
+    /**
+     * Write the state into the buffer.
+     *
+     * @param buffer Snapshot buffer.
+     * @param offset Index of the first double of this state.
+     */
+    void capture(double[] buffer, int offset);
+
+    /**
+     * Read the state from the buffer.
+     *
+     * @param buffer Snapshot buffer.
+     * @param offset Index of the first double of this state.
+     */
+    void restore(double[] buffer, int offset);
+  }
+
+  /**
+   * Create an empty snapshot, use {@link #capture()}.
+   */
+  private SimSnapshot()
+  {
+  }
+
+  /**
+   * Register a {@link Participant}, does nothing if it is already registered.
+   *
+   * @param participant {@link Participant} to register.
+   */
+  public static synchronized void register(Participant participant)
+  {
+    for (Participant registered : participants)
+    {
+      if (registered == participant)
+      {
+        return;
+      }
+    }
+    Participant[] registered = Arrays.copyOf(participants, participants.length + 1);
+    registered[participants.length] = participant;
+    participants = registered;
+  }
+
+  /**
+   * Remove a {@link Participant}.
+   *
+   * @param participant {@link Participant} to remove.
+   */
+  public static synchronized void unregister(Participant participant)
+  {
+    for (int i = 0; i < participants.length; i++)
+    {
+      if (participants[i] == participant)
+      {
+        Participant[] remaining = new Participant[participants.length - 1];
+        System.arraycopy(participants, 0, remaining, 0, i);
+        System.arraycopy(participants, i + 1, remaining, i, remaining.length - i);
+        participants = remaining;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Capture the current simulation state.
+   *
+   * @return {@link SimSnapshot} of the current state.
+   */
+  public static SimSnapshot capture()
+  {
+    SimSnapshot snapshot = new SimSnapshot();
+    snapshot.recapture();
+    return snapshot;
+  }
+
+  /**
+   * Capture the current simulation state into this snapshot, reusing its buffer when the registered participants did
+   * not change.
+   */
+  public void recapture()
+  {
+    Participant[] current = participants;
+    int           size    = 0;
+    for (Participant participant : current)
+    {
+      size += participant.getSnapshotSize();
+    }
+    if (buffer.length != size)
+    {
+      buffer = new double[size];
+    }
+    layout = current;
+    int offset = 0;
+    for (Participant participant : layout)
+    {
+      participant.capture(buffer, offset);
+      offset += participant.getSnapshotSize();
+    }
+  }
+
+  /**
+   * Restore the simulation to the captured state. Participants registered after the capture are left untouched.
+   */
+  public void restore()
+  {
+    int offset = 0;
+    for (Participant participant : layout)
+    {
+      participant.restore(buffer, offset);
+      offset += participant.getSnapshotSize();
+    }
+  }
+
+  /**
+   * Get the number of doubles in the snapshot.
+   *
+   * @return Snapshot size.
+   */
+  public int size()
+  {
+    return buffer.length;
+  }
+}
@@ -8,7 +8,9 @@ import edu.wpi.first.networktables.BooleanPublisher;
 import edu.wpi.first.networktables.BooleanSubscriber;
 import edu.wpi.first.networktables.BooleanTopic;
 import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
 import edu.wpi.first.networktables.PubSub;
+import java.util.EnumSet;
 import java.util.Optional;
 import yams.telemetry.SmartMotorControllerTelemetry.BooleanTelemetryField;
 
@@ -66,6 +68,18 @@ public class BooleanTelemetry
    * Data table.
    */
   private       Optional<NetworkTable>      dataTable   = Optional.empty();
+  /**
+   * Set by the NetworkTables listener when the tuning value changes, cleared by {@link #tunable()}.
+   */
+  private volatile boolean                  tuningChanged  = false;
+  /**
+   * Callback ran from the NetworkTables listener thread when the tuning value changes.
+   */
+  private       Runnable                    tuningListener = null;
+  /**
+   * NetworkTables listener handle, 0 if no listener is registered.
+   */
+  private       int                         listenerHandle = 0;
 
   /**
    * Setup boolean telemetry for a field.
@@ -94,12 +108,22 @@ public class BooleanTelemetry
   {
     this.dataTable = Optional.ofNullable(dataTable);
     this.tuningTable = Optional.ofNullable(tuningTable);
+    if (!enabled)
+    {return;}
     if (tuningTable != null && tunable)
     {
+      removeListener();
       topic = tuningTable.getBooleanTopic(key);
       pubSub = topic.publish();
       pubSub.setDefault(defaultValue);
       subscriber = Optional.of(topic.subscribe(defaultValue));
+      listenerHandle = topic.getInstance().addListener(subscriber.get(),
+                                                       EnumSet.of(NetworkTableEvent.Kind.kValueAll),
+                                                       event -> {
+                                                         tuningChanged = true;
+                                                         if (tuningListener != null)
+                                                         {tuningListener.run();}
+                                                       });
     } else
     {
       topic = dataTable.getBooleanTopic(key);
@@ -108,6 +132,19 @@ public class BooleanTelemetry
     }
   }
 
+  /**
+   * Set the callback ran when the tuning value is changed. The callback is run on the NetworkTables listener thread
+   * and should only flag the change.
+   *
+   * @param listener Callback to run.
+   * @return {@link BooleanTelemetry} for chaining.
+   */
+  public BooleanTelemetry setTuningListener(Runnable listener)
+  {
+    tuningListener = listener;
+    return this;
+  }
+
   /**
    * Setup network tables.
    *
@@ -156,14 +193,16 @@ public class BooleanTelemetry
   }
 
   /**
-   * Check to see if the value has changed.
+   * Check to see if the value has changed. Only reads the subscriber when the NetworkTables listener has seen a new
+   * value.
    *
    * @return True if the value has changed.
    */
   public boolean tunable()
   {
-    if (subscriber.isPresent() && tunable && enabled)
+    if (tuningChanged && subscriber.isPresent() && tunable && enabled)
     {
+      tuningChanged = false;
       if (subscriber.get().get(defaultValue) != cachedValue)
       {
         cachedValue = subscriber.get().get(defaultValue);
@@ -226,6 +265,7 @@ public class BooleanTelemetry
    */
   public void close()
   {
+    removeListener();
     subscriber.ifPresent(PubSub::close);
     if (pubSub != null)
     {pubSub.close();}
@@ -234,4 +274,16 @@ public class BooleanTelemetry
     dataTable.ifPresent(table -> table.getEntry(key).unpublish());
     tuningTable.ifPresent(table -> table.getEntry(key).unpublish());
   }
+
+  /**
+   * Remove the NetworkTables listener if one is registered.
+   */
+  private void removeListener()
+  {
+    if (listenerHandle != 0)
+    {
+      topic.getInstance().removeListener(listenerHandle);
+      listenerHandle = 0;
+    }
+  }
 }
@@ -8,7 +8,9 @@ import edu.wpi.first.networktables.DoublePublisher;
 import edu.wpi.first.networktables.DoubleSubscriber;
 import edu.wpi.first.networktables.DoubleTopic;
 import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
 import edu.wpi.first.networktables.PubSub;
+import java.util.EnumSet;
 import java.util.Optional;
 import yams.motorcontrollers.SmartMotorControllerConfig;
 import yams.telemetry.SmartMotorControllerTelemetry.DoubleTelemetryField;
@@ -68,6 +70,18 @@ public class DoubleTelemetry
    */
   private       Optional<NetworkTable>     dataTable    = Optional.empty();
   private       DoubleTopic                topic;
+  /**
+   * Set by the NetworkTables listener when the tuning value changes, cleared by {@link #tunable()}.
+   */
+  private volatile boolean                 tuningChanged = false;
+  /**
+   * Callback ran from the NetworkTables listener thread when the tuning value changes.
+   */
+  private       Runnable                   tuningListener = null;
+  /**
+   * NetworkTables listener handle, 0 if no listener is registered.
+   */
+  private       int                        listenerHandle = 0;
 
 
   /**
@@ -112,12 +126,20 @@ public class DoubleTelemetry
     {return;}
     if (tuningTable != null && tunable)
     {
+      removeListener();
       topic = tuningTable.getDoubleTopic(key);
       subscriber = Optional.of(topic.subscribe(defaultValue));
       subPublisher = topic.publish();
       if (!unit.equals("none"))
       {topic.setProperties("{\"unit\":\"" + unit + "\"}");}
       subPublisher.setDefault(defaultValue);
+      listenerHandle = topic.getInstance().addListener(subscriber.get(),
+                                                       EnumSet.of(NetworkTableEvent.Kind.kValueAll),
+                                                       event -> {
+                                                         tuningChanged = true;
+                                                         if (tuningListener != null)
+                                                         {tuningListener.run();}
+                                                       });
     } else
     {
       assert dataTable != null;
@@ -129,6 +151,19 @@ public class DoubleTelemetry
     }
   }
 
+  /**
+   * Set the callback ran when the tuning value is changed. The callback is run on the NetworkTables listener thread
+   * and should only flag the change.
+   *
+   * @param listener Callback to run.
+   * @return {@link DoubleTelemetry} for chaining.
+   */
+  public DoubleTelemetry setTuningListener(Runnable listener)
+  {
+    tuningListener = listener;
+    return this;
+  }
+
   /**
    * Set the unit.
    *
@@ -205,14 +240,16 @@ public class DoubleTelemetry
   }
 
   /**
-   * Check to see if the value has changed.
+   * Check to see if the value has changed. Only reads the subscriber when the NetworkTables listener has seen a new
+   * value.
    *
    * @return True if the value has changed.
    */
   public boolean tunable()
   {
-    if (subscriber.isPresent() && tunable && enabled)
+    if (tuningChanged && subscriber.isPresent() && tunable && enabled)
     {
+      tuningChanged = false;
       if (subscriber.get().get(defaultValue) != cachedValue)
       {
         cachedValue = subscriber.get().get(defaultValue);
@@ -266,6 +303,7 @@ public class DoubleTelemetry
    */
   public void close()
   {
+    removeListener();
     subscriber.ifPresent(PubSub::close);
     if (subPublisher != null)
     {subPublisher.close();}
@@ -274,4 +312,16 @@ public class DoubleTelemetry
     dataTable.ifPresent(table -> table.getEntry(key).unpublish());
     tuningTable.ifPresent(table -> table.getEntry(key).unpublish());
   }
+
+  /**
+   * Remove the NetworkTables listener if one is registered.
+   */
+  private void removeListener()
+  {
+    if (listenerHandle != 0)
+    {
+      topic.getInstance().removeListener(listenerHandle);
+      listenerHandle = 0;
+    }
+  }
 }
@@ -0,0 +1,431 @@
+package yams.telemetry;
+
+import edu.wpi.first.hal.HALUtil;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Deterministic input log. Every hardware input YAMS consumes (motor controller signals, the swerve gyro and
+ * {@link yams.motorcontrollers.simulation.SensorData} values) goes through {@link #process(int, double)}, which records
+ * it while {@link Mode#RECORD}ing and substitutes the logged value while in {@link Mode#REPLAY}.
+ * <p>
+ * The log is a compact binary stream of channel definitions, frame markers and values, a value is only written when it
+ * changed since the last time it was written. Call {@link #periodic()} at the start of every robot loop while recording
+ * so the inputs are grouped into frames, then {@link #replay(Path, DoubleConsumer)} runs the same mechanism code over
+ * every frame of the log as fast as the CPU allows.
+ * <p>
+ * Inputs read from the closed loop {@link edu.wpi.first.wpilibj.Notifier} are recorded in the frame they were read in
+ * and replayed with the last value of that frame.
+ */
+public final class InputLog
+{
+
+  /**
+   * Magic header of the log format, the last character is the format version.
+   */
+  private static final String              MAGIC            = "YAMSLOG1";
+  /**
+   * Channel definition record, followed by a short id and a UTF name.
+   */
+  private static final byte                CHANNEL_RECORD   = 'C';
+  /**
+   * Frame record, followed by a double timestamp in seconds.
+   */
+  private static final byte                FRAME_RECORD     = 'F';
+  /**
+   * Value record, followed by a short id and a double value.
+   */
+  private static final byte                VALUE_RECORD     = 'V';
+  /**
+   * Channel ids by name.
+   */
+  private static final Map<String, Integer> channels         = new HashMap<>();
+  /**
+   * Current mode.
+   */
+  private static       Mode                mode             = Mode.LIVE;
+  /**
+   * Last value of each channel, the last written value while recording or the last logged value while replaying.
+   */
+  private static       double[]            values           = new double[0];
+  /**
+   * Whether a channel has a value in {@link #values}.
+   */
+  private static       boolean[]           present          = new boolean[0];
+  /**
+   * Whether a channel definition has been written to the current recording.
+   */
+  private static       boolean[]           defined          = new boolean[0];
+  /**
+   * Replay channel id mapping, indexed by the logged channel id.
+   */
+  private static       int[]               replayChannels   = new int[0];
+  /**
+   * Recording output.
+   */
+  private static       DataOutputStream    out;
+  /**
+   * Replay input.
+   */
+  private static       DataInputStream     in;
+  /**
+   * Timestamp of the current frame in seconds.
+   */
+  private static       double              frameTimestamp   = 0;
+  /**
+   * Timestamp of the next replay frame in seconds, NaN when the log is exhausted.
+   */
+  private static       double              pendingTimestamp = Double.NaN;
+
+  /**
+   * Input log mode.
+   */
+  public enum Mode
+  {
+    /**
+     * Inputs are passed through.
+     */
+    LIVE,
+    /**
+     * Inputs are passed through and recorded.
+     */
+    RECORD,
+    /**
+     * Inputs are replaced with the logged values.
+     */
+    REPLAY
+  }
+
+  /**
+   * Static utility class.
+   */
+  private InputLog()
+  {
+  }
+
+  /**
+   * Get the current {@link Mode}.
+   *
+   * @return Current {@link Mode}.
+   */
+  public static Mode getMode()
+  {
+    return mode;
+  }
+
+  /**
+   * Check if inputs are being recorded or replayed.
+   *
+   * @return True if not {@link Mode#LIVE}.
+   */
+  public static boolean isActive()
+  {
+    return mode != Mode.LIVE;
+  }
+
+  /**
+   * Start recording inputs to a file.
+   *
+   * @param file File to write the log to.
+   * @throws IOException If the file could not be opened.
+   */
+  public static synchronized void startRecording(Path file) throws IOException
+  {
+    stop();
+    out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+    out.writeBytes(MAGIC);
+    Arrays.fill(present, false);
+    Arrays.fill(defined, false);
+    mode = Mode.RECORD;
+  }
+
+  /**
+   * Start replaying inputs from a file. Use {@link #nextFrame()} to step through the frames.
+   *
+   * @param file File to read the log from.
+   * @throws IOException If the file could not be opened or is not an input log.
+   */
+  public static synchronized void startReplay(Path file) throws IOException
+  {
+    stop();
+    in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+    byte[] magic = new byte[MAGIC.length()];
+    in.readFully(magic);
+    if (!MAGIC.equals(new String(magic)))
+    {
+      in.close();
+      in = null;
+      throw new IOException(file + " is not a YAMS input log.");
+    }
+    Arrays.fill(present, false);
+    replayChannels = new int[0];
+    mode = Mode.REPLAY;
+    pendingTimestamp = Double.NaN;
+    readFrame();
+    RobotController.setTimeSource(() -> (long) (frameTimestamp * 1e6));
+  }
+
+  /**
+   * Stop recording or replaying and go back to {@link Mode#LIVE}.
+   */
+  public static synchronized void stop()
+  {
+    try
+    {
+      if (out != null)
+      {
+        out.close();
+      }
+      if (in != null)
+      {
+        in.close();
+        RobotController.setTimeSource(HALUtil::getFPGATime);
+      }
+    } catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    } finally
+    {
+      out = null;
+      in = null;
+      mode = Mode.LIVE;
+    }
+  }
+
+  /**
+   * Get the id of an input channel, registering it if needed. Channel names must be unique.
+   *
+   * @param name Name of the input, e.g. "ArmMotor/mechanismPosition".
+   * @return Channel id to pass to {@link #process(int, double)}.
+   */
+  public static synchronized int channel(String name)
+  {
+    Integer id = channels.get(name);
+    if (id != null)
+    {
+      return id;
+    }
+    int channel = channels.size();
+    channels.put(name, channel);
+    values = Arrays.copyOf(values, channel + 1);
+    present = Arrays.copyOf(present, channel + 1);
+    defined = Arrays.copyOf(defined, channel + 1);
+    return channel;
+  }
+
+  /**
+   * Process an input. Records the live value while recording, replaces it with the logged value while replaying.
+   *
+   * @param channel   Channel id from {@link #channel(String)}.
+   * @param liveValue Value read from the hardware.
+   * @return Value to use.
+   */
+  public static synchronized double process(int channel, double liveValue)
+  {
+    switch (mode)
+    {
+      case RECORD ->
+      {
+        if (present[channel] && Double.doubleToRawLongBits(values[channel]) == Double.doubleToRawLongBits(liveValue))
+        {
+          return liveValue;
+        }
+        values[channel] = liveValue;
+        present[channel] = true;
+        try
+        {
+          if (!defined[channel])
+          {
+            defined[channel] = true;
+            out.writeByte(CHANNEL_RECORD);
+            out.writeShort(channel);
+            out.writeUTF(nameOf(channel));
+          }
+          out.writeByte(VALUE_RECORD);
+          out.writeShort(channel);
+          out.writeDouble(liveValue);
+        } catch (IOException e)
+        {
+          throw new UncheckedIOException(e);
+        }
+        return liveValue;
+      }
+      case REPLAY ->
+      {
+        return present[channel] ? values[channel] : liveValue;
+      }
+      default ->
+      {
+        return liveValue;
+      }
+    }
+  }
+
+  /**
+   * Start a new frame with the current FPGA timestamp, call at the start of every robot loop while recording.
+   */
+  public static void periodic()
+  {
+    if (mode == Mode.RECORD)
+    {
+      nextFrame(Timer.getFPGATimestamp());
+    }
+  }
+
+  /**
+   * Start a new recorded frame.
+   *
+   * @param timestampSeconds Timestamp of the frame in seconds.
+   */
+  public static synchronized void nextFrame(double timestampSeconds)
+  {
+    if (mode != Mode.RECORD)
+    {
+      return;
+    }
+    frameTimestamp = timestampSeconds;
+    try
+    {
+      out.writeByte(FRAME_RECORD);
+      out.writeDouble(timestampSeconds);
+    } catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Advance the replay to the next frame.
+   *
+   * @return False when the log has no more frames.
+   */
+  public static synchronized boolean nextFrame()
+  {
+    if (mode != Mode.REPLAY || Double.isNaN(pendingTimestamp))
+    {
+      return false;
+    }
+    frameTimestamp = pendingTimestamp;
+    readFrame();
+    return true;
+  }
+
+  /**
+   * Get the timestamp of the current frame.
+   *
+   * @return Timestamp in seconds.
+   */
+  public static double getFrameTimestamp()
+  {
+    return frameTimestamp;
+  }
+
+  /**
+   * Replay a log, running the loop once per frame as fast as possible. The FPGA time follows the logged timestamps
+   * during the replay.
+   *
+   * @param file Log to replay.
+   * @param loop Loop to run every frame, given the frame timestamp in seconds. Should run the same mechanism code the
+   *             robot loop ran while recording.
+   * @return Number of frames replayed.
+   * @throws IOException If the log could not be read.
+   */
+  public static int replay(Path file, DoubleConsumer loop) throws IOException
+  {
+    startReplay(file);
+    int frames = 0;
+    try
+    {
+      while (nextFrame())
+      {
+        loop.accept(frameTimestamp);
+        frames++;
+      }
+    } finally
+    {
+      stop();
+    }
+    return frames;
+  }
+
+  /**
+   * Read the values of one frame, stopping at the next frame marker.
+   */
+  private static void readFrame()
+  {
+    try
+    {
+      while (true)
+      {
+        byte record;
+        try
+        {
+          record = in.readByte();
+        } catch (EOFException e)
+        {
+          pendingTimestamp = Double.NaN;
+          return;
+        }
+        switch (record)
+        {
+          case CHANNEL_RECORD ->
+          {
+            int loggedId = in.readShort();
+            int channel  = channel(in.readUTF());
+            if (loggedId >= replayChannels.length)
+            {
+              replayChannels = Arrays.copyOf(replayChannels, loggedId + 1);
+            }
+            replayChannels[loggedId] = channel;
+          }
+          case VALUE_RECORD ->
+          {
+            int channel = replayChannels[in.readShort()];
+            values[channel] = in.readDouble();
+            present[channel] = true;
+          }
+          case FRAME_RECORD ->
+          {
+            pendingTimestamp = in.readDouble();
+            return;
+          }
+          default -> throw new IOException("Corrupt YAMS input log, unknown record " + record);
+        }
+      }
+    } catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Get the name of a channel.
+   *
+   * @param channel Channel id.
+   * @return Channel name.
+   */
+  private static String nameOf(int channel)
+  {
+    for (Map.Entry<String, Integer> entry : channels.entrySet())
+    {
+      if (entry.getValue() == channel)
+      {
+        return entry.getKey();
+      }
+    }
+    throw new IllegalArgumentException("Unknown input log channel " + channel);
+  }
+}
@@ -0,0 +1,310 @@
+package yams.telemetry;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringArrayPublisher;
+import java.util.Arrays;
+
+/**
+ * Lightweight execution profiler for {@link yams.mechanisms.SmartMechanism}s. Each mechanism registers a slot and
+ * records the time spent in each {@link Phase}, the statistics are kept in primitive arrays and the mechanisms using
+ * the most time are published as a ranked table under "Mechanisms/Profiler" once a second.
+ * <p>
+ * The profiler is meant to be used from the main robot thread only.
+ */
+public final class MechanismProfiler
+{
+
+  /**
+   * Window the statistics are collected over before publishing, in nanoseconds.
+   */
+  private static final long                 PUBLISH_PERIOD_NANOS = 1_000_000_000L;
+  /**
+   * Number of phases.
+   */
+  private static final int                  PHASES               = Phase.values().length;
+  /**
+   * Profiler enabled.
+   */
+  private static       boolean              enabled              = true;
+  /**
+   * Number of entries shown in the top offenders table.
+   */
+  private static       int                  topOffenderCount     = 5;
+  /**
+   * Registered mechanism names, index is the slot.
+   */
+  private static       String[]             names                = new String[0];
+  /**
+   * Sum of the time spent in each slot and phase during the current window, indexed by slot * PHASES + phase.
+   */
+  private static       long[]               windowSumNanos       = new long[0];
+  /**
+   * Maximum time spent in a single call for each slot and phase during the current window.
+   */
+  private static       long[]               windowMaxNanos       = new long[0];
+  /**
+   * Number of calls for each slot and phase during the current window.
+   */
+  private static       int[]                windowCount          = new int[0];
+  /**
+   * Average time per call for each slot and phase from the last completed window, in milliseconds.
+   */
+  private static       double[]             averageMs            = new double[0];
+  /**
+   * Maximum time of a single call for each slot and phase from the last completed window, in milliseconds.
+   */
+  private static       double[]             maxMs                = new double[0];
+  /**
+   * Scratch array used to rank the slots.
+   */
+  private static       int[]                ranking              = new int[0];
+  /**
+   * Start of the current window.
+   */
+  private static       long                 windowStartNanos     = System.nanoTime();
+  /**
+   * Top offenders publisher.
+   */
+  private static       StringArrayPublisher topOffendersPublisher;
+  /**
+   * Top offenders time publisher.
+   */
+  private static       DoubleArrayPublisher topOffendersTimePublisher;
+
+  /**
+   * Phases of a {@link yams.mechanisms.SmartMechanism} loop that are timed.
+   */
+  public enum Phase
+  {
+    /**
+     * Refreshing the motor controller sensor signals, in simulation this is pushing the plant state into the motor
+     * controller.
+     */
+    SignalRefresh("signalRefresh"),
+    /**
+     * {@link yams.mechanisms.SmartMechanism#updateTelemetry()}
+     */
+    UpdateTelemetry("updateTelemetry"),
+    /**
+     * {@link yams.mechanisms.SmartMechanism#simIterate()}
+     */
+    SimIterate("simIterate"),
+    /**
+     * {@link yams.mechanisms.SmartMechanism#visualizationUpdate()}
+     */
+    VisualizationUpdate("visualizationUpdate"),
+    /**
+     * Setpoint writes from the mechanism commands.
+     */
+    SetpointWrite("setpointWrite");
+
+    /**
+     * Name used in the top offenders table.
+     */
+    private final String key;
+
+    /**
+     * Create the phase.
+     *
+     * @param key Name used in the top offenders table.
+     */
+    Phase(String key)
+    {
+      this.key = key;
+    }
+  }
+
+  /**
+   * Static utility class.
+   */
+  private MechanismProfiler()
+  {
+  }
+
+  /**
+   * Register a mechanism with the profiler.
+   *
+   * @param name Name of the mechanism.
+   * @return Slot of the mechanism, used to record phases.
+   */
+  public static int register(String name)
+  {
+    int slot = names.length;
+    names = Arrays.copyOf(names, slot + 1);
+    names[slot] = name;
+    windowSumNanos = Arrays.copyOf(windowSumNanos, names.length * PHASES);
+    windowMaxNanos = Arrays.copyOf(windowMaxNanos, names.length * PHASES);
+    windowCount = Arrays.copyOf(windowCount, names.length * PHASES);
+    averageMs = Arrays.copyOf(averageMs, names.length * PHASES);
+    maxMs = Arrays.copyOf(maxMs, names.length * PHASES);
+    ranking = new int[names.length];
+    return slot;
+  }
+
+  /**
+   * Enable or disable the profiler.
+   *
+   * @param enable Enable the profiler.
+   */
+  public static void setEnabled(boolean enable)
+  {
+    enabled = enable;
+  }
+
+  /**
+   * Check if the profiler is enabled.
+   *
+   * @return True if enabled.
+   */
+  public static boolean isEnabled()
+  {
+    return enabled;
+  }
+
+  /**
+   * Set the number of mechanisms shown in the top offenders table.
+   *
+   * @param count Number of mechanisms.
+   */
+  public static void setTopOffenderCount(int count)
+  {
+    topOffenderCount = count;
+  }
+
+  /**
+   * Start timing a phase.
+   *
+   * @return Start timestamp to pass to {@link #stop(int, Phase, long)}, 0 if the profiler is disabled.
+   */
+  public static long start()
+  {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Stop timing a phase and record it.
+   *
+   * @param slot       Slot of the mechanism from {@link #register(String)}.
+   * @param phase      {@link Phase} that was timed.
+   * @param startNanos Timestamp from {@link #start()}.
+   * @return Elapsed time in nanoseconds, 0 if nothing was recorded.
+   */
+  public static long stop(int slot, Phase phase, long startNanos)
+  {
+    if (!enabled || startNanos == 0 || slot < 0)
+    {
+      return 0;
+    }
+    long elapsed = System.nanoTime() - startNanos;
+    int  index   = slot * PHASES + phase.ordinal();
+    windowSumNanos[index] += elapsed;
+    windowCount[index]++;
+    if (elapsed > windowMaxNanos[index])
+    {
+      windowMaxNanos[index] = elapsed;
+    }
+    return elapsed;
+  }
+
+  /**
+   * Get the average time per call of a phase from the last completed window.
+   *
+   * @param slot  Slot of the mechanism.
+   * @param phase {@link Phase} to get.
+   * @return Average time in milliseconds.
+   */
+  public static double getAverageMilliseconds(int slot, Phase phase)
+  {
+    return averageMs[slot * PHASES + phase.ordinal()];
+  }
+
+  /**
+   * Get the total average time of all phases of a mechanism from the last completed window.
+   *
+   * @param slot Slot of the mechanism.
+   * @return Average time in milliseconds.
+   */
+  public static double getTotalAverageMilliseconds(int slot)
+  {
+    double total = 0;
+    for (int phase = 0; phase < PHASES; phase++)
+    {
+      total += averageMs[slot * PHASES + phase];
+    }
+    return total;
+  }
+
+  /**
+   * Close the current window and publish the top offenders table if a second has passed since the last publish.
+   */
+  public static void publish()
+  {
+    if (!enabled)
+    {
+      return;
+    }
+    long now = System.nanoTime();
+    if (now - windowStartNanos < PUBLISH_PERIOD_NANOS)
+    {
+      return;
+    }
+    windowStartNanos = now;
+    for (int i = 0; i < windowSumNanos.length; i++)
+    {
+      averageMs[i] = windowCount[i] == 0 ? 0 : windowSumNanos[i] / (windowCount[i] * 1e6);
+      maxMs[i] = windowMaxNanos[i] / 1e6;
+      windowSumNanos[i] = 0;
+      windowMaxNanos[i] = 0;
+      windowCount[i] = 0;
+    }
+
+    // Insertion sort the slots by total time, descending.
+    for (int i = 0; i < ranking.length; i++)
+    {
+      int    slot  = i;
+      double total = getTotalAverageMilliseconds(slot);
+      int    j     = i - 1;
+      while (j >= 0 && getTotalAverageMilliseconds(ranking[j]) < total)
+      {
+        ranking[j + 1] = ranking[j];
+        j--;
+      }
+      ranking[j + 1] = slot;
+    }
+
+    int      count     = Math.min(topOffenderCount, ranking.length);
+    String[] offenders = new String[count];
+    double[] times     = new double[count];
+    for (int i = 0; i < count; i++)
+    {
+      int           slot  = ranking[i];
+      int           worst = 0;
+      StringBuilder entry = new StringBuilder(names[slot]);
+      for (int phase = 1; phase < PHASES; phase++)
+      {
+        if (averageMs[slot * PHASES + phase] > averageMs[slot * PHASES + worst])
+        {
+          worst = phase;
+        }
+      }
+      times[i] = getTotalAverageMilliseconds(slot);
+      entry.append(String.format(" %.3fms (%s %.3fms, max %.3fms)",
+                                 times[i],
+                                 Phase.values()[worst].key,
+                                 averageMs[slot * PHASES + worst],
+                                 maxMs[slot * PHASES + worst]));
+      offenders[i] = entry.toString();
+    }
+    if (topOffendersPublisher == null)
+    {
+      NetworkTable table = NetworkTableInstance.getDefault().getTable("Mechanisms").getSubTable("Profiler");
+      topOffendersPublisher = table.getStringArrayTopic("Top Offenders").publish();
+      topOffendersTimePublisher = table.getDoubleArrayTopic("Top Offenders Time").publish();
+      table.getDoubleArrayTopic("Top Offenders Time").setProperties("{\"unit\":\"millisecond\"}");
+    }
+    topOffendersPublisher.set(offenders);
+    topOffendersTimePublisher.set(times);
+  }
+}
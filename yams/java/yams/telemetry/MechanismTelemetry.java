@@ -3,9 +3,10 @@ package yams.telemetry;
 import edu.wpi.first.networktables.DoublePublisher;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.wpilibj.Timer;
 import java.util.Optional;
+import yams.math.YamsClock;
 import yams.motorcontrollers.SmartMotorController;
+import yams.telemetry.MechanismProfiler.Phase;
 
 /**
  * Mechanism telemetry.
@@ -29,6 +30,10 @@ public class MechanismTelemetry
    * Loop time timer.
    */
   private double prevTimestamp = 0;
+  /**
+   * {@link MechanismProfiler} slot, -1 if not registered.
+   */
+  private int    profilerSlot  = -1;
 
   /**
    * Setup loop time publisher.
@@ -54,6 +59,7 @@ public class MechanismTelemetry
                                        .getSubTable(mechanismTelemetryName);
     motorController.setupTelemetry(networkTable, tuningNetworkTable);
     setupLoopTime();
+    setupProfiler(mechanismTelemetryName);
   }
 
   /**
@@ -68,6 +74,42 @@ public class MechanismTelemetry
     networkTable = NetworkTableInstance.getDefault().getTable("Mechanisms")
                                        .getSubTable(mechanismTelemetryName);
     setupLoopTime();
+    setupProfiler(mechanismTelemetryName);
+  }
+
+  /**
+   * Register the mechanism with the {@link MechanismProfiler}, only the first name given is registered.
+   *
+   * @param mechanismTelemetryName Mechanism Telemetry Name.
+   */
+  private void setupProfiler(String mechanismTelemetryName)
+  {
+    if (profilerSlot < 0)
+    {
+      profilerSlot = MechanismProfiler.register(mechanismTelemetryName);
+    }
+  }
+
+  /**
+   * Start timing a {@link Phase} of the mechanism.
+   *
+   * @return Start timestamp to pass to {@link #stopProfiling(Phase, long)}.
+   */
+  public long startProfiling()
+  {
+    return profilerSlot < 0 ? 0 : MechanismProfiler.start();
+  }
+
+  /**
+   * Stop timing a {@link Phase} of the mechanism.
+   *
+   * @param phase      {@link Phase} that was timed.
+   * @param startNanos Timestamp from {@link #startProfiling()}.
+   * @return Elapsed time in nanoseconds, 0 if nothing was recorded.
+   */
+  public long stopProfiling(Phase phase, long startNanos)
+  {
+    return MechanismProfiler.stop(profilerSlot, phase, startNanos);
   }
 
   /**
@@ -91,16 +133,21 @@ public class MechanismTelemetry
   }
 
   /**
-   * Update the loop time.
+   * Update the loop time from the {@link YamsClock#getDefault()}, feed the {@link TelemetryBudget} and publish the
+   * {@link MechanismProfiler} table when it is due.
    */
   public void updateLoopTime()
   {
+    YamsClock clock     = YamsClock.getDefault();
+    double    timestamp = clock.getTimestamp();
+    TelemetryBudget.update(timestamp);
+    MechanismProfiler.publish();
     loopTimePublisher.ifPresent(publisher -> {
       if (prevTimestamp != 0)
       {
-        publisher.set(Timer.getFPGATimestamp() - prevTimestamp);
+        publisher.set(clock.getElapsed(prevTimestamp));
       }
-      prevTimestamp = Timer.getFPGATimestamp();
+      prevTimestamp = timestamp;
     });
   }
 }
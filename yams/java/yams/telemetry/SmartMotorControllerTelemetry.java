@@ -15,6 +15,7 @@ import static edu.wpi.first.units.Units.Volts;
 
 import edu.wpi.first.networktables.NetworkTable;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import yams.exceptions.SmartMotorControllerConfigurationException;
 import yams.motorcontrollers.SmartMotorController;
 import yams.motorcontrollers.SmartMotorControllerConfig;
@@ -52,6 +53,14 @@ public class SmartMotorControllerTelemetry
    * Telemetry config
    */
   private SmartMotorControllerTelemetryConfig config;
+  /**
+   * Set from the NetworkTables listener thread when any tunable field changes.
+   */
+  private final AtomicBoolean                 tuningPending = new AtomicBoolean(false);
+  /**
+   * {@link TelemetryBudget} publish offset, spreads reduced rate publishing over the loops.
+   */
+  private final int                           publishOffset = TelemetryBudget.nextPublishOffset();
 
   /**
    * Setup Telemetry Pub/Sub fields.
@@ -76,11 +85,13 @@ public class SmartMotorControllerTelemetry
       boolFields = config.getBoolFields(smartMotorController);
       for (Map.Entry<DoubleTelemetryField, DoubleTelemetry> entry : doubleFields.entrySet())
       {
-        entry.getValue().transformUnit(smcConfig).setupNetworkTables(dataNetworkTable, tuningNetworkTable);
+        entry.getValue().setTuningListener(() -> tuningPending.set(true))
+             .transformUnit(smcConfig).setupNetworkTables(dataNetworkTable, tuningNetworkTable);
       }
-      for (Map.Entry<DoubleTelemetryField, DoubleTelemetry> entry : doubleFields.entrySet())
+      for (Map.Entry<BooleanTelemetryField, BooleanTelemetry> entry : boolFields.entrySet())
       {
-        entry.getValue().transformUnit(smcConfig).setupNetworkTables(dataNetworkTable, tuningNetworkTable);
+        entry.getValue().setTuningListener(() -> tuningPending.set(true))
+             .setupNetworkTables(dataNetworkTable, tuningNetworkTable);
       }
 
     }
@@ -94,11 +105,16 @@ public class SmartMotorControllerTelemetry
    */
   public void publish(SmartMotorController smc)
   {
-    SmartMotorControllerConfig cfg = smc.getConfig();
+    if (!TelemetryBudget.shouldPublish(publishOffset))
+    {
+      return;
+    }
+    SmartMotorControllerConfig cfg         = smc.getConfig();
+    boolean                    publishHigh = TelemetryBudget.allows(TelemetryVerbosity.HIGH);
     for (Map.Entry<BooleanTelemetryField, BooleanTelemetry> entry : boolFields.entrySet())
     {
       BooleanTelemetry bt = entry.getValue();
-      if (!bt.enabled)
+      if (!bt.enabled || !publishHigh)
       {
         continue;
       }
@@ -142,7 +158,7 @@ public class SmartMotorControllerTelemetry
     for (Map.Entry<DoubleTelemetryField, DoubleTelemetry> entry : doubleFields.entrySet())
     {
       DoubleTelemetry dt = entry.getValue();
-      if (!dt.enabled)
+      if (!dt.enabled || !TelemetryBudget.allows(getVerbosity(dt.getField())))
       {
         continue;
       }
@@ -210,13 +226,39 @@ public class SmartMotorControllerTelemetry
 
 
   /**
-   * Apply the tuning values from {@link NetworkTable} to the {@link SmartMotorController}
+   * Get the lowest {@link TelemetryVerbosity} a {@link DoubleTelemetryField} is published at, matching
+   * {@link SmartMotorControllerTelemetryConfig#withTelemetryVerbosity(TelemetryVerbosity)}.
+   *
+   * @param field {@link DoubleTelemetryField} to check.
+   * @return {@link TelemetryVerbosity} of the field.
+   */
+  private static TelemetryVerbosity getVerbosity(DoubleTelemetryField field)
+  {
+    return switch (field)
+    {
+      case SetpointPosition, SetpointVelocity, MeasurementPosition, MeasurementVelocity, MechanismPosition,
+           MechanismVelocity, RotorPosition, RotorVelocity -> TelemetryVerbosity.LOW;
+      case OutputVoltage, StatorCurrent, SupplyCurrent -> TelemetryVerbosity.MID;
+      default -> TelemetryVerbosity.HIGH;
+    };
+  }
+
+  /**
+   * Apply the tuning values from {@link NetworkTable} to the {@link SmartMotorController}. Does nothing unless a
+   * tunable field has changed since the last call, changes that arrived together are applied together with one
+   * feedback and one feedforward update.
    *
    * @param smartMotorController {@link SmartMotorController} to control.
    */
   public void applyTuningValues(SmartMotorController smartMotorController)
   {
-    SmartMotorControllerConfig cfg = smartMotorController.getConfig();
+    if (!tuningPending.getAndSet(false))
+    {
+      return;
+    }
+    boolean                    feedbackChanged    = false;
+    boolean                    feedforwardChanged = false;
+    SmartMotorControllerConfig cfg                = smartMotorController.getConfig();
     if (cfg.getMotorControllerMode() != SmartMotorControllerConfig.ControlMode.CLOSED_LOOP)
     {
       throw new SmartMotorControllerConfigurationException("Live tuning does not work in OPEN_LOOP",
@@ -265,13 +307,8 @@ public class SmartMotorControllerTelemetry
                                                                 dt.get() == 0 ? null : DegreesPerSecond.of(dt.get())));
             break;
           }
-          case kP -> smartMotorController.setKp(dt.get());
-          case kI -> smartMotorController.setKi(dt.get());
-          case kD -> smartMotorController.setKd(dt.get());
-          case kS -> smartMotorController.setKs(dt.get());
-          case kV -> smartMotorController.setKv(dt.get());
-          case kA -> smartMotorController.setKa(dt.get());
-          case kG -> smartMotorController.setKg(dt.get());
+          case kP, kI, kD -> feedbackChanged = true;
+          case kS, kV, kA, kG -> feedforwardChanged = true;
           case ClosedloopRampRate -> smartMotorController.setClosedLoopRampRate(Seconds.of(dt.get()));
           case OpenloopRampRate -> smartMotorController.setOpenLoopRampRate(Seconds.of(dt.get()));
           case SupplyCurrentLimit -> smartMotorController.setSupplyCurrentLimit(Amps.of(dt.get()));
@@ -306,6 +343,19 @@ public class SmartMotorControllerTelemetry
         }
       }
     }
+    if (feedbackChanged)
+    {
+      smartMotorController.setFeedback(doubleFields.get(DoubleTelemetryField.kP).get(),
+                                       doubleFields.get(DoubleTelemetryField.kI).get(),
+                                       doubleFields.get(DoubleTelemetryField.kD).get());
+    }
+    if (feedforwardChanged)
+    {
+      smartMotorController.setFeedforward(doubleFields.get(DoubleTelemetryField.kS).get(),
+                                          doubleFields.get(DoubleTelemetryField.kV).get(),
+                                          doubleFields.get(DoubleTelemetryField.kA).get(),
+                                          doubleFields.get(DoubleTelemetryField.kG).get());
+    }
   }
 
   /**
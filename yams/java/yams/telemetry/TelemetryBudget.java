@@ -0,0 +1,324 @@
+package yams.telemetry;
+
+import static edu.wpi.first.units.Units.Seconds;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.units.measure.Time;
+import yams.motorcontrollers.SmartMotorControllerConfig.TelemetryVerbosity;
+
+/**
+ * Global telemetry budget. Watches the robot loop time and steps every {@link SmartMotorControllerTelemetry} down
+ * through {@link Tier}s when the loop overruns, then back up once the loop has headroom again.
+ * <p>
+ * Stepping down happens after the loop time is above the overrun threshold for a number of consecutive loops, stepping
+ * up happens after the loop time is below the headroom threshold for a (longer) number of consecutive loops. The gap
+ * between the two thresholds and the two loop counts is the hysteresis that keeps the tier from flapping.
+ * <p>
+ * The loop time is reported by {@link MechanismTelemetry#updateLoopTime()}, or by the robot code with
+ * {@link #reportLoopTime(double)} if it has a better measurement (e.g. the scheduler watchdog).
+ */
+public final class TelemetryBudget
+{
+
+  /**
+   * Telemetry budget enabled.
+   */
+  private static boolean         enabled                = true;
+  /**
+   * Loop time above which the loop is considered overrun, in seconds.
+   */
+  private static double          overrunSeconds         = 0.022;
+  /**
+   * Loop time below which the loop is considered to have headroom, in seconds.
+   */
+  private static double          headroomSeconds        = 0.0205;
+  /**
+   * Consecutive overrun loops before stepping down a tier.
+   */
+  private static int             degradeLoops           = 5;
+  /**
+   * Consecutive loops with headroom before stepping up a tier.
+   */
+  private static int             restoreLoops           = 50;
+  /**
+   * Current tier.
+   */
+  private static Tier            tier                   = Tier.FULL;
+  /**
+   * Consecutive overrun loops.
+   */
+  private static int             overrunCount           = 0;
+  /**
+   * Consecutive loops with headroom.
+   */
+  private static int             headroomCount          = 0;
+  /**
+   * Loops processed, used to spread the publishing of reduced rate tiers.
+   */
+  private static long            loopCount              = 0;
+  /**
+   * Last timestamp given to {@link #update(double)}, in seconds.
+   */
+  private static double          lastTimestamp          = 0;
+  /**
+   * Next publish offset handed out to a {@link SmartMotorControllerTelemetry}.
+   */
+  private static int             nextOffset             = 0;
+  /**
+   * Tier publisher.
+   */
+  private static StringPublisher tierPublisher;
+  /**
+   * Loop time publisher.
+   */
+  private static DoublePublisher loopTimePublisher;
+
+  /**
+   * Telemetry tiers, from full telemetry to the least telemetry.
+   */
+  public enum Tier
+  {
+    /**
+     * Configured verbosity, published every loop.
+     */
+    FULL(TelemetryVerbosity.HIGH, 1),
+    /**
+     * Configured verbosity, published every other loop.
+     */
+    HALF_RATE(TelemetryVerbosity.HIGH, 2),
+    /**
+     * At most {@link TelemetryVerbosity#MID}, published every 5th loop.
+     */
+    MID(TelemetryVerbosity.MID, 5),
+    /**
+     * At most {@link TelemetryVerbosity#LOW}, published every 10th loop.
+     */
+    LOW(TelemetryVerbosity.LOW, 10);
+
+    /**
+     * Highest verbosity published in this tier.
+     */
+    private final TelemetryVerbosity maxVerbosity;
+    /**
+     * Publish every n loops.
+     */
+    private final int                publishPeriod;
+
+    /**
+     * Create the tier.
+     *
+     * @param maxVerbosity  Highest verbosity published in this tier.
+     * @param publishPeriod Publish every n loops.
+     */
+    Tier(TelemetryVerbosity maxVerbosity, int publishPeriod)
+    {
+      this.maxVerbosity = maxVerbosity;
+      this.publishPeriod = publishPeriod;
+    }
+
+    /**
+     * Get the highest {@link TelemetryVerbosity} published in this tier.
+     *
+     * @return Highest {@link TelemetryVerbosity}.
+     */
+    public TelemetryVerbosity getMaxVerbosity()
+    {
+      return maxVerbosity;
+    }
+
+    /**
+     * Get the publish period in loops.
+     *
+     * @return Publish every n loops.
+     */
+    public int getPublishPeriod()
+    {
+      return publishPeriod;
+    }
+  }
+
+  /**
+   * Static utility class.
+   */
+  private TelemetryBudget()
+  {
+  }
+
+  /**
+   * Enable or disable the telemetry budget, disabling restores {@link Tier#FULL}.
+   *
+   * @param enable Enable the telemetry budget.
+   */
+  public static void setEnabled(boolean enable)
+  {
+    enabled = enable;
+    if (!enable)
+    {
+      reset();
+    }
+  }
+
+  /**
+   * Set the loop time thresholds.
+   *
+   * @param overrun  Loop time above which the loop is overrun.
+   * @param headroom Loop time below which the loop has headroom, must be less than or equal to the overrun
+   *                 threshold.
+   */
+  public static void setBudget(Time overrun, Time headroom)
+  {
+    if (headroom.gt(overrun))
+    {
+      throw new IllegalArgumentException("Headroom threshold must not be greater than the overrun threshold.");
+    }
+    overrunSeconds = overrun.in(Seconds);
+    headroomSeconds = headroom.in(Seconds);
+  }
+
+  /**
+   * Set the hysteresis in loops.
+   *
+   * @param degrade Consecutive overrun loops before stepping down a tier.
+   * @param restore Consecutive loops with headroom before stepping up a tier.
+   */
+  public static void setHysteresis(int degrade, int restore)
+  {
+    degradeLoops = Math.max(1, degrade);
+    restoreLoops = Math.max(1, restore);
+  }
+
+  /**
+   * Reset to {@link Tier#FULL} and clear the loop counters.
+   */
+  public static void reset()
+  {
+    tier = Tier.FULL;
+    overrunCount = 0;
+    headroomCount = 0;
+    lastTimestamp = 0;
+  }
+
+  /**
+   * Get the current {@link Tier}.
+   *
+   * @return Current {@link Tier}.
+   */
+  public static Tier getTier()
+  {
+    return tier;
+  }
+
+  /**
+   * Update the budget from the loop timestamp. Multiple mechanisms call this every loop, only the first call of each
+   * loop is used.
+   *
+   * @param timestampSeconds Current timestamp in seconds.
+   */
+  public static void update(double timestampSeconds)
+  {
+    if (lastTimestamp == 0)
+    {
+      lastTimestamp = timestampSeconds;
+      return;
+    }
+    double loopTime = timestampSeconds - lastTimestamp;
+    // Calls within half a loop of the last one are from the same loop.
+    if (loopTime < headroomSeconds / 2)
+    {
+      return;
+    }
+    lastTimestamp = timestampSeconds;
+    reportLoopTime(loopTime);
+  }
+
+  /**
+   * Report the loop time of one robot loop and step the {@link Tier} if needed.
+   *
+   * @param loopTimeSeconds Loop time in seconds.
+   */
+  public static void reportLoopTime(double loopTimeSeconds)
+  {
+    if (!enabled)
+    {
+      return;
+    }
+    loopCount++;
+    if (loopTimeSeconds > overrunSeconds)
+    {
+      headroomCount = 0;
+      if (++overrunCount >= degradeLoops && tier.ordinal() < Tier.values().length - 1)
+      {
+        overrunCount = 0;
+        setTier(Tier.values()[tier.ordinal() + 1], loopTimeSeconds);
+      }
+    } else if (loopTimeSeconds < headroomSeconds)
+    {
+      overrunCount = 0;
+      if (++headroomCount >= restoreLoops && tier.ordinal() > 0)
+      {
+        headroomCount = 0;
+        setTier(Tier.values()[tier.ordinal() - 1], loopTimeSeconds);
+      }
+    } else
+    {
+      overrunCount = 0;
+      headroomCount = 0;
+    }
+  }
+
+  /**
+   * Get a publish offset so telemetry on reduced rate tiers is spread over the loops instead of all publishing in the
+   * same loop.
+   *
+   * @return Publish offset.
+   */
+  static int nextPublishOffset()
+  {
+    return nextOffset++;
+  }
+
+  /**
+   * Check if telemetry with the given offset should publish this loop.
+   *
+   * @param offset Publish offset from {@link #nextPublishOffset()}.
+   * @return True if the telemetry should publish.
+   */
+  static boolean shouldPublish(int offset)
+  {
+    return (loopCount + offset) % tier.publishPeriod == 0;
+  }
+
+  /**
+   * Check if a field with the given {@link TelemetryVerbosity} is published in the current tier.
+   *
+   * @param verbosity {@link TelemetryVerbosity} of the field.
+   * @return True if the field is published.
+   */
+  static boolean allows(TelemetryVerbosity verbosity)
+  {
+    return verbosity.ordinal() <= tier.maxVerbosity.ordinal();
+  }
+
+  /**
+   * Change the tier and publish it.
+   *
+   * @param newTier         New {@link Tier}.
+   * @param loopTimeSeconds Loop time that caused the change.
+   */
+  private static void setTier(Tier newTier, double loopTimeSeconds)
+  {
+    tier = newTier;
+    if (tierPublisher == null)
+    {
+      NetworkTable table = NetworkTableInstance.getDefault().getTable("Mechanisms").getSubTable("Telemetry Budget");
+      tierPublisher = table.getStringTopic("Tier").publish();
+      loopTimePublisher = table.getDoubleTopic("Loop Time").publish();
+      table.getDoubleTopic("Loop Time").setProperties("{\"unit\":\"second\"}");
+    }
+    tierPublisher.set(newTier.name());
+    loopTimePublisher.set(loopTimeSeconds);
+  }
+}